@@ -0,0 +1,46 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.model.Conta;
+
+/**
+ * Sistema sob carga do {@link GeradorCarga}: os controllers no mesmo
+ * processo ({@link AlvoControllers}) ou um servidor em modo HTTP
+ * ({@link AlvoHttp}). As contas são identificadas pelo índice usado no
+ * preparo, convertido em agência e número por {@link DadosBanco}.
+ * <p>
+ * As operações devolvem false quando a conta recusa a operação (saldo
+ * insuficiente, limite de saques), e lançam exceção nos demais erros.
+ */
+interface AlvoCarga extends AutoCloseable {
+    /** A cada quantas contas uma é conta salário, recebendo os depósitos de folha. */
+    int INTERVALO_CONTAS_SALARIO = 10;
+    int LIMITE_SAQUES_SALARIO = 5;
+    double SALDO_INICIAL = 10_000.00;
+
+    static boolean isContaSalario(int indice) {
+        return indice % INTERVALO_CONTAS_SALARIO == INTERVALO_CONTAS_SALARIO - 1;
+    }
+
+    static Conta.TipoConta tipo(int indice) {
+        return isContaSalario(indice) ? Conta.TipoConta.SALARIO : DadosBanco.tipo(indice);
+    }
+
+    /**
+     * Cadastra as contas {@code 0..quantidadeContas-1} e seus clientes.
+     */
+    void preparar(int quantidadeContas) throws Exception;
+
+    boolean depositar(int indice, double valor) throws Exception;
+
+    boolean sacar(int indice, double valor) throws Exception;
+
+    boolean transferir(int origem, int destino, double valor) throws Exception;
+
+    void consultar(int indice) throws Exception;
+
+    void exportar() throws Exception;
+
+    @Override
+    default void close() throws Exception {
+    }
+}
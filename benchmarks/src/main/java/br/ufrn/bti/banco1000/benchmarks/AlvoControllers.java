@@ -0,0 +1,83 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.ContaSalario;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Carga aplicada diretamente sobre um {@link ContaController} no mesmo processo.
+ */
+final class AlvoControllers implements AlvoCarga {
+    private final ContaController contas = new ContaController();
+    private Path arquivoExportacao;
+
+    @Override
+    public void preparar(int quantidadeContas) throws Exception {
+        ClienteController clientes = DadosBanco.clientes(Math.max(1, quantidadeContas / DadosBanco.CONTAS_POR_CLIENTE));
+        int quantidadeClientes = clientes.listarClientes().size();
+        contas.reservarCapacidade(quantidadeContas);
+        for (int i = 0; i < quantidadeContas; i++) {
+            Cliente cliente = clientes.buscarClientePorCpf(DadosBanco.cpf(i % quantidadeClientes));
+            Conta conta = AlvoCarga.isContaSalario(i)
+                    ? new ContaSalario(cliente.getNome(), cliente, DadosBanco.agencia(i), DadosBanco.numeroConta(i),
+                            1234, SALDO_INICIAL, LIMITE_SAQUES_SALARIO)
+                    : new Conta(cliente.getNome(), cliente, DadosBanco.agencia(i), DadosBanco.numeroConta(i),
+                            AlvoCarga.tipo(i), 1234, SALDO_INICIAL);
+            contas.adicionarConta(conta);
+        }
+        arquivoExportacao = Files.createTempFile("carga-contas", ".csv");
+        arquivoExportacao.toFile().deleteOnExit();
+    }
+
+    private Conta conta(int indice) {
+        return contas.buscarConta(DadosBanco.agencia(indice), DadosBanco.numeroConta(indice));
+    }
+
+    @Override
+    public boolean depositar(int indice, double valor) {
+        contas.depositar(conta(indice), valor);
+        return true;
+    }
+
+    @Override
+    public boolean sacar(int indice, double valor) {
+        try {
+            contas.sacar(conta(indice), valor);
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean transferir(int origem, int destino, double valor) {
+        try {
+            contas.transferir(conta(origem), conta(destino), valor);
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void consultar(int indice) {
+        conta(indice).getSaldoCentavos();
+    }
+
+    @Override
+    public void exportar() {
+        contas.exportarContasCsv(arquivoExportacao.toString());
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (arquivoExportacao != null) {
+            Files.deleteIfExists(arquivoExportacao);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Carga aplicada a um servidor em modo HTTP ({@code ServidorBanco}). A
+ * exportação é simulada por uma listagem paginada de contas.
+ */
+final class AlvoHttp implements AlvoCarga {
+    private final String base;
+    private final boolean preparar;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    /**
+     * @param base Endereço do servidor, como {@code http://localhost:8080}.
+     * @param preparar Se false, as contas já devem existir no servidor.
+     */
+    AlvoHttp(String base, boolean preparar) {
+        this.base = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+        this.preparar = preparar;
+    }
+
+    @Override
+    public void preparar(int quantidadeContas) throws Exception {
+        if (!preparar) {
+            return;
+        }
+        int quantidadeClientes = Math.max(1, quantidadeContas / DadosBanco.CONTAS_POR_CLIENTE);
+        for (int i = 0; i < quantidadeClientes; i++) {
+            enviar("/clientes", "nome=Cliente+" + i + "&cpf=" + DadosBanco.cpf(i)
+                    + "&email=cliente" + i + "%40banco1000.com&telefone=84900000000");
+        }
+        for (int i = 0; i < quantidadeContas; i++) {
+            int status = enviar("/contas", "cpf=" + DadosBanco.cpf(i % quantidadeClientes)
+                    + "&agencia=" + DadosBanco.agencia(i) + "&numero=" + DadosBanco.numeroConta(i)
+                    + "&tipo=" + AlvoCarga.tipo(i).name() + "&senha=1234&saldo=" + SALDO_INICIAL);
+            if (status != 201 && status != 409) {
+                throw new IOException("Falha ao criar a conta " + i + ": HTTP " + status);
+            }
+        }
+    }
+
+    @Override
+    public boolean depositar(int indice, double valor) throws Exception {
+        return aceito(enviar("/depositos", conta("", indice) + "&valor=" + valor));
+    }
+
+    @Override
+    public boolean sacar(int indice, double valor) throws Exception {
+        return aceito(enviar("/saques", conta("", indice) + "&valor=" + valor));
+    }
+
+    @Override
+    public boolean transferir(int origem, int destino, double valor) throws Exception {
+        return aceito(enviar("/transferencias", conta("Origem", origem) + "&" + conta("Destino", destino)
+                + "&valor=" + valor));
+    }
+
+    @Override
+    public void consultar(int indice) throws Exception {
+        aceito(obter("/contas/" + DadosBanco.agencia(indice) + "/" + DadosBanco.numeroConta(indice)));
+    }
+
+    @Override
+    public void exportar() throws Exception {
+        aceito(obter("/contas"));
+    }
+
+    private static String conta(String sufixo, int indice) {
+        return "agencia" + sufixo + "=" + DadosBanco.agencia(indice)
+                + "&numero" + sufixo + "=" + DadosBanco.numeroConta(indice);
+    }
+
+    private int enviar(String caminho, String formulario) throws IOException, InterruptedException {
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create(base + caminho))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(formulario))
+                .build();
+        return http.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int obter(String caminho) throws IOException, InterruptedException {
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create(base + caminho)).GET().build();
+        return http.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /** 2xx é aceito, 409 é recusa pelas regras da conta; o resto é erro. */
+    private static boolean aceito(int status) throws IOException {
+        if (status / 100 == 2) {
+            return true;
+        }
+        if (status == 409) {
+            return false;
+        }
+        throw new IOException("Resposta HTTP " + status);
+    }
+}
@@ -0,0 +1,91 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.controller.BancoAgencias;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão do {@link BancoAgencias} com números diferentes de agências. Cada
+ * invocação enfileira um lote de transferências entre contas aleatórias e
+ * espera todas terminarem; com mais agências que núcleos, o tempo por
+ * operação deixa de cair. A proporção de transferências entre agências é
+ * controlada por {@code percentualEntreAgencias}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Dbanco1000.eventos.nivel=DESLIGADO"})
+public class BancoAgenciasBenchmark {
+    private static final int CONTAS_POR_AGENCIA = 10_000;
+    private static final int TRANSFERENCIAS_POR_LOTE = 10_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int agencias;
+
+    @Param({"0", "10"})
+    public int percentualEntreAgencias;
+
+    private BancoAgencias banco;
+    private int[] ordens;
+    private CompletableFuture<?>[] pendentes;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = new BancoAgencias();
+        Cliente cliente = new Cliente("Cliente", DadosBanco.cpf(0), "cliente@email.com", "99999-9999");
+        for (int a = 1; a <= agencias; a++) {
+            banco.criarAgencia(a, "Agência " + a);
+            for (int n = 0; n < CONTAS_POR_AGENCIA; n++) {
+                banco.adicionarConta(new Conta("Conta", cliente, a, n, Conta.TipoConta.CORRENTE, 1, 1_000_000.00));
+            }
+        }
+        banco.listarContas(agencias).join();
+
+        // Quatro inteiros por ordem: agência e conta de origem, agência e conta de destino
+        Random aleatorio = new Random(42);
+        ordens = new int[TRANSFERENCIAS_POR_LOTE * 4];
+        for (int i = 0; i < TRANSFERENCIAS_POR_LOTE; i++) {
+            int origem = 1 + aleatorio.nextInt(agencias);
+            int destino = aleatorio.nextInt(100) < percentualEntreAgencias ? 1 + aleatorio.nextInt(agencias) : origem;
+            ordens[i * 4] = origem;
+            ordens[i * 4 + 1] = aleatorio.nextInt(CONTAS_POR_AGENCIA);
+            ordens[i * 4 + 2] = destino;
+            ordens[i * 4 + 3] = aleatorio.nextInt(CONTAS_POR_AGENCIA);
+        }
+        pendentes = new CompletableFuture<?>[TRANSFERENCIAS_POR_LOTE];
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        banco.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFERENCIAS_POR_LOTE)
+    public void transferirLote() {
+        for (int i = 0; i < TRANSFERENCIAS_POR_LOTE; i++) {
+            pendentes[i] = banco.transferir(ordens[i * 4], ordens[i * 4 + 1], ordens[i * 4 + 2], ordens[i * 4 + 3], 0.01);
+        }
+        CompletableFuture.allOf(pendentes).join();
+    }
+}
@@ -0,0 +1,59 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.model.Cliente;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca de clientes por CPF. Os CPFs consultados são montados antes da
+ * medição, para que a alocação medida seja só a da busca.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dbanco1000.eventos.nivel=DESLIGADO"})
+public class ClienteControllerBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int quantidadeClientes;
+
+    private ClienteController controller;
+    private String[] cpfs;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        controller = DadosBanco.clientes(quantidadeClientes);
+        cpfs = new String[quantidadeClientes];
+        for (int i = 0; i < quantidadeClientes; i++) {
+            cpfs[i] = DadosBanco.cpf(i);
+        }
+    }
+
+    @Benchmark
+    public Cliente buscarClientePorCpf() {
+        return controller.buscarClientePorCpf(cpfs[ThreadLocalRandom.current().nextInt(quantidadeClientes)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Cliente buscarClientePorCpfConcorrente() {
+        return buscarClientePorCpf();
+    }
+}
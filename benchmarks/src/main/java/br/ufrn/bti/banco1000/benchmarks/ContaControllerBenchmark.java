@@ -0,0 +1,184 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.OrdemTransferencia;
+import br.ufrn.bti.banco1000.model.ResultadoTransferencia;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Operações do {@link ContaController} sobre bases de tamanhos diferentes.
+ * As variantes {@code *Concorrente} rodam com 4 threads sobre o mesmo
+ * controller; cada operação escolhe contas aleatórias.
+ * <p>
+ * Depósitos, saques e transferências acrescentam movimentações ao histórico,
+ * então a memória cresce ao longo da medição; as iterações são curtas para
+ * manter esse crescimento pequeno diante do tamanho da base.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dbanco1000.eventos.nivel=DESLIGADO"})
+public class ContaControllerBenchmark {
+    private static final int ORDENS_POR_LOTE = 10_000;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int quantidadeContas;
+
+    private ContaController controller;
+    private Conta[] contas;
+    private Cliente cliente;
+    private AtomicInteger proximoNumero;
+    private final AtomicLong proximaChave = new AtomicLong();
+    private List<OrdemTransferencia> lote;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        ClienteController clientes = DadosBanco.clientes(Math.max(1, quantidadeContas / DadosBanco.CONTAS_POR_CLIENTE));
+        controller = DadosBanco.contas(quantidadeContas, clientes);
+        contas = controller.listarContas().toArray(new Conta[0]);
+        cliente = clientes.buscarClientePorCpf(DadosBanco.cpf(0));
+        proximoNumero = new AtomicInteger(quantidadeContas);
+
+        Random aleatorio = new Random(42);
+        lote = new ArrayList<>(ORDENS_POR_LOTE);
+        for (int i = 0; i < ORDENS_POR_LOTE; i++) {
+            int origem = aleatorio.nextInt(quantidadeContas);
+            int destino = (origem + 1 + aleatorio.nextInt(quantidadeContas - 1)) % quantidadeContas;
+            lote.add(new OrdemTransferencia(DadosBanco.agencia(origem), DadosBanco.numeroConta(origem),
+                    DadosBanco.agencia(destino), DadosBanco.numeroConta(destino), 1.0));
+        }
+    }
+
+    private int indiceAleatorio() {
+        return ThreadLocalRandom.current().nextInt(quantidadeContas);
+    }
+
+    private Conta contaAleatoria() {
+        return contas[indiceAleatorio()];
+    }
+
+    @Benchmark
+    public void criarConta() {
+        int numero = proximoNumero.getAndIncrement();
+        controller.criarConta(cliente.getNome(), cliente, DadosBanco.agencia(numero), numero,
+                Conta.TipoConta.CORRENTE, 1234, 100.0);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void criarContaConcorrente() {
+        criarConta();
+    }
+
+    @Benchmark
+    public Conta buscarConta() {
+        int i = indiceAleatorio();
+        return controller.buscarConta(DadosBanco.agencia(i), DadosBanco.numeroConta(i));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Conta buscarContaConcorrente() {
+        return buscarConta();
+    }
+
+    @Benchmark
+    public void depositar() {
+        controller.depositar(contaAleatoria(), 10.0);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void depositarConcorrente() {
+        depositar();
+    }
+
+    /** Todas as threads depositam na mesma conta: mede a disputa pelo saldo e pelo histórico. */
+    @Benchmark
+    @Threads(4)
+    public void depositarMesmaContaConcorrente() {
+        controller.depositar(contas[0], 10.0);
+    }
+
+    /** Depósito com chave nova a cada chamada: mede o custo do cache de idempotência sobre {@link #depositar()}. */
+    @Benchmark
+    public boolean depositarIdempotente() {
+        return controller.depositar(contaAleatoria(), 10.0, Long.toString(proximaChave.getAndIncrement()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean depositarIdempotenteConcorrente() {
+        return depositarIdempotente();
+    }
+
+    @Benchmark
+    public void sacar() {
+        controller.sacar(contaAleatoria(), 1.0);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void sacarConcorrente() {
+        sacar();
+    }
+
+    @Benchmark
+    public void transferir() {
+        int origem = indiceAleatorio();
+        int destino = indiceAleatorio();
+        if (destino == origem) {
+            destino = (destino + 1) % quantidadeContas;
+        }
+        controller.transferir(contas[origem], contas[destino], 1.0);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void transferirConcorrente() {
+        transferir();
+    }
+
+    /** Referência para {@link #transferirLote()}: as mesmas ordens, uma chamada por ordem. */
+    @Benchmark
+    @OperationsPerInvocation(ORDENS_POR_LOTE)
+    public void transferirOrdensUmaAUma() {
+        for (OrdemTransferencia ordem : lote) {
+            Conta origem = controller.buscarConta(ordem.getAgenciaOrigem(), ordem.getNumeroContaOrigem());
+            Conta destino = controller.buscarConta(ordem.getAgenciaDestino(), ordem.getNumeroContaDestino());
+            controller.transferir(origem, destino, ordem.getValor());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDENS_POR_LOTE)
+    public List<ResultadoTransferencia> transferirLote() {
+        return controller.transferirLote(lote);
+    }
+}
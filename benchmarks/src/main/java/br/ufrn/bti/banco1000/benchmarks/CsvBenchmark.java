@@ -0,0 +1,90 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.utils.ExportarCSV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exportação e importação do arquivo de contas inteiro. Cada operação lê ou
+ * escreve um arquivo com {@code quantidadeContas} linhas em um diretório
+ * temporário; as importações só contam as linhas, para medir a leitura e a
+ * divisão em colunas sem o custo do cadastro.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dbanco1000.eventos.nivel=DESLIGADO"})
+public class CsvBenchmark {
+
+    private static final String[] CABECALHO = {
+            "Número Conta", "Nome Cliente", "Agência", "Tipo Conta", "Saldo", "Senha", "Parâmetro"
+    };
+
+    @Param({"10000", "1000000", "10000000"})
+    public int quantidadeContas;
+
+    private Path diretorio;
+    private Path arquivoImportado;
+    private Path arquivoExportado;
+    private List<Conta> contas;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        ClienteController clientes = DadosBanco.clientes(Math.max(1, quantidadeContas / DadosBanco.CONTAS_POR_CLIENTE));
+        ContaController controller = DadosBanco.contas(quantidadeContas, clientes);
+        contas = controller.listarContas();
+
+        diretorio = Files.createTempDirectory("banco1000-csv");
+        arquivoImportado = diretorio.resolve("contas.csv");
+        arquivoExportado = diretorio.resolve("exportado.csv");
+        controller.exportarContasCsv(arquivoImportado.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() throws IOException {
+        Files.deleteIfExists(arquivoImportado);
+        Files.deleteIfExists(arquivoExportado);
+        Files.deleteIfExists(diretorio);
+    }
+
+    @Benchmark
+    public void export() throws IOException {
+        ExportarCSV.export(arquivoExportado.toString(), CABECALHO, contas, Conta::escreverCsv);
+    }
+
+    @Benchmark
+    public long importar() throws IOException {
+        long[] linhas = new long[1];
+        ExportarCSV.importar(arquivoImportado.toString(), campos -> linhas[0] += campos.length);
+        return linhas[0];
+    }
+
+    @Benchmark
+    public long importarParalelo() throws IOException {
+        long[] linhas = new long[1];
+        ExportarCSV.importarParalelo(arquivoImportado.toString(), campos -> linhas[0] += campos.length);
+        return linhas[0];
+    }
+}
@@ -0,0 +1,56 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+
+/**
+ * Gera os dados sintéticos usados pelos benchmarks: um cliente para cada
+ * {@value #CONTAS_POR_CLIENTE} contas, contas distribuídas em
+ * {@value #AGENCIAS} agências e saldo inicial alto o bastante para que
+ * saques e transferências não falhem durante as medições.
+ */
+final class DadosBanco {
+    static final int AGENCIAS = 100;
+    static final int CONTAS_POR_CLIENTE = 4;
+    static final double SALDO_INICIAL = 1_000_000_000.0;
+
+    private DadosBanco() {
+    }
+
+    static String cpf(int indice) {
+        return String.format("%011d", indice);
+    }
+
+    static int agencia(int indice) {
+        return 1 + indice % AGENCIAS;
+    }
+
+    static int numeroConta(int indice) {
+        return indice;
+    }
+
+    static Conta.TipoConta tipo(int indice) {
+        // Só correntes e poupanças: contas salário limitam a quantidade de saques
+        return (indice & 1) == 0 ? Conta.TipoConta.CORRENTE : Conta.TipoConta.POUPANCA;
+    }
+
+    static ClienteController clientes(int quantidade) {
+        ClienteController controller = new ClienteController();
+        for (int i = 0; i < quantidade; i++) {
+            controller.cadastrarCliente("Cliente " + i, cpf(i), "cliente" + i + "@banco1000.com", "84900000000");
+        }
+        return controller;
+    }
+
+    static ContaController contas(int quantidade, ClienteController clientes) {
+        ContaController controller = new ContaController();
+        int quantidadeClientes = Math.max(1, quantidade / CONTAS_POR_CLIENTE);
+        for (int i = 0; i < quantidade; i++) {
+            Cliente cliente = clientes.buscarClientePorCpf(cpf(i % quantidadeClientes));
+            controller.criarConta(cliente.getNome(), cliente, agencia(i), numeroConta(i), tipo(i), 1234, SALDO_INICIAL);
+        }
+        return controller;
+    }
+}
@@ -0,0 +1,64 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+/**
+ * Sorteia posições em {@code [0, n)} com distribuição de Zipf: a posição 0 é
+ * a mais frequente, seguida de uma cauda longa de posições raras. Usa o
+ * método de Gray et al. ("Quickly Generating Billion-Record Synthetic
+ * Databases"), o mesmo do YCSB: a constante de normalização é calculada uma
+ * vez, em O(n), e cada sorteio é O(1).
+ */
+final class DistribuicaoZipf {
+    private final int n;
+    private final double theta;
+    private final double alpha;
+    private final double zetaN;
+    private final double eta;
+    private final double limiteSegundo;
+
+    /**
+     * @param n Quantidade de posições.
+     * @param theta Expoente, entre 0 (uniforme) e 1 exclusivo; 0,99 é o usual.
+     */
+    DistribuicaoZipf(int n, double theta) {
+        if (n < 1) {
+            throw new IllegalArgumentException("A quantidade de posições deve ser positiva.");
+        }
+        if (!(theta > 0 && theta < 1)) {
+            throw new IllegalArgumentException("O expoente deve estar entre 0 e 1.");
+        }
+        this.n = n;
+        this.theta = theta;
+        this.alpha = 1 / (1 - theta);
+        this.zetaN = zeta(n, theta);
+        double zeta2 = zeta(2, theta);
+        this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta2 / zetaN);
+        this.limiteSegundo = 1 + Math.pow(0.5, theta);
+    }
+
+    private static double zeta(int n, double theta) {
+        double soma = 0;
+        for (int i = 1; i <= n; i++) {
+            soma += 1 / Math.pow(i, theta);
+        }
+        return soma;
+    }
+
+    /**
+     * @param uniforme Valor uniforme em {@code [0, 1)}.
+     * @return Posição sorteada.
+     */
+    int sortear(double uniforme) {
+        double uz = uniforme * zetaN;
+        if (uz < 1) {
+            return 0;
+        }
+        if (uz < limiteSegundo) {
+            return Math.min(1, n - 1);
+        }
+        return (int) Math.min(n - 1, (long) (n * Math.pow(eta * uniforme - eta + 1, alpha)));
+    }
+
+    double getTheta() {
+        return theta;
+    }
+}
@@ -0,0 +1,31 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ponto de entrada do {@code benchmarks.jar}. Aceita as mesmas opções da
+ * linha de comando do JMH e sempre acrescenta o {@link GCProfiler}, para que
+ * a alocação por operação ({@code gc.alloc.rate.norm}) saia junto com o tempo.
+ * <p>
+ * Exemplos:
+ * <pre>
+ * java -jar target/benchmarks.jar                             # todos, todos os tamanhos
+ * java -jar target/benchmarks.jar ContaController -p quantidadeContas=10000
+ * java -jar target/benchmarks.jar Csv -f 1 -wi 1 -i 3
+ * </pre>
+ */
+public class ExecutarBenchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions linhaDeComando = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(linhaDeComando)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
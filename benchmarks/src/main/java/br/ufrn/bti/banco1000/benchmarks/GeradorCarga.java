@@ -0,0 +1,311 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.utils.HistogramaLatencia;
+import br.ufrn.bti.banco1000.utils.RegistroEventos;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga sintética com o perfil de produção: poucas contas de
+ * lojistas muito movimentadas e uma cauda longa de contas quietas (seleção
+ * de Zipf), mais rajadas periódicas de depósitos de folha de pagamento nas
+ * contas salário.
+ * <p>
+ * A carga é de laço aberto: as operações têm horários previstos a uma taxa
+ * fixa, independentes de quando as anteriores terminam, e a latência é
+ * medida a partir do horário previsto. Assim, quando o sistema atrasa, o
+ * tempo de espera das operações seguintes entra na medição, em vez de o
+ * gerador simplesmente desacelerar (a "omissão coordenada"). As operações do
+ * aquecimento são executadas, mas não medidas.
+ * <p>
+ * Uso, a partir de {@code benchmarks/}:
+ * <pre>
+ * java -cp target/benchmarks.jar br.ufrn.bti.banco1000.benchmarks.GeradorCarga \
+ *     --contas=100000 --taxa=20000 --duracao=30 \
+ *     --mistura=deposito:30,saque:20,transferencia:30,consulta:20,exportacao:0 \
+ *     --zipf=0.99 --folha-periodo=10 --folha-quantidade=5000
+ * </pre>
+ * Com {@code --url=http://localhost:8080} a carga vai para um servidor em
+ * modo HTTP em vez dos controllers no mesmo processo; {@code --preparar=false}
+ * usa as contas já cadastradas nele. Os eventos das contas ficam desligados,
+ * salvo se {@code -Dbanco1000.eventos.nivel} for informado.
+ */
+public final class GeradorCarga {
+
+    /** Operações geradas; {@code FOLHA} são os depósitos das rajadas de folha. */
+    enum Operacao {
+        DEPOSITO, SAQUE, TRANSFERENCIA, CONSULTA, EXPORTACAO, FOLHA
+    }
+
+    private static final Operacao[] SORTEAVEIS = {
+            Operacao.DEPOSITO, Operacao.SAQUE, Operacao.TRANSFERENCIA, Operacao.CONSULTA, Operacao.EXPORTACAO};
+
+    // Configuração, com os valores padrão
+    private int contas = 100_000;
+    private double taxa = 20_000;
+    private int duracaoSegundos = 30;
+    private int aquecimentoSegundos = 5;
+    private int threads = 64;
+    private double zipf = 0.99;
+    private int folhaPeriodoSegundos = 10;
+    private int folhaQuantidade = 5_000;
+    private final Map<Operacao, Double> mistura = new EnumMap<>(Operacao.class);
+    private String url;
+    private boolean prepararServidor = true;
+
+    // Estado da execução
+    private double[] pesosAcumulados;
+    private DistribuicaoZipf distribuicao;
+    private long inicio;
+    private long fimAquecimento;
+    private long intervalo;
+    private long periodoFolha;
+    private long totalRegulares;
+    private long totalFolha;
+    private final AtomicLong proximaRegular = new AtomicLong();
+    private final AtomicLong proximaFolha = new AtomicLong();
+    private final AtomicLong maiorAtraso = new AtomicLong();
+    private final Map<Operacao, LongAdder> recusadas = new EnumMap<>(Operacao.class);
+    private final Map<Operacao, LongAdder> erros = new EnumMap<>(Operacao.class);
+
+    private GeradorCarga() {
+        mistura.put(Operacao.DEPOSITO, 30.0);
+        mistura.put(Operacao.SAQUE, 20.0);
+        mistura.put(Operacao.TRANSFERENCIA, 30.0);
+        mistura.put(Operacao.CONSULTA, 20.0);
+        mistura.put(Operacao.EXPORTACAO, 0.0);
+        for (Operacao operacao : Operacao.values()) {
+            recusadas.put(operacao, new LongAdder());
+            erros.put(operacao, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        GeradorCarga gerador = new GeradorCarga();
+        gerador.configurar(args);
+        if (System.getProperty(RegistroEventos.PROPRIEDADE_NIVEL) == null) {
+            // Os eventos das contas no mesmo processo disputariam o console com o relatório
+            System.setProperty(RegistroEventos.PROPRIEDADE_NIVEL, RegistroEventos.Nivel.DESLIGADO.name());
+        }
+        try (AlvoCarga alvo = gerador.url == null
+                ? new AlvoControllers() : new AlvoHttp(gerador.url, gerador.prepararServidor)) {
+            System.out.println("Preparando " + gerador.contas + " contas...");
+            alvo.preparar(gerador.contas);
+            gerador.executar(alvo);
+        }
+    }
+
+    private void configurar(String[] args) {
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (!arg.startsWith("--") || igual < 0) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg + " (use --nome=valor).");
+            }
+            String valor = arg.substring(igual + 1);
+            switch (arg.substring(2, igual)) {
+                case "contas": contas = Integer.parseInt(valor); break;
+                case "taxa": taxa = Double.parseDouble(valor); break;
+                case "duracao": duracaoSegundos = Integer.parseInt(valor); break;
+                case "aquecimento": aquecimentoSegundos = Integer.parseInt(valor); break;
+                case "threads": threads = Integer.parseInt(valor); break;
+                case "zipf": zipf = Double.parseDouble(valor); break;
+                case "folha-periodo": folhaPeriodoSegundos = Integer.parseInt(valor); break;
+                case "folha-quantidade": folhaQuantidade = Integer.parseInt(valor); break;
+                case "url": url = valor; break;
+                case "preparar": prepararServidor = Boolean.parseBoolean(valor); break;
+                case "mistura":
+                    mistura.replaceAll((operacao, peso) -> 0.0);
+                    for (String item : valor.split(",")) {
+                        String[] partes = item.split(":");
+                        mistura.put(Operacao.valueOf(partes[0].trim().toUpperCase(Locale.ROOT)),
+                                Double.parseDouble(partes[1]));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opção desconhecida: " + arg);
+            }
+        }
+        if (contas < AlvoCarga.INTERVALO_CONTAS_SALARIO || taxa <= 0 || duracaoSegundos < 1 || threads < 1) {
+            throw new IllegalArgumentException("Contas, taxa, duração e threads devem ser positivas.");
+        }
+    }
+
+    private void executar(AlvoCarga alvo) throws InterruptedException {
+        pesosAcumulados = new double[SORTEAVEIS.length];
+        double soma = 0;
+        for (int i = 0; i < SORTEAVEIS.length; i++) {
+            soma += mistura.get(SORTEAVEIS[i]);
+            pesosAcumulados[i] = soma;
+        }
+        if (soma <= 0) {
+            throw new IllegalArgumentException("A mistura de operações não tem nenhum peso positivo.");
+        }
+        distribuicao = new DistribuicaoZipf(contas, zipf);
+
+        long nanosTotais = (aquecimentoSegundos + duracaoSegundos) * 1_000_000_000L;
+        intervalo = Math.max(1, (long) (1e9 / taxa));
+        totalRegulares = nanosTotais / intervalo;
+        periodoFolha = folhaPeriodoSegundos * 1_000_000_000L;
+        totalFolha = (folhaQuantidade > 0 && periodoFolha > 0)
+                ? (long) folhaQuantidade * ((nanosTotais - 1) / periodoFolha) : 0;
+
+        System.out.printf(Locale.ROOT, "Carga: %.0f ops/s por %d s (+%d s de aquecimento), %d threads, zipf %.2f, alvo %s%n",
+                taxa, duracaoSegundos, aquecimentoSegundos, threads, zipf, url == null ? "em processo" : url);
+        List<Thread> trabalhadores = new ArrayList<>(threads);
+        List<Map<Operacao, HistogramaLatencia>> histogramas = new ArrayList<>(threads);
+        inicio = System.nanoTime() + 100_000_000L;
+        fimAquecimento = inicio + aquecimentoSegundos * 1_000_000_000L;
+        for (int t = 0; t < threads; t++) {
+            Map<Operacao, HistogramaLatencia> proprios = new EnumMap<>(Operacao.class);
+            for (Operacao operacao : Operacao.values()) {
+                proprios.put(operacao, new HistogramaLatencia());
+            }
+            histogramas.add(proprios);
+            SplittableRandom aleatorio = new SplittableRandom(42 + t);
+            Thread trabalhador = new Thread(() -> trabalhar(alvo, aleatorio, proprios), "carga-" + t);
+            trabalhadores.add(trabalhador);
+            trabalhador.start();
+        }
+        for (Thread trabalhador : trabalhadores) {
+            trabalhador.join();
+        }
+        double segundos = (System.nanoTime() - fimAquecimento) / 1e9;
+
+        Map<Operacao, HistogramaLatencia> totais = new EnumMap<>(Operacao.class);
+        for (Operacao operacao : Operacao.values()) {
+            HistogramaLatencia total = new HistogramaLatencia();
+            for (Map<Operacao, HistogramaLatencia> proprios : histogramas) {
+                total.somar(proprios.get(operacao));
+            }
+            totais.put(operacao, total);
+        }
+        relatar(totais, segundos);
+    }
+
+    private void trabalhar(AlvoCarga alvo, SplittableRandom aleatorio, Map<Operacao, HistogramaLatencia> histogramas) {
+        int contasSalario = contas / AlvoCarga.INTERVALO_CONTAS_SALARIO;
+        while (true) {
+            long regular = proximaRegular.get();
+            long folha = proximaFolha.get();
+            long previstoRegular = regular < totalRegulares ? inicio + regular * intervalo : Long.MAX_VALUE;
+            long previstoFolha = folha < totalFolha
+                    ? inicio + (folha / folhaQuantidade + 1) * periodoFolha : Long.MAX_VALUE;
+            if (previstoRegular == Long.MAX_VALUE && previstoFolha == Long.MAX_VALUE) {
+                return;
+            }
+
+            Operacao operacao;
+            long previsto;
+            int indice;
+            if (previstoRegular <= previstoFolha) {
+                if (!proximaRegular.compareAndSet(regular, regular + 1)) {
+                    continue;
+                }
+                previsto = previstoRegular;
+                operacao = sortearOperacao(aleatorio);
+                indice = 0;
+            } else {
+                if (!proximaFolha.compareAndSet(folha, folha + 1)) {
+                    continue;
+                }
+                previsto = previstoFolha;
+                operacao = Operacao.FOLHA;
+                indice = (int) (folha % contasSalario) * AlvoCarga.INTERVALO_CONTAS_SALARIO
+                        + AlvoCarga.INTERVALO_CONTAS_SALARIO - 1;
+            }
+
+            long falta;
+            while ((falta = previsto - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(falta);
+            }
+            long atraso = -falta;
+            if (atraso > maiorAtraso.get()) {
+                maiorAtraso.accumulateAndGet(atraso, Math::max);
+            }
+
+            boolean medir = previsto >= fimAquecimento;
+            try {
+                if (!aplicar(alvo, operacao, indice, aleatorio) && medir) {
+                    recusadas.get(operacao).increment();
+                }
+            } catch (Exception e) {
+                if (medir) {
+                    erros.get(operacao).increment();
+                }
+            }
+            if (medir) {
+                histogramas.get(operacao).registrar(System.nanoTime() - previsto);
+            }
+        }
+    }
+
+    private Operacao sortearOperacao(SplittableRandom aleatorio) {
+        double sorteio = aleatorio.nextDouble() * pesosAcumulados[pesosAcumulados.length - 1];
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            if (sorteio < pesosAcumulados[i]) {
+                return SORTEAVEIS[i];
+            }
+        }
+        return SORTEAVEIS[SORTEAVEIS.length - 1];
+    }
+
+    /**
+     * Lojistas (as primeiras posições da distribuição de Zipf) recebem a
+     * maior parte dos depósitos, transferências e consultas; saques e origens
+     * de transferência são uniformes entre os clientes.
+     */
+    private boolean aplicar(AlvoCarga alvo, Operacao operacao, int indice, SplittableRandom aleatorio)
+            throws Exception {
+        switch (operacao) {
+            case DEPOSITO:
+                return alvo.depositar(distribuicao.sortear(aleatorio.nextDouble()), centavos(aleatorio, 1_000, 50_000));
+            case SAQUE:
+                return alvo.sacar(aleatorio.nextInt(contas), centavos(aleatorio, 1_000, 20_000));
+            case TRANSFERENCIA:
+                return alvo.transferir(aleatorio.nextInt(contas), distribuicao.sortear(aleatorio.nextDouble()),
+                        centavos(aleatorio, 100, 10_000));
+            case CONSULTA:
+                alvo.consultar(distribuicao.sortear(aleatorio.nextDouble()));
+                return true;
+            case EXPORTACAO:
+                alvo.exportar();
+                return true;
+            case FOLHA:
+                return alvo.depositar(indice, centavos(aleatorio, 150_000, 500_000));
+            default:
+                throw new IllegalStateException("Operação desconhecida: " + operacao);
+        }
+    }
+
+    private static double centavos(SplittableRandom aleatorio, int minimo, int maximo) {
+        return aleatorio.nextInt(minimo, maximo) / 100.0;
+    }
+
+    private void relatar(Map<Operacao, HistogramaLatencia> histogramas, double segundos) {
+        long medidas = 0;
+        System.out.printf(Locale.ROOT, "%n%-14s %10s %10s %8s %10s %10s %10s %10s%n",
+                "Operação", "Total", "Recusadas", "Erros", "p50 (µs)", "p99 (µs)", "p99.9 (µs)", "Máx (µs)");
+        for (Operacao operacao : Operacao.values()) {
+            HistogramaLatencia histograma = histogramas.get(operacao);
+            if (histograma.getQuantidade() == 0) {
+                continue;
+            }
+            medidas += histograma.getQuantidade();
+            System.out.printf(Locale.ROOT, "%-14s %10d %10d %8d %10.1f %10.1f %10.1f %10.1f%n",
+                    operacao.name().toLowerCase(Locale.ROOT), histograma.getQuantidade(),
+                    recusadas.get(operacao).sum(), erros.get(operacao).sum(),
+                    histograma.percentil(50) / 1e3, histograma.percentil(99) / 1e3,
+                    histograma.percentil(99.9) / 1e3, histograma.getMaximo() / 1e3);
+        }
+        System.out.printf(Locale.ROOT, "%nVazão medida: %.0f ops/s (prevista %.0f ops/s mais a folha); maior atraso sobre o horário previsto: %.1f ms%n",
+                medidas / segundos, taxa, maiorAtraso.get() / 1e6);
+    }
+}
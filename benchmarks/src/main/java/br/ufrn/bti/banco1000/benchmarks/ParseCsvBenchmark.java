@@ -0,0 +1,59 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.Movimentacao;
+import br.ufrn.bti.banco1000.utils.CursorCSV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão de uma linha CSV em objeto. Não depende do tamanho da base, por
+ * isso não tem parâmetro de quantidade.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseCsvBenchmark {
+
+    private final Cliente cliente = new Cliente("Maria Silva", "12345678909", "maria@banco1000.com", "84900000000");
+    private final String linhaConta = "123456,Maria Silva,42,CORRENTE,1500.75,1234,12.50";
+    private final String linhaMovimentacao = "DEPOSITO,123456,Depósito realizado,250.0,2024-03-15";
+    private final byte[] bytesConta = linhaConta.getBytes(StandardCharsets.UTF_8);
+    private final byte[] bytesMovimentacao = linhaMovimentacao.getBytes(StandardCharsets.UTF_8);
+    private final CursorCSV cursor = new CursorCSV();
+
+    @Benchmark
+    public Conta contaFromCsv() {
+        return Conta.fromCsv(linhaConta, cliente);
+    }
+
+    @Benchmark
+    public Movimentacao movimentacaoFromCsv() {
+        return Movimentacao.fromCsv(linhaMovimentacao);
+    }
+
+    /** Como na leitura de um arquivo: bytes em UTF-8 e um cursor reutilizado. */
+    @Benchmark
+    public Conta contaCursor() {
+        return Conta.fromCsv(cursor.linha(bytesConta, 0, bytesConta.length), cliente);
+    }
+
+    @Benchmark
+    public Movimentacao movimentacaoCursor() {
+        return Movimentacao.fromCsv(cursor.linha(bytesMovimentacao, 0, bytesMovimentacao.length));
+    }
+}
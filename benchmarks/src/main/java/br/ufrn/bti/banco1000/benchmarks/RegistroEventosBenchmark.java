@@ -0,0 +1,84 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.model.EventoConta;
+import br.ufrn.bti.banco1000.utils.RegistroEventos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de registrar uma mensagem de operação com 16 threads concorrentes:
+ * {@code println} direto em um {@link PrintStream} compartilhado (como o
+ * modelo fazia), o {@link RegistroEventos} ativo e o registro desligado.
+ * <p>
+ * As saídas descartam o texto, de modo que a medição inclui a montagem da
+ * mensagem e a disputa pela saída, mas não a escrita no terminal. Com o
+ * registro ativo, eventos além do que a thread de fundo consegue consumir são
+ * descartados; a quantidade é impressa ao fim de cada iteração.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class RegistroEventosBenchmark {
+    private PrintStream saida;
+    private RegistroEventos ativo;
+    private RegistroEventos desligado;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        saida = new PrintStream(OutputStream.nullOutputStream(), false);
+        ativo = new RegistroEventos(RegistroEventos.Destino.nulo(), RegistroEventos.CAPACIDADE_PADRAO,
+                RegistroEventos.Nivel.INFO);
+        desligado = new RegistroEventos(RegistroEventos.Destino.nulo(), RegistroEventos.CAPACIDADE_PADRAO,
+                RegistroEventos.Nivel.DESLIGADO);
+    }
+
+    @TearDown(Level.Iteration)
+    public void informarDescartes() {
+        System.out.println("eventos descartados (acumulado): " + ativo.getDescartados());
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        ativo.close();
+        desligado.close();
+    }
+
+    @Benchmark
+    public void println() {
+        int conta = ThreadLocalRandom.current().nextInt(1_000_000);
+        saida.println("Saque realizado na conta " + conta + ". Saques restantes este mês: " + (conta & 3));
+    }
+
+    @Benchmark
+    public void registroAtivo() {
+        int conta = ThreadLocalRandom.current().nextInt(1_000_000);
+        ativo.registrar(EventoConta.SAQUE_CONTA_SALARIO, conta, 1000, conta & 3);
+    }
+
+    @Benchmark
+    public void registroDesligado() {
+        int conta = ThreadLocalRandom.current().nextInt(1_000_000);
+        desligado.registrar(EventoConta.SAQUE_CONTA_SALARIO, conta, 1000, conta & 3);
+    }
+}
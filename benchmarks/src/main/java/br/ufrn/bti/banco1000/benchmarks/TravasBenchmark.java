@@ -0,0 +1,96 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão do {@link ContaController} com travas listradas por conta
+ * ({@code listras=1024}) contra uma única trava global ({@code listras=1}),
+ * com 1, 4, 16 e 64 threads. Cada operação é um depósito, um saque ou uma
+ * transferência entre contas aleatórias, em proporções iguais.
+ * <p>
+ * Exemplo: {@code java -jar target/benchmarks.jar Travas -p listras=1,1024}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Dbanco1000.eventos.nivel=DESLIGADO"})
+public class TravasBenchmark {
+    private static final int QUANTIDADE_CONTAS = 10_000;
+
+    @Param({"1", "1024"})
+    public int listras;
+
+    private ContaController controller;
+    private Conta[] contas;
+
+    /** Recriado a cada iteração, para que o crescimento dos históricos não se acumule entre as medições. */
+    @Setup(Level.Iteration)
+    public void preparar() {
+        Cliente cliente = new Cliente("Travas", DadosBanco.cpf(0), "travas@email.com", "84999990000");
+        controller = new ContaController(listras);
+        contas = new Conta[QUANTIDADE_CONTAS];
+        for (int i = 0; i < QUANTIDADE_CONTAS; i++) {
+            contas[i] = new Conta("Conta " + i, cliente, 1, i, Conta.TipoConta.CORRENTE, 1234, 1_000_000.00);
+            controller.adicionarConta(contas[i]);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void operacao1Thread() {
+        operar();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void operacao4Threads() {
+        operar();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void operacao16Threads() {
+        operar();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void operacao64Threads() {
+        operar();
+    }
+
+    private void operar() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        Conta origem = contas[aleatorio.nextInt(QUANTIDADE_CONTAS)];
+        switch (aleatorio.nextInt(3)) {
+            case 0 -> controller.depositar(origem, 1.00);
+            case 1 -> controller.sacar(origem, 1.00);
+            default -> {
+                Conta destino = contas[aleatorio.nextInt(QUANTIDADE_CONTAS)];
+                if (origem != destino) {
+                    controller.transferir(origem, destino, 1.00);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package br.ufrn.bti.banco1000.benchmarks;
+
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.controller.VisaoContas;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo das épocas de versão de leitura em um depósito, direto em
+ * {@link Conta#depositar(double)}, sem as travas e métricas do controller:
+ * {@code depositarSemVersoes} usa contas fora de qualquer controller, que não
+ * passam pelas épocas; {@code depositarComVersoes}, contas de um controller.
+ * Com {@code versaoAberta}, uma versão do controller fica aberta durante a
+ * iteração, e a primeira inclusão em cada conta preserva o estado anterior.
+ * As contas são recriadas a cada iteração, para que o crescimento dos
+ * históricos não se acumule entre as medições.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Dbanco1000.eventos.nivel=DESLIGADO"})
+public class VersoesBenchmark {
+    private static final int QUANTIDADE_CONTAS = 1024;
+
+    @Param({"false", "true"})
+    public boolean versaoAberta;
+
+    private Conta[] avulsas;
+    private Conta[] cadastradas;
+    private ContaController controller;
+    private VisaoContas visao;
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        Cliente cliente = new Cliente("Versoes", DadosBanco.cpf(0), "versoes@email.com", "84999990000");
+        controller = new ContaController();
+        avulsas = new Conta[QUANTIDADE_CONTAS];
+        cadastradas = new Conta[QUANTIDADE_CONTAS];
+        for (int i = 0; i < QUANTIDADE_CONTAS; i++) {
+            avulsas[i] = new Conta("Avulsa", cliente, 1, i, Conta.TipoConta.CORRENTE, 1234, 100.0);
+            cadastradas[i] = new Conta("Cadastrada", cliente, 1, i, Conta.TipoConta.CORRENTE, 1234, 100.0);
+            controller.adicionarConta(cadastradas[i]);
+        }
+        visao = versaoAberta ? controller.abrirVisao() : null;
+    }
+
+    @TearDown(Level.Iteration)
+    public void fecharVisao() {
+        if (visao != null) {
+            visao.close();
+        }
+    }
+
+    private static int indiceAleatorio() {
+        return ThreadLocalRandom.current().nextInt(QUANTIDADE_CONTAS);
+    }
+
+    @Benchmark
+    public void depositarSemVersoes() {
+        avulsas[indiceAleatorio()].depositar(10.0);
+    }
+
+    @Benchmark
+    public void depositarComVersoes() {
+        cadastradas[indiceAleatorio()].depositar(10.0);
+    }
+}
@@ -1,20 +1,176 @@
 package br.ufrn.bti.banco1000;
 
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
 import br.ufrn.bti.banco1000.gui.BancoGUI;
+import br.ufrn.bti.banco1000.persistence.JournalOperacoes;
+import br.ufrn.bti.banco1000.persistence.ModoDurabilidade;
+import br.ufrn.bti.banco1000.persistence.SnapshotBanco;
+import br.ufrn.bti.banco1000.servidor.ServidorBanco;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Classe principal para inicializar o sistema bancário.
+ * <p>
+ * Com a propriedade {@code banco1000.journal} definida (caminho do arquivo),
+ * o estado é recuperado do journal na inicialização e todas as operações
+ * passam a ser registradas nele. A propriedade {@code banco1000.durabilidade}
+ * escolhe o {@link ModoDurabilidade} (padrão: {@code EM_LOTE}).
+ * <p>
+ * A propriedade {@code banco1000.snapshot} (caminho do arquivo) faz o estado
+ * ser restaurado do {@link SnapshotBanco} na inicialização, se o arquivo
+ * existir, gravado nele em segundo plano a cada
+ * {@code banco1000.snapshot.intervalo} segundos (padrão: 60) e uma última vez
+ * ao encerrar. Com as duas propriedades, cada snapshot guarda a posição do
+ * journal em que foi tomado, e a inicialização restaura o snapshot e reaplica
+ * só o restante do journal. Um snapshot sem essa posição, gravado sem
+ * journal, só é usado se o journal ainda não existir.
+ * <p>
+ * Com a propriedade {@code banco1000.servidor} (porta), o console dá lugar ao
+ * {@link ServidorBanco}, que atende por HTTP no endereço local até a JVM ser
+ * encerrada (Ctrl+C ou sinal de término); o snapshot e o journal são
+ * fechados normalmente antes de a JVM terminar.
  */
 public class Main {
+    private static final long INTERVALO_SNAPSHOT_PADRAO_SEGUNDOS = 60;
+    private static final CountDownLatch ENCERRAR_SERVIDOR = new CountDownLatch(1);
+    private static final CountDownLatch APLICACAO_ENCERRADA = new CountDownLatch(1);
 
     /**
      * Método principal que inicia a aplicação.
      *
      * @param args Argumentos de linha de comando.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        try {
+            iniciar();
+        } finally {
+            APLICACAO_ENCERRADA.countDown();
+        }
+    }
+
+    private static void iniciar() throws IOException {
         System.out.println("Iniciando o sistema Banco 1000...");
-        BancoGUI bancoGUI = new BancoGUI();
-        bancoGUI.executar();
+        ClienteController clienteController = new ClienteController();
+        ContaController contaController = new ContaController();
+
+        String arquivoJournal = System.getProperty("banco1000.journal");
+        String arquivoSnapshot = System.getProperty("banco1000.snapshot");
+        Path snapshot = (arquivoSnapshot == null) ? null : Path.of(arquivoSnapshot);
+        if (arquivoJournal == null) {
+            if (snapshot != null && Files.exists(snapshot)) {
+                int contas = SnapshotBanco.restaurar(snapshot, clienteController, contaController);
+                System.out.println("Estado restaurado do snapshot: " + contas + " contas.");
+            }
+            executarComSnapshots(snapshot, clienteController, contaController, null);
+            return;
+        }
+
+        Path arquivo = Path.of(arquivoJournal);
+        long posicaoCorte = 0;
+        boolean snapshotSemJournal = false;
+        if (snapshot != null && Files.exists(snapshot)) {
+            long posicaoSnapshot = SnapshotBanco.posicaoJournal(snapshot);
+            if (posicaoSnapshot == SnapshotBanco.SEM_JOURNAL && Files.exists(arquivo)) {
+                // O journal já tem tudo; reaplicá-lo sobre o snapshot duplicaria as operações
+                System.out.println("Snapshot sem posição do journal ignorado.");
+            } else {
+                int contas = SnapshotBanco.restaurar(snapshot, clienteController, contaController);
+                System.out.println("Estado restaurado do snapshot: " + contas + " contas.");
+                snapshotSemJournal = posicaoSnapshot == SnapshotBanco.SEM_JOURNAL;
+                posicaoCorte = Math.max(posicaoSnapshot, 0);
+            }
+        }
+
+        ModoDurabilidade modo = ModoDurabilidade.valueOf(
+                System.getProperty("banco1000.durabilidade", ModoDurabilidade.EM_LOTE.name()));
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, modo,
+                clienteController, contaController, posicaoCorte)) {
+            System.out.println("Estado recuperado do journal: " + contaController.listarContas().size()
+                    + " contas; durabilidade " + journal.getModo() + ".");
+            if (snapshotSemJournal) {
+                // O journal novo não tem o estado do snapshot: amarra os dois antes de qualquer operação
+                SnapshotBanco.gravar(snapshot, clienteController, contaController, journal);
+            }
+            executarComSnapshots(snapshot, clienteController, contaController, journal);
+        }
+    }
+
+    /**
+     * Executa a interface gravando, se houver arquivo de snapshot, um snapshot
+     * periódico em segundo plano e um último ao encerrar.
+     */
+    private static void executarComSnapshots(Path snapshot, ClienteController clienteController,
+                                             ContaController contaController, JournalOperacoes journal)
+            throws IOException {
+        if (snapshot == null) {
+            executarInterface(clienteController, contaController);
+            return;
+        }
+        long intervalo = Long.getLong("banco1000.snapshot.intervalo", INTERVALO_SNAPSHOT_PADRAO_SEGUNDOS);
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "snapshot-periodico");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Com atraso fixo e esperando a gravação, dois snapshots nunca se sobrepõem
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                SnapshotBanco.gravarEmSegundoPlano(snapshot, clienteController, contaController, journal).join();
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao gravar o snapshot: " + e.getMessage());
+            }
+        }, intervalo, intervalo, TimeUnit.SECONDS);
+        try {
+            executarInterface(clienteController, contaController);
+        } finally {
+            agendador.shutdown();
+            try {
+                agendador.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        SnapshotBanco.gravar(snapshot, clienteController, contaController, journal);
+    }
+
+    /**
+     * Executa o menu de console ou, com {@code banco1000.servidor}, o servidor HTTP.
+     */
+    private static void executarInterface(ClienteController clienteController, ContaController contaController)
+            throws IOException {
+        String porta = System.getProperty("banco1000.servidor");
+        if (porta == null) {
+            new BancoGUI(clienteController, contaController).executar();
+            return;
+        }
+
+        try (ServidorBanco servidor = new ServidorBanco(clienteController, contaController)) {
+            servidor.iniciar(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(porta)));
+            System.out.println("Servidor ouvindo em http://localhost:" + servidor.getPorta()
+                    + (servidor.isThreadsVirtuais() ? " (threads virtuais)." : " (pool de threads)."));
+            // O gancho libera o servidor e segura a JVM até o estado ser salvo
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                ENCERRAR_SERVIDOR.countDown();
+                try {
+                    APLICACAO_ENCERRADA.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "encerrar-servidor"));
+            ENCERRAR_SERVIDOR.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("Servidor encerrado.");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,304 @@
+package br.ufrn.bti.banco1000.controller;
+
+import br.ufrn.bti.banco1000.exception.AgenciaNotFoundException;
+import br.ufrn.bti.banco1000.model.Agencia;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+import br.ufrn.bti.banco1000.utils.IndiceLong;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Banco particionado por agência: cada {@link Agencia} é dona das suas contas
+ * e todas as operações sobre elas são executadas, em ordem de chegada, por
+ * uma única thread dedicada à agência ("agencia-&lt;código&gt;"). Dentro de uma
+ * agência não há travas; agências diferentes progridem em paralelo, então a
+ * vazão cresce com o número de agências até o número de núcleos.
+ * <p>
+ * Transferências entre contas da mesma agência são uma única tarefa da
+ * agência. Entre agências diferentes, seguem um protocolo de duas fases:
+ * <ol>
+ *   <li>a agência de origem reserva o valor ({@link Conta#reservarTransferencia});</li>
+ *   <li>a agência de destino credita o valor ({@link Conta#receberTransferencia}),
+ *       ou recusa se a conta não existir;</li>
+ *   <li>a agência de origem confirma a reserva, registrando a movimentação
+ *       enviada, ou a cancela, devolvendo o valor.</li>
+ * </ol>
+ * Enquanto a transferência está entre as fases, o valor não aparece em
+ * nenhum dos dois saldos. Nenhuma agência espera pela outra: cada fase é uma
+ * tarefa curta na fila da agência correspondente.
+ * <p>
+ * As operações são assíncronas e devolvem um {@link CompletableFuture}, que
+ * falha com a mesma exceção que a operação síncrona de {@link Conta} lançaria
+ * (ou {@link AgenciaNotFoundException} para agências desconhecidas). As
+ * contas adicionadas aqui não devem ser movimentadas por fora, por exemplo
+ * por um {@link ContaController}.
+ * <p>
+ * É um modelo independente de execução por agência: não é usado pelo
+ * {@link ContaController}, pelo journal, pelo snapshot nem pelo servidor
+ * HTTP, e as suas operações não são persistidas.
+ */
+public class BancoAgencias implements AutoCloseable {
+    private final Object travaCadastro = new Object();
+    // Trocado por inteiro a cada nova agência, para que as consultas não precisem de trava
+    private volatile IndiceLong<Particao> particoes = new IndiceLong<>();
+    private volatile boolean encerrado;
+    private final AtomicInteger transferenciasPendentes = new AtomicInteger();
+
+    /**
+     * Cria uma agência e inicia a thread que a processa.
+     *
+     * @param codigo Código da agência.
+     * @param nome Nome da agência.
+     * @throws IllegalArgumentException Se a agência já existir.
+     * @throws IllegalStateException Se o banco já foi encerrado.
+     */
+    public void criarAgencia(int codigo, String nome) {
+        synchronized (travaCadastro) {
+            if (encerrado) {
+                throw new IllegalStateException("O banco já foi encerrado.");
+            }
+            IndiceLong<Particao> atuais = particoes;
+            if (atuais.get(codigo) != null) {
+                throw new IllegalArgumentException("Agência já existente.");
+            }
+            IndiceLong<Particao> novas = new IndiceLong<>();
+            atuais.forEach(particao -> novas.put(particao.agencia.getCodigo(), particao));
+            novas.put(codigo, new Particao(new Agencia(codigo, nome)));
+            particoes = novas;
+        }
+    }
+
+    public int getQuantidadeAgencias() {
+        return particoes.size();
+    }
+
+    /**
+     * Adiciona uma conta à agência indicada por {@link Conta#getAgencia()}.
+     *
+     * @param conta Conta a adicionar.
+     * @return Futuro concluído quando a conta estiver cadastrada.
+     */
+    public CompletableFuture<Void> adicionarConta(Conta conta) {
+        if (conta == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("A conta não pode ser nula."));
+        }
+        return executar(conta.getAgencia(), agencia -> {
+            agencia.adicionarConta(conta);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Conta> buscarConta(int codigoAgencia, int numeroConta) {
+        return executar(codigoAgencia, agencia -> agencia.buscarConta(numeroConta));
+    }
+
+    /**
+     * Lista as contas de uma agência. A cópia é feita pela thread da agência.
+     *
+     * @param codigoAgencia Código da agência.
+     * @return Futuro com a cópia da lista de contas.
+     */
+    public CompletableFuture<List<Conta>> listarContas(int codigoAgencia) {
+        return executar(codigoAgencia, agencia -> new ArrayList<>(agencia.getContas()));
+    }
+
+    public CompletableFuture<Long> consultarSaldoCentavos(int codigoAgencia, int numeroConta) {
+        return executar(codigoAgencia, agencia -> agencia.buscarConta(numeroConta).getSaldoCentavos());
+    }
+
+    public CompletableFuture<Void> depositar(int codigoAgencia, int numeroConta, double valor) {
+        return executar(codigoAgencia, agencia -> {
+            agencia.buscarConta(numeroConta).depositar(valor);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> sacar(int codigoAgencia, int numeroConta, double valor) {
+        return executar(codigoAgencia, agencia -> {
+            agencia.buscarConta(numeroConta).sacar(valor);
+            return null;
+        });
+    }
+
+    /**
+     * Transfere um valor entre duas contas, possivelmente de agências
+     * diferentes. Em caso de falha nenhum saldo é alterado.
+     *
+     * @param agenciaOrigem Código da agência da conta de origem.
+     * @param numeroOrigem Número da conta de origem.
+     * @param agenciaDestino Código da agência da conta de destino.
+     * @param numeroDestino Número da conta de destino.
+     * @param valor Valor a ser transferido.
+     * @return Futuro concluído quando as duas contas tiverem a movimentação
+     *         registrada; falha com {@link IllegalArgumentException} se origem
+     *         e destino forem a mesma conta, e com {@link IllegalStateException}
+     *         se o banco já foi encerrado.
+     */
+    public CompletableFuture<Void> transferir(int agenciaOrigem, int numeroOrigem,
+                                              int agenciaDestino, int numeroDestino, double valor) {
+        long centavos = Dinheiro.paraCentavos(valor);
+        if (centavos <= 0) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("O valor da transferência deve ser positivo."));
+        }
+        if (agenciaOrigem == agenciaDestino && numeroOrigem == numeroDestino) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("A conta de destino deve ser diferente da de origem."));
+        }
+        long instante = System.currentTimeMillis();
+        if (agenciaOrigem == agenciaDestino) {
+            return executar(agenciaOrigem, agencia -> {
+                Conta origem = agencia.buscarConta(numeroOrigem);
+                Conta destino = agencia.buscarConta(numeroDestino);
+                origem.reservarTransferencia(centavos);
+                try {
+                    destino.receberTransferencia(numeroOrigem, centavos, instante);
+                } catch (RuntimeException e) {
+                    // Como a segunda fase entre agências: o crédito recusado devolve a reserva
+                    origem.cancelarReservaTransferencia(centavos);
+                    throw e;
+                }
+                origem.confirmarTransferenciaEnviada(numeroDestino, centavos, instante);
+                return null;
+            });
+        }
+
+        Particao origem;
+        Particao destino;
+        try {
+            origem = particao(agenciaOrigem);
+            destino = particao(agenciaDestino);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // Contada antes de conferir o encerramento: ou close a vê pendente e a espera, ou ela vê o encerramento
+        transferenciasPendentes.incrementAndGet();
+        if (encerrado) {
+            transferenciasPendentes.decrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("O banco já foi encerrado."));
+        }
+        CompletableFuture<Conta> reserva;
+        try {
+            reserva = origem.executar(agencia -> {
+                Conta conta = agencia.buscarConta(numeroOrigem);
+                conta.reservarTransferencia(centavos);
+                return conta;
+            });
+        } catch (RuntimeException e) {
+            transferenciasPendentes.decrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+        return reserva.thenCompose(contaOrigem -> destino.<Void>executarSePossivel(agencia -> {
+            agencia.buscarConta(numeroDestino).receberTransferencia(numeroOrigem, centavos, instante);
+            return null;
+        }).handle((ignorado, erro) -> erro).thenCompose(erro -> origem.<Void>executarSePossivel(agencia -> {
+            if (erro == null) {
+                contaOrigem.confirmarTransferenciaEnviada(numeroDestino, centavos, instante);
+                return null;
+            }
+            contaOrigem.cancelarReservaTransferencia(centavos);
+            throw erro instanceof CompletionException && erro.getCause() != null
+                    ? propagar(erro.getCause()) : propagar(erro);
+        }))).whenComplete((ignorado, erro) -> transferenciasPendentes.decrementAndGet());
+    }
+
+    /**
+     * Encerra as threads das agências depois de processar as tarefas já
+     * enfileiradas e de concluir as transferências entre agências em andamento.
+     * Como as threads só param depois disso, a última fase de uma
+     * transferência aceita nunca é recusada, e nenhuma reserva fica presa.
+     */
+    @Override
+    public void close() {
+        IndiceLong<Particao> todas;
+        synchronized (travaCadastro) {
+            encerrado = true;
+            todas = particoes;
+        }
+        // Uma transferência entre agências ainda enfileira fases depois da primeira
+        while (transferenciasPendentes.get() > 0) {
+            LockSupport.parkNanos(1_000_000L);
+        }
+        todas.forEach(particao -> particao.executor.shutdown());
+        todas.forEach(particao -> {
+            try {
+                particao.executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> executar(int codigoAgencia, Function<Agencia, T> operacao) {
+        try {
+            return particao(codigoAgencia).executar(operacao);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Particao particao(int codigoAgencia) {
+        Particao particao = particoes.get(codigoAgencia);
+        if (particao == null) {
+            throw new AgenciaNotFoundException("Agência não encontrada.");
+        }
+        return particao;
+    }
+
+    private static RuntimeException propagar(Throwable erro) {
+        if (erro instanceof RuntimeException) {
+            return (RuntimeException) erro;
+        }
+        if (erro instanceof Error) {
+            throw (Error) erro;
+        }
+        return new CompletionException(erro);
+    }
+
+    /**
+     * Uma agência e a única thread que a movimenta.
+     */
+    private static final class Particao {
+        private final Agencia agencia;
+        private final ExecutorService executor;
+
+        Particao(Agencia agencia) {
+            this.agencia = agencia;
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), tarefa -> {
+                        Thread thread = new Thread(tarefa, "agencia-" + agencia.getCodigo());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+
+        <T> CompletableFuture<T> executar(Function<Agencia, T> operacao) {
+            return CompletableFuture.supplyAsync(() -> operacao.apply(agencia), executor);
+        }
+
+        /**
+         * Como {@link #executar}, mas a recusa da tarefa vira a falha do
+         * futuro, em vez de exceção. A operação nunca roda fora da thread da
+         * agência.
+         */
+        <T> CompletableFuture<T> executarSePossivel(Function<Agencia, T> operacao) {
+            try {
+                return executar(operacao);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package br.ufrn.bti.banco1000.controller;
+
+import br.ufrn.bti.banco1000.exception.JournalFailureException;
+import br.ufrn.bti.banco1000.metricas.MetricasBanco;
+import br.ufrn.bti.banco1000.model.Movimentacao;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache de chaves de idempotência das operações de saldo do
+ * {@link ContaController}: guarda, por chave, a operação executada e o seu
+ * resultado, de modo que uma repetição (como a reenviada por um gateway de
+ * pagamentos após um timeout) devolva o resultado original em vez de aplicar
+ * a operação outra vez.
+ * <p>
+ * As chaves são divididas em {@value #SEGMENTOS} segmentos, cada um com a sua
+ * trava e um {@link LinkedHashMap} em ordem de inserção; operações com chaves
+ * diferentes raramente disputam a mesma trava. A ordem de inserção é também a
+ * ordem de validade, de modo que a remoção de chaves vencidas ou excedentes
+ * olha apenas o início do mapa: cada chave é removida uma vez, em tempo
+ * constante. A capacidade limita a memória; com ela cheia, a chave mais
+ * antiga do segmento é descartada mesmo antes de vencer. Chaves de operações
+ * ainda em andamento nunca são descartadas nem vencem: o segmento passa da
+ * capacidade enquanto elas não terminam, o que limita o excesso à quantidade
+ * de operações em andamento.
+ * <p>
+ * Só recusas das regras das contas ({@link IllegalArgumentException} e
+ * {@link IllegalStateException}), lançadas antes de a operação alterar
+ * qualquer saldo, são guardadas como resultado. Uma
+ * {@link JournalFailureException} vem de uma operação já aplicada: a chave é
+ * guardada como operação concluída, sem recusa, para que a repetição não a
+ * aplique de novo. Qualquer outra falha libera a chave para uma nova
+ * tentativa. O cache fica só em memória:
+ * após um reinício, apenas as chaves de operações aplicadas voltam, pelo
+ * journal (ver {@link #restaurar}); as recusas são esquecidas.
+ */
+final class CacheIdempotencia {
+    /** Propriedade com a quantidade máxima de chaves guardadas. */
+    static final String PROPRIEDADE_CAPACIDADE = "banco1000.idempotencia.capacidade";
+    /** Propriedade com a validade das chaves, em segundos. */
+    static final String PROPRIEDADE_VALIDADE = "banco1000.idempotencia.validade";
+    static final int CAPACIDADE_PADRAO = 1 << 20;
+    static final long VALIDADE_PADRAO_SEGUNDOS = TimeUnit.MINUTES.toSeconds(15);
+    static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    private static final int BITS_SEGMENTOS = 6;
+    private static final int SEGMENTOS = 1 << BITS_SEGMENTOS;
+
+    private final Segmento[] segmentos;
+    private final int capacidadePorSegmento;
+    private final long validadeMillis;
+
+    CacheIdempotencia() {
+        this(Integer.getInteger(PROPRIEDADE_CAPACIDADE, CAPACIDADE_PADRAO),
+                TimeUnit.SECONDS.toMillis(Long.getLong(PROPRIEDADE_VALIDADE, VALIDADE_PADRAO_SEGUNDOS)));
+    }
+
+    /**
+     * @param capacidade Quantidade máxima de chaves guardadas.
+     * @param validadeMillis Tempo, em milissegundos, durante o qual uma chave é lembrada.
+     */
+    CacheIdempotencia(int capacidade, long validadeMillis) {
+        if (capacidade < 1 || validadeMillis < 1) {
+            throw new IllegalArgumentException("A capacidade e a validade do cache de idempotência devem ser positivas.");
+        }
+        this.capacidadePorSegmento = Math.max(1, (capacidade + SEGMENTOS - 1) / SEGMENTOS);
+        this.validadeMillis = validadeMillis;
+        this.segmentos = new Segmento[SEGMENTOS];
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento();
+        }
+    }
+
+    /**
+     * Valida o formato de uma chave de idempotência.
+     *
+     * @param chave Chave informada pelo cliente.
+     */
+    static void validarChave(String chave) {
+        if (chave.isEmpty() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new IllegalArgumentException("A chave de idempotência deve ter de 1 a "
+                    + TAMANHO_MAXIMO_CHAVE + " caracteres.");
+        }
+    }
+
+    /**
+     * Executa a operação uma única vez por chave. Uma repetição com a mesma
+     * chave não executa nada: espera a execução original, se ainda estiver em
+     * andamento, e repete o seu resultado, relançando a mesma recusa.
+     *
+     * @param chave Chave de idempotência.
+     * @param tipo Tipo da operação.
+     * @param origem Chave da conta da operação (a de origem, nas transferências).
+     * @param destino Chave da conta de destino, ou 0.
+     * @param centavos Valor da operação em centavos.
+     * @param operacao Operação a executar.
+     * @return true se a operação foi executada nesta chamada; false se foi uma repetição.
+     * @throws IllegalArgumentException Se a chave já foi usada em outra operação.
+     * @throws JournalFailureException Se a operação foi aplicada sem registro confirmado; a chave fica lembrada.
+     */
+    boolean executar(String chave, Movimentacao.TipoMovimentacao tipo, long origem, long destino, long centavos,
+                     Runnable operacao) {
+        validarChave(chave);
+        Segmento segmento = segmento(chave);
+        Entrada nova = new Entrada(tipo, origem, destino, centavos, System.currentTimeMillis());
+        while (true) {
+            Entrada anterior = segmento.reservar(chave, nova);
+            if (anterior == null) {
+                break;
+            }
+            if (!anterior.mesmaOperacao(tipo, origem, destino, centavos)) {
+                throw new IllegalArgumentException("Chave de idempotência já usada em outra operação.");
+            }
+            if (anterior.aguardar()) {
+                MetricasBanco.padrao().repeticaoIdempotente();
+                anterior.relancarRecusa();
+                return false;
+            }
+            // A execução original falhou sem resultado e liberou a chave: tenta de novo
+        }
+
+        try {
+            operacao.run();
+        } catch (JournalFailureException e) {
+            // Aplicada em memória, mas sem registro confirmado: não é recusa, nem pode ser aplicada de novo
+            nova.concluir(null);
+            throw e;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            nova.concluir(e);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            segmento.remover(chave, nova);
+            nova.abandonar();
+            throw e;
+        }
+        nova.concluir(null);
+        return true;
+    }
+
+    /**
+     * Registra como concluída uma operação já aplicada, como as reproduzidas
+     * do journal na recuperação. Chaves já vencidas são ignoradas.
+     *
+     * @param instante Data da operação, em milissegundos desde a época.
+     */
+    void restaurar(String chave, Movimentacao.TipoMovimentacao tipo, long origem, long destino, long centavos,
+                   long instante) {
+        if (instante + validadeMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        Entrada entrada = new Entrada(tipo, origem, destino, centavos, instante);
+        entrada.concluir(null);
+        segmento(chave).restaurar(chave, entrada);
+    }
+
+    private Segmento segmento(String chave) {
+        // Usa os bits altos do hash: os baixos escolhem o balde no HashMap do segmento e,
+        // se escolhessem também o segmento, cada mapa só usaria 1/SEGMENTOS dos seus baldes
+        return segmentos[(chave.hashCode() * 0x9E3779B9) >>> (Integer.SIZE - BITS_SEGMENTOS)];
+    }
+
+    private final class Segmento {
+        private final ReentrantLock trava = new ReentrantLock();
+        private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>();
+
+        /**
+         * Guarda a entrada se a chave for nova ou estiver vencida.
+         *
+         * @return Entrada já existente para a chave, ou null se a nova foi guardada.
+         */
+        Entrada reservar(String chave, Entrada nova) {
+            trava.lock();
+            try {
+                Entrada anterior = entradas.get(chave);
+                if (anterior != null && !vencida(anterior, nova.criadaEm)) {
+                    return anterior;
+                }
+                if (anterior != null) {
+                    entradas.remove(chave);
+                }
+                entradas.put(chave, nova);
+                podar(nova.criadaEm);
+                return null;
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        void restaurar(String chave, Entrada entrada) {
+            trava.lock();
+            try {
+                entradas.remove(chave);
+                entradas.put(chave, entrada);
+                podar(System.currentTimeMillis());
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        void remover(String chave, Entrada entrada) {
+            trava.lock();
+            try {
+                entradas.remove(chave, entrada);
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        /**
+         * Remove do início as chaves vencidas e as que excedem a capacidade,
+         * passando por cima das de operações em andamento. Deve ser chamado com a trava.
+         */
+        private void podar(long agora) {
+            Iterator<Entrada> antigas = entradas.values().iterator();
+            int excedentes = entradas.size() - capacidadePorSegmento;
+            while (antigas.hasNext()) {
+                Entrada antiga = antigas.next();
+                boolean vencida = vencida(antiga, agora);
+                if (excedentes <= 0 && !vencida) {
+                    break;
+                }
+                if (antiga.pendente()) {
+                    // Descartá-la deixaria uma repetição executar a operação de novo
+                    continue;
+                }
+                antigas.remove();
+                excedentes--;
+            }
+        }
+
+        /** Uma entrada só vence depois de a sua operação terminar. */
+        private boolean vencida(Entrada entrada, long agora) {
+            return entrada.criadaEm + validadeMillis <= agora && !entrada.pendente();
+        }
+    }
+
+    /**
+     * Operação associada a uma chave e o seu resultado. Repetições concorrentes
+     * esperam no monitor da entrada até a execução original terminar.
+     */
+    private static final class Entrada {
+        private static final int PENDENTE = 0;
+        private static final int CONCLUIDA = 1;
+        private static final int ABANDONADA = 2;
+
+        private final Movimentacao.TipoMovimentacao tipo;
+        private final long origem;
+        private final long destino;
+        private final long centavos;
+        private final long criadaEm;
+        private int estado = PENDENTE;
+        private RuntimeException recusa;
+
+        Entrada(Movimentacao.TipoMovimentacao tipo, long origem, long destino, long centavos, long criadaEm) {
+            this.tipo = tipo;
+            this.origem = origem;
+            this.destino = destino;
+            this.centavos = centavos;
+            this.criadaEm = criadaEm;
+        }
+
+        boolean mesmaOperacao(Movimentacao.TipoMovimentacao tipo, long origem, long destino, long centavos) {
+            return this.tipo == tipo && this.origem == origem && this.destino == destino && this.centavos == centavos;
+        }
+
+        synchronized boolean pendente() {
+            return estado == PENDENTE;
+        }
+
+        synchronized void concluir(RuntimeException recusa) {
+            this.recusa = recusa;
+            this.estado = CONCLUIDA;
+            notifyAll();
+        }
+
+        synchronized void abandonar() {
+            this.estado = ABANDONADA;
+            notifyAll();
+        }
+
+        /**
+         * Espera a execução original terminar.
+         *
+         * @return true se ela foi concluída; false se foi abandonada.
+         */
+        synchronized boolean aguardar() {
+            boolean interrompida = false;
+            while (estado == PENDENTE) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrompida = true;
+                }
+            }
+            if (interrompida) {
+                Thread.currentThread().interrupt();
+            }
+            return estado == CONCLUIDA;
+        }
+
+        /** Relança, em uma nova exceção do mesmo tipo, a recusa da execução original, se houve. */
+        synchronized void relancarRecusa() {
+            if (recusa instanceof IllegalArgumentException) {
+                throw new IllegalArgumentException(recusa.getMessage());
+            }
+            if (recusa != null) {
+                throw new IllegalStateException(recusa.getMessage());
+            }
+        }
+    }
+}
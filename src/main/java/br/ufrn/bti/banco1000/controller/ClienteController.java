@@ -1,21 +1,51 @@
 package br.ufrn.bti.banco1000.controller;
 
 import br.ufrn.bti.banco1000.exception.ClienteAlreadyExistsException;
+import br.ufrn.bti.banco1000.metricas.MetricasBanco;
 import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.persistence.JournalOperacoes;
 import br.ufrn.bti.banco1000.utils.ExportarCSV;
+import br.ufrn.bti.banco1000.utils.IndiceLong;
+import br.ufrn.bti.banco1000.utils.ListaAnexavel;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Controller para gerenciar operações relacionadas a clientes.
+ * <p>
+ * É seguro para chamadas concorrentes: o cadastro é protegido por uma trava
+ * de leitura/escrita, como o de contas em {@link ContaController}.
  */
 public class ClienteController {
-    private final List<Cliente> clientes;
+    private final ListaAnexavel<Cliente> clientes;
+    private final IndiceLong<Cliente> indicePorCpf;
+    private final Map<String, Cliente> indicePorNome;
+    private final ReadWriteLock travaCadastro;
+    private final MetricasBanco metricas;
+    private volatile JournalOperacoes journal;
 
     public ClienteController() {
-        this.clientes = new ArrayList<>();
+        this.clientes = new ListaAnexavel<>();
+        this.indicePorCpf = new IndiceLong<>();
+        this.indicePorNome = new HashMap<>();
+        this.travaCadastro = new ReentrantReadWriteLock();
+        this.metricas = MetricasBanco.padrao();
+    }
+
+    /**
+     * Associa um journal ao controller: a partir daí, todo cadastro de cliente
+     * é registrado nele antes de retornar.
+     *
+     * @param journal Journal de operações, ou null para desativar o registro.
+     */
+    public void setJournal(JournalOperacoes journal) {
+        this.journal = journal;
     }
 
     /**
@@ -30,13 +60,66 @@ public class ClienteController {
         if (!Cliente.validarCpf(cpf)) {
             throw new IllegalArgumentException("CPF inválido!");
         }
+        adicionarCliente(new Cliente(nome, cpf, email, telefone));
+    }
 
-        if (buscarClientePorCpf(cpf) != null) {
-            throw new ClienteAlreadyExistsException("Cliente já cadastrado com este CPF.");
+    /**
+     * Cadastra um cliente já construído, como um restaurado de um snapshot,
+     * preservando o objeto (e as contas já associadas a ele).
+     *
+     * @param cliente Cliente a cadastrar.
+     */
+    public void adicionarCliente(Cliente cliente) {
+        if (cliente == null) {
+            throw new IllegalArgumentException("Cliente inválido.");
         }
+        long chave = Cliente.chaveCpf(cliente.getCpf());
 
-        Cliente cliente = new Cliente(nome, cpf, email, telefone);
-        clientes.add(cliente);
+        JournalOperacoes journal = this.journal;
+        long posicaoJournal = 0;
+        Lock travaOperacao = (journal == null) ? null : journal.getTravaOperacao();
+        if (travaOperacao != null) {
+            travaOperacao.lock();
+        }
+        travaCadastro.writeLock().lock();
+        try {
+            if (indicePorCpf.contem(chave)) {
+                throw new ClienteAlreadyExistsException("Cliente já cadastrado com este CPF.");
+            }
+            // Anexado sob a trava, para preceder no journal as contas do cliente, e antes
+            // dos índices: se a gravação falhar, o cliente não fica cadastrado
+            if (journal != null) {
+                posicaoJournal = journal.anexarCliente(cliente);
+            }
+            indicePorCpf.put(chave, cliente);
+            // Mantém o primeiro cliente cadastrado com o nome, como a busca linear fazia
+            indicePorNome.putIfAbsent(cliente.getNome(), cliente);
+            clientes.adicionar(cliente);
+        } finally {
+            travaCadastro.writeLock().unlock();
+            if (travaOperacao != null) {
+                travaOperacao.unlock();
+            }
+        }
+        if (journal != null) {
+            journal.aguardarDurabilidade(posicaoJournal);
+        }
+    }
+
+    /**
+     * Dimensiona a lista e o índice por CPF para a quantidade total esperada
+     * de clientes, antes de uma carga em lote como a restauração de um snapshot.
+     *
+     * @param quantidadeClientes Quantidade total de clientes esperada.
+     */
+    public void reservarCapacidade(int quantidadeClientes) {
+        travaCadastro.writeLock().lock();
+        try {
+            clientes.garantirCapacidade(quantidadeClientes);
+            indicePorCpf.garantirCapacidade(quantidadeClientes);
+        } finally {
+            travaCadastro.writeLock().unlock();
+        }
     }
 
     /**
@@ -46,58 +129,82 @@ public class ClienteController {
      * @return Cliente encontrado, ou null se não existir.
      */
     public Cliente buscarClientePorCpf(String cpf) {
-        return clientes.stream()
-                .filter(cliente -> cliente.getCpf().equals(cpf))
-                .findFirst()
-                .orElse(null);
+        if (!Cliente.validarCpf(cpf)) {
+            return null;
+        }
+        travaCadastro.readLock().lock();
+        try {
+            return indicePorCpf.get(Cliente.chaveCpf(cpf));
+        } finally {
+            travaCadastro.readLock().unlock();
+        }
     }
 
     /**
-     * Lista todos os clientes cadastrados.
+     * Busca um cliente pelo nome. Havendo homônimos, retorna o primeiro cadastrado.
+     *
+     * @param nome Nome do cliente.
+     * @return Cliente encontrado, ou null se não existir.
+     */
+    public Cliente buscarClientePorNome(String nome) {
+        travaCadastro.readLock().lock();
+        try {
+            return indicePorNome.get(nome);
+        } finally {
+            travaCadastro.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lista os clientes cadastrados até o momento da chamada, em ordem de
+     * cadastro. A lista é uma visão imutável obtida em tempo constante, sem
+     * cópia e sem a trava do cadastro (ver {@link ListaAnexavel#visao()}).
      *
      * @return Lista de clientes.
      */
     public List<Cliente> listarClientes() {
-        return new ArrayList<>(clientes);
+        return clientes.visao();
     }
 
     /**
-     * Exporta os clientes cadastrados para um arquivo CSV.
+     * Exporta os clientes cadastrados para um arquivo CSV, escrevendo cada
+     * cliente diretamente no arquivo, sem montar as linhas em memória.
      *
      * @param filePath Caminho do arquivo CSV.
      */
     public void exportarClientesCsv(String filePath) {
-        List<String[]> rows = new ArrayList<>();
-
-        for (Cliente cliente : clientes) {
-            rows.add(new String[]{
-                    cliente.getNome(),
-                    cliente.getCpf(),
-                    cliente.getEmail(),
-                    cliente.getTelefone()
-            });
-        }
-
+        long inicio = metricas.iniciar();
+        boolean concluida = false;
         try {
-            ExportarCSV.export(filePath, new String[]{"Nome", "CPF", "Email", "Telefone"}, rows);
+            ExportarCSV.export(filePath, new String[]{"Nome", "CPF", "Email", "Telefone"}, listarClientes(),
+                    (cliente, escritor) -> escritor
+                            .campo(cliente.getNome())
+                            .campo(cliente.getCpf())
+                            .campo(cliente.getEmail())
+                            .campo(cliente.getTelefone()));
+            concluida = true;
         } catch (IOException e) {
             System.err.println("Erro ao exportar clientes para CSV: " + e.getMessage());
+        } finally {
+            metricas.registrar(MetricasBanco.Operacao.EXPORTAR, inicio, concluida);
         }
     }
 
     /**
-     * Importa clientes de um arquivo CSV.
+     * Importa clientes de um arquivo CSV. O arquivo é lido em blocos
+     * processados em paralelo ({@link ExportarCSV#importarParalelo}), sem ser
+     * carregado inteiro na memória; os cadastros seguem a ordem do arquivo.
      *
      * @param filePath Caminho do arquivo CSV.
      */
     public void importarClientesCsv(String filePath) {
+        long inicio = metricas.iniciar();
+        boolean concluida = false;
         try {
-            List<String[]> rows = ExportarCSV.importar(filePath);
-
-            for (String[] row : rows) {
+            ExportarCSV.importarParalelo(filePath, row -> {
                 if (row.length != 4) {
                     System.err.println("Linha CSV inválida. Ignorando...");
-                    continue;
+                    return;
                 }
 
                 String nome = row[0];
@@ -108,11 +215,14 @@ public class ClienteController {
                 if (buscarClientePorCpf(cpf) == null) {
                     cadastrarCliente(nome, cpf, email, telefone);
                 }
-            }
+            });
+            concluida = true;
         } catch (IOException e) {
             System.err.println("Erro ao importar clientes de CSV: " + e.getMessage());
         } catch (Exception e) {
             System.err.println("Erro ao processar arquivo CSV: " + e.getMessage());
+        } finally {
+            metricas.registrar(MetricasBanco.Operacao.IMPORTAR, inicio, concluida);
         }
     }
 }
\ No newline at end of file
@@ -1,22 +1,97 @@
 package br.ufrn.bti.banco1000.controller;
 
+import br.ufrn.bti.banco1000.exception.JournalFailureException;
 import br.ufrn.bti.banco1000.model.Cliente;
 import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.ContaCorrente;
+import br.ufrn.bti.banco1000.model.ContaPoupanca;
+import br.ufrn.bti.banco1000.model.ControleVersoes;
 import br.ufrn.bti.banco1000.model.Movimentacao;
+import br.ufrn.bti.banco1000.model.OrdemTransferencia;
+import br.ufrn.bti.banco1000.model.PaginaMovimentacoes;
+import br.ufrn.bti.banco1000.model.ResultadoTransferencia;
+import br.ufrn.bti.banco1000.model.ResumoMensal;
+import br.ufrn.bti.banco1000.model.Transferencia;
+import br.ufrn.bti.banco1000.model.TransferenciasAgrupadas;
+import br.ufrn.bti.banco1000.metricas.MetricasBanco;
+import br.ufrn.bti.banco1000.persistence.JournalOperacoes;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
 import br.ufrn.bti.banco1000.utils.ExportarCSV;
+import br.ufrn.bti.banco1000.utils.IndiceLong;
+import br.ufrn.bti.banco1000.utils.ListaAnexavel;
+import br.ufrn.bti.banco1000.utils.TravasListradas;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
 
 /**
  * Controller para gerenciar operações bancárias.
+ * <p>
+ * É seguro para chamadas concorrentes: o cadastro de contas é protegido por uma
+ * trava de leitura/escrita. Depósitos e saques atualizam o saldo sem travas
+ * (ver {@link Conta}), e transferências usam travas listradas por conta, de modo
+ * que operações em contas diferentes raramente disputam a mesma trava.
  */
 public class ContaController {
-    private final List<Conta> contas;
+    /** Ordens aplicadas por aquisição de travas em {@link #transferirLote(List)}. */
+    private static final int TAMANHO_BLOCO_LOTE = 4096;
+
+    private final ListaAnexavel<Conta> contas;
+    private final IndiceLong<Conta> indiceContas;
+    private final ReadWriteLock travaCadastro;
+    private final TravasListradas travasContas;
+    private final MetricasBanco metricas;
+    /** Versões de leitura das contas deste controller, independentes das de outros controllers. */
+    private final ControleVersoes versoes;
+    private final CacheIdempotencia idempotencia;
+    private volatile JournalOperacoes journal;
 
     public ContaController() {
-        this.contas = new ArrayList<>();
+        this(TravasListradas.padrao());
+    }
+
+    /**
+     * Cria o controller com uma quantidade específica de listras de travas.
+     * Com uma única listra, todas as operações passam por uma trava global.
+     *
+     * @param listrasTravas Quantidade de listras de travas por conta.
+     */
+    public ContaController(int listrasTravas) {
+        this(new TravasListradas(listrasTravas));
+    }
+
+    private ContaController(TravasListradas travasContas) {
+        this.contas = new ListaAnexavel<>();
+        this.indiceContas = new IndiceLong<>();
+        this.travaCadastro = new ReentrantReadWriteLock();
+        this.travasContas = travasContas;
+        this.metricas = MetricasBanco.padrao();
+        this.versoes = new ControleVersoes();
+        this.idempotencia = new CacheIdempotencia();
+    }
+
+    JournalOperacoes getJournal() {
+        return journal;
+    }
+
+    /**
+     * Associa um journal ao controller: a partir daí, toda criação de conta,
+     * depósito, saque e transferência é registrada nele antes de retornar.
+     *
+     * @param journal Journal de operações, ou null para desativar o registro.
+     */
+    public void setJournal(JournalOperacoes journal) {
+        this.journal = journal;
     }
 
     /**
@@ -31,13 +106,113 @@ public class ContaController {
      * @param saldo Saldo inicial.
      */
     public void criarConta(String nome, Cliente cliente, int agencia, int numeroConta, Conta.TipoConta tipo, int senha, double saldo) {
-        if (buscarConta(agencia, numeroConta) != null) {
-            throw new IllegalArgumentException("Já existe uma conta com este número nesta agência.");
+        adicionarConta(new Conta(nome, cliente, agencia, numeroConta, tipo, senha, saldo));
+    }
+
+    /**
+     * Cadastra uma conta já construída, como uma {@code ContaPoupanca} com sua
+     * taxa de rendimento. O journal guarda a classe e o parâmetro da conta:
+     * na recuperação, ela é recriada com a mesma subclasse.
+     *
+     * @param conta Conta a cadastrar.
+     */
+    public void adicionarConta(Conta conta) {
+        long inicio = metricas.iniciar();
+        boolean concluida = false;
+        try {
+            if (conta == null) {
+                throw new IllegalArgumentException("Conta inválida.");
+            }
+            long chave = conta.getChave();
+            Cliente cliente = conta.getCliente();
+
+            JournalOperacoes journal = this.journal;
+            long posicaoJournal = 0;
+            Lock travaOperacao = (journal == null) ? null : journal.getTravaOperacao();
+            if (travaOperacao != null) {
+                travaOperacao.lock();
+            }
+            travaCadastro.writeLock().lock();
+            try {
+                if (indiceContas.contem(chave)) {
+                    throw new IllegalArgumentException("Já existe uma conta com este número nesta agência.");
+                }
+                // Antes do journal: recusa a conta cadastrada em outro controller sem registrá-la
+                conta.getHistorico().associar(versoes, metricas);
+                // Anexado antes de a conta ficar visível, para preceder seus movimentos no journal
+                if (journal != null) {
+                    posicaoJournal = journal.anexarConta(conta);
+                }
+                indiceContas.put(chave, conta);
+                contas.adicionar(conta);
+                cliente.adicionarConta(conta);
+            } finally {
+                travaCadastro.writeLock().unlock();
+                if (travaOperacao != null) {
+                    travaOperacao.unlock();
+                }
+            }
+            metricas.contaCadastrada();
+            if (journal != null) {
+                journal.aguardarDurabilidade(posicaoJournal);
+            }
+            concluida = true;
+        } finally {
+            metricas.registrar(MetricasBanco.Operacao.CRIAR_CONTA, inicio, concluida);
         }
+    }
+
+    /**
+     * Dimensiona a lista e o índice de contas para a quantidade total
+     * esperada, antes de uma carga em lote como a restauração de um snapshot.
+     *
+     * @param quantidadeContas Quantidade total de contas esperada.
+     */
+    public void reservarCapacidade(int quantidadeContas) {
+        travaCadastro.writeLock().lock();
+        try {
+            contas.garantirCapacidade(quantidadeContas);
+            indiceContas.garantirCapacidade(quantidadeContas);
+        } finally {
+            travaCadastro.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Consulta o extrato de uma conta por período e tipo de movimentação, em
+     * páginas. Para o extrato dos últimos 30 dias, por exemplo, use
+     * {@code inicio = agora - 30 dias} e {@code fim = agora + 1}.
+     *
+     * @param conta Conta consultada.
+     * @param inicio Instante inicial, inclusive, em milissegundos desde a época.
+     * @param fim Instante final, exclusive.
+     * @param tipos Tipos aceitos; null ou vazio aceita todos.
+     * @param cursor {@link PaginaMovimentacoes#PRIMEIRA_PAGINA} ou o cursor devolvido pela página anterior.
+     * @param limite Quantidade máxima de movimentações na página.
+     * @return Página com as movimentações em ordem cronológica.
+     */
+    public PaginaMovimentacoes consultarMovimentacoes(Conta conta, long inicio, long fim,
+                                                      Set<Movimentacao.TipoMovimentacao> tipos,
+                                                      long cursor, int limite) {
+        if (conta == null) {
+            throw new IllegalArgumentException("Conta inválida.");
+        }
+        return conta.consultarMovimentacoes(inicio, fim, tipos, cursor, limite);
+    }
 
-        Conta conta = new Conta(nome, cliente, agencia, numeroConta, tipo, senha, saldo);
-        contas.add(conta);
-        cliente.adicionarConta(conta);
+    /**
+     * Totais do mês de uma conta por tipo de movimentação (depósitos, saques,
+     * transferências enviadas e recebidas), sem percorrer o histórico.
+     *
+     * @param conta Conta consultada.
+     * @param mes Ano e mês.
+     * @return Resumo do mês.
+     */
+    public ResumoMensal resumoMensal(Conta conta, YearMonth mes) {
+        if (conta == null) {
+            throw new IllegalArgumentException("Conta inválida.");
+        }
+        return conta.getResumoMensal(mes);
     }
 
     /**
@@ -48,10 +223,14 @@ public class ContaController {
      * @return Conta encontrada, ou null se não existir.
      */
     public Conta buscarConta(int agencia, int numeroConta) {
-        return contas.stream()
-                .filter(conta -> conta.getAgencia() == agencia && conta.getNumeroConta() == numeroConta)
-                .findFirst()
-                .orElse(null);
+        long inicio = metricas.iniciar();
+        travaCadastro.readLock().lock();
+        try {
+            return indiceContas.get(Conta.chave(agencia, numeroConta));
+        } finally {
+            travaCadastro.readLock().unlock();
+            metricas.registrar(MetricasBanco.Operacao.BUSCAR_CONTA, inicio, true);
+        }
     }
 
     /**
@@ -61,18 +240,66 @@ public class ContaController {
      * @param valor Valor do depósito.
      */
     public void depositar(Conta conta, double valor) {
-        if (conta == null) {
-            throw new IllegalArgumentException("Conta inválida.");
+        depositar(conta, valor, null);
+    }
+
+    /**
+     * Realiza um depósito em uma conta no máximo uma vez por chave de
+     * idempotência (ver {@link #transferir(Conta, Conta, double, String)}).
+     * Só a chave de um depósito aplicado sobrevive a um reinício: se o depósito foi
+     * recusado, a repetição após o reinício é executada de novo.
+     *
+     * @param conta Conta a ser depositada.
+     * @param valor Valor do depósito.
+     * @param chaveIdempotencia Chave da requisição, ou null para sempre aplicar.
+     * @return true se o depósito foi aplicado nesta chamada; false se repetiu um anterior com a mesma chave.
+     * @throws JournalFailureException Se o depósito foi aplicado, mas o journal não confirmou o seu registro.
+     */
+    public boolean depositar(Conta conta, double valor, String chaveIdempotencia) {
+        long inicio = metricas.iniciar();
+        boolean concluida = false;
+        try {
+            if (conta == null) {
+                throw new IllegalArgumentException("Conta inválida.");
+            }
+            boolean aplicado = true;
+            if (chaveIdempotencia == null) {
+                aplicarDeposito(conta, valor, null);
+            } else {
+                aplicado = idempotencia.executar(chaveIdempotencia, Movimentacao.TipoMovimentacao.DEPOSITO,
+                        conta.getChave(), 0, Dinheiro.paraCentavos(valor),
+                        () -> aplicarDeposito(conta, valor, chaveIdempotencia));
+            }
+            concluida = true;
+            return aplicado;
+        } finally {
+            metricas.registrar(MetricasBanco.Operacao.DEPOSITAR, inicio, concluida);
         }
-        conta.depositar(valor);
+    }
 
-        // Registrar movimentação
-        conta.getMovimentacoes().add(new Movimentacao(
-                Movimentacao.TipoMovimentacao.DEPOSITO,
-                conta.getNumeroConta(),
-                "Depósito realizado",
-                valor
-        ));
+    private void aplicarDeposito(Conta conta, double valor, String chaveIdempotencia) {
+        // Operação de uma só conta: o saldo é atualizado sem travas de conta (compare-and-set)
+        long instante = System.currentTimeMillis();
+        JournalOperacoes journal = this.journal;
+        if (journal == null) {
+            conta.depositar(valor, instante);
+            return;
+        }
+        long posicaoJournal;
+        Lock travaOperacao = journal.getTravaOperacao();
+        travaOperacao.lock();
+        try {
+            conta.depositar(valor, instante);
+            try {
+                posicaoJournal = journal.anexarDeposito(conta, Dinheiro.paraCentavos(valor), instante,
+                        chaveIdempotencia);
+            } catch (RuntimeException e) {
+                throw naoRegistrada(e);
+            }
+        } finally {
+            travaOperacao.unlock();
+        }
+        aguardarDurabilidade(journal, posicaoJournal);
     }
 
     /**
@@ -82,90 +309,517 @@ public class ContaController {
      * @param valor Valor do saque.
      */
     public void sacar(Conta conta, double valor) {
-        if (conta == null) {
-            throw new IllegalArgumentException("Conta inválida.");
+        sacar(conta, valor, null);
+    }
+
+    /**
+     * Realiza um saque em uma conta no máximo uma vez por chave de
+     * idempotência (ver {@link #transferir(Conta, Conta, double, String)}).
+     * Só a chave de um saque aplicado sobrevive a um reinício: se o saque foi
+     * recusado, a repetição após o reinício é executada de novo.
+     *
+     * @param conta Conta a ser sacada.
+     * @param valor Valor do saque.
+     * @param chaveIdempotencia Chave da requisição, ou null para sempre aplicar.
+     * @return true se o saque foi aplicado nesta chamada; false se repetiu um anterior com a mesma chave.
+     * @throws JournalFailureException Se o saque foi aplicado, mas o journal não confirmou o seu registro.
+     */
+    public boolean sacar(Conta conta, double valor, String chaveIdempotencia) {
+        long inicio = metricas.iniciar();
+        boolean concluida = false;
+        try {
+            if (conta == null) {
+                throw new IllegalArgumentException("Conta inválida.");
+            }
+            boolean aplicado = true;
+            if (chaveIdempotencia == null) {
+                aplicarSaque(conta, valor, null);
+            } else {
+                aplicado = idempotencia.executar(chaveIdempotencia, Movimentacao.TipoMovimentacao.SAQUE,
+                        conta.getChave(), 0, Dinheiro.paraCentavos(valor),
+                        () -> aplicarSaque(conta, valor, chaveIdempotencia));
+            }
+            concluida = true;
+            return aplicado;
+        } finally {
+            metricas.registrar(MetricasBanco.Operacao.SACAR, inicio, concluida);
         }
-        conta.sacar(valor);
+    }
 
-        // Registrar movimentação
-        conta.getMovimentacoes().add(new Movimentacao(
-                Movimentacao.TipoMovimentacao.SAQUE,
-                conta.getNumeroConta(),
-                "Saque realizado",
-                valor
-        ));
+    private void aplicarSaque(Conta conta, double valor, String chaveIdempotencia) {
+        // Operação de uma só conta: o saldo é atualizado sem travas de conta (compare-and-set)
+        long instante = System.currentTimeMillis();
+        JournalOperacoes journal = this.journal;
+        if (journal == null) {
+            conta.sacar(valor, instante);
+            return;
+        }
+        long posicaoJournal;
+        Lock travaOperacao = journal.getTravaOperacao();
+        travaOperacao.lock();
+        try {
+            conta.sacar(valor, instante);
+            try {
+                posicaoJournal = journal.anexarSaque(conta, Dinheiro.paraCentavos(valor), instante, chaveIdempotencia);
+            } catch (RuntimeException e) {
+                throw naoRegistrada(e);
+            }
+        } finally {
+            travaOperacao.unlock();
+        }
+        aguardarDurabilidade(journal, posicaoJournal);
     }
 
     /**
      * Realiza uma transferência entre contas.
+     * As travas das duas contas são adquiridas em ordem global, de modo que
+     * transferências em sentidos opostos não entram em deadlock.
      *
      * @param contaOrigem Conta de origem.
      * @param contaDestino Conta de destino.
      * @param valor Valor da transferência.
      */
     public void transferir(Conta contaOrigem, Conta contaDestino, double valor) {
-        if (contaOrigem == null || contaDestino == null) {
-            throw new IllegalArgumentException("Conta de origem ou destino inválida.");
+        transferir(contaOrigem, contaDestino, valor, null);
+    }
+
+    /**
+     * Realiza uma transferência entre contas no máximo uma vez por chave de
+     * idempotência, para clientes que reenviam a requisição após um timeout.
+     * <p>
+     * Uma repetição com a mesma chave, enquanto ela for lembrada (ver
+     * {@link CacheIdempotencia}), não é aplicada outra vez: espera a original
+     * terminar e devolve o mesmo resultado, inclusive relançando a mesma
+     * recusa. Reusar a chave com outras contas ou outro valor é um erro. Com
+     * journal, a chave vai no registro da própria operação e volta a ser
+     * lembrada na recuperação, inclusive a dos registros anteriores ao
+     * snapshot restaurado. Só as chaves de operações aplicadas sobrevivem a
+     * um reinício: recusas ficam apenas em memória e, após um reinício, a
+     * repetição de uma operação recusada é executada de novo.
+     * <p>
+     * Só as recusas das regras das contas, verificadas antes de qualquer
+     * alteração, são repetidas como recusa. Se o journal falhar depois de a
+     * operação ser aplicada, a chamada lança {@link JournalFailureException},
+     * e a chave fica lembrada como operação aplicada: a repetição devolve
+     * false, sem aplicar de novo.
+     *
+     * @param contaOrigem Conta de origem.
+     * @param contaDestino Conta de destino.
+     * @param valor Valor da transferência.
+     * @param chaveIdempotencia Chave da requisição, ou null para sempre aplicar.
+     * @return true se a transferência foi aplicada nesta chamada; false se repetiu uma anterior com a mesma chave.
+     * @throws IllegalArgumentException Se a chave já foi usada em outra operação.
+     * @throws JournalFailureException Se a transferência foi aplicada, mas o journal não confirmou o seu registro.
+     */
+    public boolean transferir(Conta contaOrigem, Conta contaDestino, double valor, String chaveIdempotencia) {
+        long inicio = metricas.iniciar();
+        boolean concluida = false;
+        try {
+            if (contaOrigem == null || contaDestino == null) {
+                throw new IllegalArgumentException("Conta de origem ou destino inválida.");
+            }
+            boolean aplicado = true;
+            if (chaveIdempotencia == null) {
+                aplicarTransferencia(contaOrigem, contaDestino, valor, null);
+            } else {
+                aplicado = idempotencia.executar(chaveIdempotencia, Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA,
+                        contaOrigem.getChave(), contaDestino.getChave(), Dinheiro.paraCentavos(valor),
+                        () -> aplicarTransferencia(contaOrigem, contaDestino, valor, chaveIdempotencia));
+            }
+            concluida = true;
+            return aplicado;
+        } finally {
+            metricas.registrar(MetricasBanco.Operacao.TRANSFERIR, inicio, concluida);
         }
-        contaOrigem.transferir(contaDestino, valor);
+    }
 
-        // Registrar movimentações
-        contaOrigem.getMovimentacoes().add(new Movimentacao(
-                Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA,
-                contaOrigem.getNumeroConta(),
-                "Transferência enviada para conta " + contaDestino.getNumeroConta(),
-                valor
-        ));
+    /**
+     * Realiza uma transferência entre contas e devolve o seu registro, com a
+     * descrição informada. É o equivalente, para contas cadastradas, de
+     * {@code new Transferencia(...)}: a transferência é registrada no journal
+     * como em {@link #transferir(Conta, Conta, double)}.
+     *
+     * @param contaOrigem Conta de origem.
+     * @param contaDestino Conta de destino, diferente da de origem.
+     * @param valor Valor da transferência.
+     * @param descricao Descrição da transferência.
+     * @return Transferência efetuada.
+     * @throws JournalFailureException Se a transferência foi aplicada, mas o journal não confirmou o seu registro.
+     */
+    public Transferencia realizarTransferencia(Conta contaOrigem, Conta contaDestino, double valor, String descricao) {
+        long inicio = metricas.iniciar();
+        boolean concluida = false;
+        try {
+            if (contaOrigem == null || contaDestino == null) {
+                throw new IllegalArgumentException("As contas de origem e destino não podem ser nulas.");
+            }
+            if (contaOrigem == contaDestino) {
+                throw new IllegalArgumentException("As contas de origem e destino devem ser diferentes.");
+            }
+            if (valor <= 0) {
+                throw new IllegalArgumentException("O valor da transferência deve ser positivo.");
+            }
+            long instante = aplicarTransferencia(contaOrigem, contaDestino, valor, null);
+            concluida = true;
+            return Transferencia.restaurar(contaOrigem, contaDestino, Dinheiro.paraCentavos(valor), instante,
+                    descricao);
+        } finally {
+            metricas.registrar(MetricasBanco.Operacao.TRANSFERIR, inicio, concluida);
+        }
+    }
+
+    /**
+     * Aplica a transferência e a registra no journal.
+     *
+     * @return Data da transferência, em milissegundos desde a época.
+     */
+    private long aplicarTransferencia(Conta contaOrigem, Conta contaDestino, double valor, String chaveIdempotencia) {
+        long chaveOrigem = contaOrigem.getChave();
+        long chaveDestino = contaDestino.getChave();
+        long instante = System.currentTimeMillis();
+        JournalOperacoes journal = this.journal;
+        Lock travaOperacao = (journal == null) ? null : journal.getTravaOperacao();
+        long posicaoJournal = 0;
+        if (travaOperacao != null) {
+            travaOperacao.lock();
+        }
+        try {
+            travasContas.travarPar(chaveOrigem, chaveDestino);
+            try {
+                // A conta registra a movimentação enviada e a recebida
+                contaOrigem.transferir(contaDestino, valor, instante);
+            } finally {
+                travasContas.destravarPar(chaveOrigem, chaveDestino);
+            }
+            if (journal != null) {
+                try {
+                    posicaoJournal = journal.anexarTransferencia(contaOrigem, contaDestino,
+                            Dinheiro.paraCentavos(valor), instante, chaveIdempotencia);
+                } catch (RuntimeException e) {
+                    throw naoRegistrada(e);
+                }
+            }
+        } finally {
+            if (travaOperacao != null) {
+                travaOperacao.unlock();
+            }
+        }
 
-        contaDestino.getMovimentacoes().add(new Movimentacao(
-                Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA,
-                contaDestino.getNumeroConta(),
-                "Transferência recebida da conta " + contaOrigem.getNumeroConta(),
-                valor
-        ));
+        // Aguardada fora das travas, para não segurá-las durante a sincronização em disco
+        if (journal != null) {
+            aguardarDurabilidade(journal, posicaoJournal);
+        }
+        return instante;
     }
 
     /**
-     * Lista todas as contas cadastradas.
+     * Deduz a taxa de manutenção mensal de uma conta corrente e registra o
+     * débito no journal, como um saque.
      *
-     * @return Lista de contas.
+     * @param conta Conta corrente cadastrada.
+     * @throws IllegalStateException Se o saldo for insuficiente.
+     * @throws JournalFailureException Se a taxa foi debitada, mas o journal não confirmou o seu registro.
      */
-    public List<Conta> listarContas() {
-        return new ArrayList<>(contas);
+    public void aplicarTaxaManutencao(ContaCorrente conta) {
+        if (conta == null) {
+            throw new IllegalArgumentException("Conta inválida.");
+        }
+        aplicarMovimentoMensal(conta, Movimentacao.TipoMovimentacao.SAQUE, conta::aplicarTaxaManutencao);
     }
 
     /**
-     * Exporta as contas para um arquivo CSV.
+     * Aplica o rendimento mensal de uma conta poupança e registra o crédito
+     * no journal, como um depósito. Um rendimento nulo não gera registro.
      *
-     * @param filePath Caminho do arquivo CSV.
+     * @param conta Conta poupança cadastrada.
+     * @throws JournalFailureException Se o rendimento foi creditado, mas o journal não confirmou o seu registro.
      */
-    public void exportarContasCsv(String filePath) {
-        List<String[]> rows = new ArrayList<>();
+    public void aplicarRendimentoMensal(ContaPoupanca conta) {
+        if (conta == null) {
+            throw new IllegalArgumentException("Conta inválida.");
+        }
+        aplicarMovimentoMensal(conta, Movimentacao.TipoMovimentacao.DEPOSITO, conta::aplicarRendimentoMensal);
+    }
 
-        for (Conta conta : contas) {
-            rows.add(conta.toCsvRow());
+    /**
+     * Aplica uma taxa ou um rendimento de uma só conta e o registra no journal
+     * com o tipo informado, que a recuperação reaplica como qualquer depósito
+     * ou saque.
+     *
+     * @param operacao Recebe a data da operação e devolve o valor movimentado, em centavos.
+     */
+    private void aplicarMovimentoMensal(Conta conta, Movimentacao.TipoMovimentacao tipo, LongUnaryOperator operacao) {
+        long instante = System.currentTimeMillis();
+        JournalOperacoes journal = this.journal;
+        if (journal == null) {
+            operacao.applyAsLong(instante);
+            return;
         }
+        long posicaoJournal;
+        Lock travaOperacao = journal.getTravaOperacao();
+        travaOperacao.lock();
+        try {
+            long centavos = operacao.applyAsLong(instante);
+            if (centavos <= 0) {
+                return;
+            }
+            try {
+                posicaoJournal = tipo == Movimentacao.TipoMovimentacao.SAQUE
+                        ? journal.anexarSaque(conta, centavos, instante, null)
+                        : journal.anexarDeposito(conta, centavos, instante, null);
+            } catch (RuntimeException e) {
+                throw naoRegistrada(e);
+            }
+        } finally {
+            travaOperacao.unlock();
+        }
+        aguardarDurabilidade(journal, posicaoJournal);
+    }
 
+    /**
+     * Espera a durabilidade do registro de uma operação já aplicada em memória.
+     *
+     * @throws JournalFailureException Se a espera falhar.
+     */
+    private static void aguardarDurabilidade(JournalOperacoes journal, long posicao) {
         try {
+            journal.aguardarDurabilidade(posicao);
+        } catch (RuntimeException e) {
+            throw naoRegistrada(e);
+        }
+    }
+
+    /**
+     * Falha do journal depois de a operação ser aplicada em memória: não é
+     * uma recusa, e a operação não é desfeita.
+     */
+    private static JournalFailureException naoRegistrada(RuntimeException causa) {
+        return new JournalFailureException("A operação foi aplicada, mas o journal não confirmou o seu registro: "
+                + causa.getMessage(), causa);
+    }
+
+    /**
+     * Lembra a chave de idempotência de uma operação já aplicada, como as
+     * reproduzidas do journal na recuperação, para que uma repetição dela não
+     * seja aplicada outra vez. Chaves já vencidas são ignoradas.
+     *
+     * @param chaveIdempotencia Chave da operação.
+     * @param tipo DEPOSITO, SAQUE ou TRANSFERENCIA_ENVIADA.
+     * @param origem Conta da operação (a de origem, nas transferências).
+     * @param destino Conta de destino das transferências, ou null.
+     * @param centavos Valor em centavos.
+     * @param instante Data da operação, em milissegundos desde a época.
+     */
+    public void restaurarChaveIdempotencia(String chaveIdempotencia, Movimentacao.TipoMovimentacao tipo,
+                                           Conta origem, Conta destino, long centavos, long instante) {
+        idempotencia.restaurar(chaveIdempotencia, tipo, origem.getChave(),
+                destino == null ? 0 : destino.getChave(), centavos, instante);
+    }
+
+    /**
+     * Realiza um lote de transferências, como as de um arquivo de pagamentos.
+     * <p>
+     * As contas de todas as ordens são resolvidas de uma vez, sob uma única
+     * aquisição da trava de cadastro, e os valores são validados antes de
+     * qualquer trava de conta. As ordens são então aplicadas em blocos: as
+     * listras de todas as contas do bloco são travadas uma vez, em ordem
+     * crescente (a mesma de {@link TravasListradas#travarPar}), e as ordens do
+     * bloco são agrupadas por conta ({@link TransferenciasAgrupadas}): os
+     * saldos são validados em uma passada, na sequência do lote, de modo que
+     * uma ordem pode usar o saldo recebido por uma anterior, e cada conta
+     * recebe a sua variação líquida de uma vez. Com journal, os registros são
+     * anexados sem espera e a durabilidade é aguardada uma única vez, ao fim
+     * do lote. Cada ordem conta nas métricas de
+     * {@link MetricasBanco.Operacao#TRANSFERIR}, com a latência média do lote.
+     * <p>
+     * As regras de saque da conta de origem, como o limite de saques da conta
+     * salário, valem como em {@link #transferir}; a recusa por elas aparece
+     * como {@link ResultadoTransferencia#RECUSADA}.
+     *
+     * @param ordens Ordens de transferência.
+     * @return Resultado de cada ordem, na mesma posição da ordem no lote.
+     */
+    public List<ResultadoTransferencia> transferirLote(List<OrdemTransferencia> ordens) {
+        long inicioMetricas = metricas.iniciar();
+        int quantidade = ordens.size();
+        ResultadoTransferencia[] resultados = new ResultadoTransferencia[quantidade];
+        Conta[] origens = new Conta[quantidade];
+        Conta[] destinos = new Conta[quantidade];
+        long[] centavos = new long[quantidade];
+
+        travaCadastro.readLock().lock();
+        try {
+            for (int i = 0; i < quantidade; i++) {
+                OrdemTransferencia ordem = ordens.get(i);
+                origens[i] = indiceContas.get(Conta.chave(ordem.getAgenciaOrigem(), ordem.getNumeroContaOrigem()));
+                destinos[i] = indiceContas.get(Conta.chave(ordem.getAgenciaDestino(), ordem.getNumeroContaDestino()));
+            }
+        } finally {
+            travaCadastro.readLock().unlock();
+        }
+
+        for (int i = 0; i < quantidade; i++) {
+            centavos[i] = Dinheiro.paraCentavos(ordens.get(i).getValor());
+            if (origens[i] == null) {
+                resultados[i] = ResultadoTransferencia.CONTA_ORIGEM_NAO_ENCONTRADA;
+            } else if (destinos[i] == null) {
+                resultados[i] = ResultadoTransferencia.CONTA_DESTINO_NAO_ENCONTRADA;
+            } else if (origens[i] == destinos[i]) {
+                resultados[i] = ResultadoTransferencia.MESMA_CONTA;
+            } else if (centavos[i] <= 0) {
+                resultados[i] = ResultadoTransferencia.VALOR_INVALIDO;
+            }
+        }
+
+        JournalOperacoes journal = this.journal;
+        Lock travaOperacao = (journal == null) ? null : journal.getTravaOperacao();
+        long posicaoJournal = 0;
+        int[] listras = new int[2 * TAMANHO_BLOCO_LOTE];
+        TransferenciasAgrupadas agrupadas = new TransferenciasAgrupadas(Math.min(quantidade, TAMANHO_BLOCO_LOTE));
+        for (int inicio = 0; inicio < quantidade; inicio += TAMANHO_BLOCO_LOTE) {
+            int fim = Math.min(quantidade, inicio + TAMANHO_BLOCO_LOTE);
+
+            int travadas = 0;
+            for (int i = inicio; i < fim; i++) {
+                if (resultados[i] == null) {
+                    listras[travadas++] = travasContas.listra(origens[i].getChave());
+                    listras[travadas++] = travasContas.listra(destinos[i].getChave());
+                }
+            }
+            travadas = ordenarSemRepeticao(listras, travadas);
+
+            long instante = System.currentTimeMillis();
+            if (travaOperacao != null) {
+                travaOperacao.lock();
+            }
+            try {
+                travasContas.travarListras(listras, travadas);
+                try {
+                    agrupadas.aplicar(origens, destinos, centavos, resultados, inicio, fim, instante);
+                } finally {
+                    travasContas.destravarListras(listras, travadas);
+                }
+
+                if (journal != null) {
+                    try {
+                        for (int i = inicio; i < fim; i++) {
+                            if (resultados[i] == ResultadoTransferencia.EFETUADA) {
+                                posicaoJournal = journal.anexarTransferencia(origens[i], destinos[i], centavos[i],
+                                        instante);
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        throw naoRegistrada(e);
+                    }
+                }
+            } finally {
+                if (travaOperacao != null) {
+                    travaOperacao.unlock();
+                }
+            }
+        }
+        if (journal != null && posicaoJournal > 0) {
+            aguardarDurabilidade(journal, posicaoJournal);
+        }
+        int recusadas = 0;
+        for (ResultadoTransferencia resultado : resultados) {
+            if (resultado != ResultadoTransferencia.EFETUADA) {
+                recusadas++;
+            }
+        }
+        metricas.registrarLote(MetricasBanco.Operacao.TRANSFERIR, inicioMetricas, quantidade, recusadas);
+        return Arrays.asList(resultados);
+    }
+
+    private static int ordenarSemRepeticao(int[] valores, int quantidade) {
+        Arrays.sort(valores, 0, quantidade);
+        int unicos = 0;
+        for (int i = 0; i < quantidade; i++) {
+            if (unicos == 0 || valores[unicos - 1] != valores[i]) {
+                valores[unicos++] = valores[i];
+            }
+        }
+        return unicos;
+    }
+
+    /**
+     * Lista as contas cadastradas até o momento da chamada, em ordem de
+     * criação. A lista é uma visão imutável obtida em tempo constante, sem
+     * cópia e sem a trava do cadastro; contas criadas depois não aparecem nela.
+     *
+     * @return Lista de contas.
+     */
+    public List<Conta> listarContas() {
+        return contas.visao();
+    }
+
+    /**
+     * Abre uma versão de leitura consistente de todas as contas: as contas
+     * cadastradas, os saldos e os históricos no mesmo instante, para
+     * relatórios e exportações que não devem travar as operações nem
+     * enxergar uma transferência pela metade. Deve ser fechada ao final.
+     *
+     * @return Versão de leitura aberta.
+     */
+    public VisaoContas abrirVisao() {
+        return new VisaoContas(contas, versoes);
+    }
+
+    /**
+     * Exporta as contas para um arquivo CSV. As contas e os saldos são os de
+     * uma {@linkplain #abrirVisao() versão de leitura} aberta no início, e são
+     * escritos diretamente no arquivo, sem montar as linhas em memória.
+     *
+     * @param filePath Caminho do arquivo CSV.
+     */
+    public void exportarContasCsv(String filePath) {
+        long inicio = metricas.iniciar();
+        boolean concluida = false;
+        try (VisaoContas visao = abrirVisao()) {
             ExportarCSV.export(filePath, new String[] {
-                "Número Conta", "Nome Cliente", "Agência", "Tipo Conta", "Saldo", "Senha"
-            }, rows);
+                "Número Conta", "Nome Cliente", "Agência", "Tipo Conta", "Saldo", "Senha", "Parâmetro"
+            }, visao.getContas(), (conta, escritor) -> conta.escreverCsv(escritor, visao.getSaldoCentavos(conta)));
+            concluida = true;
         } catch (IOException e) {
             System.err.println("Erro ao exportar contas para CSV: " + e.getMessage());
+        } finally {
+            metricas.registrar(MetricasBanco.Operacao.EXPORTAR, inicio, concluida);
         }
     }
 
     /**
-     * Importa contas de um arquivo CSV.
+     * Importa contas de um arquivo CSV. O arquivo é lido em blocos processados
+     * em paralelo ({@link ExportarCSV#importarParalelo}), sem ser carregado
+     * inteiro na memória; as contas são criadas na ordem do arquivo.
      *
      * @param filePath Caminho do arquivo CSV.
      * @param clientes Lista de clientes disponíveis.
      */
     public void importarContasCsv(String filePath, List<Cliente> clientes) {
-        try {
-            List<String[]> rows = ExportarCSV.importar(filePath);
+        // Índice temporário por nome: uma passada na lista em vez de uma por linha
+        Map<String, Cliente> clientesPorNome = new HashMap<>();
+        for (Cliente cliente : clientes) {
+            clientesPorNome.putIfAbsent(cliente.getNome(), cliente);
+        }
+        importarContas(filePath, clientesPorNome::get);
+    }
+
+    /**
+     * Importa contas de um arquivo CSV, resolvendo os clientes pelos índices
+     * do {@link ClienteController}.
+     *
+     * @param filePath Caminho do arquivo CSV.
+     * @param clienteController Controller com os clientes cadastrados.
+     */
+    public void importarContasCsv(String filePath, ClienteController clienteController) {
+        importarContas(filePath, clienteController::buscarClientePorNome);
+    }
 
-            for (String[] row : rows) {
+    private void importarContas(String filePath, Function<String, Cliente> buscarCliente) {
+        long inicio = metricas.iniciar();
+        boolean concluida = false;
+        try {
+            ExportarCSV.importarParalelo(filePath, row -> {
                 int numeroConta = Integer.parseInt(row[0]);
                 String nomeCliente = row[1];
                 int agencia = Integer.parseInt(row[2]);
@@ -173,17 +827,25 @@ public class ContaController {
                 double saldo = Double.parseDouble(row[4]);
                 int senha = Integer.parseInt(row[5]);
 
-                Cliente cliente = clientes.stream()
-                        .filter(c -> c.getNome().equals(nomeCliente))
-                        .findFirst()
-                        .orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado: " + nomeCliente));
+                Cliente cliente = buscarCliente.apply(nomeCliente);
+                if (cliente == null) {
+                    throw new IllegalArgumentException("Cliente não encontrado: " + nomeCliente);
+                }
 
-                criarConta(nomeCliente, cliente, agencia, numeroConta, tipo, senha, saldo);
-            }
+                if (row.length > 6 && !row[6].isEmpty()) {
+                    // Sétima coluna: parâmetro da subclasse (Conta#toCsvRow), vazia para uma conta comum
+                    adicionarConta(Conta.fromCsvRow(row, cliente));
+                } else {
+                    criarConta(nomeCliente, cliente, agencia, numeroConta, tipo, senha, saldo);
+                }
+            });
+            concluida = true;
         } catch (IOException e) {
             System.err.println("Erro ao importar contas de CSV: " + e.getMessage());
         } catch (Exception e) {
             System.err.println("Erro ao processar arquivo CSV: " + e.getMessage());
+        } finally {
+            metricas.registrar(MetricasBanco.Operacao.IMPORTAR, inicio, concluida);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package br.ufrn.bti.banco1000.controller;
+
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.RelatorioFechamentoMensal;
+import br.ufrn.bti.banco1000.persistence.JournalOperacoes;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Fechamento mensal em lote das contas de um {@link ContaController}:
+ * rendimento das poupanças, taxa de manutenção das contas correntes e
+ * reinício do limite de saques das contas salário ({@link Conta#fecharMes}).
+ * <p>
+ * As contas são divididas em partições contíguas processadas em paralelo em
+ * um {@link ForkJoinPool}, sem escrita no console. Cada conta é marcada como
+ * fechada para o mês ({@link Conta#marcarMesFechado}) antes da operação, e o
+ * resultado de cada conta é anexado ao journal do controller; a durabilidade
+ * é aguardada uma vez por partição. Essas marcações são o ponto de controle:
+ * ao recuperar o journal após uma queda, as contas já fechadas voltam
+ * marcadas, e executar o fechamento de novo aplica o mês apenas às restantes,
+ * sem cobrar duas vezes. Toda conta fechada gera um registro, mesmo sem
+ * alterar o saldo (como o reinício do limite de saques ou uma taxa recusada),
+ * para que a marcação e o reinício do limite também sobrevivam à queda.
+ */
+public class FechamentoMensal {
+    /** Contas por partição, pequeno o bastante para equilibrar a carga entre as threads. */
+    public static final int TAMANHO_PARTICAO_PADRAO = 16_384;
+
+    private final ContaController contas;
+    private final ForkJoinPool pool;
+    private final int tamanhoParticao;
+
+    public FechamentoMensal(ContaController contas) {
+        this(contas, ForkJoinPool.commonPool(), TAMANHO_PARTICAO_PADRAO);
+    }
+
+    /**
+     * Cria o fechamento com pool e tamanho de partição específicos.
+     *
+     * @param contas Controller com as contas a fechar.
+     * @param pool Pool em que as partições são executadas.
+     * @param tamanhoParticao Quantidade de contas por partição.
+     */
+    public FechamentoMensal(ContaController contas, ForkJoinPool pool, int tamanhoParticao) {
+        if (contas == null || pool == null) {
+            throw new IllegalArgumentException("Controller e pool não podem ser nulos.");
+        }
+        if (tamanhoParticao < 1) {
+            throw new IllegalArgumentException("O tamanho da partição deve ser positivo.");
+        }
+        this.contas = contas;
+        this.pool = pool;
+        this.tamanhoParticao = tamanhoParticao;
+    }
+
+    /**
+     * Executa o fechamento do mês para todas as contas cadastradas. Pode ser
+     * repetido com segurança: contas já fechadas para o mês são ignoradas.
+     *
+     * @param mes Mês a fechar.
+     * @return Relatório com totais, vazão e tempo por partição.
+     */
+    public RelatorioFechamentoMensal executar(YearMonth mes) {
+        if (mes == null) {
+            throw new IllegalArgumentException("O mês não pode ser nulo.");
+        }
+        long inicio = System.nanoTime();
+        long instante = System.currentTimeMillis();
+        Conta[] todas = contas.listarContas().toArray(new Conta[0]);
+        JournalOperacoes journal = contas.getJournal();
+
+        int quantidadeParticoes = (todas.length + tamanhoParticao - 1) / tamanhoParticao;
+        List<ForkJoinTask<Resultado>> tarefas = new ArrayList<>(quantidadeParticoes);
+        for (int p = 0; p < quantidadeParticoes; p++) {
+            int indice = p;
+            int de = p * tamanhoParticao;
+            int ate = Math.min(de + tamanhoParticao, todas.length);
+            tarefas.add(pool.submit(() -> fecharParticao(indice, todas, de, ate, mes, instante, journal)));
+        }
+
+        List<RelatorioFechamentoMensal.Particao> particoes = new ArrayList<>(quantidadeParticoes);
+        long rendimentos = 0;
+        long taxas = 0;
+        int taxasRecusadas = 0;
+        for (ForkJoinTask<Resultado> tarefa : tarefas) {
+            Resultado resultado = tarefa.join();
+            particoes.add(resultado.particao);
+            rendimentos += resultado.rendimentosCentavos;
+            taxas += resultado.taxasCentavos;
+            taxasRecusadas += resultado.taxasRecusadas;
+        }
+        return new RelatorioFechamentoMensal(mes, rendimentos, taxas, taxasRecusadas,
+                System.nanoTime() - inicio, particoes);
+    }
+
+    private static Resultado fecharParticao(int indice, Conta[] todas, int de, int ate, YearMonth mes,
+                                            long instante, JournalOperacoes journal) {
+        long inicio = System.nanoTime();
+        Resultado resultado = new Resultado();
+        int fechadas = 0;
+        int jaFechadas = 0;
+        long posicaoJournal = 0;
+        Lock travaOperacao = (journal == null) ? null : journal.getTravaOperacao();
+        for (int i = de; i < ate; i++) {
+            Conta conta = todas[i];
+            if (travaOperacao != null) {
+                travaOperacao.lock();
+            }
+            try {
+                if (!conta.marcarMesFechado(mes)) {
+                    jaFechadas++;
+                    continue;
+                }
+                long centavos = conta.fecharMes(instante);
+                fechadas++;
+                if (centavos == Conta.FECHAMENTO_RECUSADO) {
+                    resultado.taxasRecusadas++;
+                    centavos = 0;
+                } else if (centavos > 0) {
+                    resultado.rendimentosCentavos += centavos;
+                } else {
+                    resultado.taxasCentavos -= centavos;
+                }
+                if (journal != null) {
+                    posicaoJournal = journal.anexarFechamentoMensal(conta, mes, centavos, instante);
+                }
+            } finally {
+                if (travaOperacao != null) {
+                    travaOperacao.unlock();
+                }
+            }
+        }
+        if (posicaoJournal > 0) {
+            journal.aguardarDurabilidade(posicaoJournal);
+        }
+        resultado.particao = new RelatorioFechamentoMensal.Particao(indice, ate - de, fechadas, jaFechadas,
+                System.nanoTime() - inicio);
+        return resultado;
+    }
+
+    private static final class Resultado {
+        RelatorioFechamentoMensal.Particao particao;
+        long rendimentosCentavos;
+        long taxasCentavos;
+        int taxasRecusadas;
+    }
+}
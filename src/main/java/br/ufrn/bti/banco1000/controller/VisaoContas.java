@@ -0,0 +1,106 @@
+package br.ufrn.bti.banco1000.controller;
+
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.ControleVersoes;
+import br.ufrn.bti.banco1000.model.Movimentacao;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+import br.ufrn.bti.banco1000.utils.ListaAnexavel;
+
+import java.util.List;
+
+/**
+ * Versão de leitura consistente das contas, aberta por
+ * {@link ContaController#abrirVisao()}: os saldos e os históricos de todas as
+ * contas no mesmo instante, como se as operações tivessem parado, sem que elas
+ * parem. Uma transferência entre contas do mesmo controller aparece inteira ou
+ * não aparece; depósitos, saques e transferências concluídos depois da
+ * abertura não aparecem.
+ * <p>
+ * Abrir a versão custa tempo constante, independente da quantidade de contas,
+ * e as leituras não adquirem travas. Enquanto ela está aberta, a primeira
+ * operação em cada conta guarda o estado anterior da conta; por isso a versão
+ * deve ser fechada ao final, de preferência com try-with-resources.
+ * <p>
+ * O saldo da versão é o saldo comprometido das contas (ver
+ * {@link br.ufrn.bti.banco1000.model.HistoricoMovimentacoes#getSaldoComprometido()}):
+ * valores reservados por uma transferência em duas fases ainda não confirmada
+ * continuam na conta de origem. Contas cadastradas enquanto a versão é aberta
+ * podem não aparecer nela. O limite de saques da conta salário e o último mês
+ * fechado não são versionados.
+ */
+public final class VisaoContas implements AutoCloseable {
+    private final ControleVersoes versoes;
+    private final List<Conta> contas;
+    private final long versao;
+    private volatile boolean fechada;
+
+    VisaoContas(ListaAnexavel<Conta> cadastro, ControleVersoes versoes) {
+        // A lista é tomada antes da versão: toda conta dela já existia quando a versão foi aberta
+        this.contas = cadastro.visao();
+        this.versoes = versoes;
+        this.versao = versoes.abrir();
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Contas cadastradas na versão, em ordem de criação.
+     *
+     * @return Lista imutável de contas.
+     */
+    public List<Conta> getContas() {
+        return contas;
+    }
+
+    /**
+     * Saldo da conta na versão.
+     *
+     * @param conta Conta consultada.
+     * @return Saldo em centavos.
+     */
+    public long getSaldoCentavos(Conta conta) {
+        verificarAberta();
+        return conta.getHistorico().saldoEm(versao);
+    }
+
+    /**
+     * Saldo da conta na versão.
+     *
+     * @param conta Conta consultada.
+     * @return Saldo em reais.
+     */
+    public double getSaldo(Conta conta) {
+        return Dinheiro.paraReais(getSaldoCentavos(conta));
+    }
+
+    /**
+     * Movimentações da conta na versão, como em {@link Conta#getMovimentacoes()}.
+     * A lista continua válida depois de a versão ser fechada.
+     *
+     * @param conta Conta consultada.
+     * @return Lista imutável de movimentações.
+     */
+    public List<Movimentacao> getMovimentacoes(Conta conta) {
+        verificarAberta();
+        return conta.getHistorico().visaoEm(versao);
+    }
+
+    /**
+     * Fecha a versão. Chamadas repetidas não têm efeito.
+     */
+    @Override
+    public synchronized void close() {
+        if (!fechada) {
+            fechada = true;
+            versoes.fechar(versao);
+        }
+    }
+
+    private void verificarAberta() {
+        if (fechada) {
+            throw new IllegalStateException("A versão de leitura " + versao + " já foi fechada.");
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package br.ufrn.bti.banco1000.exception;
+
+/**
+ * Exceção lançada quando uma operação já aplicada em memória não pôde ser
+ * registrada no journal, ou a espera pela sua durabilidade falhou. A operação
+ * não é desfeita e não é uma recusa: repeti-la a aplicaria de novo.
+ */
+public class JournalFailureException extends RuntimeException {
+    public JournalFailureException(String mensagem, Throwable causa) {
+        super(mensagem, causa);
+    }
+}
@@ -2,6 +2,7 @@ package br.ufrn.bti.banco1000.gui;
 
 import br.ufrn.bti.banco1000.controller.ClienteController;
 import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.controller.VisaoContas;
 import br.ufrn.bti.banco1000.model.Cliente;
 import br.ufrn.bti.banco1000.model.Conta;
 import br.ufrn.bti.banco1000.utils.ExportarCSV;
@@ -21,8 +22,18 @@ public class BancoGUI {
     private final ContaController contaController;
 
     public BancoGUI() {
-        this.clienteController = new ClienteController();
-        this.contaController = new ContaController();
+        this(new ClienteController(), new ContaController());
+    }
+
+    /**
+     * Cria a interface sobre controllers já existentes (por exemplo, recuperados do journal).
+     *
+     * @param clienteController Controller de clientes.
+     * @param contaController Controller de contas.
+     */
+    public BancoGUI(ClienteController clienteController, ContaController contaController) {
+        this.clienteController = clienteController;
+        this.contaController = contaController;
     }
 
     public static void main(String[] args) {
@@ -220,9 +231,11 @@ public class BancoGUI {
 
     private void listarContas() {
         System.out.println("=== Contas Cadastradas ===");
-        contaController.listarContas().forEach(conta -> 
-                System.out.println("Conta: " + conta.getNumeroConta() + ", Agência: " + conta.getAgencia() +
-                        ", Cliente: " + conta.getCliente().getNome() + ", Saldo: " + conta.getSaldo()));
+        try (VisaoContas visao = contaController.abrirVisao()) {
+            visao.getContas().forEach(conta -> 
+                    System.out.println("Conta: " + conta.getNumeroConta() + ", Agência: " + conta.getAgencia() +
+                            ", Cliente: " + conta.getCliente().getNome() + ", Saldo: " + visao.getSaldo(conta)));
+        }
     }
 
     private void exportarDados() {
@@ -0,0 +1,270 @@
+package br.ufrn.bti.banco1000.metricas;
+
+import br.ufrn.bti.banco1000.utils.HistogramaLatencia;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de operação dos controllers, do modelo e das travas de conta,
+ * publicadas como MBeans da plataforma: {@value #NOME_BANCO} com os totais e
+ * um {@code type=Operacao} por {@link Operacao}, visíveis no JConsole ou no
+ * VisualVM.
+ * <p>
+ * Os contadores são {@link LongAdder}s, listrados por thread, e as latências
+ * vão para um {@link HistogramaLatencia} por operação; nada é alocado por
+ * registro e nenhuma thread trabalha em segundo plano: percentis e totais só
+ * são calculados quando lidos via JMX. Com a propriedade
+ * {@code banco1000.metricas=false}, os MBeans não são registrados e os
+ * registros retornam de imediato, sem ler o relógio.
+ */
+public final class MetricasBanco implements MetricasBancoMXBean {
+    public static final String NOME_BANCO = "br.ufrn.bti.banco1000:type=Banco";
+    /** Valor de {@link #iniciar()} quando as métricas estão desativadas. */
+    public static final long NAO_MEDIDO = Long.MIN_VALUE;
+
+    /** Operações medidas. */
+    public enum Operacao {
+        CRIAR_CONTA, BUSCAR_CONTA, DEPOSITAR, SACAR, TRANSFERIR, IMPORTAR, EXPORTAR
+    }
+
+    /** Motivos de recusa contados. */
+    public enum Recusa {
+        SALDO_INSUFICIENTE, LIMITE_SAQUES
+    }
+
+    private static final MetricasBanco PADRAO =
+            new MetricasBanco(!"false".equalsIgnoreCase(System.getProperty("banco1000.metricas")));
+
+    private final boolean ativo;
+    private final Map<Operacao, MetricasOperacao> operacoes = new EnumMap<>(Operacao.class);
+    private final LongAdder contasCadastradas = new LongAdder();
+    private final LongAdder movimentacoesRegistradas = new LongAdder();
+    private final LongAdder recusasSaldo = new LongAdder();
+    private final LongAdder recusasLimite = new LongAdder();
+    private final LongAdder esperasTravas = new LongAdder();
+    private final LongAdder nanosEsperaTravas = new LongAdder();
+    private final LongAdder repeticoesIdempotentes = new LongAdder();
+
+    private MetricasBanco(boolean ativo) {
+        this.ativo = ativo;
+        for (Operacao operacao : Operacao.values()) {
+            operacoes.put(operacao, new MetricasOperacao());
+        }
+        if (ativo) {
+            registrarMBeans();
+        }
+    }
+
+    /**
+     * Métricas compartilhadas por todos os controllers da JVM.
+     *
+     * @return Métricas padrão.
+     */
+    public static MetricasBanco padrao() {
+        return PADRAO;
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    private void registrarMBeans() {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            servidor.registerMBean(this, new ObjectName(NOME_BANCO));
+            for (Map.Entry<Operacao, MetricasOperacao> entrada : operacoes.entrySet()) {
+                servidor.registerMBean(entrada.getValue(), new ObjectName("br.ufrn.bti.banco1000:type=Operacao,name="
+                        + entrada.getKey().name().toLowerCase(Locale.ROOT)));
+            }
+        } catch (JMException e) {
+            System.err.println("Erro ao registrar as métricas via JMX: " + e.getMessage());
+        }
+    }
+
+    // Registro
+
+    /**
+     * Marca o início de uma operação.
+     *
+     * @return Instante a passar para {@link #registrar}, ou {@link #NAO_MEDIDO}.
+     */
+    public long iniciar() {
+        return ativo ? System.nanoTime() : NAO_MEDIDO;
+    }
+
+    /**
+     * Registra o fim de uma operação iniciada com {@link #iniciar()}.
+     *
+     * @param operacao Operação medida.
+     * @param inicio Valor devolvido por {@link #iniciar()}.
+     * @param concluida false se a operação terminou com exceção.
+     */
+    public void registrar(Operacao operacao, long inicio, boolean concluida) {
+        if (inicio == NAO_MEDIDO) {
+            return;
+        }
+        MetricasOperacao metricas = operacoes.get(operacao);
+        metricas.latencias.registrar(System.nanoTime() - inicio);
+        if (!concluida) {
+            metricas.erros.increment();
+        }
+    }
+
+    /**
+     * Registra o fim de um lote iniciado com {@link #iniciar()}: cada item
+     * conta como uma operação, com a latência média do lote.
+     *
+     * @param operacao Operação de cada item.
+     * @param inicio Valor devolvido por {@link #iniciar()}.
+     * @param quantidade Itens do lote.
+     * @param erros Itens que não foram efetuados.
+     */
+    public void registrarLote(Operacao operacao, long inicio, int quantidade, int erros) {
+        if (inicio == NAO_MEDIDO || quantidade == 0) {
+            return;
+        }
+        MetricasOperacao metricas = operacoes.get(operacao);
+        metricas.latencias.registrar((System.nanoTime() - inicio) / quantidade, quantidade);
+        metricas.erros.add(erros);
+    }
+
+    public void recusar(Recusa motivo) {
+        if (ativo) {
+            (motivo == Recusa.SALDO_INSUFICIENTE ? recusasSaldo : recusasLimite).increment();
+        }
+    }
+
+    public void contaCadastrada() {
+        if (ativo) {
+            contasCadastradas.increment();
+        }
+    }
+
+    public void movimentacoesRegistradas(long quantidade) {
+        if (ativo) {
+            movimentacoesRegistradas.add(quantidade);
+        }
+    }
+
+    public void repeticaoIdempotente() {
+        if (ativo) {
+            repeticoesIdempotentes.increment();
+        }
+    }
+
+    /**
+     * Registra uma espera por trava de conta. Só é chamado quando a trava
+     * estava ocupada, de modo que aquisições livres não leem o relógio.
+     *
+     * @param nanos Tempo de espera em nanossegundos.
+     */
+    public void esperaTrava(long nanos) {
+        if (ativo) {
+            esperasTravas.increment();
+            nanosEsperaTravas.add(nanos);
+        }
+    }
+
+    /**
+     * Métricas de uma operação, as mesmas publicadas no seu MBean.
+     *
+     * @param operacao Operação.
+     * @return Métricas da operação.
+     */
+    public MetricasOperacaoMXBean getOperacao(Operacao operacao) {
+        return operacoes.get(operacao);
+    }
+
+    // Leitura (MBean)
+
+    @Override
+    public long getContasCadastradas() {
+        return contasCadastradas.sum();
+    }
+
+    @Override
+    public long getMovimentacoesRegistradas() {
+        return movimentacoesRegistradas.sum();
+    }
+
+    @Override
+    public long getRecusasSaldoInsuficiente() {
+        return recusasSaldo.sum();
+    }
+
+    @Override
+    public long getRecusasLimiteSaques() {
+        return recusasLimite.sum();
+    }
+
+    @Override
+    public long getEsperasTravas() {
+        return esperasTravas.sum();
+    }
+
+    @Override
+    public double getTempoEsperaTravasMillis() {
+        return nanosEsperaTravas.sum() / 1e6;
+    }
+
+    @Override
+    public long getRepeticoesIdempotentes() {
+        return repeticoesIdempotentes.sum();
+    }
+
+    /**
+     * Contagem e histograma de uma operação.
+     */
+    private static final class MetricasOperacao implements MetricasOperacaoMXBean {
+        private final HistogramaLatencia latencias = new HistogramaLatencia();
+        private final LongAdder erros = new LongAdder();
+
+        @Override
+        public long getQuantidade() {
+            return latencias.getQuantidade();
+        }
+
+        @Override
+        public long getErros() {
+            return erros.sum();
+        }
+
+        @Override
+        public double getLatenciaMediaMicros() {
+            return latencias.getMedia() / 1e3;
+        }
+
+        @Override
+        public double getLatenciaP50Micros() {
+            return latencias.percentil(50) / 1e3;
+        }
+
+        @Override
+        public double getLatenciaP99Micros() {
+            return latencias.percentil(99) / 1e3;
+        }
+
+        @Override
+        public double getLatenciaP999Micros() {
+            return latencias.percentil(99.9) / 1e3;
+        }
+
+        @Override
+        public double getLatenciaMaximaMicros() {
+            return latencias.getMaximo() / 1e3;
+        }
+
+        @Override
+        public void zerar() {
+            latencias.zerar();
+            erros.reset();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package br.ufrn.bti.banco1000.metricas;
+
+/**
+ * Totais do banco publicados via JMX, em {@value MetricasBanco#NOME_BANCO}.
+ */
+public interface MetricasBancoMXBean {
+
+    /** Contas cadastradas nos controllers desde o início da JVM. */
+    long getContasCadastradas();
+
+    /** Movimentações acrescentadas aos históricos das contas dos controllers, incluindo as restauradas. */
+    long getMovimentacoesRegistradas();
+
+    /** Débitos recusados por saldo insuficiente. */
+    long getRecusasSaldoInsuficiente();
+
+    /** Saques e transferências recusados pelo limite mensal das contas salário. */
+    long getRecusasLimiteSaques();
+
+    /** Aquisições de trava de conta que precisaram esperar. */
+    long getEsperasTravas();
+
+    /** Tempo total de espera pelas travas de conta, em milissegundos. */
+    double getTempoEsperaTravasMillis();
+
+    /** Operações repetidas com uma chave de idempotência já usada, que não foram reaplicadas. */
+    long getRepeticoesIdempotentes();
+}
@@ -0,0 +1,28 @@
+package br.ufrn.bti.banco1000.metricas;
+
+/**
+ * Contagem e latência de uma operação dos controllers, publicadas via JMX em
+ * {@code br.ufrn.bti.banco1000:type=Operacao,name=<operação>}. As latências
+ * estão em microssegundos.
+ */
+public interface MetricasOperacaoMXBean {
+
+    /** Execuções concluídas ou com erro. */
+    long getQuantidade();
+
+    /** Execuções encerradas por exceção (incluindo as recusadas pelas regras das contas). */
+    long getErros();
+
+    double getLatenciaMediaMicros();
+
+    double getLatenciaP50Micros();
+
+    double getLatenciaP99Micros();
+
+    double getLatenciaP999Micros();
+
+    double getLatenciaMaximaMicros();
+
+    /** Zera a contagem e o histograma da operação. */
+    void zerar();
+}
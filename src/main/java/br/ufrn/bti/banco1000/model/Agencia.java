@@ -1,9 +1,13 @@
 package br.ufrn.bti.banco1000.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import br.ufrn.bti.banco1000.exception.ContaNotFoundException;
+import br.ufrn.bti.banco1000.utils.CursorCSV;
+import br.ufrn.bti.banco1000.utils.EscritorCSV;
+import br.ufrn.bti.banco1000.utils.IndiceLong;
 
 /**
  * Representa uma agência bancária.
@@ -12,11 +16,13 @@ public class Agencia {
     private final int codigo;
     private final String nome;
     private final List<Conta> contas;
+    private final IndiceLong<Conta> indiceContas;
 
     public Agencia(int codigo, String nome) {
         this.codigo = codigo;
         this.nome = nome;
         this.contas = new ArrayList<>();
+        this.indiceContas = new IndiceLong<>();
     }
 
     public int getCodigo() {
@@ -28,29 +34,41 @@ public class Agencia {
     }
 
     public List<Conta> getContas() {
-        return contas;
+        return Collections.unmodifiableList(contas);
     }
 
     public void adicionarConta(Conta conta) {
-        if (contas.stream().anyMatch(c -> c.getNumeroConta() == conta.getNumeroConta())) {
+        if (indiceContas.putIfAbsent(conta.getNumeroConta(), conta) != null) {
             throw new IllegalArgumentException("Conta já existente na agência.");
         }
         contas.add(conta);
     }
 
     public Conta buscarConta(int numeroConta) {
-        return contas.stream()
-                .filter(conta -> conta.getNumeroConta() == numeroConta)
-                .findFirst()
-                .orElseThrow(() -> new ContaNotFoundException("Conta não encontrada."));
+        Conta conta = indiceContas.get(numeroConta);
+        if (conta == null) {
+            throw new ContaNotFoundException("Conta não encontrada.");
+        }
+        return conta;
     }
 
     public static Agencia fromCsv(String csv) {
-        String[] campos = csv.split(",");
-        return new Agencia(Integer.parseInt(campos[0]), campos[1]);
+        return fromCsv(new CursorCSV().linha(csv));
+    }
+
+    /**
+     * Reconstrói uma agência a partir dos campos de {@link #toCsv()}. Sem
+     * aspas, o nome é o restante da linha, e pode conter vírgulas.
+     *
+     * @param cursor Cursor posicionado no início da linha.
+     * @return Agência reconstruída.
+     */
+    public static Agencia fromCsv(CursorCSV cursor) {
+        int codigo = cursor.inteiro();
+        return new Agencia(codigo, cursor.estenderProximoCampo(0).texto());
     }
 
     public String toCsv() {
-        return codigo + "," + nome;
+        return EscritorCSV.anexarCampo(new StringBuilder().append(codigo).append(','), nome).toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package br.ufrn.bti.banco1000.model;
+
+import br.ufrn.bti.banco1000.utils.Datas;
+import br.ufrn.bti.banco1000.utils.IndiceLong;
+
+import java.time.YearMonth;
+
+/**
+ * Totais e quantidades de movimentações por mês e tipo de uma conta, somados
+ * pelo {@link HistoricoMovimentacoes} dono a partir das entradas publicadas.
+ * <p>
+ * Cada mês ocupa um {@code long[]} com o total em centavos e a quantidade de
+ * cada tipo, indexado pelo mês em um {@link IndiceLong}. Os limites do último
+ * mês atualizado ficam guardados, de modo que a inclusão comum (no mesmo mês
+ * da anterior) é uma comparação de instantes e duas somas, sem conversão de
+ * datas nem busca no índice.
+ * <p>
+ * Não é thread-safe: o histórico dono acessa os agregados sob a sua trava,
+ * que as inclusões não adquirem.
+ */
+final class AgregadosMensais {
+    private static final int TIPOS = Movimentacao.TipoMovimentacao.values().length;
+
+    private final IndiceLong<long[]> meses = new IndiceLong<>(1);
+    private long inicioMesAtual = Long.MAX_VALUE;
+    private long fimMesAtual = Long.MIN_VALUE;
+    private long[] contadoresMesAtual;
+
+    /**
+     * Soma uma movimentação aos totais do seu mês.
+     *
+     * @param instante Data da movimentação, em milissegundos desde a época.
+     * @param ordinalTipo Ordinal do tipo da movimentação.
+     * @param centavos Valor em centavos.
+     */
+    void somar(long instante, int ordinalTipo, long centavos) {
+        long[] contadores = contadoresMesAtual;
+        if (instante < inicioMesAtual || instante >= fimMesAtual) {
+            contadores = selecionarMes(instante);
+        }
+        contadores[ordinalTipo] += centavos;
+        contadores[TIPOS + ordinalTipo]++;
+    }
+
+    private long[] selecionarMes(long instante) {
+        YearMonth mes = Datas.mes(instante);
+        long[] contadores = meses.get(chave(mes));
+        if (contadores == null) {
+            contadores = new long[2 * TIPOS];
+            meses.put(chave(mes), contadores);
+        }
+        inicioMesAtual = Datas.inicioDoMes(mes);
+        fimMesAtual = Datas.inicioDoMes(mes.plusMonths(1));
+        contadoresMesAtual = contadores;
+        return contadores;
+    }
+
+    /**
+     * Cópia dos totais de um mês.
+     *
+     * @param mes Ano e mês.
+     * @return Resumo do mês (zerado se não houve movimentações).
+     */
+    ResumoMensal resumo(YearMonth mes) {
+        long[] contadores = meses.get(chave(mes));
+        if (contadores == null) {
+            return ResumoMensal.vazio(mes);
+        }
+        long[] totais = new long[TIPOS];
+        long[] quantidades = new long[TIPOS];
+        System.arraycopy(contadores, 0, totais, 0, TIPOS);
+        System.arraycopy(contadores, TIPOS, quantidades, 0, TIPOS);
+        return new ResumoMensal(mes, totais, quantidades);
+    }
+
+    void limpar() {
+        meses.clear();
+        inicioMesAtual = Long.MAX_VALUE;
+        fimMesAtual = Long.MIN_VALUE;
+        contadoresMesAtual = null;
+    }
+
+    private static long chave(YearMonth mes) {
+        return mes.getYear() * 12L + (mes.getMonthValue() - 1);
+    }
+}
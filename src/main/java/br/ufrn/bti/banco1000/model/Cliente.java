@@ -85,7 +85,30 @@ public class Cliente {
      */
     public static boolean validarCpf(String cpf) {
         // Simples validação de tamanho e formato
-        return cpf != null && cpf.matches("\\d{11}");
+        if (cpf == null || cpf.length() != 11) {
+            return false;
+        }
+        for (int i = 0; i < 11; i++) {
+            char c = cpf.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converte um CPF válido (11 dígitos) em chave numérica para os índices.
+     *
+     * @param cpf CPF já validado.
+     * @return CPF como {@code long}.
+     */
+    public static long chaveCpf(String cpf) {
+        long chave = 0;
+        for (int i = 0; i < cpf.length(); i++) {
+            chave = chave * 10 + (cpf.charAt(i) - '0');
+        }
+        return chave;
     }
 
     /**
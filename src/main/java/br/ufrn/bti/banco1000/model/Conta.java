@@ -1,12 +1,26 @@
 package br.ufrn.bti.banco1000.model;
 
-import java.util.ArrayList;
+import br.ufrn.bti.banco1000.metricas.MetricasBanco;
+import br.ufrn.bti.banco1000.utils.CursorCSV;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+import br.ufrn.bti.banco1000.utils.EscritorCSV;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Classe que representa uma conta bancária no sistema.
  * Suporta operações de depósito, saque, transferência e registro de movimentações.
  * Cada conta é associada a um cliente.
+ * <p>
+ * O saldo é guardado em centavos e atualizado sem travas, por compare-and-set,
+ * de modo que depósitos e saques concorrentes na mesma conta não disputam
+ * monitores. A verificação de saldo insuficiente faz parte da mesma operação
+ * atômica do débito, e a de estouro do saldo, da mesma operação do crédito.
  */
 public class Conta {
     private String nome;
@@ -15,13 +29,32 @@ public class Conta {
     private int numeroConta;
     private TipoConta tipo;
     private int senha;
-    private double saldo;
-    private List<Movimentacao> movimentacoes;
+    private volatile long saldoCentavos;
+    private final HistoricoMovimentacoes historico;
+    /** Último mês fechado ({@link #fecharMes}), como {@code ano * 12 + mês - 1}; -1 se nenhum. */
+    private volatile int ultimoMesFechado = -1;
+
+    /** Retorno de {@link #fecharMes(long)} quando a operação do mês foi recusada por falta de saldo. */
+    public static final long FECHAMENTO_RECUSADO = Long.MIN_VALUE;
+
+    private static final VarHandle SALDO_CENTAVOS;
+    private static final VarHandle ULTIMO_MES_FECHADO;
+
+    static {
+        try {
+            SALDO_CENTAVOS = MethodHandles.lookup().findVarHandle(Conta.class, "saldoCentavos", long.class);
+            ULTIMO_MES_FECHADO = MethodHandles.lookup().findVarHandle(Conta.class, "ultimoMesFechado", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     public enum TipoConta {
         CORRENTE, POUPANCA, SALARIO
     }
 
+    private static final TipoConta[] TIPOS = TipoConta.values();
+
     /**
      * Construtor completo da classe Conta.
      *
@@ -44,8 +77,8 @@ public class Conta {
         this.numeroConta = numeroConta;
         this.tipo = tipo;
         this.senha = senha;
-        this.saldo = saldo;
-        this.movimentacoes = new ArrayList<>();
+        this.saldoCentavos = Dinheiro.paraCentavos(saldo);
+        this.historico = new HistoricoMovimentacoes(numeroConta, this.saldoCentavos);
     }
 
     // Getters e Setters
@@ -69,12 +102,103 @@ public class Conta {
         return tipo;
     }
 
+    public int getSenha() {
+        return senha;
+    }
+
     public double getSaldo() {
-        return saldo;
+        return Dinheiro.paraReais(saldoCentavos);
+    }
+
+    public long getSaldoCentavos() {
+        return saldoCentavos;
     }
 
+    /**
+     * Retorna uma visão somente leitura do histórico de movimentações, com as
+     * entradas registradas até o momento da chamada. Os objetos são
+     * materializados a partir do {@link HistoricoMovimentacoes} ao serem lidos.
+     * As operações da conta registram suas próprias movimentações.
+     *
+     * @return Movimentações registradas até o momento.
+     */
     public List<Movimentacao> getMovimentacoes() {
-        return movimentacoes;
+        return historico.visao();
+    }
+
+    public HistoricoMovimentacoes getHistorico() {
+        return historico;
+    }
+
+    /**
+     * Consulta o histórico por período e tipo, em páginas, sem percorrer o
+     * histórico inteiro (ver {@link HistoricoMovimentacoes#consultar}).
+     *
+     * @param inicio Instante inicial, inclusive, em milissegundos desde a época.
+     * @param fim Instante final, exclusive.
+     * @param tipos Tipos aceitos; null ou vazio aceita todos.
+     * @param cursor {@link PaginaMovimentacoes#PRIMEIRA_PAGINA} ou o cursor devolvido pela página anterior.
+     * @param limite Quantidade máxima de movimentações na página.
+     * @return Página com as movimentações em ordem cronológica.
+     */
+    public PaginaMovimentacoes consultarMovimentacoes(long inicio, long fim, Set<Movimentacao.TipoMovimentacao> tipos,
+                                                      long cursor, int limite) {
+        return historico.consultar(inicio, fim, tipos, cursor, limite);
+    }
+
+    /**
+     * Totais por tipo das movimentações da conta em um mês. A consulta soma
+     * apenas as movimentações registradas desde a anterior, sem percorrer o
+     * histórico.
+     *
+     * @param mes Ano e mês.
+     * @return Resumo do mês.
+     */
+    public ResumoMensal getResumoMensal(YearMonth mes) {
+        return historico.resumoMensal(mes);
+    }
+
+    /**
+     * Carrega em lote um histórico já existente, como o lido de um arquivo
+     * CSV, sem alterar o saldo. Os totais mensais são recalculados uma única
+     * vez ao final.
+     *
+     * @param movimentacoes Movimentações a incluir, na ordem de registro.
+     */
+    public void carregarMovimentacoes(Iterable<Movimentacao> movimentacoes) {
+        historico.carregar(movimentacoes);
+    }
+
+    /**
+     * Adiciona uma movimentação já existente ao histórico da conta, sem alterar
+     * o saldo, como ao carregar um histórico importado. Não deve ser usado
+     * para registrar operações: depósitos, saques e transferências já
+     * registram suas movimentações. Seguro para uso concorrente.
+     *
+     * @param movimentacao Movimentação a ser registrada.
+     */
+    public void adicionarMovimentacao(Movimentacao movimentacao) {
+        historico.adicionar(movimentacao);
+    }
+
+    /**
+     * Chave primária da conta, combinando agência e número.
+     *
+     * @return Chave usada nos índices de contas.
+     */
+    public long getChave() {
+        return chave(agencia, numeroConta);
+    }
+
+    /**
+     * Combina agência e número da conta em uma única chave {@code long}.
+     *
+     * @param agencia Número da agência.
+     * @param numeroConta Número da conta.
+     * @return Chave primária da conta.
+     */
+    public static long chave(int agencia, int numeroConta) {
+        return ((long) agencia << 32) | (numeroConta & 0xFFFFFFFFL);
     }
 
     // Métodos principais
@@ -85,11 +209,22 @@ public class Conta {
      * @param valor Valor a ser depositado.
      */
     public void depositar(double valor) {
-        if (valor <= 0) {
+        depositar(valor, System.currentTimeMillis());
+    }
+
+    /**
+     * Realiza um depósito na conta, registrado com a data informada.
+     *
+     * @param valor Valor a ser depositado.
+     * @param instante Data do depósito, em milissegundos desde a época.
+     */
+    public void depositar(double valor, long instante) {
+        long centavos = Dinheiro.paraCentavos(valor);
+        if (centavos <= 0) {
             throw new IllegalArgumentException("O valor do depósito deve ser positivo.");
         }
-        this.saldo += valor;
-        registrarMovimentacao(Movimentacao.TipoMovimentacao.DEPOSITO, "Depósito realizado", valor);
+        creditar(centavos);
+        registrarMovimentacao(Movimentacao.TipoMovimentacao.DEPOSITO, centavos, Movimentacao.SEM_CONTRAPARTE, instante);
     }
 
     /**
@@ -98,14 +233,22 @@ public class Conta {
      * @param valor Valor a ser sacado.
      */
     public void sacar(double valor) {
-        if (valor <= 0) {
+        sacar(valor, System.currentTimeMillis());
+    }
+
+    /**
+     * Realiza um saque na conta, se houver saldo suficiente, registrado com a data informada.
+     *
+     * @param valor Valor a ser sacado.
+     * @param instante Data do saque, em milissegundos desde a época.
+     */
+    public void sacar(double valor, long instante) {
+        long centavos = Dinheiro.paraCentavos(valor);
+        if (centavos <= 0) {
             throw new IllegalArgumentException("O valor do saque deve ser positivo.");
         }
-        if (this.saldo < valor) {
-            throw new IllegalStateException("Saldo insuficiente.");
-        }
-        this.saldo -= valor;
-        registrarMovimentacao(Movimentacao.TipoMovimentacao.SAQUE, "Saque realizado", valor);
+        debitarSaque(centavos, "Saldo insuficiente.");
+        registrarMovimentacao(Movimentacao.TipoMovimentacao.SAQUE, centavos, Movimentacao.SEM_CONTRAPARTE, instante);
     }
 
     /**
@@ -115,53 +258,421 @@ public class Conta {
      * @param valor Valor a ser transferido.
      */
     public void transferir(Conta contaDestino, double valor) {
+        transferir(contaDestino, valor, System.currentTimeMillis());
+    }
+
+    /**
+     * Transfere um valor para outra conta, registrando exatamente uma
+     * movimentação em cada conta (enviada na origem, recebida no destino),
+     * com a data informada. O débito segue as regras de saque da conta de
+     * origem (ver {@link #debitarSaque(long, String)}).
+     *
+     * @param contaDestino Conta de destino.
+     * @param valor Valor a ser transferido.
+     * @param instante Data da transferência, em milissegundos desde a época.
+     */
+    public void transferir(Conta contaDestino, double valor, long instante) {
         if (contaDestino == null) {
             throw new IllegalArgumentException("A conta de destino não pode ser nula.");
         }
-        if (valor <= 0) {
+        long centavos = Dinheiro.paraCentavos(valor);
+        if (centavos <= 0) {
             throw new IllegalArgumentException("O valor da transferência deve ser positivo.");
         }
-        if (this.saldo < valor) {
-            throw new IllegalStateException("Saldo insuficiente para transferência.");
+
+        debitarSaque(centavos, "Saldo insuficiente para transferência.");
+        creditarDestino(contaDestino, centavos);
+        registrarTransferencia(contaDestino, centavos, instante);
+    }
+
+    /**
+     * Transfere um valor em centavos para outra conta, com as regras de saque
+     * da conta de origem, mas indicando a recusa pelo retorno em vez de
+     * exceção. Usado pelas transferências em lote: quem chama já validou o
+     * valor e segura as travas das duas contas.
+     *
+     * @param contaDestino Conta de destino.
+     * @param centavos Valor em centavos (positivo).
+     * @param instante Data da transferência, em milissegundos desde a época.
+     * @return {@link ResultadoTransferencia#EFETUADA}, ou o motivo da recusa,
+     *         caso em que nada é alterado.
+     * @throws IllegalStateException Se o saldo do destino estourar o maior valor representável.
+     */
+    public ResultadoTransferencia transferirCentavos(Conta contaDestino, long centavos, long instante) {
+        ResultadoTransferencia resultado = tentarDebitarSaque(centavos);
+        if (resultado != ResultadoTransferencia.EFETUADA) {
+            return resultado;
         }
+        creditarDestino(contaDestino, centavos);
+        registrarTransferencia(contaDestino, centavos, instante);
+        return resultado;
+    }
 
-        this.sacar(valor);
-        contaDestino.depositar(valor);
+    /** Credita o destino de uma transferência já debitada; se o crédito falhar, devolve o valor à origem. */
+    private void creditarDestino(Conta contaDestino, long centavos) {
+        try {
+            contaDestino.creditar(centavos);
+        } catch (IllegalStateException e) {
+            creditar(centavos);
+            throw e;
+        }
+    }
 
+    /**
+     * Primeira fase de uma transferência em duas fases, usada quando origem e
+     * destino são processados por threads diferentes: debita o valor com as
+     * regras de saque da conta, sem registrar movimentação. Deve ser seguida
+     * de {@link #confirmarTransferenciaEnviada} ou de
+     * {@link #cancelarReservaTransferencia} com o mesmo valor.
+     *
+     * @param centavos Valor em centavos.
+     * @throws IllegalArgumentException Se o valor não for positivo.
+     * @throws IllegalStateException Se o saldo for insuficiente ou uma regra da conta impedir o débito.
+     */
+    public void reservarTransferencia(long centavos) {
+        if (centavos <= 0) {
+            throw new IllegalArgumentException("O valor da transferência deve ser positivo.");
+        }
+        debitarSaque(centavos, "Saldo insuficiente para transferência.");
+    }
+
+    /**
+     * Conclui uma transferência reservada, registrando a movimentação enviada.
+     *
+     * @param numeroContaDestino Número da conta que recebeu o valor.
+     * @param centavos Valor reservado, em centavos.
+     * @param instante Data da transferência, em milissegundos desde a época.
+     */
+    public void confirmarTransferenciaEnviada(int numeroContaDestino, long centavos, long instante) {
         registrarMovimentacao(Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA,
-                "Transferência enviada para conta " + contaDestino.getNumeroConta(), valor);
+                centavos, numeroContaDestino, instante);
+    }
+
+    /**
+     * Desfaz uma reserva de transferência que o destino recusou, devolvendo o
+     * valor ao saldo. Nenhuma movimentação é registrada.
+     *
+     * @param centavos Valor reservado, em centavos.
+     */
+    public void cancelarReservaTransferencia(long centavos) {
+        creditar(centavos);
+    }
+
+    /**
+     * Segunda fase de uma transferência em duas fases, no lado do destino:
+     * credita o valor e registra a movimentação recebida.
+     *
+     * @param numeroContaOrigem Número da conta que reservou o valor.
+     * @param centavos Valor em centavos (positivo).
+     * @param instante Data da transferência, em milissegundos desde a época.
+     */
+    public void receberTransferencia(int numeroContaOrigem, long centavos, long instante) {
+        creditar(centavos);
+        registrarMovimentacao(Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA,
+                centavos, numeroContaOrigem, instante);
+    }
+
+    /**
+     * Reaplica uma movimentação recuperada do journal: ajusta o saldo sem as
+     * validações de saldo, já feitas quando a operação ocorreu (a ordem de
+     * reaplicação pode diferir da ordem original), e registra a movimentação
+     * com sua data original.
+     *
+     * @param tipo Tipo da movimentação.
+     * @param centavos Valor em centavos.
+     * @param contraparte Conta de contrapartida, ou {@link Movimentacao#SEM_CONTRAPARTE}.
+     * @param instante Data original, em milissegundos desde a época.
+     * @throws IllegalStateException Se o saldo estourar o maior valor representável.
+     */
+    public void reaplicarMovimentacao(Movimentacao.TipoMovimentacao tipo, long centavos, int contraparte, long instante) {
+        switch (tipo) {
+            case DEPOSITO, TRANSFERENCIA_RECEBIDA -> ajustarSaldo(centavos);
+            case SAQUE, TRANSFERENCIA_ENVIADA -> ajustarSaldo(-centavos);
+        }
+        registrarMovimentacao(tipo, centavos, contraparte, instante);
+    }
+
+    /**
+     * Aplica a operação de fechamento do mês própria do tipo de conta
+     * (rendimento, taxa de manutenção, reinício do limite de saques), sem
+     * escrever no console. A conta comum não tem operação de fechamento.
+     * <p>
+     * Não verifica se o mês já foi fechado: quem chama deve primeiro reservar
+     * o mês com {@link #marcarMesFechado(YearMonth)}.
+     *
+     * @param instante Data das movimentações geradas, em milissegundos desde a época.
+     * @return Variação do saldo em centavos (positiva para crédito, negativa
+     *         para débito, zero se o saldo não mudou), ou {@link #FECHAMENTO_RECUSADO}.
+     */
+    public long fecharMes(long instante) {
+        return 0;
+    }
+
+    /**
+     * Marca o mês como fechado, se ainda não estiver. A marcação é atômica:
+     * entre execuções concorrentes do fechamento, só uma aplica o mês à conta.
+     *
+     * @param mes Mês a fechar.
+     * @return true se o mês foi marcado agora; false se ele (ou um mês posterior) já estava fechado.
+     */
+    public boolean marcarMesFechado(YearMonth mes) {
+        int chave = chaveMes(mes);
+        int atual;
+        do {
+            atual = ultimoMesFechado;
+            if (atual >= chave) {
+                return false;
+            }
+        } while (!ULTIMO_MES_FECHADO.weakCompareAndSet(this, atual, chave));
+        return true;
+    }
+
+    /**
+     * Último mês cujo fechamento foi aplicado à conta.
+     *
+     * @return Mês, ou null se nenhum mês foi fechado.
+     */
+    public YearMonth getUltimoMesFechado() {
+        int chave = ultimoMesFechado;
+        return (chave < 0) ? null : YearMonth.of(chave / 12, chave % 12 + 1);
+    }
+
+    /**
+     * Verifica se o fechamento do mês já foi aplicado à conta.
+     *
+     * @param mes Mês consultado.
+     * @return true se o mês (ou um mês posterior) já foi fechado.
+     */
+    public boolean isMesFechado(YearMonth mes) {
+        return ultimoMesFechado >= chaveMes(mes);
+    }
+
+    /**
+     * Reaplica um fechamento mensal recuperado do journal: marca o mês como
+     * fechado e registra a variação de saldo como depósito ou saque.
+     *
+     * @param mes Mês fechado.
+     * @param centavos Variação do saldo em centavos.
+     * @param instante Data original, em milissegundos desde a época.
+     */
+    public void reaplicarFechamentoMensal(YearMonth mes, long centavos, long instante) {
+        marcarMesFechado(mes);
+        if (centavos > 0) {
+            reaplicarMovimentacao(Movimentacao.TipoMovimentacao.DEPOSITO, centavos, Movimentacao.SEM_CONTRAPARTE, instante);
+        } else if (centavos < 0) {
+            reaplicarMovimentacao(Movimentacao.TipoMovimentacao.SAQUE, -centavos, Movimentacao.SEM_CONTRAPARTE, instante);
+        }
+    }
+
+    private static int chaveMes(YearMonth mes) {
+        return Math.toIntExact(mes.getYear() * 12L + mes.getMonthValue() - 1);
+    }
 
-        contaDestino.registrarMovimentacao(Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA,
-                "Transferência recebida da conta " + this.numeroConta, valor);
+    /**
+     * Soma um valor ao saldo de forma atômica.
+     *
+     * @param centavos Valor em centavos (positivo).
+     * @throws IllegalStateException Se o saldo estourar o maior valor representável; nada é alterado.
+     */
+    protected final void creditar(long centavos) {
+        ajustarSaldo(centavos);
+    }
+
+    /**
+     * Desfaz um crédito aplicado por {@link TransferenciasAgrupadas} cujo
+     * bloco não pôde ser concluído, sem conferir o saldo.
+     *
+     * @param centavos Valor creditado, em centavos.
+     */
+    final void estornarCredito(long centavos) {
+        ajustarSaldo(-centavos);
     }
 
     /**
-     * Registra uma movimentação associada a esta conta.
+     * Soma uma variação ao saldo com compare-and-set, verificando o estouro
+     * na mesma operação atômica: valores como os saturados por
+     * {@link Dinheiro#paraCentavos(double)} nunca dão a volta no {@code long}.
+     */
+    private void ajustarSaldo(long variacao) {
+        long atual;
+        long novo;
+        do {
+            atual = (long) SALDO_CENTAVOS.getVolatile(this);
+            try {
+                novo = Math.addExact(atual, variacao);
+            } catch (ArithmeticException e) {
+                throw new IllegalStateException("O saldo da conta excederia o maior valor representável.");
+            }
+        } while (!SALDO_CENTAVOS.weakCompareAndSet(this, atual, novo));
+    }
+
+    /**
+     * Subtrai um valor do saldo de forma atômica, sem travas: o laço de
+     * compare-and-set só conclui o débito se o saldo lido ainda cobrir o valor.
+     *
+     * @param centavos Valor em centavos (positivo).
+     * @param mensagemSaldoInsuficiente Mensagem da exceção quando o saldo não cobre o valor.
+     * @throws IllegalStateException Se o saldo for insuficiente.
+     */
+    protected final void debitar(long centavos, String mensagemSaldoInsuficiente) {
+        if (!tentarDebitar(centavos)) {
+            throw new IllegalStateException(mensagemSaldoInsuficiente);
+        }
+    }
+
+    /**
+     * Debita o valor de um saque ou de uma transferência enviada. Subclasses
+     * com regras próprias de saque (como limite de saques) sobrescrevem este
+     * método, e não {@link #sacar}, para que as regras valham também nas
+     * transferências.
+     *
+     * @param centavos Valor em centavos (positivo).
+     * @param mensagemSaldoInsuficiente Mensagem da exceção quando o saldo não cobre o valor.
+     * @throws IllegalStateException Se o saldo for insuficiente ou uma regra da conta impedir o débito.
+     */
+    protected void debitarSaque(long centavos, String mensagemSaldoInsuficiente) {
+        debitar(centavos, mensagemSaldoInsuficiente);
+    }
+
+    /**
+     * Como {@link #debitarSaque(long, String)}, mas indica a recusa pelo
+     * retorno em vez de exceção. Subclasses que sobrescrevem um sobrescrevem
+     * também o outro.
+     *
+     * @param centavos Valor em centavos (positivo).
+     * @return {@link ResultadoTransferencia#EFETUADA} se o valor foi debitado;
+     *         senão, o motivo da recusa.
+     */
+    protected ResultadoTransferencia tentarDebitarSaque(long centavos) {
+        return tentarDebitar(centavos) ? ResultadoTransferencia.EFETUADA : ResultadoTransferencia.SALDO_INSUFICIENTE;
+    }
+
+    /**
+     * Como {@link #debitar(long, String)}, mas indica o saldo insuficiente
+     * pelo retorno em vez de exceção.
+     *
+     * @param centavos Valor em centavos (positivo).
+     * @return true se o valor foi debitado; false se o saldo não o cobria.
+     */
+    protected final boolean tentarDebitar(long centavos) {
+        long atual;
+        do {
+            atual = (long) SALDO_CENTAVOS.getVolatile(this);
+            if (atual < centavos) {
+                MetricasBanco.padrao().recusar(MetricasBanco.Recusa.SALDO_INSUFICIENTE);
+                return false;
+            }
+        } while (!SALDO_CENTAVOS.weakCompareAndSet(this, atual, atual - centavos));
+        return true;
+    }
+
+    void registrarTransferencia(Conta contaDestino, long centavos, long instante) {
+        // As duas movimentações entram juntas: uma versão de leitura não enxerga o débito sem o crédito
+        HistoricoMovimentacoes.transferir(historico, contaDestino.historico, centavos, instante);
+    }
+
+    /**
+     * Recusa, nas contas cadastradas em um controller, as operações do modelo
+     * que não passam pelo journal: nelas, a operação deve ser feita pelo
+     * método indicado do {@code ContaController}, que a registra.
+     *
+     * @param operacao Nome do método equivalente do {@code ContaController}.
+     * @throws IllegalStateException Se a conta estiver cadastrada em um controller.
+     */
+    final void exigirForaDeController(String operacao) {
+        if (historico.isAssociado()) {
+            throw new IllegalStateException("A conta " + numeroConta + " está cadastrada em um controller: use "
+                    + "ContaController." + operacao + ", que registra a operação no journal.");
+        }
+    }
+
+    /**
+     * Registra uma movimentação associada a esta conta, com a descrição padrão do tipo.
      *
      * @param tipo Tipo da movimentação.
-     * @param descricao Descrição da movimentação.
-     * @param valor Valor da movimentação.
+     * @param centavos Valor da movimentação em centavos.
+     * @param contraparte Conta de contrapartida, ou {@link Movimentacao#SEM_CONTRAPARTE}.
      */
-    private void registrarMovimentacao(Movimentacao.TipoMovimentacao tipo, String descricao, double valor) {
-        movimentacoes.add(new Movimentacao(tipo, this.numeroConta, descricao, valor));
+    protected void registrarMovimentacao(Movimentacao.TipoMovimentacao tipo, long centavos, int contraparte) {
+        registrarMovimentacao(tipo, centavos, contraparte, System.currentTimeMillis());
+    }
+
+    /**
+     * Ponto único de emissão de movimentações das operações da conta: todo
+     * depósito, saque, transferência, taxa ou rendimento chega ao histórico
+     * por aqui, uma única vez por conta envolvida. Controllers e demais
+     * classes não registram movimentações por conta própria.
+     *
+     * @param tipo Tipo da movimentação.
+     * @param centavos Valor da movimentação em centavos.
+     * @param contraparte Conta de contrapartida, ou {@link Movimentacao#SEM_CONTRAPARTE}.
+     * @param instante Data da movimentação, em milissegundos desde a época.
+     */
+    protected final void registrarMovimentacao(Movimentacao.TipoMovimentacao tipo, long centavos,
+                                               int contraparte, long instante) {
+        historico.movimentar(instante, tipo, centavos, contraparte);
     }
 
     // Métodos para persistência
 
     /**
-     * Converte os dados da conta para uma linha no formato CSV.
+     * Converte os dados da conta para uma linha no formato CSV, sempre com
+     * sete colunas: a sétima é o {@linkplain #parametroCsv() parâmetro} da
+     * subclasse, vazia para uma conta comum.
      *
      * @return Array de strings representando os campos da conta.
      */
     public String[] toCsvRow() {
-        return new String[]{
-                String.valueOf(this.numeroConta),
-                this.cliente.getNome(),
-                String.valueOf(this.agencia),
-                this.tipo.name(),
-                String.format("%.2f", this.saldo),
-                String.valueOf(this.senha)
-        };
+        String parametro = parametroCsv();
+        String[] campos = new String[7];
+        campos[0] = String.valueOf(this.numeroConta);
+        campos[1] = this.cliente.getNome();
+        campos[2] = String.valueOf(this.agencia);
+        campos[3] = this.tipo.name();
+        campos[4] = Dinheiro.formatar(saldoCentavos);
+        campos[5] = String.valueOf(this.senha);
+        campos[6] = (parametro == null) ? "" : parametro;
+        return campos;
+    }
+
+    /**
+     * Escreve os mesmos campos de {@link #toCsvRow()} diretamente em um
+     * {@link EscritorCSV}, sem criar as strings intermediárias.
+     *
+     * @param escritor Escritor posicionado no início da linha.
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public void escreverCsv(EscritorCSV escritor) throws IOException {
+        escreverCsv(escritor, saldoCentavos);
+    }
+
+    /**
+     * Como {@link #escreverCsv(EscritorCSV)}, mas com o saldo informado, como
+     * o de uma versão de leitura (ver {@link HistoricoMovimentacoes#saldoEm}).
+     *
+     * @param escritor Escritor posicionado no início da linha.
+     * @param saldoCentavos Saldo a gravar, em centavos.
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public void escreverCsv(EscritorCSV escritor, long saldoCentavos) throws IOException {
+        escritor.campo(numeroConta)
+                .campo(cliente.getNome())
+                .campo(agencia)
+                .campo(tipo.name())
+                .centavos(saldoCentavos)
+                .campo(senha);
+        String parametro = parametroCsv();
+        escritor.campo((parametro == null) ? "" : parametro);
+    }
+
+    /**
+     * Campo próprio da subclasse (taxa ou limite), gravado como sétima coluna
+     * do CSV e lido por {@link #fromCsvRow}.
+     *
+     * @return Parâmetro da subclasse, ou null para uma conta comum.
+     */
+    protected String parametroCsv() {
+        return null;
     }
 
     /**
@@ -172,7 +683,46 @@ public class Conta {
      * @return Objeto Conta reconstruído.
      */
     public static Conta fromCsv(String csv, Cliente cliente) {
-        String[] campos = csv.split(",");
+        return fromCsv(new CursorCSV().linha(csv), cliente);
+    }
+
+    /**
+     * Reconstrói uma conta a partir dos campos de {@link #toCsvRow()}, lidos
+     * diretamente pelo cursor: sem o sétimo campo, ou com ele vazio, uma
+     * conta comum; com o parâmetro, a subclasse do tipo. Aceita também as
+     * linhas de seis campos gravadas antes da sétima coluna.
+     *
+     * @param cursor Cursor posicionado no início da linha.
+     * @param cliente Cliente associado à conta.
+     * @return Objeto Conta reconstruído.
+     */
+    public static Conta fromCsv(CursorCSV cursor, Cliente cliente) {
+        int numeroConta = cursor.inteiro();
+        String nome = cursor.texto();
+        int agencia = cursor.inteiro();
+        TipoConta tipo = cursor.enumeracao(TIPOS);
+        double saldo = Dinheiro.paraReais(cursor.centavos());
+        int senha = cursor.inteiro();
+        if (!cursor.temCampo() || cursor.textoIgual("")) {
+            return new Conta(nome, cliente, agencia, numeroConta, tipo, senha, saldo);
+        }
+        return switch (tipo) {
+            case CORRENTE -> new ContaCorrente(nome, cliente, agencia, numeroConta, senha, saldo, cursor.decimal());
+            case POUPANCA -> new ContaPoupanca(nome, cliente, agencia, numeroConta, senha, saldo, cursor.decimal());
+            case SALARIO -> new ContaSalario(nome, cliente, agencia, numeroConta, senha, saldo, cursor.inteiro());
+        };
+    }
+
+    /**
+     * Reconstrói uma conta a partir dos campos de {@link #toCsvRow()}: sem o
+     * sétimo campo, ou com ele vazio, uma conta comum; com o parâmetro, a
+     * subclasse do tipo.
+     *
+     * @param campos Campos da linha.
+     * @param cliente Cliente associado à conta.
+     * @return Objeto Conta reconstruído.
+     */
+    public static Conta fromCsvRow(String[] campos, Cliente cliente) {
         if (campos.length < 6) {
             throw new IllegalArgumentException("Formato CSV inválido.");
         }
@@ -182,6 +732,9 @@ public class Conta {
         TipoConta tipo = TipoConta.valueOf(campos[3]);
         double saldo = Double.parseDouble(campos[4]);
         int senha = Integer.parseInt(campos[5]);
+        if (campos.length == 6 || campos[6].isEmpty()) {
+            return new Conta(campos[1], cliente, agencia, numeroConta, tipo, senha, saldo);
+        }
     
         switch (tipo) {
             case CORRENTE:
@@ -216,7 +769,7 @@ public class Conta {
                 ", agencia=" + agencia +
                 ", numeroConta=" + numeroConta +
                 ", tipo=" + tipo +
-                ", saldo=" + saldo +
+                ", saldo=" + getSaldo() +
                 '}';
     }
 }
\ No newline at end of file
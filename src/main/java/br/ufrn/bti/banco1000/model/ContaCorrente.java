@@ -1,5 +1,8 @@
 package br.ufrn.bti.banco1000.model;
 
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+import br.ufrn.bti.banco1000.utils.RegistroEventos;
+
 /**
  * Representa uma conta corrente, que possui uma taxa de manutenção.
  */
@@ -11,14 +14,61 @@ public class ContaCorrente extends Conta {
         this.taxaManutencao = taxaManutencao;
     }
 
+    public double getTaxaManutencao() {
+        return taxaManutencao;
+    }
+
     /**
-     * Deduz a taxa de manutenção mensal do saldo.
+     * Deduz a taxa de manutenção mensal do saldo de uma conta avulsa. Nas
+     * contas cadastradas em um controller, use
+     * {@code ContaController.aplicarTaxaManutencao}, que registra o débito no journal.
+     *
+     * @throws IllegalStateException Se o saldo for insuficiente ou a conta estiver cadastrada em um controller.
      */
     public void aplicarTaxaManutencao() {
-        if (getSaldo() < taxaManutencao) {
-            throw new IllegalStateException("Saldo insuficiente para deduzir a taxa de manutenção.");
+        exigirForaDeController("aplicarTaxaManutencao");
+        aplicarTaxaManutencao(System.currentTimeMillis());
+    }
+
+    /**
+     * Deduz a taxa de manutenção mensal do saldo, com a data informada.
+     * Usado pelo {@code ContaController}, que registra o débito no journal.
+     *
+     * @param instante Data do débito, em milissegundos desde a época.
+     * @return Taxa debitada, em centavos.
+     * @throws IllegalStateException Se o saldo for insuficiente.
+     */
+    public long aplicarTaxaManutencao(long instante) {
+        // Verificação e débito atômicos: não há janela entre conferir o saldo e deduzir a taxa
+        long centavos = Dinheiro.paraCentavos(taxaManutencao);
+        debitar(centavos, "Saldo insuficiente para deduzir a taxa de manutenção.");
+        registrarMovimentacao(Movimentacao.TipoMovimentacao.SAQUE, centavos, Movimentacao.SEM_CONTRAPARTE, instante);
+        RegistroEventos.padrao().registrar(EventoConta.TAXA_MANUTENCAO_APLICADA, getNumeroConta(), centavos, 0);
+        return centavos;
+    }
+
+    /**
+     * Deduz a taxa de manutenção do mês, se o saldo a cobrir.
+     *
+     * @param instante Data do débito, em milissegundos desde a época.
+     * @return Taxa debitada, em centavos e com sinal negativo, ou
+     *         {@link #FECHAMENTO_RECUSADO} se o saldo for insuficiente.
+     */
+    @Override
+    public long fecharMes(long instante) {
+        long centavos = Dinheiro.paraCentavos(taxaManutencao);
+        if (centavos <= 0) {
+            return 0;
         }
-        sacar(taxaManutencao);
-        System.out.println("Taxa de manutenção de " + taxaManutencao + " aplicada à conta " + getNumeroConta());
+        if (!tentarDebitar(centavos)) {
+            return FECHAMENTO_RECUSADO;
+        }
+        registrarMovimentacao(Movimentacao.TipoMovimentacao.SAQUE, centavos, Movimentacao.SEM_CONTRAPARTE, instante);
+        return -centavos;
+    }
+
+    @Override
+    protected String parametroCsv() {
+        return String.valueOf(taxaManutencao);
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,7 @@
 package br.ufrn.bti.banco1000.model;
 
+import br.ufrn.bti.banco1000.utils.RegistroEventos;
+
 /**
  * Representa uma conta poupança, que possui rendimento mensal.
  */
@@ -11,12 +13,55 @@ public class ContaPoupanca extends Conta {
         this.taxaRendimento = taxaRendimento;
     }
 
+    public double getTaxaRendimento() {
+        return taxaRendimento;
+    }
+
     /**
-     * Aplica o rendimento mensal ao saldo da conta.
+     * Aplica o rendimento mensal ao saldo de uma conta avulsa. Nas contas
+     * cadastradas em um controller, use
+     * {@code ContaController.aplicarRendimentoMensal}, que registra o crédito no journal.
+     *
+     * @throws IllegalStateException Se a conta estiver cadastrada em um controller.
      */
     public void aplicarRendimentoMensal() {
-        double rendimento = getSaldo() * taxaRendimento;
-        depositar(rendimento);
-        System.out.println("Rendimento de " + rendimento + " aplicado à conta " + getNumeroConta());
+        exigirForaDeController("aplicarRendimentoMensal");
+        aplicarRendimentoMensal(System.currentTimeMillis());
+    }
+
+    /**
+     * Aplica o rendimento mensal ao saldo, com a data informada. Usado pelo
+     * {@code ContaController}, que registra o crédito no journal.
+     *
+     * @param instante Data do crédito, em milissegundos desde a época.
+     * @return Rendimento creditado, em centavos (0 se não houve crédito).
+     */
+    public long aplicarRendimentoMensal(long instante) {
+        long rendimentoCentavos = fecharMes(instante);
+        RegistroEventos.padrao().registrar(EventoConta.RENDIMENTO_APLICADO, getNumeroConta(), rendimentoCentavos, 0);
+        return rendimentoCentavos;
+    }
+
+    /**
+     * Credita o rendimento do mês, calculado sobre o saldo atual.
+     *
+     * @param instante Data do crédito, em milissegundos desde a época.
+     * @return Rendimento creditado, em centavos.
+     */
+    @Override
+    public long fecharMes(long instante) {
+        long rendimentoCentavos = Math.round(getSaldoCentavos() * taxaRendimento);
+        if (rendimentoCentavos <= 0) {
+            return 0;
+        }
+        creditar(rendimentoCentavos);
+        registrarMovimentacao(Movimentacao.TipoMovimentacao.DEPOSITO, rendimentoCentavos,
+                Movimentacao.SEM_CONTRAPARTE, instante);
+        return rendimentoCentavos;
+    }
+
+    @Override
+    protected String parametroCsv() {
+        return String.valueOf(taxaRendimento);
     }
-}
\ No newline at end of file
+}
@@ -1,41 +1,140 @@
 package br.ufrn.bti.banco1000.model;
 
+import br.ufrn.bti.banco1000.metricas.MetricasBanco;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+import br.ufrn.bti.banco1000.utils.RegistroEventos;
+
+import java.time.YearMonth;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Representa uma conta salário, que é restrita a depósitos do empregador
  * e possui um número limitado de saques.
  */
 public class ContaSalario extends Conta {
     private final int limiteSaquesMensais;
-    private int saquesRealizados;
+    private final AtomicInteger saquesRealizados;
 
     public ContaSalario(String nome, Cliente cliente, int agencia, int numeroConta, int senha, double saldoInicial, int limiteSaquesMensais) {
         super(nome, cliente, agencia, numeroConta, TipoConta.SALARIO, senha, saldoInicial);
         this.limiteSaquesMensais = limiteSaquesMensais;
-        this.saquesRealizados = 0;
+        this.saquesRealizados = new AtomicInteger();
+    }
+
+    public int getLimiteSaquesMensais() {
+        return limiteSaquesMensais;
+    }
+
+    public int getSaquesRealizados() {
+        return saquesRealizados.get();
+    }
+
+    /**
+     * Restaura a quantidade de saques já feitos no mês, como ao carregar um
+     * snapshot. Não valida o limite nem registra eventos.
+     *
+     * @param saques Saques realizados no mês.
+     */
+    public void restaurarSaquesRealizados(int saques) {
+        if (saques < 0) {
+            throw new IllegalArgumentException("A quantidade de saques não pode ser negativa.");
+        }
+        saquesRealizados.set(saques);
     }
 
     @Override
-    public void depositar(double valor) {
+    public void depositar(double valor, long instante) {
         // Permitir depósito apenas de empregador
         if (valor <= 0) {
             throw new IllegalArgumentException("O valor do depósito deve ser positivo.");
         }
-        super.depositar(valor);
-        System.out.println("Depósito de " + valor + " realizado na conta salário " + getNumeroConta());
+        super.depositar(valor, instante);
+        RegistroEventos.padrao().registrar(EventoConta.DEPOSITO_CONTA_SALARIO, getNumeroConta(),
+                Dinheiro.paraCentavos(valor), 0);
+    }
+
+    @Override
+    protected void debitarSaque(long centavos, String mensagemSaldoInsuficiente) {
+        switch (tentarDebitarSaque(centavos)) {
+            case RECUSADA -> throw new IllegalStateException("Limite de saques mensais excedido.");
+            case SALDO_INSUFICIENTE -> throw new IllegalStateException(mensagemSaldoInsuficiente);
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    protected ResultadoTransferencia tentarDebitarSaque(long centavos) {
+        // Reserva um saque do limite antes de debitar; devolve a reserva se o débito falhar
+        int realizados;
+        do {
+            realizados = saquesRealizados.get();
+            if (realizados >= limiteSaquesMensais) {
+                MetricasBanco.padrao().recusar(MetricasBanco.Recusa.LIMITE_SAQUES);
+                return ResultadoTransferencia.RECUSADA;
+            }
+        } while (!saquesRealizados.weakCompareAndSetVolatile(realizados, realizados + 1));
+
+        if (!tentarDebitar(centavos)) {
+            saquesRealizados.decrementAndGet();
+            return ResultadoTransferencia.SALDO_INSUFICIENTE;
+        }
+        RegistroEventos.padrao().registrar(EventoConta.SAQUE_CONTA_SALARIO, getNumeroConta(), centavos,
+                limiteSaquesMensais - realizados - 1);
+        return ResultadoTransferencia.EFETUADA;
+    }
+
+    /**
+     * Devolve também o saque consumido pela reserva.
+     *
+     * @param centavos Valor reservado, em centavos.
+     */
+    @Override
+    public void cancelarReservaTransferencia(long centavos) {
+        super.cancelarReservaTransferencia(centavos);
+        saquesRealizados.updateAndGet(realizados -> Math.max(0, realizados - 1));
     }
 
+    /**
+     * Conta também os saques reproduzidos do journal no limite do mês. Uma
+     * transferência enviada consome um saque, como em {@link #debitarSaque}.
+     */
     @Override
-    public void sacar(double valor) {
-        if (saquesRealizados >= limiteSaquesMensais) {
-            throw new IllegalStateException("Limite de saques mensais excedido.");
+    public void reaplicarMovimentacao(Movimentacao.TipoMovimentacao tipo, long centavos, int contraparte, long instante) {
+        super.reaplicarMovimentacao(tipo, centavos, contraparte, instante);
+        if (tipo == Movimentacao.TipoMovimentacao.SAQUE || tipo == Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA) {
+            saquesRealizados.incrementAndGet();
         }
-        super.sacar(valor);
-        saquesRealizados++;
-        System.out.println("Saque realizado. Saques restantes este mês: " + (limiteSaquesMensais - saquesRealizados));
+    }
+
+    /**
+     * Reinicia também a contagem de saques, como {@link #fecharMes}.
+     */
+    @Override
+    public void reaplicarFechamentoMensal(YearMonth mes, long centavos, long instante) {
+        super.reaplicarFechamentoMensal(mes, centavos, instante);
+        saquesRealizados.set(0);
+    }
+
+    /**
+     * Reinicia a contagem de saques do mês. Não altera o saldo.
+     *
+     * @param instante Data do fechamento (não usada).
+     * @return Sempre zero.
+     */
+    @Override
+    public long fecharMes(long instante) {
+        saquesRealizados.set(0);
+        return 0;
     }
 
     public void resetarSaquesMensais() {
-        saquesRealizados = 0;
-        System.out.println("Limite de saques resetado para a conta " + getNumeroConta());
+        saquesRealizados.set(0);
+        RegistroEventos.padrao().registrar(EventoConta.LIMITE_SAQUES_REINICIADO, getNumeroConta(), 0, 0);
+    }
+
+    @Override
+    protected String parametroCsv() {
+        return String.valueOf(limiteSaquesMensais);
     }
-}
\ No newline at end of file
+}
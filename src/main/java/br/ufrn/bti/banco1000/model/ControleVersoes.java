@@ -0,0 +1,155 @@
+package br.ufrn.bti.banco1000.model;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Versões de leitura dos saldos e históricos, para leituras consistentes de
+ * várias contas sem travar as operações (ver {@link HistoricoMovimentacoes#saldoEm}).
+ * <p>
+ * O tempo é dividido em épocas. Cada inclusão em um histórico é feita dentro
+ * de uma época; abrir uma versão de leitura encerra a época atual e espera
+ * apenas as inclusões que ainda estão dentro dela terminarem (gravações
+ * curtas, sem E/S). A partir daí, o estado de qualquer conta na versão está
+ * fixo: a primeira inclusão de uma época posterior em cada histórico espera
+ * essa mesma conclusão ({@link #aguardarEstavel(long)}) e preserva o estado
+ * anterior antes de alterá-lo.
+ * <p>
+ * Sem versões abertas, nada é preservado: o custo para as operações é ler a
+ * época e marcar a entrada e a saída em um {@link LongAdder}, que não é um
+ * ponto único de disputa entre threads.
+ * <p>
+ * Cada {@link br.ufrn.bti.banco1000.controller.ContaController} tem o seu
+ * controle, associado aos históricos das contas que cadastra
+ * ({@link HistoricoMovimentacoes#associar}): abrir uma versão em um
+ * controller não afeta as operações dos demais, e contas fora de qualquer
+ * controller não passam pelas épocas.
+ */
+public final class ControleVersoes {
+    /** Valor de {@link #getVersaoMinimaAberta()} quando não há versões abertas. */
+    public static final long NENHUMA_VERSAO_ABERTA = Long.MAX_VALUE;
+    private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final LongAdder[] ativos = {new LongAdder(), new LongAdder()};
+    /** Versões abertas e quantas vezes cada uma foi aberta; protegido pelo monitor do controle. */
+    private final TreeMap<Long, Integer> abertas = new TreeMap<>();
+    private volatile long epoca;
+    private volatile long versaoMinimaAberta = NENHUMA_VERSAO_ABERTA;
+    /** Todas as inclusões de épocas anteriores a esta já terminaram. */
+    private volatile long epocaEstavel;
+
+    public ControleVersoes() {
+    }
+
+    /**
+     * Abre uma versão de leitura com tudo o que foi incluído nos históricos
+     * até agora. Deve ser fechada com {@link #fechar(long)}, para que as
+     * contas deixem de preservar estados antigos.
+     *
+     * @return Número da versão.
+     */
+    public synchronized long abrir() {
+        long versao = epoca;
+        abertas.merge(versao, 1, Integer::sum);
+        versaoMinimaAberta = abertas.firstKey();
+        // Registrada antes da troca de época: quem entra na época nova já enxerga a versão aberta
+        epoca = versao + 1;
+        aguardarEpoca(versao);
+        epocaEstavel = versao + 1;
+        return versao;
+    }
+
+    /**
+     * Fecha uma versão aberta por {@link #abrir()}.
+     *
+     * @param versao Número da versão.
+     */
+    public synchronized void fechar(long versao) {
+        Integer aberturas = abertas.get(versao);
+        if (aberturas == null) {
+            throw new IllegalStateException("A versão " + versao + " não está aberta.");
+        }
+        if (aberturas == 1) {
+            abertas.remove(versao);
+        } else {
+            abertas.put(versao, aberturas - 1);
+        }
+        Map.Entry<Long, Integer> primeira = abertas.firstEntry();
+        versaoMinimaAberta = (primeira == null) ? NENHUMA_VERSAO_ABERTA : primeira.getKey();
+    }
+
+    /**
+     * Menor versão ainda aberta: estados de versões anteriores a ela não
+     * precisam mais ser preservados.
+     *
+     * @return Versão, ou {@link #NENHUMA_VERSAO_ABERTA}.
+     */
+    public long getVersaoMinimaAberta() {
+        return versaoMinimaAberta;
+    }
+
+    /**
+     * Entra na época atual antes de alterar um histórico. Deve ser seguido de
+     * {@link #sair(long)}.
+     *
+     * @return Época da alteração.
+     */
+    long entrar() {
+        while (true) {
+            long atual = epoca;
+            LongAdder contador = ativos[(int) (atual & 1)];
+            contador.increment();
+            if (epoca == atual) {
+                return atual;
+            }
+            // A época foi encerrada entre a leitura e a marcação: entra na seguinte
+            contador.decrement();
+        }
+    }
+
+    void sair(long epocaAlteracao) {
+        ativos[(int) (epocaAlteracao & 1)].decrement();
+    }
+
+    /**
+     * Espera terminarem as alterações de épocas anteriores à informada, como
+     * faz a abertura da versão que encerrou a época anterior. Só é chamado por
+     * quem vai preservar o estado de um histórico, e nunca com posições
+     * reservadas e não publicadas, que as alterações esperadas poderiam
+     * aguardar.
+     */
+    void aguardarEstavel(long epocaAlteracao) {
+        long espera = 1;
+        while (epocaEstavel < epocaAlteracao) {
+            if (espera < 64) {
+                Thread.onSpinWait();
+                espera++;
+            } else {
+                LockSupport.parkNanos(Math.min(espera, ESPERA_MAXIMA_NANOS));
+                espera *= 2;
+            }
+        }
+    }
+
+    /**
+     * Espera as alterações ainda dentro da época encerrada. Como as aberturas
+     * são serializadas, nenhuma alteração nova entra no contador dessa época
+     * enquanto a espera dura.
+     */
+    private void aguardarEpoca(long encerrada) {
+        LongAdder contador = ativos[(int) (encerrada & 1)];
+        long espera = 1;
+        while (contador.sum() != 0) {
+            if (espera < 64) {
+                Thread.onSpinWait();
+                espera++;
+            } else {
+                LockSupport.parkNanos(Math.min(espera, ESPERA_MAXIMA_NANOS));
+                espera *= 2;
+            }
+        }
+    }
+}
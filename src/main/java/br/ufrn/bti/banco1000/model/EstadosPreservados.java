@@ -0,0 +1,161 @@
+package br.ufrn.bti.banco1000.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Estados anteriores de um histórico guardados para as versões de leitura
+ * abertas de um {@link ControleVersoes}.
+ * <p>
+ * A primeira alteração de cada época, se alguma versão aberta puder
+ * precisar do estado anterior, guarda o tamanho e o saldo da {@link Fonte}
+ * antes de alterá-la; as demais alterações da mesma época não guardam nada.
+ * Uma versão enxerga o estado guardado pela primeira alteração posterior a
+ * ela ou, se não houve nenhuma, o estado atual. Estados de que nenhuma versão
+ * aberta precisa mais deixam de ser alcançáveis na preservação seguinte.
+ * <p>
+ * É independente do armazenamento das movimentações: o
+ * {@link HistoricoMovimentacoes} cria a sua instância só quando uma versão
+ * aberta passa a depender dela.
+ */
+public final class EstadosPreservados {
+    private static final VarHandle EPOCA_ESCRITA;
+
+    static {
+        try {
+            EPOCA_ESCRITA = MethodHandles.lookup().findVarHandle(EstadosPreservados.class, "epocaEscrita", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Estado atual de quem tem os estados preservados. */
+    public interface Fonte {
+        int tamanho();
+
+        long getSaldoComprometido();
+    }
+
+    /**
+     * Época da última preservação, ou {@code ~epoca} enquanto uma alteração
+     * preserva o estado anterior àquela época.
+     */
+    private volatile long epocaEscrita;
+    /** Estados preservados, do mais recente ao mais antigo. */
+    private volatile Estado preservados;
+
+    /**
+     * Antes da primeira alteração de uma época, guarda o estado atual da
+     * fonte se alguma versão aberta puder precisar dele. O estado só é lido
+     * depois de as alterações de épocas anteriores terminarem (em qualquer
+     * histórico, como espera {@link ControleVersoes#abrir()}), e as demais
+     * alterações da época esperam a preservação. Deve ser chamado dentro da
+     * época e antes de alterar a fonte.
+     *
+     * @param versoes Controle de versões da fonte.
+     * @param epoca Época da alteração, a que {@code ControleVersoes.entrar()} devolveu.
+     * @param fonte Estado atual, ainda sem a alteração.
+     */
+    public void preservar(ControleVersoes versoes, long epoca, Fonte fonte) {
+        int espera = 0;
+        while (true) {
+            long escrita = epocaEscrita;
+            if (escrita == epoca) {
+                return;
+            }
+            if (escrita < 0) {
+                // Outra alteração desta época, ou de uma anterior, está preservando
+                espera = esperar(espera);
+                continue;
+            }
+            long minima = versoes.getVersaoMinimaAberta();
+            if (epoca - 1 < minima) {
+                // Nenhuma versão aberta depende do estado anterior a esta época
+                return;
+            }
+            versoes.aguardarEstavel(epoca);
+            if (EPOCA_ESCRITA.compareAndSet(this, escrita, ~epoca)) {
+                // Os estados de versões já fechadas deixam de ser alcançáveis
+                Estado anterior = preservados;
+                for (Estado e = anterior; e != null; e = e.anterior) {
+                    if (e.anterior != null && e.anterior.epocaAte < minima) {
+                        e.anterior = null;
+                    }
+                }
+                if (anterior != null && anterior.epocaAte < minima) {
+                    anterior = null;
+                }
+                // Publicado antes de alterar a fonte: quem lê o estado e depois a cadeia não perde a versão
+                preservados = new Estado(epoca - 1, fonte.tamanho(), fonte.getSaldoComprometido(), anterior);
+                epocaEscrita = epoca;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Tamanho da fonte na versão de leitura informada.
+     *
+     * @param versao Versão aberta e ainda não fechada.
+     * @param atual Tamanho atual da fonte, lido antes desta chamada.
+     * @return Tamanho na versão.
+     */
+    public int tamanhoEm(long versao, int atual) {
+        Estado estado = preservadoPara(versao);
+        return (estado == null) ? atual : estado.tamanho;
+    }
+
+    /**
+     * Saldo da fonte na versão de leitura informada.
+     *
+     * @param versao Versão aberta e ainda não fechada.
+     * @param atual Saldo atual da fonte, lido antes desta chamada.
+     * @return Saldo em centavos na versão.
+     */
+    public long saldoEm(long versao, long atual) {
+        Estado estado = preservadoPara(versao);
+        return (estado == null) ? atual : estado.saldo;
+    }
+
+    /**
+     * Estado preservado pela primeira alteração posterior à versão, ou null
+     * se a fonte não foi alterada desde ela. Lido depois do estado atual:
+     * quem altera a fonte publica o estado preservado antes.
+     */
+    private Estado preservadoPara(long versao) {
+        Estado escolhido = null;
+        for (Estado e = preservados; e != null && e.epocaAte >= versao; e = e.anterior) {
+            escolhido = e;
+        }
+        return escolhido;
+    }
+
+    /** Espera curta por outra alteração, que não faz E/S nem aguarda travas. */
+    private static int esperar(int espera) {
+        if (espera < 64) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+        return espera + 1;
+    }
+
+    /**
+     * Tamanho e saldo da fonte ao fim da época {@code epocaAte}, guardados
+     * pela primeira alteração de uma época posterior.
+     */
+    private static final class Estado {
+        final long epocaAte;
+        final int tamanho;
+        final long saldo;
+        /** Estado preservado anterior; desligado quando nenhuma versão aberta precisa mais dele. */
+        Estado anterior;
+
+        Estado(long epocaAte, int tamanho, long saldo, Estado anterior) {
+            this.epocaAte = epocaAte;
+            this.tamanho = tamanho;
+            this.saldo = saldo;
+            this.anterior = anterior;
+        }
+    }
+}
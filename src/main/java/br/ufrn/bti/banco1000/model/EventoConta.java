@@ -0,0 +1,52 @@
+package br.ufrn.bti.banco1000.model;
+
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+import br.ufrn.bti.banco1000.utils.RegistroEventos;
+
+/**
+ * Eventos das operações das contas enviados ao {@link RegistroEventos}. O
+ * valor é sempre em centavos; o campo extra depende do evento.
+ */
+public enum EventoConta implements RegistroEventos.TipoEvento {
+    DEPOSITO_CONTA_SALARIO {
+        @Override
+        public void formatar(StringBuilder destino, long conta, long valor, long extra) {
+            Dinheiro.anexar(destino.append("Depósito de "), valor)
+                    .append(" realizado na conta salário ").append(conta);
+        }
+    },
+    /** Extra: saques restantes no mês. */
+    SAQUE_CONTA_SALARIO {
+        @Override
+        public void formatar(StringBuilder destino, long conta, long valor, long extra) {
+            Dinheiro.anexar(destino.append("Saque de "), valor)
+                    .append(" realizado na conta ").append(conta)
+                    .append(". Saques restantes este mês: ").append(extra);
+        }
+    },
+    LIMITE_SAQUES_REINICIADO {
+        @Override
+        public void formatar(StringBuilder destino, long conta, long valor, long extra) {
+            destino.append("Limite de saques resetado para a conta ").append(conta);
+        }
+    },
+    RENDIMENTO_APLICADO {
+        @Override
+        public void formatar(StringBuilder destino, long conta, long valor, long extra) {
+            Dinheiro.anexar(destino.append("Rendimento de "), valor)
+                    .append(" aplicado à conta ").append(conta);
+        }
+    },
+    TAXA_MANUTENCAO_APLICADA {
+        @Override
+        public void formatar(StringBuilder destino, long conta, long valor, long extra) {
+            Dinheiro.anexar(destino.append("Taxa de manutenção de "), valor)
+                    .append(" aplicada à conta ").append(conta);
+        }
+    };
+
+    @Override
+    public RegistroEventos.Nivel getNivel() {
+        return RegistroEventos.Nivel.INFO;
+    }
+}
@@ -0,0 +1,875 @@
+package br.ufrn.bti.banco1000.model;
+
+import br.ufrn.bti.banco1000.metricas.MetricasBanco;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.YearMonth;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Histórico de movimentações de uma conta armazenado em colunas de tipos primitivos.
+ * <p>
+ * Em vez de um objeto {@link Movimentacao} por entrada (com {@code Date},
+ * {@code String} e referências), cada movimentação ocupa uma posição em
+ * colunas paralelas: instante em milissegundos, ordinal do tipo, valor em
+ * centavos e conta de contrapartida. As colunas são divididas em segmentos
+ * de {@value #TAMANHO_SEGMENTO} entradas, que nunca são copiados: uma conta
+ * com poucas movimentações ocupa um único segmento, e o histórico cresce
+ * acrescentando segmentos. Descrições só são guardadas quando diferem da
+ * descrição padrão do tipo.
+ * <p>
+ * A inclusão não adquire travas nem espera outras inclusões, como o saldo da
+ * conta: reserva a posição com um incremento atômico, grava as colunas,
+ * marca a entrada como gravada e avança o tamanho publicado sobre as
+ * entradas gravadas em sequência. Se uma inclusão que reservou antes ainda
+ * está gravando, o tamanho para nela, e é ela que avança sobre as seguintes
+ * ao terminar. A leitura também não usa travas e enxerga apenas entradas
+ * publicadas. Os objetos {@link Movimentacao} são
+ * materializados sob demanda pela visão devolvida em {@link #visao()}, sem
+ * montar a descrição padrão.
+ * <p>
+ * Os totais do mês por tipo ({@link #resumoMensal(YearMonth)}) são somados
+ * pela consulta, a partir das entradas publicadas desde a consulta anterior:
+ * cada movimentação é somada uma única vez, e relatórios mensais não
+ * percorrem o histórico.
+ * <p>
+ * O histórico também acompanha o saldo comprometido da conta: o saldo
+ * inicial mais as movimentações registradas pelas operações da conta. Quando
+ * a conta é cadastrada, o controller associa o histórico ao seu
+ * {@link ControleVersoes} e às suas métricas ({@link #associar}); antes
+ * disso, nenhuma versão de leitura enxerga a conta, e as inclusões não
+ * passam pelas épocas. Com uma versão de leitura aberta, a primeira inclusão
+ * de cada época preserva o tamanho e o saldo anteriores
+ * ({@link EstadosPreservados}), de modo que {@link #saldoEm(long)} e
+ * {@link #visaoEm(long)} devolvem o estado da conta na versão, em tempo
+ * constante, enquanto as inclusões continuam.
+ */
+public class HistoricoMovimentacoes implements EstadosPreservados.Fonte {
+    private static final int BITS_SEGMENTO = 5;
+    private static final int TAMANHO_SEGMENTO = 1 << BITS_SEGMENTO;
+    private static final int MASCARA_SEGMENTO = TAMANHO_SEGMENTO - 1;
+    /**
+     * Posições por entrada no formato empacotado de {@link #copiarEntradas} e
+     * {@link #carregarEntradas}: instante, centavos e, no último, ordinal do
+     * tipo nos 32 bits altos e conta de contrapartida nos baixos.
+     */
+    public static final int CAMPOS_POR_ENTRADA = 3;
+    /** Bytes por entrada nas colunas: instante (8), tipo (1), centavos (8) e contrapartida (4). */
+    private static final int BYTES_POR_ENTRADA = 8 + 1 + 8 + 4;
+
+    private static final Movimentacao.TipoMovimentacao[] TIPOS = Movimentacao.TipoMovimentacao.values();
+
+    private static final VarHandle RESERVADAS;
+    private static final VarHandle TAMANHO;
+    private static final VarHandle SALDO_COMPROMETIDO;
+    private static final VarHandle ESTADOS;
+    private static final VarHandle SEGMENTO = MethodHandles.arrayElementVarHandle(Segmento[].class);
+    private static final VarHandle TIPO = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    static {
+        try {
+            RESERVADAS = MethodHandles.lookup().findVarHandle(HistoricoMovimentacoes.class, "reservadas", int.class);
+            TAMANHO = MethodHandles.lookup().findVarHandle(HistoricoMovimentacoes.class, "tamanho", int.class);
+            SALDO_COMPROMETIDO = MethodHandles.lookup().findVarHandle(HistoricoMovimentacoes.class,
+                    "saldoComprometido", long.class);
+            ESTADOS = MethodHandles.lookup().findVarHandle(HistoricoMovimentacoes.class, "estados",
+                    EstadosPreservados.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int numeroConta;
+    /** Controle de versões do controller que cadastrou a conta, ou null antes do cadastro. */
+    private volatile ControleVersoes versoes;
+    /** Métricas do controller que cadastrou a conta, ou null antes do cadastro. */
+    private volatile MetricasBanco metricas;
+    /** Diretório de segmentos; substituído por um maior, e preenchido, sob a trava do histórico. */
+    private volatile Segmento[] segmentos;
+    /** Posições reservadas pelas inclusões, publicadas ou não. */
+    private volatile int reservadas;
+    /** Posições publicadas: as entradas antes dele estão completas. */
+    private volatile int tamanho;
+    /** Se os instantes foram incluídos em ordem não decrescente; caso comum, dispensa o índice temporal. */
+    private volatile boolean emOrdem = true;
+    /** Posições ordenadas por instante, montado sob demanda quando há entradas fora de ordem. */
+    private volatile IndiceTemporal indiceTemporal;
+    /** Totais por mês e tipo, criados na primeira consulta; protegidos pela trava do histórico. */
+    private AgregadosMensais agregados;
+    /** Entradas já somadas em {@link #agregados}; protegido pela trava do histórico. */
+    private int agregadasAte;
+    /** Saldo inicial mais as variações das movimentações registradas por {@link #movimentar}. */
+    private volatile long saldoComprometido;
+    /** Estados preservados para as versões abertas, criados quando a primeira versão precisa de um. */
+    private volatile EstadosPreservados estados;
+
+    /**
+     * Cria um histórico vazio.
+     *
+     * @param numeroConta Número da conta dona do histórico.
+     */
+    public HistoricoMovimentacoes(int numeroConta) {
+        this(numeroConta, 0);
+    }
+
+    /**
+     * Cria um histórico vazio para uma conta com saldo inicial.
+     *
+     * @param numeroConta Número da conta dona do histórico.
+     * @param saldoInicialCentavos Saldo da conta antes de qualquer movimentação.
+     */
+    public HistoricoMovimentacoes(int numeroConta, long saldoInicialCentavos) {
+        this.numeroConta = numeroConta;
+        this.segmentos = new Segmento[1];
+        this.saldoComprometido = saldoInicialCentavos;
+    }
+
+    /**
+     * Inclui uma movimentação com a descrição padrão do seu tipo.
+     *
+     * @param instante Data da movimentação, em milissegundos desde a época.
+     * @param tipo Tipo da movimentação.
+     * @param centavos Valor em centavos.
+     * @param contraparte Conta de contrapartida, ou {@link Movimentacao#SEM_CONTRAPARTE}.
+     */
+    public void adicionar(long instante, Movimentacao.TipoMovimentacao tipo, long centavos, int contraparte) {
+        adicionar(instante, tipo, centavos, contraparte, null);
+    }
+
+    /**
+     * Inclui uma movimentação já materializada. A descrição só é guardada se
+     * diferir da descrição padrão.
+     *
+     * @param movimentacao Movimentação a incluir.
+     */
+    public void adicionar(Movimentacao movimentacao) {
+        adicionar(movimentacao.getInstante(), movimentacao.getTipo(), movimentacao.getCentavos(),
+                movimentacao.getContraparte(), movimentacao.descricaoPropria());
+    }
+
+    private void adicionar(long instante, Movimentacao.TipoMovimentacao tipo, long centavos,
+                           int contraparte, String descricao) {
+        incluir(instante, tipo, centavos, contraparte, descricao, 0);
+    }
+
+    /**
+     * Inclui a movimentação de uma operação da conta, que altera o saldo
+     * comprometido: créditos somam, débitos subtraem.
+     */
+    void movimentar(long instante, Movimentacao.TipoMovimentacao tipo, long centavos, int contraparte) {
+        incluir(instante, tipo, centavos, contraparte, null, variacao(tipo, centavos));
+    }
+
+    private void incluir(long instante, Movimentacao.TipoMovimentacao tipo, long centavos, int contraparte,
+                         String descricao, long variacaoSaldo) {
+        ControleVersoes versoes = this.versoes;
+        if (versoes == null) {
+            registrar(null, 0, instante, tipo, centavos, contraparte, descricao, variacaoSaldo);
+            return;
+        }
+        long epoca = versoes.entrar();
+        try {
+            registrar(versoes, epoca, instante, tipo, centavos, contraparte, descricao, variacaoSaldo);
+        } finally {
+            versoes.sair(epoca);
+        }
+        contar(1);
+    }
+
+    /**
+     * Inclui as duas movimentações de uma transferência na mesma época, de
+     * modo que nenhuma versão de leitura enxergue o débito sem o crédito.
+     * Contas de controllers diferentes não aparecem juntas em nenhuma versão,
+     * e cada movimentação entra na época do seu próprio controle.
+     */
+    static void transferir(HistoricoMovimentacoes origem, HistoricoMovimentacoes destino,
+                           long centavos, long instante) {
+        ControleVersoes versoes = origem.versoes;
+        if (versoes == null || versoes != destino.versoes) {
+            origem.incluir(instante, Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA, centavos,
+                    destino.numeroConta, null, -centavos);
+            destino.incluir(instante, Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA, centavos,
+                    origem.numeroConta, null, centavos);
+            return;
+        }
+        long epoca = versoes.entrar();
+        try {
+            origem.registrar(versoes, epoca, instante, Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA,
+                    centavos, destino.numeroConta, null, -centavos);
+            destino.registrar(versoes, epoca, instante, Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA,
+                    centavos, origem.numeroConta, null, centavos);
+        } finally {
+            versoes.sair(epoca);
+        }
+        origem.contar(1);
+        destino.contar(1);
+    }
+
+    /**
+     * Associa o histórico ao controle de versões e às métricas do controller
+     * que cadastra a conta. As movimentações já incluídas, como as
+     * restauradas de um snapshot, passam a ser contadas nas métricas.
+     * Chamadas repetidas com o mesmo controle não têm efeito.
+     *
+     * @param versoes Controle de versões do controller.
+     * @param metricas Métricas do controller.
+     * @throws IllegalStateException Se a conta já foi cadastrada em outro controller.
+     */
+    public synchronized void associar(ControleVersoes versoes, MetricasBanco metricas) {
+        if (this.versoes == versoes) {
+            return;
+        }
+        if (this.versoes != null) {
+            throw new IllegalStateException("A conta " + numeroConta + " já está cadastrada em outro controller.");
+        }
+        this.metricas = metricas;
+        this.versoes = versoes;
+        metricas.movimentacoesRegistradas(tamanho);
+    }
+
+    /**
+     * Indica se a conta deste histórico já foi cadastrada em um controller.
+     */
+    boolean isAssociado() {
+        return versoes != null;
+    }
+
+    private void contar(long quantidade) {
+        MetricasBanco metricas = this.metricas;
+        if (metricas != null) {
+            metricas.movimentacoesRegistradas(quantidade);
+        }
+    }
+
+    private static long variacao(Movimentacao.TipoMovimentacao tipo, long centavos) {
+        return switch (tipo) {
+            case DEPOSITO, TRANSFERENCIA_RECEBIDA -> centavos;
+            case SAQUE, TRANSFERENCIA_ENVIADA -> -centavos;
+        };
+    }
+
+    /** Deve ser chamado dentro da época informada, ou com {@code versoes} null antes do cadastro da conta. */
+    private void registrar(ControleVersoes versoes, long epoca, long instante, Movimentacao.TipoMovimentacao tipo,
+                           long centavos, int contraparte, String descricao, long variacaoSaldo) {
+        if (versoes != null) {
+            preservar(versoes, epoca);
+        }
+        int posicao = (int) RESERVADAS.getAndAdd(this, 1);
+        gravar(posicao, instante, tipo, centavos, contraparte, descricao);
+        if (variacaoSaldo != 0) {
+            SALDO_COMPROMETIDO.getAndAdd(this, variacaoSaldo);
+        }
+        publicar();
+    }
+
+    /**
+     * Antes da primeira alteração de uma época, guarda o estado atual se
+     * alguma versão aberta puder precisar dele (ver
+     * {@link EstadosPreservados#preservar}). Deve ser chamado dentro da época
+     * e antes de reservar posições.
+     */
+    private void preservar(ControleVersoes versoes, long epoca) {
+        EstadosPreservados estados = this.estados;
+        if (estados == null) {
+            if (epoca - 1 < versoes.getVersaoMinimaAberta()) {
+                // Nenhuma versão aberta depende do estado anterior a esta época
+                return;
+            }
+            ESTADOS.compareAndSet(this, null, new EstadosPreservados());
+            estados = this.estados;
+        }
+        estados.preservar(versoes, epoca, this);
+    }
+
+    /**
+     * Avança o tamanho publicado sobre as entradas já gravadas em sequência,
+     * inclusive as de outras inclusões, até a primeira posição reservada e
+     * ainda não gravada.
+     */
+    private void publicar() {
+        while (true) {
+            int atual = tamanho;
+            Segmento[] origem = segmentos;
+            int indice = indiceSegmento(atual);
+            Segmento segmento = (indice < origem.length) ? (Segmento) SEGMENTO.getAcquire(origem, indice) : null;
+            if (segmento == null) {
+                return;
+            }
+            int i = posicaoNoSegmento(atual);
+            if ((byte) TIPO.getAcquire(segmento.tipos, i) == 0) {
+                return;
+            }
+            if (emOrdem && atual > 0 && segmento.instantes[i] < instante(origem, atual - 1)) {
+                emOrdem = false;
+            }
+            // Publicação: leitores que enxergam o novo tamanho enxergam a entrada completa
+            TAMANHO.compareAndSet(this, atual, atual + 1);
+        }
+    }
+
+    /**
+     * Saldo comprometido atual: o saldo inicial mais as movimentações das
+     * operações da conta. Difere do saldo da conta apenas enquanto uma
+     * operação está em andamento (por exemplo, uma transferência em duas
+     * fases reservada e ainda não confirmada).
+     *
+     * @return Saldo em centavos.
+     */
+    @Override
+    public long getSaldoComprometido() {
+        return saldoComprometido;
+    }
+
+    /**
+     * Saldo comprometido na versão de leitura informada, em tempo constante.
+     *
+     * @param versao Versão aberta por {@link ControleVersoes#abrir()} e ainda não fechada.
+     * @return Saldo em centavos.
+     */
+    public long saldoEm(long versao) {
+        // O estado atual é lido antes dos preservados: quem altera o histórico os publica antes
+        long saldo = saldoComprometido;
+        EstadosPreservados estados = this.estados;
+        return (estados == null) ? saldo : estados.saldoEm(versao, saldo);
+    }
+
+    /**
+     * Quantidade de movimentações na versão de leitura informada.
+     *
+     * @param versao Versão aberta por {@link ControleVersoes#abrir()} e ainda não fechada.
+     * @return Quantidade de movimentações.
+     */
+    public int tamanhoEm(long versao) {
+        int quantidade = tamanho;
+        EstadosPreservados estados = this.estados;
+        return (estados == null) ? quantidade : estados.tamanhoEm(versao, quantidade);
+    }
+
+    /**
+     * Como {@link #visao()}, mas com as movimentações da versão de leitura
+     * informada, mesmo que outras tenham sido incluídas depois.
+     *
+     * @param versao Versão aberta por {@link ControleVersoes#abrir()} e ainda não fechada.
+     * @return Lista de movimentações.
+     */
+    public List<Movimentacao> visaoEm(long versao) {
+        int quantidade = tamanhoEm(versao);
+        return new Visao(segmentos, quantidade);
+    }
+
+    /**
+     * Inclui várias movimentações de uma vez, como um histórico lido de um
+     * arquivo CSV, dentro de uma única época. Os totais mensais das entradas
+     * incluídas são somados na próxima consulta de {@link #resumoMensal}.
+     *
+     * @param movimentacoes Movimentações a incluir, na ordem de registro.
+     */
+    public void carregar(Iterable<Movimentacao> movimentacoes) {
+        long incluidas = 0;
+        ControleVersoes versoes = this.versoes;
+        long epoca = (versoes == null) ? 0 : versoes.entrar();
+        try {
+            for (Movimentacao movimentacao : movimentacoes) {
+                registrar(versoes, epoca, movimentacao.getInstante(), movimentacao.getTipo(),
+                        movimentacao.getCentavos(), movimentacao.getContraparte(),
+                        movimentacao.descricaoPropria(), 0);
+                incluidas++;
+            }
+        } finally {
+            if (versoes != null) {
+                versoes.sair(epoca);
+            }
+        }
+        contar(incluidas);
+    }
+
+    /**
+     * Inclui entradas no formato empacotado de {@link #CAMPOS_POR_ENTRADA},
+     * como as copiadas por {@link #copiarEntradas}, com a descrição padrão do
+     * tipo. Reserva as posições de uma vez e publica todas ao final.
+     *
+     * @param entradas Entradas empacotadas.
+     * @param quantidade Quantidade de entradas (não de posições do array).
+     */
+    public void carregarEntradas(long[] entradas, int quantidade) {
+        if (quantidade == 0) {
+            return;
+        }
+        ControleVersoes versoes = this.versoes;
+        long epoca = (versoes == null) ? 0 : versoes.entrar();
+        try {
+            if (versoes != null) {
+                preservar(versoes, epoca);
+            }
+            int posicao = (int) RESERVADAS.getAndAdd(this, quantidade);
+            long anterior = Long.MIN_VALUE;
+            for (int i = 0; i < quantidade; i++) {
+                int base = i * CAMPOS_POR_ENTRADA;
+                long instante = entradas[base];
+                if (instante < anterior) {
+                    emOrdem = false;
+                }
+                anterior = instante;
+                long tipoEContraparte = entradas[base + 2];
+                gravar(posicao + i, instante, TIPOS[(int) (tipoEContraparte >>> 32)], entradas[base + 1],
+                        (int) tipoEContraparte, null);
+            }
+            publicar();
+        } finally {
+            if (versoes != null) {
+                versoes.sair(epoca);
+            }
+        }
+        contar(quantidade);
+    }
+
+    /**
+     * Troca a descrição de uma entrada já incluída, como ao restaurar as
+     * descrições personalizadas depois de {@link #carregarEntradas}.
+     *
+     * @param posicao Posição da entrada.
+     * @param descricao Descrição, ou null para a descrição padrão do tipo.
+     */
+    public synchronized void restaurarDescricao(int posicao, String descricao) {
+        if (posicao < 0 || posicao >= tamanho) {
+            throw new IndexOutOfBoundsException("Posição " + posicao + " fora do histórico de tamanho " + tamanho);
+        }
+        Segmento segmento = segmentos[indiceSegmento(posicao)];
+        if (segmento.descricoes == null && descricao == null) {
+            return;
+        }
+        descricoes(segmento)[posicaoNoSegmento(posicao)] = descricao;
+    }
+
+    /**
+     * Copia entradas no formato empacotado de {@link #CAMPOS_POR_ENTRADA},
+     * sem materializar objetos {@link Movimentacao}.
+     *
+     * @param de Posição da primeira entrada.
+     * @param destino Array de destino, a partir da posição zero.
+     * @param quantidade Quantidade de entradas a copiar.
+     */
+    public void copiarEntradas(int de, long[] destino, int quantidade) {
+        if (de < 0 || quantidade < 0 || de + quantidade > tamanho) {
+            throw new IndexOutOfBoundsException("Entradas " + de + ".." + (de + quantidade)
+                    + " fora do histórico de tamanho " + tamanho);
+        }
+        Segmento[] origem = segmentos;
+        for (int k = 0; k < quantidade; k++) {
+            int posicao = de + k;
+            Segmento segmento = origem[indiceSegmento(posicao)];
+            int i = posicaoNoSegmento(posicao);
+            int base = k * CAMPOS_POR_ENTRADA;
+            destino[base] = segmento.instantes[i];
+            destino[base + 1] = segmento.centavos[i];
+            destino[base + 2] = ((long) (segmento.tipos[i] - 1) << 32) | (segmento.contrapartes[i] & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * Descrição guardada para uma entrada.
+     *
+     * @param posicao Posição da entrada.
+     * @return Descrição personalizada, ou null se a entrada usa a descrição padrão do tipo.
+     */
+    public String descricaoPropria(int posicao) {
+        if (posicao < 0 || posicao >= tamanho) {
+            throw new IndexOutOfBoundsException("Posição " + posicao + " fora do histórico de tamanho " + tamanho);
+        }
+        String[] descricoes = segmentos[indiceSegmento(posicao)].descricoes;
+        return (descricoes == null) ? null : descricoes[posicaoNoSegmento(posicao)];
+    }
+
+    /**
+     * Recalcula do zero os totais mensais a partir das entradas do histórico.
+     */
+    public synchronized void reconstruirAgregados() {
+        if (agregados != null) {
+            agregados.limpar();
+        }
+        agregadasAte = 0;
+        somarPublicadas();
+    }
+
+    /**
+     * Totais por tipo das movimentações de um mês. Soma antes as entradas
+     * publicadas desde a consulta anterior, de modo que cada movimentação é
+     * somada uma única vez.
+     *
+     * @param mes Ano e mês.
+     * @return Resumo do mês (zerado se não houve movimentações).
+     */
+    public synchronized ResumoMensal resumoMensal(YearMonth mes) {
+        somarPublicadas();
+        return (agregados == null) ? ResumoMensal.vazio(mes) : agregados.resumo(mes);
+    }
+
+    /** Deve ser chamado com a trava do histórico. */
+    private void somarPublicadas() {
+        int quantidade = tamanho;
+        if (agregadasAte == quantidade) {
+            return;
+        }
+        if (agregados == null) {
+            agregados = new AgregadosMensais();
+        }
+        Segmento[] origem = segmentos;
+        for (int posicao = agregadasAte; posicao < quantidade; posicao++) {
+            Segmento segmento = origem[indiceSegmento(posicao)];
+            int i = posicaoNoSegmento(posicao);
+            agregados.somar(segmento.instantes[i], segmento.tipos[i] - 1, segmento.centavos[i]);
+        }
+        agregadasAte = quantidade;
+    }
+
+    /** Grava as colunas de uma posição reservada; o tipo, por último, marca a entrada como gravada. */
+    private void gravar(int posicao, long instante, Movimentacao.TipoMovimentacao tipo, long centavos,
+                        int contraparte, String descricao) {
+        Segmento segmento = segmentoParaGravar(posicao);
+        int i = posicaoNoSegmento(posicao);
+        segmento.instantes[i] = instante;
+        segmento.centavos[i] = centavos;
+        segmento.contrapartes[i] = contraparte;
+        if (descricao != null) {
+            descricoes(segmento)[i] = descricao;
+        }
+        TIPO.setRelease(segmento.tipos, i, (byte) (tipo.ordinal() + 1));
+    }
+
+    private Segmento segmentoParaGravar(int posicao) {
+        int indice = indiceSegmento(posicao);
+        Segmento[] atuais = segmentos;
+        if (indice < atuais.length) {
+            Segmento segmento = (Segmento) SEGMENTO.getAcquire(atuais, indice);
+            if (segmento != null) {
+                return segmento;
+            }
+        }
+        return instalarSegmento(indice);
+    }
+
+    /** Cria o segmento, e um diretório maior se preciso; acontece uma vez a cada segmento. */
+    private synchronized Segmento instalarSegmento(int indice) {
+        Segmento[] atuais = segmentos;
+        if (indice >= atuais.length) {
+            // Copia só as referências aos segmentos; os dados já gravados não se movem
+            atuais = Arrays.copyOf(atuais, Math.max(indice + 1, atuais.length * 2));
+            segmentos = atuais;
+        }
+        Segmento segmento = atuais[indice];
+        if (segmento == null) {
+            segmento = new Segmento();
+            SEGMENTO.setRelease(atuais, indice, segmento);
+        }
+        return segmento;
+    }
+
+    private synchronized String[] descricoes(Segmento segmento) {
+        if (segmento.descricoes == null) {
+            segmento.descricoes = new String[TAMANHO_SEGMENTO];
+        }
+        return segmento.descricoes;
+    }
+
+    private static int indiceSegmento(int posicao) {
+        return posicao >>> BITS_SEGMENTO;
+    }
+
+    private static int posicaoNoSegmento(int posicao) {
+        return posicao & MASCARA_SEGMENTO;
+    }
+
+    @Override
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Visão somente leitura das movimentações registradas até o momento da
+     * chamada. Criá-la não copia nada; cada elemento é materializado ao ser lido.
+     *
+     * @return Lista de movimentações.
+     */
+    public List<Movimentacao> visao() {
+        int quantidade = tamanho;
+        return new Visao(segmentos, quantidade);
+    }
+
+    /**
+     * Consulta as movimentações com instante em {@code [inicio, fim)}, em ordem
+     * cronológica, uma página por vez.
+     * <p>
+     * O início do intervalo é localizado por busca binária, e a página percorre
+     * apenas as entradas do intervalo a partir do cursor: o custo é
+     * O(log n + k), em que k é a quantidade de entradas do intervalo examinadas
+     * (com filtro de tipo, também as de outros tipos). Como as inclusões
+     * chegam quase sempre em ordem cronológica, a busca é feita direto sobre os
+     * segmentos; se alguma entrada foi incluída fora de ordem (por exemplo, ao
+     * importar um histórico), a consulta usa um índice de posições ordenado por
+     * instante, estendido a cada consulta apenas com as entradas novas.
+     *
+     * @param inicio Instante inicial, inclusive, em milissegundos desde a época.
+     * @param fim Instante final, exclusive.
+     * @param tipos Tipos aceitos; null ou vazio aceita todos.
+     * @param cursor {@link PaginaMovimentacoes#PRIMEIRA_PAGINA} ou o cursor devolvido pela página anterior.
+     * @param limite Quantidade máxima de movimentações na página.
+     * @return Página com as movimentações encontradas.
+     * @throws IllegalArgumentException Se o intervalo, o limite ou o cursor forem inválidos.
+     */
+    public PaginaMovimentacoes consultar(long inicio, long fim, Set<Movimentacao.TipoMovimentacao> tipos,
+                                         long cursor, int limite) {
+        if (inicio > fim) {
+            throw new IllegalArgumentException("O início do intervalo deve ser anterior ao fim.");
+        }
+        if (limite <= 0) {
+            throw new IllegalArgumentException("O limite da página deve ser positivo.");
+        }
+        int mascaraTipos = 0;
+        if (tipos == null || tipos.isEmpty()) {
+            mascaraTipos = -1;
+        } else {
+            for (Movimentacao.TipoMovimentacao tipo : tipos) {
+                mascaraTipos |= 1 << tipo.ordinal();
+            }
+        }
+
+        int quantidade = tamanho;
+        int[] ordem = null;
+        if (!emOrdem) {
+            IndiceTemporal indice = indiceTemporal(quantidade);
+            ordem = indice.posicoes;
+            quantidade = indice.quantidade;
+        }
+        Segmento[] origem = segmentos;
+
+        int rank;
+        if (cursor == PaginaMovimentacoes.PRIMEIRA_PAGINA) {
+            rank = primeiroRank(origem, ordem, quantidade, inicio, -1);
+        } else {
+            if (cursor < 0 || cursor >= quantidade) {
+                throw new IllegalArgumentException("Cursor inválido.");
+            }
+            int posicaoCursor = (int) cursor;
+            long instanteCursor = instante(origem, posicaoCursor);
+            rank = (instanteCursor < inicio)
+                    ? primeiroRank(origem, ordem, quantidade, inicio, -1)
+                    : primeiroRank(origem, ordem, quantidade, instanteCursor, posicaoCursor);
+        }
+
+        List<Movimentacao> encontradas = new ArrayList<>(Math.min(limite, 64));
+        int ultimaPosicao = -1;
+        for (; rank < quantidade && encontradas.size() < limite; rank++) {
+            int posicao = (ordem == null) ? rank : ordem[rank];
+            Segmento segmento = origem[indiceSegmento(posicao)];
+            int i = posicaoNoSegmento(posicao);
+            if (segmento.instantes[i] >= fim) {
+                break;
+            }
+            if ((mascaraTipos & (1 << (segmento.tipos[i] - 1))) != 0) {
+                encontradas.add(materializar(origem, posicao));
+                ultimaPosicao = posicao;
+            }
+        }
+        // Só devolve cursor se houver outra entrada aceita no intervalo, para não gerar página vazia
+        boolean restam = false;
+        if (encontradas.size() == limite) {
+            for (; rank < quantidade; rank++) {
+                int posicao = (ordem == null) ? rank : ordem[rank];
+                Segmento segmento = origem[indiceSegmento(posicao)];
+                int i = posicaoNoSegmento(posicao);
+                if (segmento.instantes[i] >= fim) {
+                    break;
+                }
+                if ((mascaraTipos & (1 << (segmento.tipos[i] - 1))) != 0) {
+                    restam = true;
+                    break;
+                }
+            }
+        }
+        return new PaginaMovimentacoes(encontradas, restam ? ultimaPosicao : PaginaMovimentacoes.SEM_PROXIMA);
+    }
+
+    /**
+     * Primeiro rank, na ordem por (instante, posição), cuja chave é maior que
+     * {@code (instante, posicao)}; com {@code posicao == -1}, o primeiro com
+     * instante maior ou igual a {@code instante}.
+     */
+    private static int primeiroRank(Segmento[] origem, int[] ordem, int quantidade, long instante, int posicao) {
+        int baixo = 0;
+        int alto = quantidade;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            int posicaoMeio = (ordem == null) ? meio : ordem[meio];
+            long instanteMeio = instante(origem, posicaoMeio);
+            if (instanteMeio < instante || (instanteMeio == instante && posicaoMeio <= posicao)) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    private static long instante(Segmento[] origem, int posicao) {
+        return origem[indiceSegmento(posicao)].instantes[posicaoNoSegmento(posicao)];
+    }
+
+    /**
+     * Índice temporal que cobre pelo menos as primeiras {@code quantidade}
+     * entradas. As entradas incluídas desde a última montagem são ordenadas e
+     * intercaladas com o índice anterior, que não é alterado.
+     */
+    private IndiceTemporal indiceTemporal(int quantidade) {
+        IndiceTemporal atual = indiceTemporal;
+        if (atual != null && atual.quantidade >= quantidade) {
+            return atual;
+        }
+        synchronized (this) {
+            atual = indiceTemporal;
+            int total = tamanho;
+            int jaIndexadas = (atual == null) ? 0 : atual.quantidade;
+            if (jaIndexadas == total) {
+                return atual;
+            }
+            Segmento[] origem = segmentos;
+            int[] novas = new int[total - jaIndexadas];
+            for (int i = 0; i < novas.length; i++) {
+                novas[i] = jaIndexadas + i;
+            }
+            ordenarPorInstante(origem, novas);
+            int[] posicoes = (atual == null) ? novas : intercalar(origem, atual.posicoes, novas);
+            IndiceTemporal novo = new IndiceTemporal(posicoes, total);
+            indiceTemporal = novo;
+            return novo;
+        }
+    }
+
+    /** Ordenação por intercalação (estável) de posições pela chave (instante, posição). */
+    private static void ordenarPorInstante(Segmento[] origem, int[] posicoes) {
+        int[] auxiliar = new int[posicoes.length];
+        for (int largura = 1; largura < posicoes.length; largura <<= 1) {
+            for (int esquerda = 0; esquerda < posicoes.length - largura; esquerda += 2 * largura) {
+                int meio = esquerda + largura;
+                int direita = Math.min(meio + largura, posicoes.length);
+                intercalar(origem, posicoes, esquerda, meio, posicoes, meio, direita, auxiliar, esquerda);
+                System.arraycopy(auxiliar, esquerda, posicoes, esquerda, direita - esquerda);
+            }
+        }
+    }
+
+    private static int[] intercalar(Segmento[] origem, int[] a, int[] b) {
+        int[] resultado = new int[a.length + b.length];
+        intercalar(origem, a, 0, a.length, b, 0, b.length, resultado, 0);
+        return resultado;
+    }
+
+    private static void intercalar(Segmento[] origem, int[] a, int inicioA, int fimA,
+                                   int[] b, int inicioB, int fimB, int[] destino, int inicioDestino) {
+        int i = inicioA;
+        int j = inicioB;
+        int k = inicioDestino;
+        while (i < fimA && j < fimB) {
+            long instanteA = instante(origem, a[i]);
+            long instanteB = instante(origem, b[j]);
+            // Empate pelo instante: a posição menor (incluída antes) vem primeiro
+            if (instanteA < instanteB || (instanteA == instanteB && a[i] < b[j])) {
+                destino[k++] = a[i++];
+            } else {
+                destino[k++] = b[j++];
+            }
+        }
+        while (i < fimA) {
+            destino[k++] = a[i++];
+        }
+        while (j < fimB) {
+            destino[k++] = b[j++];
+        }
+    }
+
+    /**
+     * Bytes ocupados pelos arrays por movimentação registrada, incluindo a
+     * folga do último segmento e as descrições personalizadas.
+     *
+     * @return Média de bytes por movimentação.
+     */
+    public double bytesPorMovimentacao() {
+        int quantidade = tamanho;
+        if (quantidade == 0) {
+            return 0;
+        }
+        long bytes = 0;
+        for (Segmento segmento : segmentos) {
+            if (segmento != null) {
+                bytes += (long) TAMANHO_SEGMENTO * BYTES_POR_ENTRADA;
+                if (segmento.descricoes != null) {
+                    bytes += (long) TAMANHO_SEGMENTO * 4;
+                }
+            }
+        }
+        return (double) bytes / quantidade;
+    }
+
+    private Movimentacao materializar(Segmento[] origem, int posicao) {
+        Segmento segmento = origem[indiceSegmento(posicao)];
+        int i = posicaoNoSegmento(posicao);
+        String descricao = (segmento.descricoes != null) ? segmento.descricoes[i] : null;
+        return new Movimentacao(TIPOS[segmento.tipos[i] - 1], numeroConta, segmento.centavos[i], segmento.instantes[i],
+                segmento.contrapartes[i], descricao);
+    }
+
+    private static final class IndiceTemporal {
+        final int[] posicoes;
+        final int quantidade;
+
+        IndiceTemporal(int[] posicoes, int quantidade) {
+            this.posicoes = posicoes;
+            this.quantidade = quantidade;
+        }
+    }
+
+    private static final class Segmento {
+        final long[] instantes;
+        /** Ordinal do tipo mais um; zero enquanto a posição está reservada e não foi gravada. */
+        final byte[] tipos;
+        final long[] centavos;
+        final int[] contrapartes;
+        /** Criado na primeira descrição personalizada, sob a trava do histórico. */
+        volatile String[] descricoes;
+
+        Segmento() {
+            this.instantes = new long[TAMANHO_SEGMENTO];
+            this.tipos = new byte[TAMANHO_SEGMENTO];
+            this.centavos = new long[TAMANHO_SEGMENTO];
+            this.contrapartes = new int[TAMANHO_SEGMENTO];
+        }
+    }
+
+    private final class Visao extends AbstractList<Movimentacao> implements RandomAccess {
+        private final Segmento[] origem;
+        private final int quantidade;
+
+        Visao(Segmento[] origem, int quantidade) {
+            this.origem = origem;
+            this.quantidade = quantidade;
+        }
+
+        @Override
+        public Movimentacao get(int indice) {
+            if (indice < 0 || indice >= quantidade) {
+                throw new IndexOutOfBoundsException("Índice " + indice + " fora do histórico de tamanho " + quantidade);
+            }
+            return materializar(origem, indice);
+        }
+
+        @Override
+        public int size() {
+            return quantidade;
+        }
+    }
+}
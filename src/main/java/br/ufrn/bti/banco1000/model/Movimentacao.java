@@ -1,12 +1,20 @@
 package br.ufrn.bti.banco1000.model;
 
-import java.text.SimpleDateFormat;
+import br.ufrn.bti.banco1000.utils.CursorCSV;
+import br.ufrn.bti.banco1000.utils.Datas;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+import br.ufrn.bti.banco1000.utils.EscritorCSV;
+
 import java.util.Date;
 import java.util.Objects;
 
 /**
  * Classe que representa uma movimentação em uma conta bancária.
  * Cada movimentação possui um tipo, número da conta associada, descrição, valor e data.
+ * <p>
+ * A data é guardada em milissegundos desde a época e o valor em centavos. A
+ * descrição só é guardada quando difere da descrição padrão, que é montada a
+ * partir do tipo e da conta de contrapartida apenas quando solicitada.
  */
 public class Movimentacao {
 
@@ -27,11 +35,20 @@ public class Movimentacao {
         }
     }
 
-    private Date data;
+    /** Valor de contrapartida para movimentações que não envolvem outra conta. */
+    public static final int SEM_CONTRAPARTE = Integer.MIN_VALUE;
+
+    private static final TipoMovimentacao[] TIPOS = TipoMovimentacao.values();
+    private static final String PREFIXO_ENVIADA = "Transferência enviada para conta ";
+    private static final String PREFIXO_RECEBIDA = "Transferência recebida da conta ";
+
+    private long instante;
     private TipoMovimentacao tipo;
     private int numeroConta;
+    /** Descrição própria, ou null quando é a {@link #descricaoPadrao descrição padrão}. */
     private String descricao;
-    private double valor;
+    private long centavos;
+    private final int contraparte;
 
     /**
      * Construtor da classe Movimentacao.
@@ -55,28 +72,71 @@ public class Movimentacao {
      * @param data Data da movimentação.
      */
     public Movimentacao(TipoMovimentacao tipo, int numeroConta, String descricao, double valor, Date data) {
+        this(tipo, numeroConta, descricao, valor, data, SEM_CONTRAPARTE);
+    }
+
+    /**
+     * Construtor com data e conta de contrapartida (a outra conta de uma transferência).
+     *
+     * @param tipo Tipo da movimentação.
+     * @param numeroConta Número da conta associada.
+     * @param descricao Descrição.
+     * @param valor Valor.
+     * @param data Data da movimentação.
+     * @param contraparte Número da conta de contrapartida, ou {@link #SEM_CONTRAPARTE}.
+     */
+    public Movimentacao(TipoMovimentacao tipo, int numeroConta, String descricao, double valor, Date data, int contraparte) {
         if (valor <= 0) {
             throw new IllegalArgumentException("O valor da movimentação deve ser positivo.");
         }
         this.tipo = tipo;
         this.numeroConta = numeroConta;
+        this.centavos = Dinheiro.paraCentavos(valor);
+        this.instante = data.getTime();
+        this.contraparte = contraparte;
+        setDescricao(descricao);
+    }
+
+    /**
+     * Construtor compacto, usado ao materializar entradas já validadas do
+     * {@link HistoricoMovimentacoes}.
+     *
+     * @param tipo Tipo da movimentação.
+     * @param numeroConta Número da conta associada.
+     * @param centavos Valor em centavos.
+     * @param instante Data, em milissegundos desde a época.
+     * @param contraparte Número da conta de contrapartida, ou {@link #SEM_CONTRAPARTE}.
+     * @param descricao Descrição própria, ou null para a descrição padrão.
+     */
+    Movimentacao(TipoMovimentacao tipo, int numeroConta, long centavos, long instante, int contraparte, String descricao) {
+        this.tipo = tipo;
+        this.numeroConta = numeroConta;
+        this.centavos = centavos;
+        this.instante = instante;
+        this.contraparte = contraparte;
         this.descricao = descricao;
-        this.valor = valor;
-        this.data = data;
     }
 
     // Getters e Setters
     public Date getData() {
-        return data;
+        return new Date(instante);
+    }
+
+    /**
+     * Data da movimentação, sem criar um {@link Date}.
+     *
+     * @return Milissegundos desde a época.
+     */
+    public long getInstante() {
+        return instante;
     }
 
     public String getDataFormatada() {
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-        return sdf.format(data);
+        return Datas.formatarDataHora(instante);
     }
 
     public void setData(Date data) {
-        this.data = data;
+        this.instante = data.getTime();
     }
 
     public TipoMovimentacao getTipo() {
@@ -84,7 +144,9 @@ public class Movimentacao {
     }
 
     public void setTipo(TipoMovimentacao tipo) {
+        String atual = getDescricao();
         this.tipo = tipo;
+        setDescricao(atual);
     }
 
     public int getNumeroConta() {
@@ -95,69 +157,230 @@ public class Movimentacao {
         this.numeroConta = numeroConta;
     }
 
+    /**
+     * Descrição da movimentação. A descrição padrão, derivada do tipo e da
+     * contrapartida, só é montada quando pedida.
+     *
+     * @return Descrição.
+     */
     public String getDescricao() {
-        return descricao;
+        return (descricao != null) ? descricao : descricaoPadrao(tipo, contraparte);
     }
 
     public void setDescricao(String descricao) {
-        this.descricao = descricao;
+        this.descricao = ehDescricaoPadrao(tipo, contraparte, descricao) ? null : descricao;
     }
 
     public double getValor() {
-        return valor;
+        return Dinheiro.paraReais(centavos);
+    }
+
+    /**
+     * Descrição própria, ou null quando a movimentação usa a descrição padrão.
+     */
+    public String descricaoPropria() {
+        return descricao;
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    public int getContraparte() {
+        return contraparte;
     }
 
     public void setValor(double valor) {
         if (valor <= 0) {
             throw new IllegalArgumentException("O valor deve ser positivo.");
         }
-        this.valor = valor;
+        this.centavos = Dinheiro.paraCentavos(valor);
+    }
+
+    /**
+     * Descrição usada quando a movimentação não tem uma descrição própria.
+     *
+     * @param tipo Tipo da movimentação.
+     * @param contraparte Conta de contrapartida, ou {@link #SEM_CONTRAPARTE}.
+     * @return Descrição padrão.
+     */
+    public static String descricaoPadrao(TipoMovimentacao tipo, int contraparte) {
+        return switch (tipo) {
+            case DEPOSITO -> "Depósito realizado";
+            case SAQUE -> "Saque realizado";
+            case TRANSFERENCIA_ENVIADA -> contraparte == SEM_CONTRAPARTE ? tipo.getDescricao() : PREFIXO_ENVIADA + contraparte;
+            case TRANSFERENCIA_RECEBIDA -> contraparte == SEM_CONTRAPARTE ? tipo.getDescricao() : PREFIXO_RECEBIDA + contraparte;
+        };
+    }
+
+    /**
+     * Verifica, sem alocar, se a descrição é igual à {@link #descricaoPadrao descrição padrão}.
+     *
+     * @param tipo Tipo da movimentação.
+     * @param contraparte Conta de contrapartida.
+     * @param descricao Descrição a comparar.
+     * @return true se a descrição pode ser reconstruída a partir do tipo e da contrapartida.
+     */
+    public static boolean ehDescricaoPadrao(TipoMovimentacao tipo, int contraparte, String descricao) {
+        if (descricao == null) {
+            return false;
+        }
+        switch (tipo) {
+            case DEPOSITO:
+                return descricao.equals("Depósito realizado");
+            case SAQUE:
+                return descricao.equals("Saque realizado");
+            default:
+                if (contraparte == SEM_CONTRAPARTE) {
+                    return descricao.equals(tipo.getDescricao());
+                }
+                String prefixo = (tipo == TipoMovimentacao.TRANSFERENCIA_ENVIADA) ? PREFIXO_ENVIADA : PREFIXO_RECEBIDA;
+                if (!descricao.startsWith(prefixo) || descricao.length() == prefixo.length()) {
+                    return false;
+                }
+                try {
+                    int numero = Integer.parseInt(descricao, prefixo.length(), descricao.length(), 10);
+                    // Rejeita formas não canônicas, como zeros à esquerda ou sinal explícito
+                    return numero == contraparte && descricao.length() - prefixo.length() == tamanhoDecimal(numero);
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+        }
+    }
+
+    private static int tamanhoDecimal(int numero) {
+        int tamanho = (numero < 0) ? 2 : 1;
+        long restante = Math.abs((long) numero);
+        while (restante >= 10) {
+            restante /= 10;
+            tamanho++;
+        }
+        return tamanho;
+    }
+
+    /**
+     * Reconstrói uma movimentação gravada, sem passar o valor por {@code double}.
+     *
+     * @param tipo Tipo da movimentação.
+     * @param numeroConta Número da conta associada.
+     * @param centavos Valor em centavos (positivo).
+     * @param instante Data, em milissegundos desde a época.
+     * @param contraparte Número da conta de contrapartida, ou {@link #SEM_CONTRAPARTE}.
+     * @param descricao Descrição própria, ou null para a descrição padrão.
+     * @return Movimentação reconstruída.
+     */
+    public static Movimentacao restaurar(TipoMovimentacao tipo, int numeroConta, long centavos, long instante,
+                                         int contraparte, String descricao) {
+        if (centavos <= 0) {
+            throw new IllegalArgumentException("O valor da movimentação deve ser positivo.");
+        }
+        Movimentacao movimentacao = new Movimentacao(tipo, numeroConta, centavos, instante, contraparte, null);
+        movimentacao.setDescricao(descricao);
+        return movimentacao;
     }
 
     // Métodos para Persistência em CSV
     public String toCsv() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-        return String.join(",",
-                tipo.name(),
-                String.valueOf(numeroConta),
-                descricao,
-                String.valueOf(valor),
-                sdf.format(data)
-        );
+        StringBuilder linha = new StringBuilder(80)
+                .append(tipo.name()).append(',')
+                .append(numeroConta).append(',');
+        if (descricao != null) {
+            EscritorCSV.anexarCampo(linha, descricao);
+        } else {
+            anexarDescricao(linha);
+        }
+        linha.append(',').append(getValor()).append(',');
+        Datas.anexarDataCsv(instante, linha);
+        return linha.toString();
     }
 
+    /**
+     * Reconstrói uma movimentação a partir de uma linha de {@link #toCsv()}.
+     *
+     * @param csv Linha CSV.
+     * @return Movimentação reconstruída.
+     * @see #fromCsv(CursorCSV)
+     */
     public static Movimentacao fromCsv(String csv) {
-        String[] campos = csv.split(",");
-        if (campos.length != 5) {
-            throw new IllegalArgumentException("CSV inválido para criação de movimentação.");
+        return fromCsv(new CursorCSV().linha(csv));
+    }
+
+    /**
+     * Reconstrói uma movimentação a partir dos campos de {@link #toCsv()},
+     * sem criar objetos além da própria movimentação quando a descrição é a
+     * padrão. Nas transferências, a conta de contrapartida é recuperada da
+     * descrição padrão. Sem aspas, a descrição é tudo o que fica entre o
+     * número da conta e o valor, de modo que linhas antigas com vírgulas na
+     * descrição continuam válidas.
+     *
+     * @param cursor Cursor posicionado no início da linha.
+     * @return Movimentação reconstruída.
+     */
+    public static Movimentacao fromCsv(CursorCSV cursor) {
+        TipoMovimentacao tipo = cursor.enumeracao(TIPOS);
+        int numeroConta = cursor.inteiro();
+
+        int contraparte = SEM_CONTRAPARTE;
+        String descricao = null;
+        cursor.estenderProximoCampo(2);
+        if (!cursor.textoIgual(descricaoPadrao(tipo, SEM_CONTRAPARTE))) {
+            long numero = switch (tipo) {
+                case TRANSFERENCIA_ENVIADA -> cursor.inteiroAposPrefixo(PREFIXO_ENVIADA);
+                case TRANSFERENCIA_RECEBIDA -> cursor.inteiroAposPrefixo(PREFIXO_RECEBIDA);
+                default -> CursorCSV.AUSENTE;
+            };
+            if (numero != CursorCSV.AUSENTE && numero != SEM_CONTRAPARTE) {
+                contraparte = (int) numero;
+            } else {
+                descricao = cursor.estenderProximoCampo(2).texto();
+            }
+        }
+        long centavos = cursor.centavos();
+        if (centavos <= 0) {
+            throw new IllegalArgumentException("O valor da movimentação deve ser positivo.");
         }
+        long instante = cursor.data();
 
-        TipoMovimentacao tipo = TipoMovimentacao.valueOf(campos[0]);
-        int numeroConta = Integer.parseInt(campos[1]);
-        String descricao = campos[2];
-        double valor = Double.parseDouble(campos[3]);
-        Date data;
-
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-            data = sdf.parse(campos[4]);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Data inválida no CSV.");
+        Movimentacao movimentacao = new Movimentacao(tipo, numeroConta, centavos, instante, contraparte, null);
+        if (descricao != null) {
+            movimentacao.setDescricao(descricao);
         }
+        return movimentacao;
+    }
 
-        return new Movimentacao(tipo, numeroConta, descricao, valor, data);
+    /**
+     * Acrescenta a descrição sem montar a descrição padrão como {@code String}.
+     */
+    private void anexarDescricao(StringBuilder destino) {
+        if (descricao != null) {
+            destino.append(descricao);
+            return;
+        }
+        switch (tipo) {
+            case TRANSFERENCIA_ENVIADA, TRANSFERENCIA_RECEBIDA -> {
+                if (contraparte == SEM_CONTRAPARTE) {
+                    destino.append(tipo.getDescricao());
+                } else {
+                    destino.append(tipo == TipoMovimentacao.TRANSFERENCIA_ENVIADA ? PREFIXO_ENVIADA : PREFIXO_RECEBIDA)
+                            .append(contraparte);
+                }
+            }
+            default -> destino.append(descricaoPadrao(tipo, contraparte));
+        }
     }
 
     // Métodos auxiliares
     @Override
     public String toString() {
-        return "Movimentacao{" +
-                "data=" + getDataFormatada() +
-                ", tipo=" + tipo.getDescricao() +
-                ", numeroConta=" + numeroConta +
-                ", descricao='" + descricao + '\'' +
-                ", valor=" + valor +
-                '}';
+        StringBuilder texto = new StringBuilder(128)
+                .append("Movimentacao{data=").append(getDataFormatada())
+                .append(", tipo=").append(tipo.getDescricao())
+                .append(", numeroConta=").append(numeroConta)
+                .append(", descricao='");
+        anexarDescricao(texto);
+        return texto.append('\'')
+                .append(", valor=").append(getValor())
+                .append('}').toString();
     }
 
     @Override
@@ -166,14 +389,14 @@ public class Movimentacao {
         if (o == null || getClass() != o.getClass()) return false;
         Movimentacao that = (Movimentacao) o;
         return numeroConta == that.numeroConta &&
-                Double.compare(that.valor, valor) == 0 &&
+                centavos == that.centavos &&
+                instante == that.instante &&
                 tipo == that.tipo &&
-                Objects.equals(data, that.data) &&
-                Objects.equals(descricao, that.descricao);
+                Objects.equals(getDescricao(), that.getDescricao());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(data, tipo, numeroConta, descricao, valor);
+        return Objects.hash(instante, tipo, numeroConta, getDescricao(), centavos);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package br.ufrn.bti.banco1000.model;
+
+/**
+ * Uma transferência de um lote (arquivo de pagamentos, folha salarial),
+ * identificando as contas por agência e número.
+ */
+public final class OrdemTransferencia {
+    private final int agenciaOrigem;
+    private final int numeroContaOrigem;
+    private final int agenciaDestino;
+    private final int numeroContaDestino;
+    private final double valor;
+
+    /**
+     * @param agenciaOrigem Agência da conta de origem.
+     * @param numeroContaOrigem Número da conta de origem.
+     * @param agenciaDestino Agência da conta de destino.
+     * @param numeroContaDestino Número da conta de destino.
+     * @param valor Valor da transferência.
+     */
+    public OrdemTransferencia(int agenciaOrigem, int numeroContaOrigem,
+                              int agenciaDestino, int numeroContaDestino, double valor) {
+        this.agenciaOrigem = agenciaOrigem;
+        this.numeroContaOrigem = numeroContaOrigem;
+        this.agenciaDestino = agenciaDestino;
+        this.numeroContaDestino = numeroContaDestino;
+        this.valor = valor;
+    }
+
+    public int getAgenciaOrigem() {
+        return agenciaOrigem;
+    }
+
+    public int getNumeroContaOrigem() {
+        return numeroContaOrigem;
+    }
+
+    public int getAgenciaDestino() {
+        return agenciaDestino;
+    }
+
+    public int getNumeroContaDestino() {
+        return numeroContaDestino;
+    }
+
+    public double getValor() {
+        return valor;
+    }
+
+    @Override
+    public String toString() {
+        return "OrdemTransferencia{" +
+                "origem=" + agenciaOrigem + "/" + numeroContaOrigem +
+                ", destino=" + agenciaDestino + "/" + numeroContaDestino +
+                ", valor=" + valor +
+                '}';
+    }
+}
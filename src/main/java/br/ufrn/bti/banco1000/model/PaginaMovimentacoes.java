@@ -0,0 +1,54 @@
+package br.ufrn.bti.banco1000.model;
+
+import java.util.List;
+
+/**
+ * Página do resultado de uma consulta ao histórico de movimentações
+ * ({@link Conta#consultarMovimentacoes}). Para obter a página seguinte, repita
+ * a consulta com {@link #getProximoCursor()}.
+ */
+public final class PaginaMovimentacoes {
+    /** Cursor que inicia a consulta pela primeira página. */
+    public static final long PRIMEIRA_PAGINA = -1;
+    /** Valor de {@link #getProximoCursor()} quando não há mais páginas. */
+    public static final long SEM_PROXIMA = -1;
+
+    private final List<Movimentacao> movimentacoes;
+    private final long proximoCursor;
+
+    public PaginaMovimentacoes(List<Movimentacao> movimentacoes, long proximoCursor) {
+        this.movimentacoes = List.copyOf(movimentacoes);
+        this.proximoCursor = proximoCursor;
+    }
+
+    /**
+     * Movimentações da página, em ordem cronológica.
+     *
+     * @return Lista somente leitura.
+     */
+    public List<Movimentacao> getMovimentacoes() {
+        return movimentacoes;
+    }
+
+    /**
+     * Cursor da página seguinte. Continua válido mesmo que novas movimentações
+     * sejam registradas entre as consultas.
+     *
+     * @return Cursor, ou {@link #SEM_PROXIMA}.
+     */
+    public long getProximoCursor() {
+        return proximoCursor;
+    }
+
+    public boolean temProxima() {
+        return proximoCursor != SEM_PROXIMA;
+    }
+
+    @Override
+    public String toString() {
+        return "PaginaMovimentacoes{" +
+                "movimentacoes=" + movimentacoes.size() +
+                ", proximoCursor=" + proximoCursor +
+                '}';
+    }
+}
@@ -0,0 +1,143 @@
+package br.ufrn.bti.banco1000.model;
+
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Resultado de uma execução do fechamento mensal: totais, vazão e o tempo de
+ * cada partição de contas.
+ */
+public final class RelatorioFechamentoMensal {
+
+    /**
+     * Resultado de uma partição (faixa contígua de contas) do fechamento.
+     */
+    public static final class Particao {
+        private final int indice;
+        private final int contas;
+        private final int fechadas;
+        private final int jaFechadas;
+        private final long duracaoNanos;
+
+        public Particao(int indice, int contas, int fechadas, int jaFechadas, long duracaoNanos) {
+            this.indice = indice;
+            this.contas = contas;
+            this.fechadas = fechadas;
+            this.jaFechadas = jaFechadas;
+            this.duracaoNanos = duracaoNanos;
+        }
+
+        public int getIndice() {
+            return indice;
+        }
+
+        /** Quantidade de contas da partição. */
+        public int getContas() {
+            return contas;
+        }
+
+        /** Contas fechadas nesta execução. */
+        public int getFechadas() {
+            return fechadas;
+        }
+
+        /** Contas ignoradas por já estarem fechadas (execução anterior interrompida). */
+        public int getJaFechadas() {
+            return jaFechadas;
+        }
+
+        public long getDuracaoNanos() {
+            return duracaoNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Particao{" +
+                    "indice=" + indice +
+                    ", contas=" + contas +
+                    ", fechadas=" + fechadas +
+                    ", jaFechadas=" + jaFechadas +
+                    ", duracaoMs=" + duracaoNanos / 1_000_000.0 +
+                    '}';
+        }
+    }
+
+    private final YearMonth mes;
+    private final long rendimentosCentavos;
+    private final long taxasCentavos;
+    private final int taxasRecusadas;
+    private final long duracaoNanos;
+    private final List<Particao> particoes;
+
+    public RelatorioFechamentoMensal(YearMonth mes, long rendimentosCentavos, long taxasCentavos,
+                                     int taxasRecusadas, long duracaoNanos, List<Particao> particoes) {
+        this.mes = mes;
+        this.rendimentosCentavos = rendimentosCentavos;
+        this.taxasCentavos = taxasCentavos;
+        this.taxasRecusadas = taxasRecusadas;
+        this.duracaoNanos = duracaoNanos;
+        this.particoes = List.copyOf(particoes);
+    }
+
+    public YearMonth getMes() {
+        return mes;
+    }
+
+    public int getContasFechadas() {
+        return particoes.stream().mapToInt(Particao::getFechadas).sum();
+    }
+
+    public int getContasJaFechadas() {
+        return particoes.stream().mapToInt(Particao::getJaFechadas).sum();
+    }
+
+    /** Total de rendimentos creditados, em centavos. */
+    public long getRendimentosCentavos() {
+        return rendimentosCentavos;
+    }
+
+    /** Total de taxas debitadas, em centavos. */
+    public long getTaxasCentavos() {
+        return taxasCentavos;
+    }
+
+    /** Contas em que a taxa não foi cobrada por saldo insuficiente. */
+    public int getTaxasRecusadas() {
+        return taxasRecusadas;
+    }
+
+    public long getDuracaoNanos() {
+        return duracaoNanos;
+    }
+
+    /**
+     * Contas percorridas (fechadas agora ou já fechadas) por segundo.
+     *
+     * @return Vazão da execução.
+     */
+    public double getContasPorSegundo() {
+        long contas = particoes.stream().mapToLong(Particao::getContas).sum();
+        return (duracaoNanos == 0) ? 0 : contas * 1e9 / duracaoNanos;
+    }
+
+    public List<Particao> getParticoes() {
+        return particoes;
+    }
+
+    @Override
+    public String toString() {
+        return "RelatorioFechamentoMensal{" +
+                "mes=" + mes +
+                ", contasFechadas=" + getContasFechadas() +
+                ", contasJaFechadas=" + getContasJaFechadas() +
+                ", rendimentos=" + Dinheiro.formatar(rendimentosCentavos) +
+                ", taxas=" + Dinheiro.formatar(taxasCentavos) +
+                ", taxasRecusadas=" + taxasRecusadas +
+                ", particoes=" + particoes.size() +
+                ", duracaoMs=" + duracaoNanos / 1_000_000.0 +
+                ", contasPorSegundo=" + Math.round(getContasPorSegundo()) +
+                '}';
+    }
+}
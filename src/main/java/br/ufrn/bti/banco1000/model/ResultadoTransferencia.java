@@ -0,0 +1,24 @@
+package br.ufrn.bti.banco1000.model;
+
+/**
+ * Resultado de cada ordem de um lote de transferências.
+ */
+public enum ResultadoTransferencia {
+    EFETUADA("Transferência efetuada"),
+    CONTA_ORIGEM_NAO_ENCONTRADA("Conta de origem não encontrada"),
+    CONTA_DESTINO_NAO_ENCONTRADA("Conta de destino não encontrada"),
+    MESMA_CONTA("As contas de origem e destino devem ser diferentes"),
+    VALOR_INVALIDO("O valor da transferência deve ser positivo"),
+    SALDO_INSUFICIENTE("Saldo insuficiente para transferência"),
+    RECUSADA("Transferência recusada pelas regras da conta");
+
+    private final String descricao;
+
+    ResultadoTransferencia(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
@@ -0,0 +1,90 @@
+package br.ufrn.bti.banco1000.model;
+
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+
+import java.time.YearMonth;
+
+/**
+ * Totais das movimentações de uma conta em um mês, por tipo de movimentação.
+ * É uma cópia dos agregados mantidos pelo {@link HistoricoMovimentacoes}, e
+ * não muda com movimentações registradas depois de obtida.
+ */
+public final class ResumoMensal {
+    private static final Movimentacao.TipoMovimentacao[] TIPOS = Movimentacao.TipoMovimentacao.values();
+
+    private final YearMonth mes;
+    private final long[] totaisCentavos;
+    private final long[] quantidades;
+
+    ResumoMensal(YearMonth mes, long[] totaisCentavos, long[] quantidades) {
+        this.mes = mes;
+        this.totaisCentavos = totaisCentavos;
+        this.quantidades = quantidades;
+    }
+
+    static ResumoMensal vazio(YearMonth mes) {
+        return new ResumoMensal(mes, new long[TIPOS.length], new long[TIPOS.length]);
+    }
+
+    public YearMonth getMes() {
+        return mes;
+    }
+
+    /**
+     * Soma dos valores das movimentações de um tipo no mês.
+     *
+     * @param tipo Tipo da movimentação.
+     * @return Total em centavos.
+     */
+    public long getTotalCentavos(Movimentacao.TipoMovimentacao tipo) {
+        return totaisCentavos[tipo.ordinal()];
+    }
+
+    public double getTotal(Movimentacao.TipoMovimentacao tipo) {
+        return Dinheiro.paraReais(getTotalCentavos(tipo));
+    }
+
+    /**
+     * Quantidade de movimentações de um tipo no mês.
+     *
+     * @param tipo Tipo da movimentação.
+     * @return Quantidade de movimentações.
+     */
+    public long getQuantidade(Movimentacao.TipoMovimentacao tipo) {
+        return quantidades[tipo.ordinal()];
+    }
+
+    /**
+     * Transferências recebidas menos transferências enviadas no mês.
+     *
+     * @return Saldo das transferências, em centavos (negativo se a conta enviou mais do que recebeu).
+     */
+    public long getTransferenciasLiquidasCentavos() {
+        return getTotalCentavos(Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA)
+                - getTotalCentavos(Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA);
+    }
+
+    /**
+     * Variação do saldo causada pelas movimentações do mês: entradas
+     * (depósitos e transferências recebidas) menos saídas (saques e
+     * transferências enviadas).
+     *
+     * @return Variação em centavos.
+     */
+    public long getVariacaoSaldoCentavos() {
+        return getTotalCentavos(Movimentacao.TipoMovimentacao.DEPOSITO)
+                - getTotalCentavos(Movimentacao.TipoMovimentacao.SAQUE)
+                + getTransferenciasLiquidasCentavos();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder("ResumoMensal{mes=").append(mes);
+        for (Movimentacao.TipoMovimentacao tipo : TIPOS) {
+            texto.append(", ").append(tipo.name()).append('=')
+                    .append(Dinheiro.formatar(totaisCentavos[tipo.ordinal()]))
+                    .append(" (").append(quantidades[tipo.ordinal()]).append(')');
+        }
+        return texto.append('}').toString();
+    }
+}
@@ -1,6 +1,11 @@
 package br.ufrn.bti.banco1000.model;
 
-import java.text.SimpleDateFormat;
+import br.ufrn.bti.banco1000.utils.CursorCSV;
+import br.ufrn.bti.banco1000.utils.Datas;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+import br.ufrn.bti.banco1000.utils.EscritorCSV;
+import br.ufrn.bti.banco1000.utils.TravasListradas;
+
 import java.util.Date;
 
 /**
@@ -13,29 +18,67 @@ public class Transferencia {
     private final Conta contaOrigem;
     private final Conta contaDestino;
     private final double valor;
-    private final Date data;
+    private final long instante;
     private final String descricao;
 
     /**
-     * Construtor da classe Transferencia.
+     * Construtor da classe Transferencia, que efetua a transferência entre
+     * contas avulsas. Entre contas cadastradas em um controller, use
+     * {@code ContaController.realizarTransferencia}, que a registra no journal.
      *
      * @param contaOrigem Conta de onde o valor será retirado.
      * @param contaDestino Conta para onde o valor será enviado.
      * @param valor Valor da transferência.
      * @param descricao Descrição da transferência.
+     * @throws IllegalStateException Se uma das contas estiver cadastrada em um controller.
      */
     public Transferencia(Conta contaOrigem, Conta contaDestino, double valor, String descricao) {
         validarTransferencia(contaOrigem, contaDestino, valor);
+        contaOrigem.exigirForaDeController("realizarTransferencia");
+        contaDestino.exigirForaDeController("realizarTransferencia");
 
         this.contaOrigem = contaOrigem;
         this.contaDestino = contaDestino;
         this.valor = valor;
-        this.data = new Date();
+        this.instante = System.currentTimeMillis();
         this.descricao = descricao;
 
         realizarTransferencia();
     }
 
+    private Transferencia(Conta contaOrigem, Conta contaDestino, double valor, long instante, String descricao) {
+        this.contaOrigem = contaOrigem;
+        this.contaDestino = contaDestino;
+        this.valor = valor;
+        this.instante = instante;
+        this.descricao = descricao;
+    }
+
+    /**
+     * Reconstrói uma transferência já efetuada, com a data original e sem
+     * movimentar as contas de novo.
+     *
+     * @param contaOrigem Conta de onde o valor foi retirado.
+     * @param contaDestino Conta para onde o valor foi enviado.
+     * @param centavos Valor da transferência em centavos.
+     * @param instante Data da transferência, em milissegundos desde a época.
+     * @param descricao Descrição da transferência.
+     * @return Transferência reconstruída.
+     */
+    public static Transferencia restaurar(Conta contaOrigem, Conta contaDestino, long centavos, long instante,
+                                          String descricao) {
+        if (contaOrigem == null || contaDestino == null) {
+            throw new IllegalArgumentException("As contas de origem e destino não podem ser nulas.");
+        }
+        if (contaOrigem == contaDestino) {
+            throw new IllegalArgumentException("As contas de origem e destino devem ser diferentes.");
+        }
+        if (centavos <= 0) {
+            throw new IllegalArgumentException("O valor da transferência deve ser positivo.");
+        }
+        return new Transferencia(contaOrigem, contaDestino, Dinheiro.paraReais(centavos), instante, descricao);
+    }
+
     /**
      * Valida os parâmetros da transferência.
      */
@@ -49,35 +92,28 @@ public class Transferencia {
         if (valor <= 0) {
             throw new IllegalArgumentException("O valor da transferência deve ser positivo.");
         }
-        if (contaOrigem.getSaldo() < valor) {
-            throw new IllegalStateException("Saldo insuficiente na conta de origem.");
-        }
     }
 
     /**
-     * Realiza a transferência entre as contas.
+     * Realiza a transferência entre as contas, sob as mesmas travas por conta
+     * usadas pelo {@code ContaController}.
      */
     private void realizarTransferencia() {
-        contaOrigem.sacar(valor);
-        contaDestino.depositar(valor);
-
-        contaOrigem.getMovimentacoes().add(
-                new Movimentacao(
-                        Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA,
-                        contaOrigem.getNumeroConta(),
-                        "Transferência para conta " + contaDestino.getNumeroConta(),
-                        valor
-                )
-        );
-
-        contaDestino.getMovimentacoes().add(
-                new Movimentacao(
-                        Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA,
-                        contaDestino.getNumeroConta(),
-                        "Transferência recebida da conta " + contaOrigem.getNumeroConta(),
-                        valor
-                )
-        );
+        TravasListradas travas = TravasListradas.padrao();
+        long chaveOrigem = contaOrigem.getChave();
+        long chaveDestino = contaDestino.getChave();
+        travas.travarPar(chaveOrigem, chaveDestino);
+        try {
+            // O débito confere o saldo atomicamente: uma leitura prévia dele poderia estar desatualizada
+            movimentar();
+        } finally {
+            travas.destravarPar(chaveOrigem, chaveDestino);
+        }
+    }
+
+    private void movimentar() {
+        // A conta de origem registra a movimentação enviada e a recebida
+        contaOrigem.transferir(contaDestino, valor, instante);
     }
 
     // Getters
@@ -94,12 +130,15 @@ public class Transferencia {
     }
 
     public Date getData() {
-        return data;
+        return new Date(instante);
+    }
+
+    public long getInstante() {
+        return instante;
     }
 
     public String getDataFormatada() {
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-        return sdf.format(data);
+        return Datas.formatarDataHora(instante);
     }
 
     public String getDescricao() {
@@ -110,37 +149,42 @@ public class Transferencia {
      * Retorna os dados da transferência em formato CSV.
      */
     public String toCsv() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-        return String.join(",",
-                String.valueOf(contaOrigem.getNumeroConta()),
-                String.valueOf(contaDestino.getNumeroConta()),
-                String.valueOf(valor),
-                descricao,
-                sdf.format(data)
-        );
+        StringBuilder linha = new StringBuilder(80)
+                .append(contaOrigem.getNumeroConta()).append(',')
+                .append(contaDestino.getNumeroConta()).append(',')
+                .append(valor).append(',');
+        EscritorCSV.anexarCampo(linha, descricao).append(',');
+        Datas.anexarDataCsv(instante, linha);
+        return linha.toString();
     }
 
     /**
      * Reconstrói uma transferência a partir de uma linha CSV.
      */
     public static Transferencia fromCsv(String csv, Conta contaOrigem, Conta contaDestino) {
-        String[] campos = csv.split(",");
-        if (campos.length != 5) {
-            throw new IllegalArgumentException("CSV inválido para criação de transferência.");
-        }
-
-        double valor = Double.parseDouble(campos[2]);
-        String descricao = campos[3];
-        Date data;
-
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-            data = sdf.parse(campos[4]);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Data inválida no CSV.");
-        }
+        return fromCsv(new CursorCSV().linha(csv), contaOrigem, contaDestino);
+    }
 
-        return new Transferencia(contaOrigem, contaDestino, valor, descricao);
+    /**
+     * Reconstrói uma transferência a partir dos campos de {@link #toCsv()}.
+     * Sem aspas, a descrição é tudo o que fica entre o valor e a data, de
+     * modo que linhas antigas com vírgulas na descrição continuam válidas.
+     * Como em {@link #restaurar}, a transferência lida já foi efetuada: as
+     * contas não são movimentadas de novo.
+     *
+     * @param cursor Cursor posicionado no início da linha.
+     * @param contaOrigem Conta de onde o valor foi retirado.
+     * @param contaDestino Conta para onde o valor foi enviado.
+     * @return Transferência reconstruída, com a data da linha.
+     */
+    public static Transferencia fromCsv(CursorCSV cursor, Conta contaOrigem, Conta contaDestino) {
+        cursor.pular();
+        cursor.pular();
+        long centavos = cursor.centavos();
+        String descricao = cursor.estenderProximoCampo(1).texto();
+        long instante = cursor.data();
+
+        return restaurar(contaOrigem, contaDestino, centavos, instante, descricao);
     }
 
     @Override
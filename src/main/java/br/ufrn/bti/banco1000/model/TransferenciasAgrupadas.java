@@ -0,0 +1,209 @@
+package br.ufrn.bti.banco1000.model;
+
+import br.ufrn.bti.banco1000.metricas.MetricasBanco;
+import br.ufrn.bti.banco1000.utils.IndiceLong;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Aplicação de um bloco de transferências em lote agrupadas por conta.
+ * <p>
+ * Em vez de debitar e creditar cada ordem, as ordens do bloco são validadas
+ * em uma passada, na sequência do lote, sobre um saldo projetado de cada
+ * conta: uma ordem pode usar o saldo recebido por uma anterior, e a recusa de
+ * uma não afeta as demais. Depois, cada conta recebe a sua variação líquida
+ * em uma única operação atômica, e as movimentações das ordens efetuadas são
+ * registradas em seguida.
+ * <p>
+ * Depósitos e saques não adquirem as travas de conta, então o saldo pode
+ * mudar entre a projeção e a aplicação. Os débitos líquidos são aplicados
+ * primeiro, cada um pelo mesmo débito atômico de {@link Conta#sacar}; se
+ * algum não couber mais no saldo, ou um crédito estourar, as variações já
+ * aplicadas são desfeitas e o bloco é aplicado ordem a ordem. Contas com
+ * regras próprias de saque, como o limite da conta salário, não podem somar
+ * os débitos; um bloco com alguma delas também é aplicado ordem a ordem.
+ * <p>
+ * Uma instância guarda as áreas de trabalho de um lote, reaproveitadas em
+ * todos os seus blocos; não é thread-safe.
+ */
+public final class TransferenciasAgrupadas {
+    /** Classes de conta que não sobrescrevem as regras de saque de {@link Conta}. */
+    private static final ClassValue<Boolean> SEM_REGRAS_DE_SAQUE = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> tipo) {
+            for (Class<?> classe = tipo; classe != Conta.class; classe = classe.getSuperclass()) {
+                for (Method metodo : classe.getDeclaredMethods()) {
+                    if (metodo.getName().equals("debitarSaque") || metodo.getName().equals("tentarDebitarSaque")) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    };
+
+    private final int[] pendentes;
+    private final IndiceLong<Integer> indiceGrupos;
+    private final Conta[] contas;
+    private final int[] grupoOrigem;
+    private final int[] grupoDestino;
+    private final long[] iniciais;
+    private final long[] projetados;
+
+    /**
+     * Cria as áreas de trabalho para blocos de até o tamanho informado.
+     *
+     * @param tamanhoBloco Quantidade máxima de ordens por bloco.
+     */
+    public TransferenciasAgrupadas(int tamanhoBloco) {
+        this.pendentes = new int[tamanhoBloco];
+        this.indiceGrupos = new IndiceLong<>(2 * tamanhoBloco);
+        this.contas = new Conta[2 * tamanhoBloco];
+        this.grupoOrigem = new int[tamanhoBloco];
+        this.grupoDestino = new int[tamanhoBloco];
+        this.iniciais = new long[2 * tamanhoBloco];
+        this.projetados = new long[2 * tamanhoBloco];
+    }
+
+    /**
+     * Aplica as ordens de um bloco ainda sem resultado. Quem chama já validou
+     * contas e valores, e segura as travas de todas as contas do bloco.
+     *
+     * @param origens Conta de origem de cada ordem.
+     * @param destinos Conta de destino de cada ordem.
+     * @param centavos Valor de cada ordem, em centavos (positivo).
+     * @param resultados Resultado de cada ordem; as sem resultado recebem o seu.
+     * @param inicio Primeira ordem do bloco.
+     * @param fim Posição seguinte à última ordem do bloco, no máximo o tamanho do bloco depois de {@code inicio}.
+     * @param instante Data das transferências, em milissegundos desde a época.
+     */
+    public void aplicar(Conta[] origens, Conta[] destinos, long[] centavos,
+                        ResultadoTransferencia[] resultados, int inicio, int fim, long instante) {
+        int quantidade = 0;
+        for (int i = inicio; i < fim; i++) {
+            if (resultados[i] == null) {
+                pendentes[quantidade++] = i;
+            }
+        }
+
+        // Um grupo por conta distinta do bloco
+        indiceGrupos.clear();
+        int grupos = 0;
+        for (int k = 0; k < quantidade; k++) {
+            int i = pendentes[k];
+            if (!SEM_REGRAS_DE_SAQUE.get(origens[i].getClass())) {
+                aplicarOrdemAOrdem(origens, destinos, centavos, resultados, pendentes, quantidade, instante);
+                return;
+            }
+            Integer origem = indiceGrupos.putIfAbsent(origens[i].getChave(), grupos);
+            if (origem == null) {
+                contas[grupos] = origens[i];
+                origem = grupos++;
+            }
+            Integer destino = indiceGrupos.putIfAbsent(destinos[i].getChave(), grupos);
+            if (destino == null) {
+                contas[grupos] = destinos[i];
+                destino = grupos++;
+            }
+            grupoOrigem[k] = origem;
+            grupoDestino[k] = destino;
+        }
+
+        // Validação em sequência sobre os saldos projetados
+        for (int g = 0; g < grupos; g++) {
+            iniciais[g] = contas[g].getSaldoCentavos();
+            projetados[g] = iniciais[g];
+        }
+        for (int k = 0; k < quantidade; k++) {
+            int i = pendentes[k];
+            int origem = grupoOrigem[k];
+            int destino = grupoDestino[k];
+            if (projetados[origem] < centavos[i]) {
+                MetricasBanco.padrao().recusar(MetricasBanco.Recusa.SALDO_INSUFICIENTE);
+                resultados[i] = ResultadoTransferencia.SALDO_INSUFICIENTE;
+            } else if (projetados[destino] > Long.MAX_VALUE - centavos[i]) {
+                // O saldo do destino estouraria
+                resultados[i] = ResultadoTransferencia.RECUSADA;
+            } else {
+                projetados[origem] -= centavos[i];
+                projetados[destino] += centavos[i];
+                resultados[i] = ResultadoTransferencia.EFETUADA;
+            }
+        }
+
+        boolean aplicadas = aplicarVariacoes(contas, iniciais, projetados, grupos);
+        Arrays.fill(contas, 0, grupos, null);
+        if (!aplicadas) {
+            for (int k = 0; k < quantidade; k++) {
+                resultados[pendentes[k]] = null;
+            }
+            aplicarOrdemAOrdem(origens, destinos, centavos, resultados, pendentes, quantidade, instante);
+            return;
+        }
+        for (int k = 0; k < quantidade; k++) {
+            int i = pendentes[k];
+            if (resultados[i] == ResultadoTransferencia.EFETUADA) {
+                origens[i].registrarTransferencia(destinos[i], centavos[i], instante);
+            }
+        }
+    }
+
+    /**
+     * Aplica a variação líquida de cada conta: primeiro os débitos, que podem
+     * ser recusados, depois os créditos.
+     *
+     * @return false se um débito ou um crédito não coube no saldo atual, caso
+     *         em que nada fica alterado.
+     */
+    private static boolean aplicarVariacoes(Conta[] contas, long[] iniciais, long[] projetados, int grupos) {
+        for (int g = 0; g < grupos; g++) {
+            long variacao = projetados[g] - iniciais[g];
+            if (variacao < 0 && !contas[g].tentarDebitar(-variacao)) {
+                desfazerDebitos(contas, iniciais, projetados, g);
+                return false;
+            }
+        }
+        for (int g = 0; g < grupos; g++) {
+            long variacao = projetados[g] - iniciais[g];
+            if (variacao > 0) {
+                try {
+                    contas[g].creditar(variacao);
+                } catch (IllegalStateException e) {
+                    for (int h = 0; h < g; h++) {
+                        long creditado = projetados[h] - iniciais[h];
+                        if (creditado > 0) {
+                            contas[h].estornarCredito(creditado);
+                        }
+                    }
+                    desfazerDebitos(contas, iniciais, projetados, grupos);
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void desfazerDebitos(Conta[] contas, long[] iniciais, long[] projetados, int ate) {
+        for (int g = 0; g < ate; g++) {
+            long variacao = projetados[g] - iniciais[g];
+            if (variacao < 0) {
+                contas[g].creditar(-variacao);
+            }
+        }
+    }
+
+    private static void aplicarOrdemAOrdem(Conta[] origens, Conta[] destinos, long[] centavos,
+                                           ResultadoTransferencia[] resultados, int[] pendentes, int quantidade,
+                                           long instante) {
+        for (int k = 0; k < quantidade; k++) {
+            int i = pendentes[k];
+            try {
+                resultados[i] = origens[i].transferirCentavos(destinos[i], centavos[i], instante);
+            } catch (IllegalStateException e) {
+                // O saldo do destino estouraria: o débito já foi devolvido à origem
+                resultados[i] = ResultadoTransferencia.RECUSADA;
+            }
+        }
+    }
+}
@@ -0,0 +1,532 @@
+package br.ufrn.bti.banco1000.persistence;
+
+import br.ufrn.bti.banco1000.model.Agencia;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.ContaCorrente;
+import br.ufrn.bti.banco1000.model.ContaPoupanca;
+import br.ufrn.bti.banco1000.model.ContaSalario;
+import br.ufrn.bti.banco1000.model.Movimentacao;
+import br.ufrn.bti.banco1000.model.Transferencia;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Formato binário compacto e versionado para agências, contas, movimentações
+ * e transferências, gravado e lido diretamente em {@link ByteBuffer}s. Substitui
+ * o CSV ({@code toCsv}/{@code fromCsv}) como formato de persistência; o CSV
+ * continua apenas como formato de troca.
+ * <p>
+ * Um fluxo começa com um cabeçalho ({@link #MAGICO} e {@link #VERSAO}) e
+ * segue com registros, cada um iniciado pelo byte do seu tipo. Os campos usam:
+ * <ul>
+ *     <li>inteiros em varint (7 bits por byte); os que podem ser negativos, em zigzag;</li>
+ *     <li>valores monetários em centavos, como inteiros;</li>
+ *     <li>datas como a diferença, em milissegundos, para a data anterior do fluxo;</li>
+ *     <li>textos por dicionário: a primeira ocorrência é gravada em UTF-8 e
+ *     recebe um código, e as seguintes gravam apenas o código.</li>
+ * </ul>
+ * Como o dicionário e a última data fazem parte do estado do fluxo, um
+ * {@link Escritor} e um {@link Leitor} servem a um único fluxo, lido na mesma
+ * ordem em que foi gravado. Ao contrário do CSV, o formato guarda os campos das
+ * subclasses de {@link Conta}, a contrapartida das movimentações e aceita
+ * textos com vírgulas ou quebras de linha.
+ */
+public final class CodecBinario {
+    public static final int MAGICO = 0x42434F44; // "BCOD"
+    /** Versão do esquema gravada pelo {@link Escritor}; o {@link Leitor} aceita até ela. */
+    public static final int VERSAO = 1;
+
+    public static final byte REGISTRO_AGENCIA = 1;
+    public static final byte REGISTRO_CONTA = 2;
+    public static final byte REGISTRO_MOVIMENTACAO = 3;
+    public static final byte REGISTRO_TRANSFERENCIA = 4;
+
+    /** Limite de textos no dicionário; depois dele, os textos novos são gravados por extenso. */
+    public static final int TAMANHO_MAXIMO_DICIONARIO = 1 << 16;
+
+    static final byte CLASSE_CONTA = 0;
+    static final byte CLASSE_CORRENTE = 1;
+    static final byte CLASSE_POUPANCA = 2;
+    static final byte CLASSE_SALARIO = 3;
+
+    // Referências a texto: 0 é nulo, 1 é um texto novo por extenso e n >= 2 é o código n - 2
+    private static final int TEXTO_NULO = 0;
+    private static final int TEXTO_NOVO = 1;
+    private static final int PRIMEIRO_CODIGO = 2;
+
+    private static final Conta.TipoConta[] TIPOS_CONTA = Conta.TipoConta.values();
+    private static final Movimentacao.TipoMovimentacao[] TIPOS_MOVIMENTACAO = Movimentacao.TipoMovimentacao.values();
+
+    private CodecBinario() {
+    }
+
+    /**
+     * Localiza as contas referenciadas por uma transferência.
+     */
+    @FunctionalInterface
+    public interface LocalizadorContas {
+        /**
+         * @return A conta, ou null se não existir.
+         */
+        Conta buscar(int agencia, int numeroConta);
+    }
+
+    /**
+     * Grava registros em buffers. Se um registro não couber no buffer, a
+     * posição do buffer e o estado do escritor voltam ao que eram antes dele
+     * e {@link BufferOverflowException} é lançada: basta esvaziar o buffer e
+     * gravar o registro de novo.
+     */
+    public static final class Escritor {
+        private final Map<String, Integer> dicionario = new HashMap<>();
+        /** Textos acrescentados ao dicionário pelo registro em andamento. */
+        private final List<String> novos = new ArrayList<>();
+        private long ultimoInstante;
+
+        /**
+         * Grava o cabeçalho do fluxo.
+         *
+         * @param destino Buffer de destino.
+         */
+        public void cabecalho(ByteBuffer destino) {
+            destino.putInt(MAGICO).put((byte) VERSAO);
+        }
+
+        public void agencia(ByteBuffer destino, Agencia agencia) {
+            int inicio = iniciar(destino, REGISTRO_AGENCIA);
+            try {
+                varint(destino, agencia.getCodigo());
+                texto(destino, agencia.getNome());
+            } catch (BufferOverflowException e) {
+                throw desfazer(destino, inicio, e);
+            }
+        }
+
+        /**
+         * Grava a conta com os campos da sua subclasse. O cliente é gravado
+         * apenas pelo CPF, e o histórico não faz parte do registro: as
+         * movimentações são registros próprios.
+         *
+         * @param destino Buffer de destino.
+         * @param conta Conta a gravar.
+         */
+        public void conta(ByteBuffer destino, Conta conta) {
+            int inicio = iniciar(destino, REGISTRO_CONTA);
+            try {
+                byte classe = classeDe(conta);
+                YearMonth mesFechado = conta.getUltimoMesFechado();
+                destino.put(classe).put((byte) conta.getTipo().ordinal());
+                varint(destino, conta.getAgencia());
+                varint(destino, conta.getNumeroConta());
+                varint(destino, conta.getSenha());
+                varlongZigzag(destino, conta.getSaldoCentavos());
+                varlong(destino, Cliente.chaveCpf(conta.getCliente().getCpf()));
+                texto(destino, conta.getNome());
+                varint(destino, mesFechado == null ? 0 : mesFechado.getYear() * 12 + mesFechado.getMonthValue());
+                switch (classe) {
+                    case CLASSE_CORRENTE -> varlongZigzag(destino,
+                            Dinheiro.paraCentavos(((ContaCorrente) conta).getTaxaManutencao()));
+                    case CLASSE_POUPANCA -> destino.putDouble(((ContaPoupanca) conta).getTaxaRendimento());
+                    case CLASSE_SALARIO -> {
+                        ContaSalario salario = (ContaSalario) conta;
+                        varint(destino, salario.getLimiteSaquesMensais());
+                        varint(destino, salario.getSaquesRealizados());
+                    }
+                    default -> {
+                    }
+                }
+            } catch (BufferOverflowException e) {
+                throw desfazer(destino, inicio, e);
+            }
+        }
+
+        /**
+         * Grava a movimentação. A descrição padrão não é gravada: ela é
+         * reconstruída a partir do tipo e da contrapartida.
+         *
+         * @param destino Buffer de destino.
+         * @param movimentacao Movimentação a gravar.
+         */
+        public void movimentacao(ByteBuffer destino, Movimentacao movimentacao) {
+            int inicio = iniciar(destino, REGISTRO_MOVIMENTACAO);
+            long instanteAnterior = ultimoInstante;
+            try {
+                destino.put((byte) movimentacao.getTipo().ordinal());
+                varint(destino, movimentacao.getNumeroConta());
+                varint(destino, movimentacao.getContraparte() == Movimentacao.SEM_CONTRAPARTE
+                        ? 0 : movimentacao.getContraparte() + 1);
+                varlong(destino, movimentacao.getCentavos());
+                instante(destino, movimentacao.getInstante());
+                texto(destino, movimentacao.descricaoPropria());
+            } catch (BufferOverflowException e) {
+                ultimoInstante = instanteAnterior;
+                throw desfazer(destino, inicio, e);
+            }
+        }
+
+        public void transferencia(ByteBuffer destino, Transferencia transferencia) {
+            int inicio = iniciar(destino, REGISTRO_TRANSFERENCIA);
+            long instanteAnterior = ultimoInstante;
+            try {
+                Conta origem = transferencia.getContaOrigem();
+                Conta contaDestino = transferencia.getContaDestino();
+                varint(destino, origem.getAgencia());
+                varint(destino, origem.getNumeroConta());
+                varint(destino, contaDestino.getAgencia());
+                varint(destino, contaDestino.getNumeroConta());
+                varlong(destino, Dinheiro.paraCentavos(transferencia.getValor()));
+                instante(destino, transferencia.getInstante());
+                texto(destino, transferencia.getDescricao());
+            } catch (BufferOverflowException e) {
+                ultimoInstante = instanteAnterior;
+                throw desfazer(destino, inicio, e);
+            }
+        }
+
+        private int iniciar(ByteBuffer destino, byte tipoRegistro) {
+            novos.clear();
+            int inicio = destino.position();
+            destino.put(tipoRegistro);
+            return inicio;
+        }
+
+        private BufferOverflowException desfazer(ByteBuffer destino, int inicio, BufferOverflowException e) {
+            destino.position(inicio);
+            for (String texto : novos) {
+                dicionario.remove(texto);
+            }
+            novos.clear();
+            return e;
+        }
+
+        private void instante(ByteBuffer destino, long instante) {
+            varlongZigzag(destino, instante - ultimoInstante);
+            ultimoInstante = instante;
+        }
+
+        private void texto(ByteBuffer destino, String texto) {
+            if (texto == null) {
+                varint(destino, TEXTO_NULO);
+                return;
+            }
+            Integer codigo = dicionario.get(texto);
+            if (codigo != null) {
+                varint(destino, PRIMEIRO_CODIGO + codigo);
+                return;
+            }
+            varint(destino, TEXTO_NOVO);
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            varint(destino, bytes.length);
+            destino.put(bytes);
+            if (dicionario.size() < TAMANHO_MAXIMO_DICIONARIO) {
+                dicionario.put(texto, dicionario.size());
+                novos.add(texto);
+            }
+        }
+    }
+
+    /**
+     * Lê os registros de um fluxo gravado por um {@link Escritor}, na mesma
+     * ordem. Dados inválidos causam {@link IllegalArgumentException}; um
+     * registro incompleto, {@link BufferUnderflowException}.
+     */
+    public static final class Leitor {
+        private final List<String> dicionario = new ArrayList<>();
+        private byte[] bytesTexto = new byte[256];
+        private long ultimoInstante;
+        private int versao;
+
+        /**
+         * Lê e valida o cabeçalho do fluxo.
+         *
+         * @param origem Buffer de origem.
+         * @return Versão do esquema do fluxo.
+         */
+        public int cabecalho(ByteBuffer origem) {
+            if (origem.getInt() != MAGICO) {
+                throw new IllegalArgumentException("O fluxo não está no formato binário do banco.");
+            }
+            int lida = origem.get();
+            if (lida < 1 || lida > VERSAO) {
+                throw new IllegalArgumentException("Versão do formato binário não suportada: " + lida);
+            }
+            this.versao = lida;
+            return lida;
+        }
+
+        /**
+         * Tipo do próximo registro ({@link #REGISTRO_CONTA}, por exemplo).
+         * Deve ser seguido pela leitura correspondente.
+         *
+         * @param origem Buffer de origem.
+         * @return Tipo do registro.
+         */
+        public byte proximoRegistro(ByteBuffer origem) {
+            if (versao == 0) {
+                throw new IllegalStateException("O cabeçalho do fluxo ainda não foi lido.");
+            }
+            return origem.get();
+        }
+
+        public Agencia agencia(ByteBuffer origem) {
+            int codigo = varint(origem);
+            return new Agencia(codigo, texto(origem));
+        }
+
+        /**
+         * Lê uma conta.
+         *
+         * @param origem Buffer de origem.
+         * @param buscarCliente Cliente da conta a partir do CPF.
+         * @return Conta reconstruída, ainda não cadastrada em um controller.
+         */
+        public Conta conta(ByteBuffer origem, Function<String, Cliente> buscarCliente) {
+            byte classe = origem.get();
+            Conta.TipoConta tipo = TIPOS_CONTA[indice(origem.get(), TIPOS_CONTA.length)];
+            int agencia = varint(origem);
+            int numeroConta = varint(origem);
+            int senha = varint(origem);
+            double saldo = Dinheiro.paraReais(varlongZigzag(origem));
+            String cpf = cpf(varlong(origem));
+            String nome = texto(origem);
+            int mesFechado = varint(origem);
+
+            Cliente cliente = buscarCliente.apply(cpf);
+            if (cliente == null) {
+                throw new IllegalArgumentException("Cliente não encontrado: " + cpf);
+            }
+            double parametro = 0;
+            int saquesRealizados = 0;
+            switch (classe) {
+                case CLASSE_CORRENTE -> parametro = Dinheiro.paraReais(varlongZigzag(origem));
+                case CLASSE_POUPANCA -> parametro = origem.getDouble();
+                case CLASSE_SALARIO -> {
+                    parametro = varint(origem);
+                    saquesRealizados = varint(origem);
+                }
+                default -> {
+                }
+            }
+            Conta conta = criarConta(classe, nome, cliente, agencia, numeroConta, tipo, senha, saldo,
+                    parametro, saquesRealizados);
+            if (mesFechado > 0) {
+                conta.marcarMesFechado(YearMonth.of((mesFechado - 1) / 12, (mesFechado - 1) % 12 + 1));
+            }
+            return conta;
+        }
+
+        public Movimentacao movimentacao(ByteBuffer origem) {
+            Movimentacao.TipoMovimentacao tipo = TIPOS_MOVIMENTACAO[indice(origem.get(), TIPOS_MOVIMENTACAO.length)];
+            int numeroConta = varint(origem);
+            int contraparte = varint(origem);
+            long centavos = varlong(origem);
+            long instante = instante(origem);
+            String descricao = texto(origem);
+            return Movimentacao.restaurar(tipo, numeroConta, centavos, instante,
+                    contraparte == 0 ? Movimentacao.SEM_CONTRAPARTE : contraparte - 1, descricao);
+        }
+
+        /**
+         * Lê uma transferência já efetuada, sem movimentar as contas de novo.
+         *
+         * @param origem Buffer de origem.
+         * @param contas Localizador das contas de origem e destino.
+         * @return Transferência reconstruída.
+         */
+        public Transferencia transferencia(ByteBuffer origem, LocalizadorContas contas) {
+            Conta contaOrigem = conta(contas, varint(origem), varint(origem));
+            Conta contaDestino = conta(contas, varint(origem), varint(origem));
+            long centavos = varlong(origem);
+            long instante = instante(origem);
+            return Transferencia.restaurar(contaOrigem, contaDestino, centavos, instante, texto(origem));
+        }
+
+        private static Conta conta(LocalizadorContas contas, int agencia, int numeroConta) {
+            Conta conta = contas.buscar(agencia, numeroConta);
+            if (conta == null) {
+                throw new IllegalArgumentException("Conta não encontrada: " + agencia + "/" + numeroConta);
+            }
+            return conta;
+        }
+
+        private long instante(ByteBuffer origem) {
+            ultimoInstante += varlongZigzag(origem);
+            return ultimoInstante;
+        }
+
+        private String texto(ByteBuffer origem) {
+            int referencia = varint(origem);
+            if (referencia == TEXTO_NULO) {
+                return null;
+            }
+            if (referencia >= PRIMEIRO_CODIGO) {
+                int codigo = referencia - PRIMEIRO_CODIGO;
+                if (codigo >= dicionario.size()) {
+                    throw new IllegalArgumentException("Código de texto inexistente no dicionário: " + codigo);
+                }
+                return dicionario.get(codigo);
+            }
+            int tamanho = varint(origem);
+            if (tamanho > origem.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            String texto;
+            if (origem.hasArray()) {
+                texto = new String(origem.array(), origem.arrayOffset() + origem.position(), tamanho,
+                        StandardCharsets.UTF_8);
+                origem.position(origem.position() + tamanho);
+            } else {
+                if (bytesTexto.length < tamanho) {
+                    bytesTexto = new byte[Math.max(tamanho, bytesTexto.length * 2)];
+                }
+                origem.get(bytesTexto, 0, tamanho);
+                texto = new String(bytesTexto, 0, tamanho, StandardCharsets.UTF_8);
+            }
+            if (dicionario.size() < TAMANHO_MAXIMO_DICIONARIO) {
+                dicionario.add(texto);
+            }
+            return texto;
+        }
+
+        private static int indice(byte valor, int quantidade) {
+            if (valor < 0 || valor >= quantidade) {
+                throw new IllegalArgumentException("Valor de enumeração inválido: " + valor);
+            }
+            return valor;
+        }
+
+        private static String cpf(long chave) {
+            char[] digitos = new char[11];
+            for (int i = digitos.length - 1; i >= 0; i--) {
+                digitos[i] = (char) ('0' + chave % 10);
+                chave /= 10;
+            }
+            return new String(digitos);
+        }
+    }
+
+    /**
+     * Classe concreta da conta, para reconstruí-la com {@link #criarConta}.
+     */
+    static byte classeDe(Conta conta) {
+        if (conta instanceof ContaCorrente) {
+            return CLASSE_CORRENTE;
+        }
+        if (conta instanceof ContaPoupanca) {
+            return CLASSE_POUPANCA;
+        }
+        if (conta instanceof ContaSalario) {
+            return CLASSE_SALARIO;
+        }
+        return CLASSE_CONTA;
+    }
+
+    /**
+     * Parâmetro da subclasse, no sentido de {@link #criarConta}.
+     *
+     * @return Taxa de manutenção, taxa de rendimento ou limite de saques; zero para {@link Conta}.
+     */
+    static double parametroDe(Conta conta) {
+        if (conta instanceof ContaCorrente corrente) {
+            return corrente.getTaxaManutencao();
+        }
+        if (conta instanceof ContaPoupanca poupanca) {
+            return poupanca.getTaxaRendimento();
+        }
+        if (conta instanceof ContaSalario salario) {
+            return salario.getLimiteSaquesMensais();
+        }
+        return 0;
+    }
+
+    /**
+     * Saques já feitos no mês, para contas salário; zero para as demais.
+     */
+    static int saquesRealizadosDe(Conta conta) {
+        return (conta instanceof ContaSalario salario) ? salario.getSaquesRealizados() : 0;
+    }
+
+    /**
+     * Cria a conta da classe indicada.
+     *
+     * @param parametro Taxa de manutenção, taxa de rendimento ou limite de
+     *                  saques, conforme a classe; ignorado para {@link Conta}.
+     * @param saquesRealizados Saques já feitos no mês, para contas salário.
+     */
+    static Conta criarConta(byte classe, String nome, Cliente cliente, int agencia, int numeroConta,
+                            Conta.TipoConta tipo, int senha, double saldo, double parametro, int saquesRealizados) {
+        return switch (classe) {
+            case CLASSE_CONTA -> new Conta(nome, cliente, agencia, numeroConta, tipo, senha, saldo);
+            case CLASSE_CORRENTE -> new ContaCorrente(nome, cliente, agencia, numeroConta, senha, saldo, parametro);
+            case CLASSE_POUPANCA -> new ContaPoupanca(nome, cliente, agencia, numeroConta, senha, saldo, parametro);
+            case CLASSE_SALARIO -> {
+                ContaSalario salario = new ContaSalario(nome, cliente, agencia, numeroConta, senha, saldo, (int) parametro);
+                salario.restaurarSaquesRealizados(saquesRealizados);
+                yield salario;
+            }
+            default -> throw new IllegalArgumentException("Classe de conta desconhecida: " + classe);
+        };
+    }
+
+    // Inteiros de tamanho variável
+
+    static void varint(ByteBuffer destino, int valor) {
+        while ((valor & ~0x7F) != 0) {
+            destino.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        destino.put((byte) valor);
+    }
+
+    static void varlong(ByteBuffer destino, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            destino.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        destino.put((byte) valor);
+    }
+
+    static void varlongZigzag(ByteBuffer destino, long valor) {
+        varlong(destino, (valor << 1) ^ (valor >> 63));
+    }
+
+    static int varint(ByteBuffer origem) {
+        int valor = 0;
+        for (int deslocamento = 0; deslocamento < 35; deslocamento += 7) {
+            byte b = origem.get();
+            valor |= (b & 0x7F) << deslocamento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Varint inválido.");
+    }
+
+    static long varlong(ByteBuffer origem) {
+        long valor = 0;
+        for (int deslocamento = 0; deslocamento < 70; deslocamento += 7) {
+            byte b = origem.get();
+            valor |= (long) (b & 0x7F) << deslocamento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Varint inválido.");
+    }
+
+    static long varlongZigzag(ByteBuffer origem) {
+        long valor = varlong(origem);
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+}
@@ -0,0 +1,749 @@
+package br.ufrn.bti.banco1000.persistence;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.Movimentacao;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Journal binário de escrita antecipada (write-ahead log) das operações bancárias.
+ * <p>
+ * Cada cadastro de cliente, criação de conta, depósito, saque, transferência e
+ * fechamento mensal gera um registro compacto, anexado ao fim do arquivo. Os
+ * registros são acumulados em um buffer e sincronizados em disco em grupo: um
+ * único {@link FileChannel#force(boolean)} torna duráveis todos os registros
+ * escritos até ali, dividindo o custo do fsync entre as operações concorrentes.
+ * Quando cada operação retorna depende do {@link ModoDurabilidade}.
+ * <p>
+ * Formato: cabeçalho (mágico e versão) seguido de registros
+ * {@code [tamanho int][tipo byte][dados][crc32 int]}. Depósitos, saques e
+ * transferências feitos com chave de idempotência levam a chave ao fim dos
+ * dados; registros sem ela continuam válidos. A criação de conta guarda a
+ * classe da conta e o seu parâmetro (taxa ou limite de saques), de modo que
+ * a recuperação recria a mesma subclasse; registros de conta do formato
+ * anterior, sem a classe, ainda são lidos e recriam uma {@link Conta}. Na recuperação, um
+ * registro incompleto ou corrompido no fim do arquivo (escrita interrompida por
+ * uma queda) é descartado.
+ * <p>
+ * As operações aplicam a mudança em memória antes de anexar o registro. Para
+ * que um snapshot corresponda exatamente a uma posição do journal, elas
+ * seguram a {@linkplain #getTravaOperacao() trava de operação} entre as duas
+ * coisas, e o snapshot é tomado em um {@linkplain #cortar corte}, sem
+ * nenhuma operação nesse intervalo. A recuperação a partir de um snapshot
+ * reaplica só os registros posteriores à posição do corte.
+ */
+public class JournalOperacoes implements Closeable {
+    private static final int MAGICO = 0x424A4E4C; // "BJNL"
+    private static final int VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 8;
+    private static final int TAMANHO_BUFFER = 1 << 20;
+    private static final int TAMANHO_MAXIMO_REGISTRO = 1 << 16;
+    private static final long INTERVALO_LOTE_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long INTERVALO_ASSINCRONO_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final byte CLIENTE = 1;
+    private static final byte CONTA = 2;
+    private static final byte DEPOSITO = 3;
+    private static final byte SAQUE = 4;
+    private static final byte TRANSFERENCIA = 5;
+    private static final byte FECHAMENTO_MENSAL = 6;
+    /** Criação de conta com a classe e o parâmetro da subclasse; substitui {@link #CONTA}. */
+    private static final byte CONTA_COM_CLASSE = 7;
+
+    private final FileChannel canal;
+    private final ModoDurabilidade modo;
+    private final ByteBuffer buffer;
+    private final ReentrantLock travaEscrita = new ReentrantLock();
+    private final ReentrantLock travaSincronizacao = new ReentrantLock();
+    private final ReentrantLock travaEspera = new ReentrantLock();
+    /** Seguida pelas operações entre a mudança em memória e o registro; excluída pelo corte de um snapshot. */
+    private final TravaCorte travaCorte = new TravaCorte();
+    private final Condition sincronizado = travaEspera.newCondition();
+    private final ThreadLocal<Codificador> codificadores = ThreadLocal.withInitial(Codificador::new);
+    private final Thread descarregador;
+
+    /** Posição no arquivo após o último registro anexado (escrita sob {@code travaEscrita}). */
+    private volatile long escrito;
+    /** Posição até a qual o arquivo já foi sincronizado em disco. */
+    private volatile long duravel;
+    private volatile IOException falha;
+    private volatile boolean fechado;
+
+    private JournalOperacoes(Path arquivo, ModoDurabilidade modo, long fimValido) throws IOException {
+        this.modo = modo;
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+
+        if (fimValido < TAMANHO_CABECALHO) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).putInt(MAGICO).putInt(VERSAO).flip();
+            canal.truncate(0);
+            while (cabecalho.hasRemaining()) {
+                canal.write(cabecalho, TAMANHO_CABECALHO - cabecalho.remaining());
+            }
+            canal.force(true);
+            fimValido = TAMANHO_CABECALHO;
+        } else {
+            canal.truncate(fimValido);
+        }
+        canal.position(fimValido);
+        this.escrito = fimValido;
+        this.duravel = fimValido;
+
+        if (modo == ModoDurabilidade.POR_OPERACAO) {
+            this.descarregador = null;
+        } else {
+            this.descarregador = new Thread(this::descarregarPeriodicamente, "journal-descarga");
+            this.descarregador.setDaemon(true);
+            this.descarregador.start();
+        }
+    }
+
+    /**
+     * Abre o journal para escrita sem reproduzir seu conteúdo. Registros
+     * incompletos no fim do arquivo são descartados.
+     *
+     * @param arquivo Caminho do arquivo de journal.
+     * @param modo Modo de durabilidade.
+     * @return Journal pronto para receber registros.
+     * @throws IOException Em caso de erro de leitura ou escrita.
+     */
+    public static JournalOperacoes abrir(Path arquivo, ModoDurabilidade modo) throws IOException {
+        return new JournalOperacoes(arquivo, modo, ler(arquivo, null, null, TAMANHO_CABECALHO));
+    }
+
+    /**
+     * Reconstrói clientes, contas, saldos e movimentações a partir do journal
+     * e o reabre para escrita, já associado aos controllers.
+     *
+     * @param arquivo Caminho do arquivo de journal.
+     * @param modo Modo de durabilidade.
+     * @param clienteController Controller que receberá os clientes recuperados.
+     * @param contaController Controller que receberá as contas recuperadas.
+     * @return Journal pronto para receber novos registros.
+     * @throws IOException Em caso de erro de leitura ou escrita.
+     */
+    public static JournalOperacoes recuperar(Path arquivo, ModoDurabilidade modo,
+                                             ClienteController clienteController,
+                                             ContaController contaController) throws IOException {
+        return recuperar(arquivo, modo, clienteController, contaController, TAMANHO_CABECALHO);
+    }
+
+    /**
+     * Como {@link #recuperar(Path, ModoDurabilidade, ClienteController, ContaController)},
+     * mas com os controllers já no estado de um {@linkplain #cortar corte},
+     * como os restaurados de um snapshot: só os registros a partir da posição
+     * do corte são reaplicados. Dos anteriores, só as chaves de idempotência
+     * voltam a ser lembradas.
+     *
+     * @param posicaoCorte Posição devolvida por {@link #cortar} quando o estado foi capturado.
+     * @throws IOException Em caso de erro de leitura ou escrita, ou se o
+     *                     journal terminar antes da posição do corte.
+     */
+    public static JournalOperacoes recuperar(Path arquivo, ModoDurabilidade modo,
+                                             ClienteController clienteController,
+                                             ContaController contaController, long posicaoCorte) throws IOException {
+        long fimValido = ler(arquivo, clienteController, contaController, posicaoCorte);
+        if (fimValido < posicaoCorte && posicaoCorte > TAMANHO_CABECALHO) {
+            throw new IOException("O journal " + arquivo + " termina na posição " + fimValido
+                    + ", antes do corte do snapshot (" + posicaoCorte + ").");
+        }
+        JournalOperacoes journal = new JournalOperacoes(arquivo, modo, fimValido);
+        clienteController.setJournal(journal);
+        contaController.setJournal(journal);
+        return journal;
+    }
+
+    /**
+     * Trava que as operações seguram entre aplicar uma mudança em memória e
+     * anexar o registro dela, sem incluir a espera pela durabilidade: um
+     * {@linkplain #cortar corte} nunca separa as duas coisas. Várias
+     * operações a seguram ao mesmo tempo, sem disputar um contador comum
+     * (ver {@link TravaCorte}).
+     *
+     * @return Trava compartilhada, não reentrante.
+     */
+    public Lock getTravaOperacao() {
+        return travaCorte;
+    }
+
+    /**
+     * Executa a ação sem nenhuma operação entre a mudança em memória e o
+     * registro, e devolve a posição do fim do journal nesse instante: as
+     * operações registradas antes dela estão no estado visto pela ação, e as
+     * registradas depois, não. Usado para tomar um snapshot; a ação deve ser
+     * curta, pois as operações esperam por ela, e não pode executar operações.
+     *
+     * @param acao Captura do estado.
+     * @return Posição do corte, para {@link #recuperar(Path, ModoDurabilidade, ClienteController, ContaController, long)}.
+     */
+    public long cortar(Runnable acao) {
+        travaCorte.iniciarCorte();
+        try {
+            acao.run();
+            return escrito;
+        } finally {
+            travaCorte.encerrarCorte();
+        }
+    }
+
+    public ModoDurabilidade getModo() {
+        return modo;
+    }
+
+    // Registro das operações
+
+    public void registrarCliente(Cliente cliente) {
+        aguardarDurabilidade(anexarCliente(cliente));
+    }
+
+    /**
+     * Anexa o registro de cadastro de um cliente, sem esperar a durabilidade.
+     *
+     * @param cliente Cliente recém-cadastrado.
+     * @return Posição a ser passada para {@link #aguardarDurabilidade(long)}.
+     */
+    public long anexarCliente(Cliente cliente) {
+        Codificador c = codificadores.get().iniciar(CLIENTE);
+        c.cliente(cliente);
+        return anexar(c.finalizar());
+    }
+
+    /**
+     * Anexa o registro de criação de uma conta, sem esperar a durabilidade.
+     * Permite anexar o registro antes de a conta ficar visível para outras
+     * operações, garantindo que ele preceda os movimentos da conta no arquivo.
+     *
+     * @param conta Conta recém-criada.
+     * @return Posição a ser passada para {@link #aguardarDurabilidade(long)}.
+     */
+    public long anexarConta(Conta conta) {
+        Codificador c = codificadores.get().iniciar(CONTA_COM_CLASSE);
+        c.buffer.putInt(conta.getAgencia()).putInt(conta.getNumeroConta())
+                .put((byte) conta.getTipo().ordinal())
+                .put(CodecBinario.classeDe(conta))
+                .putInt(conta.getSenha())
+                .putLong(conta.getSaldoCentavos())
+                .putDouble(CodecBinario.parametroDe(conta))
+                .putInt(CodecBinario.saquesRealizadosDe(conta));
+        c.texto(conta.getNome());
+        c.cliente(conta.getCliente());
+        return anexar(c.finalizar());
+    }
+
+    public void registrarDeposito(Conta conta, long centavos, long instante) {
+        registrarDeposito(conta, centavos, instante, null);
+    }
+
+    /**
+     * Registra um depósito com a chave de idempotência da requisição, que
+     * volta a ser lembrada pelo controller na recuperação.
+     *
+     * @param chaveIdempotencia Chave da requisição, ou null.
+     */
+    public void registrarDeposito(Conta conta, long centavos, long instante, String chaveIdempotencia) {
+        aguardarDurabilidade(anexarDeposito(conta, centavos, instante, chaveIdempotencia));
+    }
+
+    /**
+     * Anexa o registro de um depósito sem esperar a durabilidade.
+     *
+     * @param chaveIdempotencia Chave da requisição, ou null.
+     * @return Posição a ser passada para {@link #aguardarDurabilidade(long)}.
+     */
+    public long anexarDeposito(Conta conta, long centavos, long instante, String chaveIdempotencia) {
+        return anexarMovimento(DEPOSITO, conta, centavos, instante, chaveIdempotencia);
+    }
+
+    public void registrarSaque(Conta conta, long centavos, long instante) {
+        registrarSaque(conta, centavos, instante, null);
+    }
+
+    /**
+     * Registra um saque com a chave de idempotência da requisição.
+     *
+     * @param chaveIdempotencia Chave da requisição, ou null.
+     */
+    public void registrarSaque(Conta conta, long centavos, long instante, String chaveIdempotencia) {
+        aguardarDurabilidade(anexarSaque(conta, centavos, instante, chaveIdempotencia));
+    }
+
+    /**
+     * Anexa o registro de um saque sem esperar a durabilidade.
+     *
+     * @param chaveIdempotencia Chave da requisição, ou null.
+     * @return Posição a ser passada para {@link #aguardarDurabilidade(long)}.
+     */
+    public long anexarSaque(Conta conta, long centavos, long instante, String chaveIdempotencia) {
+        return anexarMovimento(SAQUE, conta, centavos, instante, chaveIdempotencia);
+    }
+
+    public void registrarTransferencia(Conta origem, Conta destino, long centavos, long instante) {
+        registrarTransferencia(origem, destino, centavos, instante, null);
+    }
+
+    /**
+     * Registra uma transferência com a chave de idempotência da requisição.
+     *
+     * @param chaveIdempotencia Chave da requisição, ou null.
+     */
+    public void registrarTransferencia(Conta origem, Conta destino, long centavos, long instante,
+                                       String chaveIdempotencia) {
+        aguardarDurabilidade(anexarTransferencia(origem, destino, centavos, instante, chaveIdempotencia));
+    }
+
+    /**
+     * Anexa o registro de uma transferência sem esperar a durabilidade, para
+     * que um lote de transferências espere uma única vez, pela posição do
+     * último registro.
+     *
+     * @return Posição a ser passada para {@link #aguardarDurabilidade(long)}.
+     */
+    public long anexarTransferencia(Conta origem, Conta destino, long centavos, long instante) {
+        return anexarTransferencia(origem, destino, centavos, instante, null);
+    }
+
+    /**
+     * Anexa o registro de uma transferência com a chave de idempotência da
+     * requisição, sem esperar a durabilidade.
+     *
+     * @param chaveIdempotencia Chave da requisição, ou null.
+     * @return Posição a ser passada para {@link #aguardarDurabilidade(long)}.
+     */
+    public long anexarTransferencia(Conta origem, Conta destino, long centavos, long instante,
+                                    String chaveIdempotencia) {
+        Codificador c = codificarTransferencia(origem, destino, centavos, instante);
+        if (chaveIdempotencia != null) {
+            c.texto(chaveIdempotencia);
+        }
+        return anexar(c.finalizar());
+    }
+
+    private Codificador codificarTransferencia(Conta origem, Conta destino, long centavos, long instante) {
+        Codificador c = codificadores.get().iniciar(TRANSFERENCIA);
+        c.buffer.putInt(origem.getAgencia()).putInt(origem.getNumeroConta())
+                .putInt(destino.getAgencia()).putInt(destino.getNumeroConta())
+                .putLong(centavos).putLong(instante);
+        return c;
+    }
+
+    /**
+     * Anexa o registro do fechamento mensal de uma conta, sem esperar a
+     * durabilidade. Na recuperação, o registro reaplica a variação de saldo e
+     * marca o mês como fechado, de modo que um fechamento interrompido não
+     * volte a ser aplicado à conta.
+     *
+     * @param conta Conta fechada.
+     * @param mes Mês fechado.
+     * @param centavos Variação do saldo em centavos, ou zero se o saldo não mudou.
+     * @param instante Data do fechamento.
+     * @return Posição a ser passada para {@link #aguardarDurabilidade(long)}.
+     */
+    public long anexarFechamentoMensal(Conta conta, YearMonth mes, long centavos, long instante) {
+        Codificador c = codificadores.get().iniciar(FECHAMENTO_MENSAL);
+        c.buffer.putInt(conta.getAgencia()).putInt(conta.getNumeroConta())
+                .putInt(mes.getYear()).put((byte) mes.getMonthValue())
+                .putLong(centavos).putLong(instante);
+        return anexar(c.finalizar());
+    }
+
+    private long anexarMovimento(byte tipo, Conta conta, long centavos, long instante, String chaveIdempotencia) {
+        Codificador c = codificadores.get().iniciar(tipo);
+        c.buffer.putInt(conta.getAgencia()).putInt(conta.getNumeroConta())
+                .putLong(centavos).putLong(instante);
+        if (chaveIdempotencia != null) {
+            c.texto(chaveIdempotencia);
+        }
+        return anexar(c.finalizar());
+    }
+
+    // Escrita e sincronização em grupo
+
+    private long anexar(ByteBuffer registro) {
+        travaEscrita.lock();
+        try {
+            verificarEstado();
+            int tamanho = registro.remaining();
+            if (buffer.remaining() < tamanho) {
+                escreverBuffer();
+            }
+            buffer.put(registro);
+            escrito += tamanho;
+            return escrito;
+        } catch (IOException e) {
+            falha = e;
+            throw new UncheckedIOException("Erro ao gravar no journal.", e);
+        } finally {
+            travaEscrita.unlock();
+        }
+    }
+
+    /**
+     * Espera, conforme o modo de durabilidade, até que o registro terminado na
+     * posição informada esteja em disco.
+     *
+     * @param posicao Posição retornada ao anexar o registro.
+     */
+    public void aguardarDurabilidade(long posicao) {
+        switch (modo) {
+            case POR_OPERACAO -> sincronizarAte(posicao);
+            case EM_LOTE -> aguardarLote(posicao);
+            case ASSINCRONO -> {
+                // Não espera: a thread de descarga sincroniza periodicamente
+            }
+        }
+    }
+
+    /**
+     * Sincroniza o arquivo até pelo menos a posição informada, qualquer que
+     * seja o modo de durabilidade; usado também antes de concluir um snapshot
+     * tomado em um corte. Quem chega enquanto outra thread sincroniza espera
+     * e, em geral, encontra seu registro já coberto por aquele mesmo {@code force}.
+     *
+     * @param posicao Posição no arquivo.
+     */
+    public void sincronizarAte(long posicao) {
+        if (duravel >= posicao) {
+            return;
+        }
+        travaSincronizacao.lock();
+        try {
+            if (duravel >= posicao) {
+                return;
+            }
+            long alvo;
+            travaEscrita.lock();
+            try {
+                verificarEstado();
+                escreverBuffer();
+                alvo = escrito;
+            } finally {
+                travaEscrita.unlock();
+            }
+            // O force acontece fora da trava de escrita: novas operações continuam sendo anexadas
+            canal.force(false);
+            duravel = alvo;
+        } catch (IOException e) {
+            falha = e;
+            throw new UncheckedIOException("Erro ao sincronizar o journal.", e);
+        } finally {
+            travaSincronizacao.unlock();
+        }
+        sinalizarSincronizados();
+    }
+
+    private void aguardarLote(long posicao) {
+        if (duravel >= posicao) {
+            return;
+        }
+        travaEspera.lock();
+        try {
+            while (duravel < posicao) {
+                verificarEstado();
+                sincronizado.await(INTERVALO_LOTE_NANOS, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando a sincronização do journal.", e);
+        } finally {
+            travaEspera.unlock();
+        }
+    }
+
+    private void sinalizarSincronizados() {
+        if (modo != ModoDurabilidade.EM_LOTE) {
+            return;
+        }
+        travaEspera.lock();
+        try {
+            sincronizado.signalAll();
+        } finally {
+            travaEspera.unlock();
+        }
+    }
+
+    private void descarregarPeriodicamente() {
+        long intervalo = (modo == ModoDurabilidade.EM_LOTE) ? INTERVALO_LOTE_NANOS : INTERVALO_ASSINCRONO_NANOS;
+        while (!fechado) {
+            LockSupport.parkNanos(this, intervalo);
+            try {
+                long alvo = escrito;
+                if (alvo > duravel) {
+                    sincronizarAte(alvo);
+                }
+            } catch (RuntimeException e) {
+                // A falha fica registrada e é relançada para as operações seguintes
+                sinalizarSincronizados();
+                return;
+            }
+        }
+    }
+
+    /** Deve ser chamado com {@code travaEscrita}. */
+    private void escreverBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void verificarEstado() {
+        if (falha != null) {
+            throw new UncheckedIOException("O journal está indisponível após uma falha de E/S.", falha);
+        }
+        if (fechado) {
+            throw new IllegalStateException("O journal está fechado.");
+        }
+    }
+
+    /**
+     * Sincroniza os registros pendentes e fecha o arquivo.
+     *
+     * @throws IOException Em caso de erro ao sincronizar ou fechar.
+     */
+    @Override
+    public void close() throws IOException {
+        if (falha == null && !fechado) {
+            sincronizarAte(escrito);
+        }
+        fechado = true;
+        if (descarregador != null) {
+            LockSupport.unpark(descarregador);
+            try {
+                descarregador.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sinalizarSincronizados();
+        canal.close();
+    }
+
+    // Leitura e reprodução
+
+    /**
+     * Lê o journal, reaplicando nos controllers, quando informados, os
+     * registros a partir da posição do corte; dos anteriores, só as chaves de
+     * idempotência.
+     *
+     * @return Posição do fim do último registro válido.
+     */
+    private static long ler(Path arquivo, ClienteController clientes, ContaController contas,
+                            long posicaoCorte) throws IOException {
+        if (!Files.exists(arquivo) || Files.size(arquivo) < TAMANHO_CABECALHO) {
+            return 0;
+        }
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo), 1 << 16))) {
+            if (entrada.readInt() != MAGICO || entrada.readInt() != VERSAO) {
+                throw new IOException("Arquivo de journal inválido: " + arquivo);
+            }
+            long fimValido = TAMANHO_CABECALHO;
+            byte[] dados = new byte[256];
+            CRC32 crc = new CRC32();
+
+            while (true) {
+                int tamanho;
+                try {
+                    tamanho = entrada.readInt();
+                    if (tamanho < 1 || tamanho > TAMANHO_MAXIMO_REGISTRO) {
+                        break;
+                    }
+                    if (dados.length < tamanho) {
+                        dados = new byte[Math.max(tamanho, dados.length * 2)];
+                    }
+                    entrada.readFully(dados, 0, tamanho);
+                    int verificador = entrada.readInt();
+                    crc.reset();
+                    crc.update(dados, 0, tamanho);
+                    if ((int) crc.getValue() != verificador) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+
+                if (contas != null) {
+                    reaplicar(ByteBuffer.wrap(dados, 0, tamanho), clientes, contas, fimValido >= posicaoCorte);
+                }
+                fimValido += 4 + tamanho + 4;
+            }
+            return fimValido;
+        }
+    }
+
+    private static void reaplicar(ByteBuffer registro, ClienteController clientes, ContaController contas,
+                                  boolean aplicar) {
+        byte tipo = registro.get();
+        if (!aplicar) {
+            restaurarChave(tipo, registro, contas);
+            return;
+        }
+        switch (tipo) {
+            case CLIENTE -> lerCliente(registro, clientes);
+            case CONTA, CONTA_COM_CLASSE -> {
+                int agencia = registro.getInt();
+                int numeroConta = registro.getInt();
+                Conta.TipoConta tipoConta = Conta.TipoConta.values()[registro.get()];
+                byte classe = (tipo == CONTA_COM_CLASSE) ? registro.get() : CodecBinario.CLASSE_CONTA;
+                int senha = registro.getInt();
+                double saldoInicial = Dinheiro.paraReais(registro.getLong());
+                double parametro = 0;
+                int saquesRealizados = 0;
+                if (tipo == CONTA_COM_CLASSE) {
+                    parametro = registro.getDouble();
+                    saquesRealizados = registro.getInt();
+                }
+                String nome = lerTexto(registro);
+                Cliente cliente = lerCliente(registro, clientes);
+                if (contas.buscarConta(agencia, numeroConta) == null) {
+                    contas.adicionarConta(CodecBinario.criarConta(classe, nome, cliente, agencia, numeroConta,
+                            tipoConta, senha, saldoInicial, parametro, saquesRealizados));
+                }
+            }
+            case DEPOSITO, SAQUE -> {
+                Conta conta = buscar(contas, registro.getInt(), registro.getInt());
+                long centavos = registro.getLong();
+                long instante = registro.getLong();
+                Movimentacao.TipoMovimentacao tipoMovimentacao = tipo == DEPOSITO
+                        ? Movimentacao.TipoMovimentacao.DEPOSITO
+                        : Movimentacao.TipoMovimentacao.SAQUE;
+                conta.reaplicarMovimentacao(tipoMovimentacao, centavos, Movimentacao.SEM_CONTRAPARTE, instante);
+                if (registro.hasRemaining()) {
+                    contas.restaurarChaveIdempotencia(lerTexto(registro), tipoMovimentacao, conta, null,
+                            centavos, instante);
+                }
+            }
+            case TRANSFERENCIA -> {
+                Conta origem = buscar(contas, registro.getInt(), registro.getInt());
+                Conta destino = buscar(contas, registro.getInt(), registro.getInt());
+                long centavos = registro.getLong();
+                long instante = registro.getLong();
+                origem.reaplicarMovimentacao(Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA,
+                        centavos, destino.getNumeroConta(), instante);
+                destino.reaplicarMovimentacao(Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA,
+                        centavos, origem.getNumeroConta(), instante);
+                if (registro.hasRemaining()) {
+                    contas.restaurarChaveIdempotencia(lerTexto(registro),
+                            Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA, origem, destino, centavos, instante);
+                }
+            }
+            case FECHAMENTO_MENSAL -> {
+                Conta conta = buscar(contas, registro.getInt(), registro.getInt());
+                YearMonth mes = YearMonth.of(registro.getInt(), registro.get());
+                long centavos = registro.getLong();
+                long instante = registro.getLong();
+                conta.reaplicarFechamentoMensal(mes, centavos, instante);
+            }
+            default -> throw new IllegalStateException("Tipo de registro desconhecido no journal: " + tipo);
+        }
+    }
+
+    /** Registro anterior ao corte: o efeito já está no estado restaurado, só a chave falta. */
+    private static void restaurarChave(byte tipo, ByteBuffer registro, ContaController contas) {
+        if (tipo != DEPOSITO && tipo != SAQUE && tipo != TRANSFERENCIA) {
+            return;
+        }
+        int tamanhoSemChave = (tipo == TRANSFERENCIA) ? 4 * 4 + 8 + 8 : 4 + 4 + 8 + 8;
+        if (registro.remaining() <= tamanhoSemChave) {
+            return;
+        }
+        Conta origem = buscar(contas, registro.getInt(), registro.getInt());
+        Conta destino = (tipo == TRANSFERENCIA) ? buscar(contas, registro.getInt(), registro.getInt()) : null;
+        long centavos = registro.getLong();
+        long instante = registro.getLong();
+        Movimentacao.TipoMovimentacao tipoMovimentacao = switch (tipo) {
+            case DEPOSITO -> Movimentacao.TipoMovimentacao.DEPOSITO;
+            case SAQUE -> Movimentacao.TipoMovimentacao.SAQUE;
+            default -> Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA;
+        };
+        contas.restaurarChaveIdempotencia(lerTexto(registro), tipoMovimentacao, origem, destino, centavos, instante);
+    }
+
+    private static Cliente lerCliente(ByteBuffer registro, ClienteController clientes) {
+        String nome = lerTexto(registro);
+        String cpf = lerTexto(registro);
+        String email = lerTexto(registro);
+        String telefone = lerTexto(registro);
+        Cliente cliente = clientes.buscarClientePorCpf(cpf);
+        if (cliente == null) {
+            clientes.cadastrarCliente(nome, cpf, email, telefone);
+            cliente = clientes.buscarClientePorCpf(cpf);
+        }
+        return cliente;
+    }
+
+    private static Conta buscar(ContaController contas, int agencia, int numeroConta) {
+        Conta conta = contas.buscarConta(agencia, numeroConta);
+        if (conta == null) {
+            throw new IllegalStateException("Journal inconsistente: conta " + agencia + "/" + numeroConta + " inexistente.");
+        }
+        return conta;
+    }
+
+    private static String lerTexto(ByteBuffer registro) {
+        int tamanho = Short.toUnsignedInt(registro.getShort());
+        String texto = new String(registro.array(), registro.arrayOffset() + registro.position(), tamanho, StandardCharsets.UTF_8);
+        registro.position(registro.position() + tamanho);
+        return texto;
+    }
+
+    /**
+     * Monta um registro no buffer da própria thread, sem alocação nas operações de saldo.
+     */
+    private static final class Codificador {
+        private final ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_MAXIMO_REGISTRO + 8);
+        private final CRC32 crc = new CRC32();
+
+        Codificador iniciar(byte tipo) {
+            buffer.clear();
+            buffer.putInt(0).put(tipo);
+            return this;
+        }
+
+        void texto(String texto) {
+            byte[] bytes = (texto == null ? "" : texto).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF || bytes.length > buffer.remaining() - 6) {
+                throw new IllegalArgumentException("Texto longo demais para o journal.");
+            }
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+
+        void cliente(Cliente cliente) {
+            texto(cliente.getNome());
+            texto(cliente.getCpf());
+            texto(cliente.getEmail());
+            texto(cliente.getTelefone());
+        }
+
+        ByteBuffer finalizar() {
+            int tamanho = buffer.position() - 4;
+            buffer.putInt(0, tamanho);
+            crc.reset();
+            crc.update(buffer.array(), 4, tamanho);
+            buffer.putInt((int) crc.getValue());
+            return buffer.flip();
+        }
+    }
+}
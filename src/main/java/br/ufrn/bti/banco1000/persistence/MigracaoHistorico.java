@@ -0,0 +1,152 @@
+package br.ufrn.bti.banco1000.persistence;
+
+import br.ufrn.bti.banco1000.model.Movimentacao;
+import br.ufrn.bti.banco1000.model.Movimentacao.TipoMovimentacao;
+import br.ufrn.bti.banco1000.utils.CursorCSV;
+import br.ufrn.bti.banco1000.utils.IndiceLong;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Migração que remove as movimentações duplicadas de históricos gravados
+ * antes de as operações passarem a registrar suas movimentações em um único
+ * ponto ({@code Conta.registrarMovimentacao}).
+ * <p>
+ * Até então, cada operação deixava registros repetidos no histórico:
+ * <ul>
+ *   <li>depósito e saque pelo {@code ContaController}: a conta e o controller
+ *       registravam a mesma movimentação;</li>
+ *   <li>transferência pelo {@code ContaController}: a origem ficava com um
+ *       saque e duas transferências enviadas; o destino, com um depósito e duas
+ *       transferências recebidas;</li>
+ *   <li>{@code Transferencia}: a origem ficava com um saque e uma transferência
+ *       enviada; o destino, com um depósito e uma transferência recebida.</li>
+ * </ul>
+ * As regras abaixo desfazem esses padrões, olhando apenas entradas
+ * consecutivas da mesma conta, com o mesmo valor e até
+ * {@link #JANELA_MILLIS} de distância:
+ * <ul>
+ *   <li>um saque seguido de uma transferência enviada é a parte de débito da
+ *       transferência e é removido (o mesmo vale para depósito seguido de
+ *       transferência recebida);</li>
+ *   <li>duas entradas iguais (tipo e descrição) são a mesma operação registrada
+ *       duas vezes: a segunda é removida, e ela não é comparada com a seguinte,
+ *       de modo que duas operações legítimas iguais (quatro entradas) resultam
+ *       em duas.</li>
+ * </ul>
+ * A migração deve ser executada uma única vez, sobre dados gravados pela
+ * versão antiga: em um histórico já sem duplicatas, duas operações iguais e
+ * consecutivas seriam tomadas como uma só.
+ */
+public final class MigracaoHistorico {
+    /**
+     * Distância máxima entre as entradas de uma duplicata. No CSV as datas têm
+     * resolução de dia e são lidas como meia-noite, então lá a regra equivale a
+     * "no mesmo dia".
+     */
+    public static final long JANELA_MILLIS = 1000;
+
+    private MigracaoHistorico() {
+    }
+
+    /**
+     * Remove as duplicatas de uma lista de movimentações, de uma ou de várias
+     * contas, na ordem em que foram registradas.
+     *
+     * @param movimentacoes Movimentações na ordem de registro.
+     * @return Nova lista apenas com as movimentações mantidas, na mesma ordem.
+     */
+    public static List<Movimentacao> deduplicar(List<Movimentacao> movimentacoes) {
+        BitSet removidas = marcarDuplicadas(movimentacoes);
+        List<Movimentacao> mantidas = new ArrayList<>(movimentacoes.size() - removidas.cardinality());
+        for (int i = 0; i < movimentacoes.size(); i++) {
+            if (!removidas.get(i)) {
+                mantidas.add(movimentacoes.get(i));
+            }
+        }
+        return mantidas;
+    }
+
+    /**
+     * Migra um arquivo de movimentações no formato de {@link Movimentacao#toCsv()},
+     * gravando em {@code destino} apenas as linhas mantidas, sem alterá-las.
+     * Linhas em branco e um eventual cabeçalho são preservados.
+     *
+     * @param origem Arquivo gravado pela versão antiga.
+     * @param destino Arquivo migrado (sobrescrito se existir).
+     * @return Quantidade de movimentações removidas.
+     * @throws IOException Se houver erro de leitura ou escrita.
+     */
+    public static int migrarCsv(Path origem, Path destino) throws IOException {
+        List<String> linhas = Files.readAllLines(origem, StandardCharsets.UTF_8);
+        List<Movimentacao> movimentacoes = new ArrayList<>(linhas.size());
+        int[] linhaDaMovimentacao = new int[linhas.size()];
+        CursorCSV cursor = new CursorCSV();
+        for (int i = 0; i < linhas.size(); i++) {
+            String linha = linhas.get(i);
+            if (linha.isBlank() || (i == 0 && linha.startsWith("tipo,"))) {
+                continue;
+            }
+            linhaDaMovimentacao[movimentacoes.size()] = i;
+            movimentacoes.add(Movimentacao.fromCsv(cursor.linha(linha)));
+        }
+
+        BitSet removidas = marcarDuplicadas(movimentacoes);
+        BitSet linhasRemovidas = new BitSet(linhas.size());
+        for (int i = removidas.nextSetBit(0); i >= 0; i = removidas.nextSetBit(i + 1)) {
+            linhasRemovidas.set(linhaDaMovimentacao[i]);
+        }
+        List<String> mantidas = new ArrayList<>(linhas.size() - linhasRemovidas.cardinality());
+        for (int i = 0; i < linhas.size(); i++) {
+            if (!linhasRemovidas.get(i)) {
+                mantidas.add(linhas.get(i));
+            }
+        }
+        Files.write(destino, mantidas, StandardCharsets.UTF_8);
+        return removidas.cardinality();
+    }
+
+    private static BitSet marcarDuplicadas(List<Movimentacao> movimentacoes) {
+        BitSet removidas = new BitSet(movimentacoes.size());
+        // Por conta, o índice da última entrada mantida que ainda pode formar par
+        IndiceLong<Integer> anteriores = new IndiceLong<>();
+        for (int i = 0; i < movimentacoes.size(); i++) {
+            Movimentacao atual = movimentacoes.get(i);
+            long conta = atual.getNumeroConta();
+            Integer indiceAnterior = anteriores.get(conta);
+            Movimentacao anterior = (indiceAnterior == null) ? null : movimentacoes.get(indiceAnterior);
+
+            if (anterior != null && mesmaOperacao(anterior, atual)) {
+                if (anterior.getTipo() == atual.getTipo()) {
+                    removidas.set(i);
+                    anteriores.remove(conta);
+                    continue;
+                }
+                // Saque ou depósito que era a metade de uma transferência
+                removidas.set(indiceAnterior);
+            }
+            anteriores.put(conta, i);
+        }
+        return removidas;
+    }
+
+    private static boolean mesmaOperacao(Movimentacao anterior, Movimentacao atual) {
+        if (anterior.getCentavos() != atual.getCentavos()
+                || Math.abs(atual.getInstante() - anterior.getInstante()) > JANELA_MILLIS) {
+            return false;
+        }
+        TipoMovimentacao tipoAnterior = anterior.getTipo();
+        TipoMovimentacao tipoAtual = atual.getTipo();
+        if (tipoAnterior == tipoAtual) {
+            return anterior.getDescricao() != null && anterior.getDescricao().equals(atual.getDescricao());
+        }
+        return (tipoAnterior == TipoMovimentacao.SAQUE && tipoAtual == TipoMovimentacao.TRANSFERENCIA_ENVIADA)
+                || (tipoAnterior == TipoMovimentacao.DEPOSITO && tipoAtual == TipoMovimentacao.TRANSFERENCIA_RECEBIDA);
+    }
+}
@@ -0,0 +1,25 @@
+package br.ufrn.bti.banco1000.persistence;
+
+/**
+ * Define quando uma operação registrada no journal é considerada durável.
+ */
+public enum ModoDurabilidade {
+    /**
+     * Cada operação só retorna depois que seu registro foi sincronizado em disco.
+     * Threads concorrentes compartilham o mesmo {@code force}: quem sincroniza
+     * leva junto os registros escritos pelas demais.
+     */
+    POR_OPERACAO,
+
+    /**
+     * Cada operação espera a próxima sincronização em lote, feita periodicamente
+     * pela thread de descarga. Muitas operações pagam um único {@code force}.
+     */
+    EM_LOTE,
+
+    /**
+     * As operações não esperam o disco; a thread de descarga sincroniza
+     * periodicamente. Uma queda pode perder as últimas operações.
+     */
+    ASSINCRONO
+}
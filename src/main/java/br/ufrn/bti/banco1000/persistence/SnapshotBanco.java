@@ -0,0 +1,542 @@
+package br.ufrn.bti.banco1000.persistence;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.controller.VisaoContas;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.HistoricoMovimentacoes;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+import br.ufrn.bti.banco1000.utils.IndiceLong;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Snapshot binário do estado do banco: clientes, contas (com os campos das
+ * subclasses, como taxas e limite de saques) e o histórico de movimentações
+ * de cada conta.
+ * <p>
+ * A gravação não para as operações: a thread que pede o snapshot abre uma
+ * {@linkplain ContaController#abrirVisao() versão de leitura} das contas, e os
+ * saldos e históricos gravados são os dessa versão, em segundo plano se
+ * desejado ({@link #gravarEmSegundoPlano}). O snapshot é um retrato exato do
+ * instante do pedido mesmo com operações em curso: cada saldo corresponde às
+ * movimentações gravadas, e nenhuma transferência aparece pela metade. O
+ * limite de saques e o último mês fechado, que não são versionados, são lidos
+ * dos objetos vivos no mesmo instante. O arquivo é escrito ao lado do destino
+ * e renomeado ao final, de modo que um snapshot anterior só é substituído por
+ * outro completo.
+ * <p>
+ * Com um journal, a versão é aberta em um {@linkplain JournalOperacoes#cortar corte}
+ * dele, e a posição do corte vai no cabeçalho ({@link #posicaoJournal}): na
+ * inicialização, o snapshot é restaurado e o journal é reaplicado só a partir
+ * dessa posição.
+ * <p>
+ * A restauração ({@link #restaurar}) mapeia o arquivo em memória em janelas e
+ * recria os objetos diretamente dos bytes, sem texto e sem as verificações de
+ * duplicidade do cadastro além dos índices primários. Agências não têm
+ * cadastro próprio: são restauradas pela agência de cada conta.
+ * <p>
+ * Formato (big-endian): cabeçalho
+ * {@code [mágico][versão][instante long][posição do journal long][clientes int][contas int]},
+ * os clientes, as contas com seus históricos no formato empacotado de
+ * {@link HistoricoMovimentacoes#CAMPOS_POR_ENTRADA} e o rodapé
+ * {@code [mágico de fim][contas int]}. Textos são gravados como
+ * {@code [tamanho short][UTF-8]}. A versão 1 do formato, sem a posição do
+ * journal, ainda é lida.
+ */
+public final class SnapshotBanco {
+    /** Posição do journal de um snapshot gravado sem journal. */
+    public static final long SEM_JOURNAL = -1;
+
+    private static final int MAGICO = 0x42534E50; // "BSNP"
+    private static final int MAGICO_FIM = 0x42454E44; // "BEND"
+    private static final int VERSAO = 2;
+    private static final int VERSAO_SEM_JOURNAL = 1;
+    private static final int TAMANHO_CABECALHO = 4 + 4 + 8 + 8 + 4 + 4;
+    private static final int TAMANHO_CABECALHO_SEM_JOURNAL = TAMANHO_CABECALHO - 8;
+    private static final int TAMANHO_RODAPE = 4 + 4;
+    private static final int TAMANHO_BUFFER = 4 << 20;
+    /** Entradas de histórico copiadas por vez na gravação. */
+    private static final int ENTRADAS_POR_BLOCO = 4096;
+    private static final int BYTES_POR_ENTRADA = HistoricoMovimentacoes.CAMPOS_POR_ENTRADA * Long.BYTES;
+
+    private static final Conta.TipoConta[] TIPOS_CONTA = Conta.TipoConta.values();
+
+    private SnapshotBanco() {
+    }
+
+    /**
+     * Grava o snapshot na thread atual.
+     *
+     * @param arquivo Caminho do snapshot.
+     * @param clientes Controller de clientes.
+     * @param contas Controller de contas.
+     * @return Quantidade de contas gravadas.
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public static int gravar(Path arquivo, ClienteController clientes, ContaController contas) throws IOException {
+        return gravar(arquivo, clientes, contas, null);
+    }
+
+    /**
+     * Grava o snapshot na thread atual, em um corte do journal.
+     *
+     * @param arquivo Caminho do snapshot.
+     * @param clientes Controller de clientes.
+     * @param contas Controller de contas.
+     * @param journal Journal associado aos controllers, ou null.
+     * @return Quantidade de contas gravadas.
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public static int gravar(Path arquivo, ClienteController clientes, ContaController contas,
+                             JournalOperacoes journal) throws IOException {
+        try (Corte corte = Corte.tomar(clientes, contas, journal)) {
+            return gravar(arquivo, corte, journal);
+        }
+    }
+
+    /**
+     * Abre a versão de leitura na thread atual e grava o snapshot em uma
+     * thread de fundo, enquanto as operações continuam.
+     *
+     * @param arquivo Caminho do snapshot.
+     * @param clientes Controller de clientes.
+     * @param contas Controller de contas.
+     * @return Conclusão da gravação, com a quantidade de contas gravadas.
+     */
+    public static CompletableFuture<Integer> gravarEmSegundoPlano(Path arquivo, ClienteController clientes,
+                                                                  ContaController contas) {
+        return gravarEmSegundoPlano(arquivo, clientes, contas, null);
+    }
+
+    /**
+     * Toma o corte do journal na thread atual e grava o snapshot em uma
+     * thread de fundo, enquanto as operações continuam.
+     *
+     * @param arquivo Caminho do snapshot.
+     * @param clientes Controller de clientes.
+     * @param contas Controller de contas.
+     * @param journal Journal associado aos controllers, ou null.
+     * @return Conclusão da gravação, com a quantidade de contas gravadas.
+     */
+    public static CompletableFuture<Integer> gravarEmSegundoPlano(Path arquivo, ClienteController clientes,
+                                                                  ContaController contas, JournalOperacoes journal) {
+        Corte corte = Corte.tomar(clientes, contas, journal);
+        CompletableFuture<Integer> conclusao = new CompletableFuture<>();
+        Thread gravacao = new Thread(() -> {
+            try (corte) {
+                conclusao.complete(gravar(arquivo, corte, journal));
+            } catch (IOException | RuntimeException e) {
+                conclusao.completeExceptionally(e);
+            }
+        }, "snapshot-gravacao");
+        gravacao.setDaemon(true);
+        gravacao.start();
+        return conclusao;
+    }
+
+    private static int gravar(Path arquivo, Corte corte, JournalOperacoes journal) throws IOException {
+        List<Cliente> clientes = corte.clientes;
+        List<Conta> contas = corte.visao.getContas();
+        // Clientes de contas que não estão no cadastro também vão para o snapshot, sem a marca de cadastrado
+        IndiceLong<Cliente> porCpf = new IndiceLong<>(clientes.size());
+        for (Cliente cliente : clientes) {
+            porCpf.putIfAbsent(Cliente.chaveCpf(cliente.getCpf()), cliente);
+        }
+        List<Cliente> avulsos = new ArrayList<>();
+        for (Conta conta : contas) {
+            if (porCpf.putIfAbsent(Cliente.chaveCpf(conta.getCliente().getCpf()), conta.getCliente()) == null) {
+                avulsos.add(conta.getCliente());
+            }
+        }
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (Escritor escritor = new Escritor(temporario)) {
+            escritor.garantir(TAMANHO_CABECALHO);
+            escritor.buffer.putInt(MAGICO).putInt(VERSAO).putLong(System.currentTimeMillis())
+                    .putLong(corte.posicaoJournal)
+                    .putInt(clientes.size() + avulsos.size()).putInt(contas.size());
+            for (Cliente cliente : clientes) {
+                escritor.cliente(cliente, true);
+            }
+            for (Cliente cliente : avulsos) {
+                escritor.cliente(cliente, false);
+            }
+            long[] entradas = new long[ENTRADAS_POR_BLOCO * HistoricoMovimentacoes.CAMPOS_POR_ENTRADA];
+            int indice = 0;
+            for (Conta conta : contas) {
+                escritor.conta(conta, corte, indice++, entradas);
+            }
+            escritor.garantir(TAMANHO_RODAPE);
+            escritor.buffer.putInt(MAGICO_FIM).putInt(contas.size());
+            escritor.concluir();
+        }
+        if (journal != null) {
+            // O snapshot não pode ficar à frente do que o journal tem em disco
+            journal.sincronizarAte(corte.posicaoJournal);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return contas.size();
+    }
+
+    /**
+     * Lê a posição do corte do journal gravada no cabeçalho do snapshot.
+     *
+     * @param arquivo Caminho do snapshot.
+     * @return Posição a partir da qual o journal deve ser reaplicado, ou
+     *         {@link #SEM_JOURNAL} se o snapshot foi gravado sem journal.
+     * @throws IOException Se o arquivo não puder ser lido ou não for um snapshot.
+     */
+    public static long posicaoJournal(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            while (cabecalho.hasRemaining() && canal.read(cabecalho) > 0) {
+                // Lê o cabeçalho inteiro
+            }
+            cabecalho.flip();
+            if (cabecalho.remaining() < TAMANHO_CABECALHO_SEM_JOURNAL || cabecalho.getInt() != MAGICO) {
+                throw new IOException("Arquivo de snapshot inválido: " + arquivo);
+            }
+            int versao = cabecalho.getInt();
+            if (versao == VERSAO_SEM_JOURNAL) {
+                return SEM_JOURNAL;
+            }
+            if (versao != VERSAO || cabecalho.remaining() < TAMANHO_CABECALHO - 8) {
+                throw new IOException("Arquivo de snapshot inválido: " + arquivo);
+            }
+            cabecalho.getLong(); // instante da gravação
+            return cabecalho.getLong();
+        }
+    }
+
+    /**
+     * Restaura um snapshot em controllers vazios, pelos métodos de cadastro
+     * dos próprios controllers. Deve ser chamado antes de associar um journal
+     * a eles: os históricos restaurados não são registrados no journal, que
+     * deve ser recuperado a partir da {@linkplain #posicaoJournal posição do corte}.
+     *
+     * @param arquivo Caminho do snapshot.
+     * @param clientes Controller de clientes (vazio).
+     * @param contas Controller de contas (vazio).
+     * @return Quantidade de contas restauradas.
+     * @throws IOException Se o arquivo não puder ser lido ou estiver incompleto.
+     */
+    public static int restaurar(Path arquivo, ClienteController clientes, ContaController contas) throws IOException {
+        if (!clientes.listarClientes().isEmpty() || !contas.listarContas().isEmpty()) {
+            throw new IllegalStateException("O snapshot só pode ser restaurado em controllers vazios.");
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanhoArquivo = canal.size();
+            if (tamanhoArquivo < TAMANHO_CABECALHO_SEM_JOURNAL + TAMANHO_RODAPE) {
+                throw new IOException("Snapshot incompleto: " + arquivo);
+            }
+            ByteBuffer rodape = ByteBuffer.allocate(TAMANHO_RODAPE);
+            while (rodape.hasRemaining() && canal.read(rodape, tamanhoArquivo - TAMANHO_RODAPE + rodape.position()) > 0) {
+                // Lê o rodapé inteiro
+            }
+            rodape.flip();
+            if (rodape.remaining() < TAMANHO_RODAPE || rodape.getInt() != MAGICO_FIM) {
+                throw new IOException("Snapshot incompleto: " + arquivo);
+            }
+            int contasNoRodape = rodape.getInt();
+
+            Leitor leitor = new Leitor(canal, tamanhoArquivo - TAMANHO_RODAPE);
+            ByteBuffer cabecalho = leitor.garantir(4 + 4);
+            int magico = cabecalho.getInt();
+            int versao = cabecalho.getInt();
+            if (magico != MAGICO || (versao != VERSAO && versao != VERSAO_SEM_JOURNAL)) {
+                throw new IOException("Arquivo de snapshot inválido: " + arquivo);
+            }
+            cabecalho = leitor.garantir((versao == VERSAO ? TAMANHO_CABECALHO : TAMANHO_CABECALHO_SEM_JOURNAL) - 8);
+            cabecalho.getLong(); // instante da gravação
+            if (versao == VERSAO) {
+                cabecalho.getLong(); // posição do journal, lida por posicaoJournal
+            }
+            int quantidadeClientes = cabecalho.getInt();
+            int quantidadeContas = cabecalho.getInt();
+            if (quantidadeContas != contasNoRodape) {
+                throw new IOException("Snapshot inconsistente: " + arquivo);
+            }
+
+            IndiceLong<Cliente> porCpf = new IndiceLong<>(quantidadeClientes);
+            clientes.reservarCapacidade(quantidadeClientes);
+            contas.reservarCapacidade(quantidadeContas);
+            for (int i = 0; i < quantidadeClientes; i++) {
+                boolean cadastrado = leitor.garantir(1).get() != 0;
+                Cliente cliente = new Cliente(leitor.texto(), leitor.texto(), leitor.texto(), leitor.texto());
+                porCpf.put(Cliente.chaveCpf(cliente.getCpf()), cliente);
+                if (cadastrado) {
+                    clientes.adicionarCliente(cliente);
+                }
+            }
+
+            long[] entradas = new long[ENTRADAS_POR_BLOCO * HistoricoMovimentacoes.CAMPOS_POR_ENTRADA];
+            for (int i = 0; i < quantidadeContas; i++) {
+                entradas = lerConta(leitor, porCpf, contas, entradas);
+            }
+            return quantidadeContas;
+        }
+    }
+
+    private static long[] lerConta(Leitor leitor, IndiceLong<Cliente> porCpf, ContaController contas,
+                                   long[] entradas) throws IOException {
+        ByteBuffer dados = leitor.garantir(4 + 4 + 1 + 1 + 4 + 8 + 8 + 4 + 8 + 4);
+        int agencia = dados.getInt();
+        int numeroConta = dados.getInt();
+        Conta.TipoConta tipo = TIPOS_CONTA[dados.get()];
+        byte classe = dados.get();
+        int senha = dados.getInt();
+        double saldo = Dinheiro.paraReais(dados.getLong());
+        long cpf = dados.getLong();
+        int ultimoMesFechado = dados.getInt();
+        double parametro = dados.getDouble();
+        int saquesRealizados = dados.getInt();
+        String nome = leitor.texto();
+
+        Cliente cliente = porCpf.get(cpf);
+        if (cliente == null) {
+            throw new IOException("Snapshot inconsistente: cliente da conta " + agencia + "/" + numeroConta + " ausente.");
+        }
+        Conta conta;
+        try {
+            conta = CodecBinario.criarConta(classe, nome, cliente, agencia, numeroConta, tipo, senha, saldo,
+                    parametro, saquesRealizados);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Snapshot inconsistente: " + e.getMessage(), e);
+        }
+        if (ultimoMesFechado >= 0) {
+            conta.marcarMesFechado(YearMonth.of(ultimoMesFechado / 12, ultimoMesFechado % 12 + 1));
+        }
+
+        HistoricoMovimentacoes historico = conta.getHistorico();
+        int quantidade = leitor.garantir(4).getInt();
+        if (quantidade > 0) {
+            int posicoes = quantidade * HistoricoMovimentacoes.CAMPOS_POR_ENTRADA;
+            if (entradas.length < posicoes) {
+                entradas = new long[posicoes];
+            }
+            int lidas = 0;
+            while (lidas < posicoes) {
+                ByteBuffer bloco = leitor.garantir(Long.BYTES);
+                int trecho = Math.min(posicoes - lidas, bloco.remaining() / Long.BYTES);
+                bloco.asLongBuffer().get(entradas, lidas, trecho);
+                bloco.position(bloco.position() + trecho * Long.BYTES);
+                lidas += trecho;
+            }
+            historico.carregarEntradas(entradas, quantidade);
+        }
+        int descricoes = leitor.garantir(4).getInt();
+        for (int d = 0; d < descricoes; d++) {
+            int posicao = leitor.garantir(4).getInt();
+            historico.restaurarDescricao(posicao, leitor.texto());
+        }
+        contas.adicionarConta(conta);
+        return entradas;
+    }
+
+    /**
+     * Estado capturado no instante do snapshot: a lista de clientes, a versão
+     * das contas, os campos não versionados das contas e a posição do journal.
+     */
+    private static final class Corte implements AutoCloseable {
+        List<Cliente> clientes;
+        VisaoContas visao;
+        int[] mesesFechados;
+        int[] saquesRealizados;
+        long posicaoJournal = SEM_JOURNAL;
+
+        static Corte tomar(ClienteController clientes, ContaController contas, JournalOperacoes journal) {
+            Corte corte = new Corte();
+            if (journal == null) {
+                corte.capturar(clientes, contas);
+            } else {
+                corte.posicaoJournal = journal.cortar(() -> corte.capturar(clientes, contas));
+            }
+            return corte;
+        }
+
+        private void capturar(ClienteController clientes, ContaController contas) {
+            this.clientes = clientes.listarClientes();
+            this.visao = contas.abrirVisao();
+            List<Conta> lista = visao.getContas();
+            mesesFechados = new int[lista.size()];
+            saquesRealizados = new int[lista.size()];
+            int i = 0;
+            for (Conta conta : lista) {
+                YearMonth mes = conta.getUltimoMesFechado();
+                mesesFechados[i] = (mes == null) ? -1 : mes.getYear() * 12 + mes.getMonthValue() - 1;
+                saquesRealizados[i] = CodecBinario.saquesRealizadosDe(conta);
+                i++;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (visao != null) {
+                visao.close();
+            }
+        }
+    }
+
+    /**
+     * Escrita sequencial por um buffer direto, que só vai ao canal quando enche.
+     */
+    private static final class Escritor implements AutoCloseable {
+        private final FileChannel canal;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+
+        Escritor(Path arquivo) throws IOException {
+            this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void garantir(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                descarregar();
+            }
+        }
+
+        void texto(String texto) throws IOException {
+            byte[] bytes = (texto == null ? "" : texto).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("Texto longo demais para o snapshot.");
+            }
+            garantir(2 + bytes.length);
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+
+        void cliente(Cliente cliente, boolean cadastrado) throws IOException {
+            garantir(1);
+            buffer.put((byte) (cadastrado ? 1 : 0));
+            texto(cliente.getNome());
+            texto(cliente.getCpf());
+            texto(cliente.getEmail());
+            texto(cliente.getTelefone());
+        }
+
+        void conta(Conta conta, Corte corte, int indice, long[] entradas) throws IOException {
+            VisaoContas visao = corte.visao;
+            byte classe = CodecBinario.classeDe(conta);
+            double parametro = CodecBinario.parametroDe(conta);
+
+            garantir(4 + 4 + 1 + 1 + 4 + 8 + 8 + 4 + 8 + 4);
+            buffer.putInt(conta.getAgencia()).putInt(conta.getNumeroConta())
+                    .put((byte) conta.getTipo().ordinal()).put(classe)
+                    .putInt(conta.getSenha())
+                    .putLong(visao.getSaldoCentavos(conta))
+                    .putLong(Cliente.chaveCpf(conta.getCliente().getCpf()))
+                    .putInt(corte.mesesFechados[indice])
+                    .putDouble(parametro)
+                    .putInt(corte.saquesRealizados[indice]);
+            texto(conta.getNome());
+
+            HistoricoMovimentacoes historico = conta.getHistorico();
+            int quantidade = visao.getMovimentacoes(conta).size();
+            garantir(4);
+            buffer.putInt(quantidade);
+            int descricoes = 0;
+            for (int de = 0; de < quantidade; de += ENTRADAS_POR_BLOCO) {
+                int bloco = Math.min(ENTRADAS_POR_BLOCO, quantidade - de);
+                historico.copiarEntradas(de, entradas, bloco);
+                for (int i = 0; i < bloco; i++) {
+                    int base = i * HistoricoMovimentacoes.CAMPOS_POR_ENTRADA;
+                    garantir(BYTES_POR_ENTRADA);
+                    buffer.putLong(entradas[base]).putLong(entradas[base + 1]).putLong(entradas[base + 2]);
+                    if (historico.descricaoPropria(de + i) != null) {
+                        descricoes++;
+                    }
+                }
+            }
+            garantir(4);
+            buffer.putInt(descricoes);
+            for (int posicao = 0; descricoes > 0; posicao++) {
+                String descricao = historico.descricaoPropria(posicao);
+                if (descricao != null) {
+                    garantir(4);
+                    buffer.putInt(posicao);
+                    texto(descricao);
+                    descricoes--;
+                }
+            }
+        }
+
+        void concluir() throws IOException {
+            descarregar();
+            canal.force(true);
+        }
+
+        private void descarregar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+
+    /**
+     * Leitura sequencial do arquivo mapeado em memória em janelas, para
+     * arquivos maiores que o limite de um {@link MappedByteBuffer}.
+     */
+    private static final class Leitor {
+        private static final long TAMANHO_JANELA = 256L << 20;
+
+        private final FileChannel canal;
+        private final long fim;
+        private final byte[] bytesTexto = new byte[0xFFFF];
+        private MappedByteBuffer janela;
+        private long inicioJanela;
+
+        Leitor(FileChannel canal, long fim) throws IOException {
+            this.canal = canal;
+            this.fim = fim;
+            mapear(0);
+        }
+
+        /**
+         * Garante ao menos {@code bytes} disponíveis na janela, remapeando-a a
+         * partir da posição atual se preciso.
+         *
+         * @return Janela posicionada no próximo byte a ler.
+         */
+        ByteBuffer garantir(int bytes) throws IOException {
+            if (janela.remaining() < bytes) {
+                long posicao = inicioJanela + janela.position();
+                if (fim - posicao < bytes) {
+                    throw new IOException("Snapshot truncado na posição " + posicao + ".");
+                }
+                mapear(posicao);
+            }
+            return janela;
+        }
+
+        String texto() throws IOException {
+            int tamanho = Short.toUnsignedInt(garantir(2).getShort());
+            garantir(tamanho).get(bytesTexto, 0, tamanho);
+            return new String(bytesTexto, 0, tamanho, StandardCharsets.UTF_8);
+        }
+
+        private void mapear(long posicao) throws IOException {
+            inicioJanela = posicao;
+            janela = canal.map(FileChannel.MapMode.READ_ONLY, posicao, Math.min(TAMANHO_JANELA, fim - posicao));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package br.ufrn.bti.banco1000.persistence;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Trava de operação do {@link JournalOperacoes}: muitas operações a seguram
+ * ao mesmo tempo, e um {@linkplain #iniciarCorte() corte} espera todas
+ * saírem e impede a entrada de novas até terminar.
+ * <p>
+ * Em vez do contador único de leitores de uma {@code ReentrantReadWriteLock},
+ * em que toda entrada e saída disputa a mesma variável, as operações em
+ * andamento são contadas em listras: cada thread marca a entrada e a saída
+ * sempre na mesma listra, e listras vizinhas ficam em linhas de cache
+ * diferentes. Quem entra marca a listra e depois confere se há um corte; o
+ * corte se anuncia e depois soma as listras. Como as duas coisas são voláteis,
+ * ou a operação vê o corte e desiste, ou o corte a vê e espera a sua saída.
+ * Só o corte, raro, percorre todas as listras.
+ * <p>
+ * Não é reentrante: uma thread que já segura a trava não deve adquiri-la de
+ * novo, nem a ação de um corte executar operações, pois esperariam o próprio
+ * corte.
+ */
+final class TravaCorte implements Lock {
+    /** Posições entre duas listras, para que cada uma ocupe a sua linha de cache. */
+    private static final int ESPACAMENTO = 16;
+    private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final AtomicLongArray emAndamento;
+    private final int mascara;
+    /** Segurada durante todo o corte; as operações que o encontram esperam por ela. */
+    private final ReentrantLock cortes = new ReentrantLock();
+    private volatile boolean cortando;
+
+    TravaCorte() {
+        int listras = Integer.highestOneBit(Math.max(8, 4 * Runtime.getRuntime().availableProcessors()));
+        this.emAndamento = new AtomicLongArray(listras * ESPACAMENTO);
+        this.mascara = listras - 1;
+    }
+
+    @SuppressWarnings("deprecation") // Thread.threadId() só existe a partir do Java 19
+    private int posicao() {
+        long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return ((int) (h ^ (h >>> 32)) & mascara) * ESPACAMENTO;
+    }
+
+    @Override
+    public void lock() {
+        int posicao = posicao();
+        while (!tentarEntrar(posicao)) {
+            // Espera o corte em andamento terminar
+            cortes.lock();
+            cortes.unlock();
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        int posicao = posicao();
+        while (!tentarEntrar(posicao)) {
+            cortes.lockInterruptibly();
+            cortes.unlock();
+        }
+    }
+
+    @Override
+    public boolean tryLock() {
+        return tentarEntrar(posicao());
+    }
+
+    @Override
+    public boolean tryLock(long tempo, TimeUnit unidade) throws InterruptedException {
+        long limite = System.nanoTime() + unidade.toNanos(tempo);
+        int posicao = posicao();
+        while (!tentarEntrar(posicao)) {
+            if (!cortes.tryLock(limite - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+            cortes.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+        emAndamento.getAndDecrement(posicao());
+    }
+
+    /**
+     * Não suportado, como na trava de leitura de uma {@code ReentrantReadWriteLock}.
+     *
+     * @throws UnsupportedOperationException Sempre.
+     */
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException("A trava de operação não tem condições.");
+    }
+
+    private boolean tentarEntrar(int posicao) {
+        emAndamento.getAndIncrement(posicao);
+        if (!cortando) {
+            return true;
+        }
+        emAndamento.getAndDecrement(posicao);
+        return false;
+    }
+
+    /**
+     * Impede a entrada de novas operações e espera as em andamento saírem.
+     * Deve ser seguido de {@link #encerrarCorte()}.
+     */
+    void iniciarCorte() {
+        cortes.lock();
+        cortando = true;
+        long espera = 1;
+        while (operacoesEmAndamento() != 0) {
+            if (espera < 64) {
+                Thread.onSpinWait();
+                espera++;
+            } else {
+                LockSupport.parkNanos(Math.min(espera, ESPERA_MAXIMA_NANOS));
+                espera *= 2;
+            }
+        }
+    }
+
+    void encerrarCorte() {
+        cortando = false;
+        cortes.unlock();
+    }
+
+    /**
+     * Cada thread marca a entrada e a saída na mesma listra, então nenhuma
+     * listra fica negativa: a soma só é zero se todas estiverem vazias.
+     */
+    private long operacoesEmAndamento() {
+        long total = 0;
+        for (int i = 0; i < emAndamento.length(); i += ESPACAMENTO) {
+            total += emAndamento.get(i);
+        }
+        return total;
+    }
+}
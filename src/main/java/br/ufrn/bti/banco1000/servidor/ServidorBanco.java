@@ -0,0 +1,435 @@
+package br.ufrn.bti.banco1000.servidor;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.controller.VisaoContas;
+import br.ufrn.bti.banco1000.exception.AgenciaNotFoundException;
+import br.ufrn.bti.banco1000.exception.ClienteAlreadyExistsException;
+import br.ufrn.bti.banco1000.exception.ClienteNotFoundException;
+import br.ufrn.bti.banco1000.exception.ContaNotFoundException;
+import br.ufrn.bti.banco1000.exception.MovimentacaoNotAllowedException;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+import br.ufrn.bti.banco1000.utils.EscritorCSV;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Modo servidor, sem console: expõe as operações dos controllers por HTTP,
+ * com o servidor embutido do JDK, para colocar carga concorrente real sobre
+ * uma única JVM. Não há autenticação; por padrão o servidor ouve apenas no
+ * endereço local (ver {@code Main}).
+ * <p>
+ * Os parâmetros vão na query string ou no corpo, como formulário
+ * ({@code application/x-www-form-urlencoded}). As respostas são texto, com
+ * uma linha CSV por registro:
+ * <pre>
+ * POST /clientes          nome, cpf, email, telefone
+ * GET  /clientes          [inicio], [limite]
+ * GET  /clientes/{cpf}
+ * POST /contas            cpf, agencia, numero, tipo, senha, saldo, [nome]
+ * GET  /contas            [inicio], [limite]
+ * GET  /contas/{agencia}/{numero}
+ * POST /depositos         agencia, numero, valor
+ * POST /saques            agencia, numero, valor
+ * POST /transferencias    agenciaOrigem, numeroOrigem, agenciaDestino, numeroDestino, valor
+ * </pre>
+ * Depósitos, saques e transferências aceitam o cabeçalho
+ * {@value #CABECALHO_IDEMPOTENCIA}: uma requisição repetida com a mesma chave
+ * não é aplicada outra vez (ver {@link ContaController#transferir(Conta, Conta, double, String)})
+ * e a resposta traz {@value #CABECALHO_REPETIDA}{@code : true}.
+ * <p>
+ * Erros de validação respondem 400; cadastro ou conta inexistente, 404;
+ * operações recusadas pelas regras das contas (saldo insuficiente, limite de
+ * saques, cadastro repetido), 409.
+ * <p>
+ * Cada requisição é tratada em uma thread virtual própria quando a JVM as
+ * oferece (Java 21 ou mais recente), o que permite dezenas de milhares de
+ * conexões simultâneas; em versões anteriores, em um pool fixo de threads
+ * de plataforma.
+ */
+public class ServidorBanco implements AutoCloseable {
+    /** Conexões aguardando aceitação, acima do padrão do sistema para suportar rajadas. */
+    public static final int BACKLOG_CONEXOES = 4096;
+    /** Threads do pool quando não há threads virtuais. */
+    public static final int THREADS_PLATAFORMA_PADRAO = 256;
+    /** Registros por resposta de listagem, quando {@code limite} não é informado. */
+    public static final int LIMITE_LISTAGEM_PADRAO = 1000;
+    /** Cabeçalho com a chave de idempotência de depósitos, saques e transferências. */
+    public static final String CABECALHO_IDEMPOTENCIA = "Idempotency-Key";
+    /** Cabeçalho das respostas a requisições repetidas, que não foram reaplicadas. */
+    public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+
+    static {
+        // Sem TCP_NODELAY, cabeçalho e corpo saem em dois segmentos e o segundo
+        // espera o ACK atrasado do cliente: cerca de 40 ms por requisição em
+        // conexões persistentes. A propriedade é lida quando o servidor do JDK
+        // é carregado, então precisa ser definida antes do primeiro uso.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ClienteController clienteController;
+    private final ContaController contaController;
+    private HttpServer servidor;
+    private ExecutorService executor;
+    private boolean threadsVirtuais;
+
+    public ServidorBanco(ClienteController clienteController, ContaController contaController) {
+        if (clienteController == null || contaController == null) {
+            throw new IllegalArgumentException("Os controllers não podem ser nulos.");
+        }
+        this.clienteController = clienteController;
+        this.contaController = contaController;
+    }
+
+    /**
+     * Começa a aceitar conexões. Retorna logo; as requisições são atendidas
+     * em segundo plano até {@link #close()}.
+     *
+     * @param endereco Endereço e porta (0 escolhe uma porta livre).
+     * @throws IOException Se não for possível abrir a porta.
+     */
+    public synchronized void iniciar(InetSocketAddress endereco) throws IOException {
+        if (servidor != null) {
+            throw new IllegalStateException("O servidor já foi iniciado.");
+        }
+        HttpServer novo = HttpServer.create(endereco, BACKLOG_CONEXOES);
+        novo.createContext("/", this::atender);
+        executor = criarExecutor();
+        novo.setExecutor(executor);
+        novo.start();
+        servidor = novo;
+    }
+
+    public synchronized int getPorta() {
+        if (servidor == null) {
+            throw new IllegalStateException("O servidor não foi iniciado.");
+        }
+        return servidor.getAddress().getPort();
+    }
+
+    public synchronized boolean isThreadsVirtuais() {
+        return threadsVirtuais;
+    }
+
+    /**
+     * Para de aceitar conexões e aguarda as requisições em andamento.
+     */
+    @Override
+    public synchronized void close() {
+        if (servidor == null) {
+            return;
+        }
+        servidor.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        servidor = null;
+    }
+
+    private ExecutorService criarExecutor() {
+        // Procurado por reflexão para compilar e rodar também em Java 17
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            threadsVirtuais = true;
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            threadsVirtuais = false;
+            AtomicInteger contador = new AtomicInteger();
+            return Executors.newFixedThreadPool(THREADS_PLATAFORMA_PADRAO, tarefa -> {
+                Thread thread = new Thread(tarefa, "servidor-banco-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // Atendimento das requisições
+
+    private void atender(HttpExchange troca) throws IOException {
+        int status;
+        String resposta;
+        try {
+            Map<String, String> parametros = lerParametros(troca);
+            String[] caminho = troca.getRequestURI().getPath().split("/");
+            String metodo = troca.getRequestMethod();
+            String recurso = caminho.length > 1 ? caminho[1] : "";
+            status = 200;
+            switch (recurso) {
+                case "clientes":
+                    if (metodo.equals("POST") && caminho.length == 2) {
+                        resposta = cadastrarCliente(parametros);
+                        status = 201;
+                    } else if (metodo.equals("GET") && caminho.length == 2) {
+                        resposta = listarClientes(parametros);
+                    } else if (metodo.equals("GET") && caminho.length == 3) {
+                        resposta = linhaCliente(new StringBuilder(), buscarCliente(caminho[2])).toString();
+                    } else {
+                        throw new RecursoInexistente();
+                    }
+                    break;
+                case "contas":
+                    if (metodo.equals("POST") && caminho.length == 2) {
+                        resposta = criarConta(parametros);
+                        status = 201;
+                    } else if (metodo.equals("GET") && caminho.length == 2) {
+                        resposta = listarContas(parametros);
+                    } else if (metodo.equals("GET") && caminho.length == 4) {
+                        Conta conta = buscarConta(inteiro(caminho[2], "agencia"), inteiro(caminho[3], "numero"));
+                        resposta = linhaConta(new StringBuilder(), conta, conta.getSaldoCentavos()).toString();
+                    } else {
+                        throw new RecursoInexistente();
+                    }
+                    break;
+                case "depositos":
+                    exigirPost(metodo, caminho);
+                    resposta = depositar(troca, parametros);
+                    break;
+                case "saques":
+                    exigirPost(metodo, caminho);
+                    resposta = sacar(troca, parametros);
+                    break;
+                case "transferencias":
+                    exigirPost(metodo, caminho);
+                    resposta = transferir(troca, parametros);
+                    break;
+                default:
+                    throw new RecursoInexistente();
+            }
+        } catch (RecursoInexistente e) {
+            status = 404;
+            resposta = "Recurso inexistente.";
+        } catch (ClienteNotFoundException | ContaNotFoundException | AgenciaNotFoundException e) {
+            status = 404;
+            resposta = e.getMessage();
+        } catch (ClienteAlreadyExistsException | MovimentacaoNotAllowedException | IllegalStateException e) {
+            status = 409;
+            resposta = e.getMessage();
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            resposta = e.getMessage();
+        } catch (RuntimeException e) {
+            status = 500;
+            resposta = "Erro interno: " + e.getMessage();
+        }
+        responder(troca, status, resposta);
+    }
+
+    private String cadastrarCliente(Map<String, String> parametros) {
+        String cpf = obrigatorio(parametros, "cpf");
+        clienteController.cadastrarCliente(obrigatorio(parametros, "nome"), cpf,
+                obrigatorio(parametros, "email"), obrigatorio(parametros, "telefone"));
+        return cpf;
+    }
+
+    private String listarClientes(Map<String, String> parametros) {
+        List<Cliente> clientes = clienteController.listarClientes();
+        int inicio = Math.min(opcional(parametros, "inicio", 0), clientes.size());
+        int fim = Math.min(inicio + opcional(parametros, "limite", LIMITE_LISTAGEM_PADRAO), clientes.size());
+        StringBuilder saida = new StringBuilder();
+        for (int i = inicio; i < fim; i++) {
+            linhaCliente(saida, clientes.get(i)).append('\n');
+        }
+        return saida.toString();
+    }
+
+    private Cliente buscarCliente(String cpf) {
+        Cliente cliente = clienteController.buscarClientePorCpf(cpf);
+        if (cliente == null) {
+            throw new ClienteNotFoundException("Cliente não encontrado.");
+        }
+        return cliente;
+    }
+
+    private String criarConta(Map<String, String> parametros) {
+        Cliente cliente = buscarCliente(obrigatorio(parametros, "cpf"));
+        int agencia = inteiro(obrigatorio(parametros, "agencia"), "agencia");
+        int numero = inteiro(obrigatorio(parametros, "numero"), "numero");
+        Conta.TipoConta tipo;
+        try {
+            tipo = Conta.TipoConta.valueOf(obrigatorio(parametros, "tipo").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tipo de conta inválido.");
+        }
+        String nome = parametros.getOrDefault("nome", cliente.getNome());
+        contaController.criarConta(nome, cliente, agencia, numero, tipo,
+                inteiro(obrigatorio(parametros, "senha"), "senha"), valor(parametros, "saldo"));
+        return agencia + "," + numero;
+    }
+
+    private String listarContas(Map<String, String> parametros) {
+        // Os saldos da página são todos do mesmo instante
+        try (VisaoContas visao = contaController.abrirVisao()) {
+            List<Conta> contas = visao.getContas();
+            int inicio = Math.min(opcional(parametros, "inicio", 0), contas.size());
+            int fim = Math.min(inicio + opcional(parametros, "limite", LIMITE_LISTAGEM_PADRAO), contas.size());
+            StringBuilder saida = new StringBuilder();
+            for (int i = inicio; i < fim; i++) {
+                Conta conta = contas.get(i);
+                linhaConta(saida, conta, visao.getSaldoCentavos(conta)).append('\n');
+            }
+            return saida.toString();
+        }
+    }
+
+    private Conta buscarConta(int agencia, int numero) {
+        Conta conta = contaController.buscarConta(agencia, numero);
+        if (conta == null) {
+            throw new ContaNotFoundException("Conta não encontrada.");
+        }
+        return conta;
+    }
+
+    private String depositar(HttpExchange troca, Map<String, String> parametros) {
+        Conta conta = buscarConta(inteiro(obrigatorio(parametros, "agencia"), "agencia"),
+                inteiro(obrigatorio(parametros, "numero"), "numero"));
+        marcarRepeticao(troca, contaController.depositar(conta, valor(parametros, "valor"), chaveIdempotencia(troca)));
+        return Dinheiro.formatar(conta.getSaldoCentavos());
+    }
+
+    private String sacar(HttpExchange troca, Map<String, String> parametros) {
+        Conta conta = buscarConta(inteiro(obrigatorio(parametros, "agencia"), "agencia"),
+                inteiro(obrigatorio(parametros, "numero"), "numero"));
+        marcarRepeticao(troca, contaController.sacar(conta, valor(parametros, "valor"), chaveIdempotencia(troca)));
+        return Dinheiro.formatar(conta.getSaldoCentavos());
+    }
+
+    private String transferir(HttpExchange troca, Map<String, String> parametros) {
+        Conta origem = buscarConta(inteiro(obrigatorio(parametros, "agenciaOrigem"), "agenciaOrigem"),
+                inteiro(obrigatorio(parametros, "numeroOrigem"), "numeroOrigem"));
+        Conta destino = buscarConta(inteiro(obrigatorio(parametros, "agenciaDestino"), "agenciaDestino"),
+                inteiro(obrigatorio(parametros, "numeroDestino"), "numeroDestino"));
+        marcarRepeticao(troca, contaController.transferir(origem, destino, valor(parametros, "valor"),
+                chaveIdempotencia(troca)));
+        return Dinheiro.formatar(origem.getSaldoCentavos());
+    }
+
+    private static String chaveIdempotencia(HttpExchange troca) {
+        return troca.getRequestHeaders().getFirst(CABECALHO_IDEMPOTENCIA);
+    }
+
+    private static void marcarRepeticao(HttpExchange troca, boolean aplicada) {
+        if (!aplicada) {
+            troca.getResponseHeaders().set(CABECALHO_REPETIDA, "true");
+        }
+    }
+
+    // Formato das respostas
+
+    private static StringBuilder linhaCliente(StringBuilder saida, Cliente cliente) {
+        EscritorCSV.anexarCampo(saida, cliente.getNome()).append(',').append(cliente.getCpf()).append(',');
+        EscritorCSV.anexarCampo(saida, cliente.getEmail()).append(',');
+        return EscritorCSV.anexarCampo(saida, cliente.getTelefone());
+    }
+
+    private static StringBuilder linhaConta(StringBuilder saida, Conta conta, long saldoCentavos) {
+        saida.append(conta.getAgencia()).append(',').append(conta.getNumeroConta()).append(',');
+        EscritorCSV.anexarCampo(saida, conta.getNome()).append(',');
+        saida.append(conta.getCliente().getCpf()).append(',').append(conta.getTipo().name()).append(',');
+        return Dinheiro.anexar(saida, saldoCentavos);
+    }
+
+    // Leitura dos parâmetros
+
+    private static Map<String, String> lerParametros(HttpExchange troca) throws IOException {
+        Map<String, String> parametros = new HashMap<>();
+        decodificar(troca.getRequestURI().getRawQuery(), parametros);
+        try (InputStream corpo = troca.getRequestBody()) {
+            byte[] bytes = corpo.readAllBytes();
+            if (bytes.length > 0) {
+                decodificar(new String(bytes, StandardCharsets.UTF_8), parametros);
+            }
+        }
+        return parametros;
+    }
+
+    private static void decodificar(String formulario, Map<String, String> destino) {
+        if (formulario == null || formulario.isEmpty()) {
+            return;
+        }
+        for (String par : formulario.split("&")) {
+            int igual = par.indexOf('=');
+            String nome = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            destino.put(URLDecoder.decode(nome, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String obrigatorio(Map<String, String> parametros, String nome) {
+        String valor = parametros.get(nome);
+        if (valor == null || valor.isEmpty()) {
+            throw new IllegalArgumentException("Parâmetro obrigatório ausente: " + nome + ".");
+        }
+        return valor;
+    }
+
+    private static int opcional(Map<String, String> parametros, String nome, int padrao) {
+        String valor = parametros.get(nome);
+        int numero = (valor == null || valor.isEmpty()) ? padrao : inteiro(valor, nome);
+        if (numero < 0) {
+            throw new IllegalArgumentException("Parâmetro inválido: " + nome + ".");
+        }
+        return numero;
+    }
+
+    private static int inteiro(String valor, String nome) {
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parâmetro inválido: " + nome + ".");
+        }
+    }
+
+    private static double valor(Map<String, String> parametros, String nome) {
+        try {
+            return Double.parseDouble(obrigatorio(parametros, nome));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parâmetro inválido: " + nome + ".");
+        }
+    }
+
+    private static void exigirPost(String metodo, String[] caminho) {
+        if (!metodo.equals("POST") || caminho.length != 2) {
+            throw new RecursoInexistente();
+        }
+    }
+
+    private static void responder(HttpExchange troca, int status, String resposta) throws IOException {
+        byte[] bytes = (resposta == null ? "" : resposta).getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        troca.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(bytes);
+        }
+    }
+
+    /** Caminho ou método sem operação correspondente. */
+    private static final class RecursoInexistente extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        RecursoInexistente() {
+            super(null, null, false, false);
+        }
+    }
+}
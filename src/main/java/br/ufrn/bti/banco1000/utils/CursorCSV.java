@@ -0,0 +1,525 @@
+package br.ufrn.bti.banco1000.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lê os campos de uma linha CSV em sequência, convertendo-os diretamente do
+ * texto ({@link CharSequence}) ou dos bytes em UTF-8 da linha, sem criar uma
+ * {@code String} por campo. Apenas {@link #texto()} cria objetos; números,
+ * valores monetários, enumerações e datas são lidos sem alocação, e o mesmo
+ * cursor pode ser reutilizado para todas as linhas de um arquivo.
+ * <p>
+ * Campos entre aspas seguem a RFC 4180: podem conter vírgulas, quebras de
+ * linha e aspas, escritas duplicadas ({@code ""}). Não é seguro para uso
+ * concorrente.
+ */
+public final class CursorCSV {
+    /** Retorno de {@link #inteiroAposPrefixo} quando o campo não tem a forma pedida. */
+    public static final long AUSENTE = Long.MIN_VALUE;
+
+    private static final double[] POTENCIAS_DE_DEZ = new double[23];
+    private static final long MAXIMO_EXATO = 1L << 53;
+
+    static {
+        POTENCIAS_DE_DEZ[0] = 1;
+        for (int i = 1; i < POTENCIAS_DE_DEZ.length; i++) {
+            POTENCIAS_DE_DEZ[i] = POTENCIAS_DE_DEZ[i - 1] * 10;
+        }
+    }
+
+    private CharSequence texto;
+    private byte[] bytes;
+    private int inicioLinha;
+    private int posicao;
+    private int fim;
+    /** Campos que devem sobrar depois do próximo campo sem aspas, ou -1 (ver {@link #estenderProximoCampo}). */
+    private int camposNoFim = -1;
+
+    // Campo delimitado por último
+    private int inicioCampo;
+    private int fimCampo;
+    private boolean aspasDuplicadas;
+
+    // Última data lida, já convertida: linhas seguidas costumam ter a mesma data
+    private int ultimaData = -1;
+    private long ultimoInstante;
+
+    private final List<String> camposLidos = new ArrayList<>();
+
+    /**
+     * Posiciona o cursor no início de uma linha de texto.
+     *
+     * @param linha Linha, sem a quebra de linha.
+     * @return Este cursor.
+     */
+    public CursorCSV linha(CharSequence linha) {
+        this.texto = linha;
+        this.bytes = null;
+        iniciar(0, linha.length());
+        return this;
+    }
+
+    /**
+     * Posiciona o cursor no início de uma linha em UTF-8.
+     *
+     * @param bytes Bytes que contêm a linha.
+     * @param inicio Posição do primeiro byte da linha.
+     * @param fim Posição logo após o último byte da linha, sem a quebra de linha.
+     * @return Este cursor.
+     */
+    public CursorCSV linha(byte[] bytes, int inicio, int fim) {
+        this.bytes = bytes;
+        this.texto = null;
+        iniciar(inicio, fim);
+        return this;
+    }
+
+    private void iniciar(int inicio, int fim) {
+        this.inicioLinha = inicio;
+        this.posicao = inicio;
+        this.fim = fim;
+        this.camposNoFim = -1;
+    }
+
+    /**
+     * Indica se ainda há campos na linha. Uma linha vazia tem um campo vazio,
+     * e uma vírgula no fim da linha é seguida de um campo vazio.
+     *
+     * @return true se há um próximo campo.
+     */
+    public boolean temCampo() {
+        return posicao <= fim;
+    }
+
+    /**
+     * Faz o próximo campo, se não estiver entre aspas, ir até a vírgula que
+     * antecede os últimos {@code campos} campos da linha, incluindo as
+     * vírgulas do caminho. Serve para linhas antigas, gravadas sem aspas,
+     * em que um texto livre pode conter vírgulas.
+     *
+     * @param campos Campos que devem sobrar depois do próximo (0 para ir até o fim da linha).
+     * @return Este cursor.
+     */
+    public CursorCSV estenderProximoCampo(int campos) {
+        if (campos < 0) {
+            throw new IllegalArgumentException("A quantidade de campos não pode ser negativa.");
+        }
+        this.camposNoFim = campos;
+        return this;
+    }
+
+    /**
+     * Avança para o campo seguinte sem convertê-lo.
+     */
+    public void pular() {
+        delimitar();
+    }
+
+    public int inteiro() {
+        delimitar();
+        long valor = lerInteiro(inicioCampo, fimCampo);
+        if (valor != (int) valor) {
+            throw new NumberFormatException("Número fora do intervalo: " + trecho());
+        }
+        return (int) valor;
+    }
+
+    public long inteiroLongo() {
+        delimitar();
+        return lerInteiro(inicioCampo, fimCampo);
+    }
+
+    /**
+     * Lê um valor em reais, como {@code 1234.5} ou {@code -0.75}, em
+     * centavos. Casas decimais além da segunda são arredondadas para o
+     * centavo mais próximo.
+     *
+     * @return Valor em centavos.
+     */
+    public long centavos() {
+        delimitar();
+        int i = inicioCampo;
+        boolean negativo = false;
+        if (i < fimCampo && (caractere(i) == '-' || caractere(i) == '+')) {
+            negativo = caractere(i) == '-';
+            i++;
+        }
+        long reais = 0;
+        int digitos = 0;
+        while (i < fimCampo && digito(caractere(i))) {
+            if (++digitos > 16) {
+                return Dinheiro.paraCentavos(decimalLento());
+            }
+            reais = reais * 10 + (caractere(i++) - '0');
+        }
+        long centavos = 0;
+        if (i < fimCampo && caractere(i) == '.') {
+            i++;
+            int casas = 0;
+            while (i < fimCampo && digito(caractere(i))) {
+                int d = caractere(i++) - '0';
+                if (casas < 2) {
+                    centavos = centavos * 10 + d;
+                    digitos++;
+                } else if (casas == 2 && d >= 5) {
+                    centavos++;
+                }
+                casas++;
+            }
+            if (casas == 1) {
+                centavos *= 10;
+            }
+        }
+        if (i < fimCampo || digitos == 0) {
+            // Notação científica (como em Double.toString) ou campo inválido
+            return Dinheiro.paraCentavos(decimalLento());
+        }
+        long total = reais * 100 + centavos;
+        return negativo ? -total : total;
+    }
+
+    /**
+     * Lê um número decimal, como uma taxa. Números com até 15 dígitos e sem
+     * expoente são convertidos sem criar objetos, com o mesmo resultado de
+     * {@link Double#parseDouble}.
+     *
+     * @return Valor lido.
+     */
+    public double decimal() {
+        delimitar();
+        int i = inicioCampo;
+        boolean negativo = false;
+        if (i < fimCampo && (caractere(i) == '-' || caractere(i) == '+')) {
+            negativo = caractere(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digitos = 0;
+        int casas = -1;
+        for (; i < fimCampo; i++) {
+            char c = caractere(i);
+            if (digito(c)) {
+                mantissa = mantissa * 10 + (c - '0');
+                digitos++;
+                if (casas >= 0) {
+                    casas++;
+                }
+            } else if (c == '.' && casas < 0) {
+                casas = 0;
+            } else {
+                break;
+            }
+        }
+        if (i < fimCampo || digitos == 0 || digitos > 15 || mantissa >= MAXIMO_EXATO) {
+            return decimalLento();
+        }
+        // Dois valores exatos e uma divisão: arredondamento correto, como no parseDouble
+        double valor = (casas > 0) ? mantissa / POTENCIAS_DE_DEZ[casas] : mantissa;
+        return negativo ? -valor : valor;
+    }
+
+    /**
+     * Lê o nome de uma constante de enumeração, sem criar a {@code String} do campo.
+     *
+     * @param valores Constantes possíveis, como {@code Tipo.values()} (guardado pelo chamador).
+     * @param <E> Tipo da enumeração.
+     * @return Constante com o nome do campo.
+     */
+    public <E extends Enum<E>> E enumeracao(E[] valores) {
+        delimitar();
+        for (E valor : valores) {
+            if (igual(valor.name())) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Valor inválido no CSV: " + trecho());
+    }
+
+    /**
+     * Lê uma data no formato dos arquivos CSV ({@code yyyy-MM-dd}), como
+     * {@link Datas#lerDataCsv(String)}.
+     *
+     * @return Início do dia, em milissegundos desde a época.
+     */
+    public long data() {
+        delimitar();
+        if (fimCampo - inicioCampo != 10 || caractere(inicioCampo + 4) != '-' || caractere(inicioCampo + 7) != '-') {
+            throw new IllegalArgumentException("Data inválida no CSV.");
+        }
+        int ano = digitos(inicioCampo, 4);
+        int mes = digitos(inicioCampo + 5, 2);
+        int dia = digitos(inicioCampo + 8, 2);
+        if (ano < 0 || mes < 0 || dia < 0) {
+            throw new IllegalArgumentException("Data inválida no CSV.");
+        }
+        int chave = ano * 10_000 + mes * 100 + dia;
+        if (chave != ultimaData) {
+            try {
+                ultimoInstante = LocalDate.of(ano, mes, dia).atStartOfDay(Datas.ZONA).toInstant().toEpochMilli();
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Data inválida no CSV.");
+            }
+            ultimaData = chave;
+        }
+        return ultimoInstante;
+    }
+
+    /**
+     * Lê um campo de texto, já sem as aspas.
+     *
+     * @return Conteúdo do campo.
+     */
+    public String texto() {
+        delimitar();
+        return trecho();
+    }
+
+    /**
+     * Consome o próximo campo se ele for igual ao texto esperado; caso
+     * contrário, o cursor não avança.
+     *
+     * @param esperado Texto esperado.
+     * @return true se o campo era igual e foi consumido.
+     */
+    public boolean textoIgual(String esperado) {
+        int posicaoAnterior = posicao;
+        int camposNoFimAnterior = camposNoFim;
+        delimitar();
+        if (aspasDuplicadas ? trecho().equals(esperado) : igual(esperado)) {
+            return true;
+        }
+        posicao = posicaoAnterior;
+        camposNoFim = camposNoFimAnterior;
+        return false;
+    }
+
+    /**
+     * Consome o próximo campo se ele for o prefixo seguido de um inteiro na
+     * forma canônica (sem zeros à esquerda nem sinal de mais), como
+     * {@code "conta 42"}; caso contrário, o cursor não avança.
+     *
+     * @param prefixo Prefixo do campo.
+     * @return O inteiro, ou {@link #AUSENTE}.
+     */
+    public long inteiroAposPrefixo(String prefixo) {
+        int posicaoAnterior = posicao;
+        int camposNoFimAnterior = camposNoFim;
+        delimitar();
+        int numero = aspasDuplicadas ? -1 : prefixo(prefixo);
+        if (numero >= 0 && numero < fimCampo && canonico(numero, fimCampo)) {
+            return lerInteiro(numero, fimCampo);
+        }
+        posicao = posicaoAnterior;
+        camposNoFim = camposNoFimAnterior;
+        return AUSENTE;
+    }
+
+    /**
+     * Divide o restante da linha em campos, com o mesmo resultado de
+     * {@code linha.split(",")} para linhas sem aspas: campos vazios no fim
+     * são descartados.
+     *
+     * @return Campos restantes.
+     */
+    public String[] campos() {
+        if (posicao == inicioLinha && fim == inicioLinha) {
+            posicao = fim + 1;
+            return new String[]{""};
+        }
+        int naoVazios = 0;
+        while (temCampo()) {
+            String campo = texto();
+            camposLidos.add(campo);
+            if (!campo.isEmpty()) {
+                naoVazios = camposLidos.size();
+            }
+        }
+        String[] resultado = camposLidos.subList(0, naoVazios).toArray(new String[0]);
+        camposLidos.clear();
+        return resultado;
+    }
+
+    private void delimitar() {
+        if (posicao > fim) {
+            throw new IllegalArgumentException("Campo ausente na linha CSV.");
+        }
+        int estender = camposNoFim;
+        camposNoFim = -1;
+        if (posicao < fim && caractere(posicao) == '"') {
+            int i = posicao + 1;
+            boolean duplicadas = false;
+            while (true) {
+                if (i >= fim) {
+                    throw new IllegalArgumentException("Aspas sem fechamento na linha CSV.");
+                }
+                if (caractere(i) == '"') {
+                    if (i + 1 < fim && caractere(i + 1) == '"') {
+                        duplicadas = true;
+                        i += 2;
+                        continue;
+                    }
+                    break;
+                }
+                i++;
+            }
+            if (i + 1 < fim && caractere(i + 1) != ',') {
+                throw new IllegalArgumentException("Caractere inesperado após as aspas na linha CSV.");
+            }
+            inicioCampo = posicao + 1;
+            fimCampo = i;
+            aspasDuplicadas = duplicadas;
+            posicao = i + 2;
+            return;
+        }
+        int limite;
+        if (estender >= 0) {
+            limite = fim;
+            for (int restantes = estender; restantes > 0; restantes--) {
+                do {
+                    limite--;
+                } while (limite >= posicao && caractere(limite) != ',');
+                if (limite < posicao) {
+                    throw new IllegalArgumentException("Campo ausente na linha CSV.");
+                }
+            }
+        } else {
+            limite = posicao;
+            while (limite < fim && caractere(limite) != ',') {
+                limite++;
+            }
+        }
+        inicioCampo = posicao;
+        fimCampo = limite;
+        aspasDuplicadas = false;
+        posicao = limite + 1;
+    }
+
+    private char caractere(int i) {
+        return (bytes != null) ? (char) (bytes[i] & 0xFF) : texto.charAt(i);
+    }
+
+    private static boolean digito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /** Valor de {@code quantidade} dígitos a partir de {@code inicio}, ou -1. */
+    private int digitos(int inicio, int quantidade) {
+        int valor = 0;
+        for (int i = inicio; i < inicio + quantidade; i++) {
+            char c = caractere(i);
+            if (!digito(c)) {
+                return -1;
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return valor;
+    }
+
+    private long lerInteiro(int inicio, int fimNumero) {
+        int i = inicio;
+        boolean negativo = false;
+        if (i < fimNumero && (caractere(i) == '-' || caractere(i) == '+')) {
+            negativo = caractere(i) == '-';
+            i++;
+        }
+        if (i == fimNumero) {
+            throw new NumberFormatException("Número inválido: " + trecho());
+        }
+        long valor = 0;
+        for (; i < fimNumero; i++) {
+            char c = caractere(i);
+            if (!digito(c) || valor > (Long.MAX_VALUE - (c - '0')) / 10) {
+                throw new NumberFormatException("Número inválido: " + trecho());
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return negativo ? -valor : valor;
+    }
+
+    private boolean canonico(int inicio, int fimNumero) {
+        int i = inicio;
+        if (caractere(i) == '-') {
+            i++;
+        }
+        if (i == fimNumero || fimNumero - i > 10) {
+            return false;
+        }
+        if (caractere(i) == '0') {
+            return fimNumero - i == 1 && i == inicio;
+        }
+        for (int j = i; j < fimNumero; j++) {
+            if (!digito(caractere(j))) {
+                return false;
+            }
+        }
+        long valor = lerInteiro(inicio, fimNumero);
+        return valor == (int) valor;
+    }
+
+    private double decimalLento() {
+        return Double.parseDouble(trecho());
+    }
+
+    /** Conteúdo do campo delimitado por último, como {@code String}. */
+    private String trecho() {
+        String conteudo = (bytes != null)
+                ? new String(bytes, inicioCampo, fimCampo - inicioCampo, StandardCharsets.UTF_8)
+                : texto.subSequence(inicioCampo, fimCampo).toString();
+        return aspasDuplicadas ? conteudo.replace("\"\"", "\"") : conteudo;
+    }
+
+    /** Se o campo delimitado (sem aspas duplicadas) é igual ao texto. */
+    private boolean igual(String esperado) {
+        return prefixo(esperado) == fimCampo;
+    }
+
+    /**
+     * Posição no campo logo após o prefixo, ou -1 se o campo não começa com
+     * ele. Nos bytes, o prefixo é comparado com a sua codificação em UTF-8.
+     */
+    private int prefixo(String prefixo) {
+        int i = inicioCampo;
+        int tamanho = prefixo.length();
+        if (bytes == null) {
+            if (fimCampo - i < tamanho) {
+                return -1;
+            }
+            for (int j = 0; j < tamanho; j++) {
+                if (texto.charAt(i + j) != prefixo.charAt(j)) {
+                    return -1;
+                }
+            }
+            return i + tamanho;
+        }
+        for (int j = 0; j < tamanho; j++) {
+            int c = prefixo.charAt(j);
+            if (Character.isHighSurrogate((char) c) && j + 1 < tamanho) {
+                c = Character.toCodePoint((char) c, prefixo.charAt(++j));
+            }
+            int n = (c < 0x80) ? 1 : (c < 0x800) ? 2 : (c < 0x10000) ? 3 : 4;
+            if (fimCampo - i < n) {
+                return -1;
+            }
+            if (n == 1) {
+                if (bytes[i++] != c) {
+                    return -1;
+                }
+                continue;
+            }
+            int primeiro = (n == 2) ? 0xC0 | (c >> 6) : (n == 3) ? 0xE0 | (c >> 12) : 0xF0 | (c >> 18);
+            if ((bytes[i++] & 0xFF) != primeiro) {
+                return -1;
+            }
+            for (int deslocamento = (n - 2) * 6; deslocamento >= 0; deslocamento -= 6) {
+                if ((bytes[i++] & 0xFF) != (0x80 | ((c >> deslocamento) & 0x3F))) {
+                    return -1;
+                }
+            }
+        }
+        return i;
+    }
+}
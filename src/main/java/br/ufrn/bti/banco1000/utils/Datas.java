@@ -0,0 +1,86 @@
+package br.ufrn.bti.banco1000.utils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Formatação e leitura de datas guardadas em milissegundos desde a época.
+ * Os formatadores são imutáveis e seguros para uso concorrente, então são
+ * criados uma única vez e compartilhados, em vez de um {@code SimpleDateFormat}
+ * por chamada. As datas são exibidas no fuso horário padrão do sistema.
+ */
+public final class Datas {
+    /** Fuso horário usado para exibir datas e delimitar dias e meses. */
+    public static final ZoneId ZONA = ZoneId.systemDefault();
+
+    /** Data e hora para exibição, como {@code 31/12/2024 23:59:59}. */
+    public static final DateTimeFormatter DATA_HORA =
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss").withZone(ZONA);
+
+    /** Data usada nos arquivos CSV, como {@code 2024-12-31}. */
+    public static final DateTimeFormatter DATA_CSV =
+            DateTimeFormatter.ISO_LOCAL_DATE.withZone(ZONA);
+
+    private Datas() {
+    }
+
+    /**
+     * Formata um instante com data e hora.
+     *
+     * @param instante Milissegundos desde a época.
+     * @return Data e hora formatadas.
+     */
+    public static String formatarDataHora(long instante) {
+        return DATA_HORA.format(Instant.ofEpochMilli(instante));
+    }
+
+    /**
+     * Acrescenta a data de um instante no formato dos arquivos CSV, sem criar
+     * uma {@code String} intermediária.
+     *
+     * @param instante Milissegundos desde a época.
+     * @param destino Onde a data é acrescentada.
+     */
+    public static void anexarDataCsv(long instante, StringBuilder destino) {
+        DATA_CSV.formatTo(Instant.ofEpochMilli(instante), destino);
+    }
+
+    /**
+     * Mês a que pertence um instante.
+     *
+     * @param instante Milissegundos desde a época.
+     * @return Ano e mês no fuso {@link #ZONA}.
+     */
+    public static YearMonth mes(long instante) {
+        return YearMonth.from(Instant.ofEpochMilli(instante).atZone(ZONA));
+    }
+
+    /**
+     * Primeiro instante de um mês.
+     *
+     * @param mes Ano e mês.
+     * @return Início do primeiro dia do mês, em milissegundos desde a época.
+     */
+    public static long inicioDoMes(YearMonth mes) {
+        return mes.atDay(1).atStartOfDay(ZONA).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Lê uma data no formato dos arquivos CSV.
+     *
+     * @param texto Data no formato {@code yyyy-MM-dd}.
+     * @return Início do dia, em milissegundos desde a época.
+     * @throws IllegalArgumentException Se a data for inválida.
+     */
+    public static long lerDataCsv(String texto) {
+        try {
+            return LocalDate.parse(texto, DATA_CSV).atStartOfDay(ZONA).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Data inválida no CSV.");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package br.ufrn.bti.banco1000.utils;
+
+/**
+ * Conversões entre valores em reais ({@code double}) e centavos ({@code long}).
+ * Os saldos são guardados em centavos para evitar erros de arredondamento
+ * acumulados em operações sucessivas.
+ */
+public final class Dinheiro {
+
+    private Dinheiro() {
+    }
+
+    /**
+     * Converte um valor em reais para centavos, arredondando para o centavo mais próximo.
+     *
+     * @param reais Valor em reais.
+     * @return Valor em centavos.
+     */
+    public static long paraCentavos(double reais) {
+        return Math.round(reais * 100);
+    }
+
+    /**
+     * Converte um valor em centavos para reais.
+     *
+     * @param centavos Valor em centavos.
+     * @return Valor em reais.
+     */
+    public static double paraReais(long centavos) {
+        return centavos / 100.0;
+    }
+
+    /**
+     * Formata um valor em centavos com duas casas decimais e ponto como
+     * separador (por exemplo, {@code 1234.50}), independente da localidade.
+     *
+     * @param centavos Valor em centavos.
+     * @return Valor formatado.
+     */
+    public static String formatar(long centavos) {
+        return anexar(new StringBuilder(24), centavos).toString();
+    }
+
+    /**
+     * Acrescenta um valor em centavos no formato de {@link #formatar(long)},
+     * sem criar uma {@code String} intermediária.
+     *
+     * @param destino Onde o valor é acrescentado.
+     * @param centavos Valor em centavos.
+     * @return O próprio {@code destino}.
+     */
+    public static StringBuilder anexar(StringBuilder destino, long centavos) {
+        long reais = centavos / 100;
+        int resto = (int) Math.abs(centavos % 100);
+        if (centavos < 0 && reais == 0) {
+            destino.append('-');
+        }
+        destino.append(reais).append('.');
+        if (resto < 10) {
+            destino.append('0');
+        }
+        return destino.append(resto);
+    }
+}
@@ -0,0 +1,279 @@
+package br.ufrn.bti.banco1000.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escreve arquivos CSV em UTF-8 por meio de um buffer reutilizável, sem
+ * montar as linhas em memória. Os campos são codificados diretamente no
+ * buffer, que é descarregado no {@link FileChannel} quando enche.
+ * <p>
+ * Os campos de uma linha são separados por vírgula automaticamente; cada
+ * linha termina com {@link #fimLinha()}. Não é seguro para uso concorrente.
+ */
+public class EscritorCSV implements Closeable {
+
+    /** Tamanho padrão do buffer de escrita. */
+    public static final int TAMANHO_BUFFER = 1 << 20;
+
+    private final FileChannel canal;
+    private final byte[] buffer;
+    private final ByteBuffer envoltorio;
+    private int posicao;
+    private boolean inicioLinha = true;
+
+    public EscritorCSV(Path caminho) throws IOException {
+        this(caminho, TAMANHO_BUFFER);
+    }
+
+    /**
+     * Cria (ou trunca) o arquivo de destino.
+     *
+     * @param caminho Caminho do arquivo CSV.
+     * @param tamanhoBuffer Tamanho do buffer de escrita, em bytes (mínimo de 64).
+     * @throws IOException Em caso de erro ao abrir o arquivo.
+     */
+    public EscritorCSV(Path caminho, int tamanhoBuffer) throws IOException {
+        if (tamanhoBuffer < 64) {
+            throw new IllegalArgumentException("O buffer deve ter pelo menos 64 bytes.");
+        }
+        this.buffer = new byte[tamanhoBuffer];
+        this.envoltorio = ByteBuffer.wrap(buffer);
+        this.canal = FileChannel.open(caminho, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Escreve um campo de texto. Um valor nulo é escrito como {@code null},
+     * como faria {@code String.join}. Textos com vírgulas, aspas ou quebras
+     * de linha são escritos entre aspas, com as aspas internas duplicadas
+     * (RFC 4180), como espera o {@link CursorCSV}.
+     *
+     * @param texto Conteúdo do campo.
+     * @return Este escritor.
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public EscritorCSV campo(CharSequence texto) throws IOException {
+        separar();
+        if (texto == null) {
+            texto = "null";
+        }
+        boolean aspas = precisaAspas(texto);
+        if (aspas) {
+            garantir(1);
+            buffer[posicao++] = '"';
+        }
+        int tamanho = texto.length();
+        for (int i = 0; i < tamanho; i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                garantir(2);
+                if (c == '"') {
+                    buffer[posicao++] = '"';
+                }
+                buffer[posicao++] = (byte) c;
+            } else if (c < 0x800) {
+                garantir(2);
+                buffer[posicao++] = (byte) (0xC0 | (c >> 6));
+                buffer[posicao++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < tamanho && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                int codigo = Character.toCodePoint(c, texto.charAt(++i));
+                garantir(4);
+                buffer[posicao++] = (byte) (0xF0 | (codigo >> 18));
+                buffer[posicao++] = (byte) (0x80 | ((codigo >> 12) & 0x3F));
+                buffer[posicao++] = (byte) (0x80 | ((codigo >> 6) & 0x3F));
+                buffer[posicao++] = (byte) (0x80 | (codigo & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Surrogate isolado: mesma substituição feita por String.getBytes
+                garantir(1);
+                buffer[posicao++] = '?';
+            } else {
+                garantir(3);
+                buffer[posicao++] = (byte) (0xE0 | (c >> 12));
+                buffer[posicao++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[posicao++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        if (aspas) {
+            garantir(1);
+            buffer[posicao++] = '"';
+        }
+        return this;
+    }
+
+    /**
+     * Acrescenta um campo de texto a uma linha montada em memória, entre
+     * aspas quando necessário, como em {@link #campo(CharSequence)}.
+     *
+     * @param destino Linha em montagem.
+     * @param texto Conteúdo do campo.
+     * @return A linha.
+     */
+    public static StringBuilder anexarCampo(StringBuilder destino, CharSequence texto) {
+        if (texto == null || !precisaAspas(texto)) {
+            return destino.append(texto);
+        }
+        destino.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                destino.append('"');
+            }
+            destino.append(c);
+        }
+        return destino.append('"');
+    }
+
+    private static boolean precisaAspas(CharSequence texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Escreve um campo inteiro em decimal.
+     *
+     * @param valor Valor do campo.
+     * @return Este escritor.
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public EscritorCSV campo(long valor) throws IOException {
+        separar();
+        escreverInteiro(valor);
+        return this;
+    }
+
+    /**
+     * Escreve um valor monetário com duas casas decimais e ponto como
+     * separador, no mesmo formato de {@link Dinheiro#formatar(long)}.
+     *
+     * @param centavos Valor em centavos.
+     * @return Este escritor.
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public EscritorCSV centavos(long centavos) throws IOException {
+        separar();
+        long reais = centavos / 100;
+        int resto = (int) Math.abs(centavos % 100);
+        if (centavos < 0 && reais == 0) {
+            garantir(1);
+            buffer[posicao++] = '-';
+        }
+        escreverInteiro(reais);
+        garantir(3);
+        buffer[posicao++] = '.';
+        buffer[posicao++] = (byte) ('0' + resto / 10);
+        buffer[posicao++] = (byte) ('0' + resto % 10);
+        return this;
+    }
+
+    /**
+     * Escreve vários campos de texto na linha atual.
+     *
+     * @param campos Campos a escrever.
+     * @return Este escritor.
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public EscritorCSV campos(String... campos) throws IOException {
+        for (String campo : campos) {
+            campo(campo);
+        }
+        return this;
+    }
+
+    /**
+     * Termina a linha atual.
+     *
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public void fimLinha() throws IOException {
+        garantir(1);
+        buffer[posicao++] = '\n';
+        inicioLinha = true;
+    }
+
+    /**
+     * Escreve uma linha completa.
+     *
+     * @param campos Campos da linha.
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public void linha(String... campos) throws IOException {
+        campos(campos);
+        fimLinha();
+    }
+
+    /**
+     * Grava no arquivo o conteúdo pendente no buffer.
+     *
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public void descarregar() throws IOException {
+        envoltorio.clear().limit(posicao);
+        while (envoltorio.hasRemaining()) {
+            canal.write(envoltorio);
+        }
+        posicao = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            descarregar();
+        } finally {
+            canal.close();
+        }
+    }
+
+    private void separar() throws IOException {
+        if (inicioLinha) {
+            inicioLinha = false;
+        } else {
+            garantir(1);
+            buffer[posicao++] = ',';
+        }
+    }
+
+    private void garantir(int bytes) throws IOException {
+        if (posicao + bytes > buffer.length) {
+            descarregar();
+        }
+    }
+
+    private void escreverInteiro(long valor) throws IOException {
+        if (valor == Long.MIN_VALUE) {
+            campoBruto(Long.toString(valor));
+            return;
+        }
+        garantir(20);
+        if (valor < 0) {
+            buffer[posicao++] = '-';
+            valor = -valor;
+        }
+        int digitos = 1;
+        for (long resto = valor / 10; resto != 0; resto /= 10) {
+            digitos++;
+        }
+        int fim = posicao + digitos;
+        for (int i = fim - 1; i >= posicao; i--) {
+            buffer[i] = (byte) ('0' + valor % 10);
+            valor /= 10;
+        }
+        posicao = fim;
+    }
+
+    private void campoBruto(String ascii) throws IOException {
+        garantir(ascii.length());
+        for (int i = 0; i < ascii.length(); i++) {
+            buffer[posicao++] = (byte) ascii.charAt(i);
+        }
+    }
+}
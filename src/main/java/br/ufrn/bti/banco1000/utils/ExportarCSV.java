@@ -1,14 +1,29 @@
 package br.ufrn.bti.banco1000.utils;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
 public class ExportarCSV {
 
+    /** Tamanho nominal dos blocos lidos na importação paralela. */
+    public static final int TAMANHO_BLOCO = 4 << 20;
+    /** Tamanho inicial do buffer de {@link #percorrer}; cresce se um registro não couber. */
+    private static final int TAMANHO_BUFFER_LEITURA = 1 << 20;
+
     /**
      *
      * @param filePath
@@ -17,14 +32,46 @@ public class ExportarCSV {
      * @throws IOException
      */
     public static void export(String filePath, String[] headers, List<String[]> rows) throws IOException {
-        try (FileWriter writer = new FileWriter(filePath)) {
+        export(filePath, headers, rows, (row, escritor) -> escritor.campos(row));
+    }
+
+    /**
+     * Escreve uma linha CSV a partir de um item.
+     *
+     * @param <T> Tipo do item.
+     */
+    @FunctionalInterface
+    public interface EscritorLinha<T> {
+        /**
+         * Escreve os campos do item. O fim da linha é escrito por quem chama.
+         *
+         * @param item Item a exportar.
+         * @param escritor Escritor posicionado no início da linha.
+         * @throws IOException Em caso de erro de escrita.
+         */
+        void escrever(T item, EscritorCSV escritor) throws IOException;
+    }
 
+    /**
+     * Exporta itens para um arquivo CSV à medida que são percorridos, sem
+     * montar as linhas em memória, por meio de um {@link EscritorCSV}.
+     *
+     * @param filePath Caminho do arquivo CSV.
+     * @param headers Cabeçalho, ou null para não escrever cabeçalho.
+     * @param itens Itens a exportar, uma linha por item.
+     * @param escreverLinha Escreve os campos de cada item.
+     * @param <T> Tipo dos itens.
+     * @throws IOException Em caso de erro de escrita do arquivo.
+     */
+    public static <T> void export(String filePath, String[] headers, Iterable<? extends T> itens,
+                                  EscritorLinha<? super T> escreverLinha) throws IOException {
+        try (EscritorCSV escritor = new EscritorCSV(Path.of(filePath))) {
             if (headers != null) {
-                writer.append(String.join(",", headers)).append("\n");
+                escritor.linha(headers);
             }
-            
-            for (String[] row : rows) {
-                writer.append(String.join(",", row)).append("\n");
+            for (T item : itens) {
+                escreverLinha.escrever(item, escritor);
+                escritor.fimLinha();
             }
         }
     }
@@ -37,24 +84,243 @@ public class ExportarCSV {
      */
     public static List<String[]> importar(String filePath) throws IOException {
         List<String[]> rows = new ArrayList<>();
+        importar(filePath, rows::add);
+        return rows;
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+    /**
+     * Lê um arquivo CSV linha a linha, entregando cada linha ao consumidor sem
+     * guardar o arquivo em memória. A primeira linha (cabeçalho) é ignorada.
+     * Um campo entre aspas pode continuar nas linhas seguintes.
+     *
+     * @param filePath Caminho do arquivo CSV.
+     * @param consumidor Recebe as colunas de cada linha, na ordem do arquivo.
+     * @throws IOException Em caso de erro de leitura do arquivo.
+     */
+    public static void importar(String filePath, Consumer<String[]> consumidor) throws IOException {
+        CursorCSV cursor = new CursorCSV();
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(filePath), StandardCharsets.UTF_8)) {
             String linha;
             boolean primeiraLinha = true;
 
             while ((linha = reader.readLine()) != null) {
+                if (aspasAbertas(linha)) {
+                    StringBuilder registro = new StringBuilder(linha);
+                    String continuacao;
+                    while (aspasAbertas(registro) && (continuacao = reader.readLine()) != null) {
+                        registro.append('\n').append(continuacao);
+                    }
+                    linha = registro.toString();
+                }
                 // Ignora a primeira linha (cabeçalho)
                 if (primeiraLinha) {
                     primeiraLinha = false;
                     continue;
                 }
 
-                // Divide a linha em colunas
-                rows.add(linha.split(","));
+                consumidor.accept(cursor.linha(linha).campos());
             }
         }
+    }
 
-        return rows;
+    /**
+     * Percorre um arquivo CSV sem criar objetos por linha: cada registro é
+     * entregue ao consumidor como um {@link CursorCSV} posicionado no seu
+     * início, e tanto o cursor quanto o buffer de leitura são reutilizados
+     * entre as linhas. O cursor só é válido durante a chamada ao consumidor.
+     * A primeira linha (cabeçalho) é ignorada.
+     *
+     * @param caminho Caminho do arquivo CSV, codificado em UTF-8.
+     * @param consumidor Lê os campos de cada registro, na ordem do arquivo.
+     * @throws IOException Em caso de erro de leitura do arquivo.
+     */
+    public static void percorrer(Path caminho, Consumer<CursorCSV> consumidor) throws IOException {
+        CursorCSV cursor = new CursorCSV();
+        byte[] buffer = new byte[TAMANHO_BUFFER_LEITURA];
+        ByteBuffer envoltorio = ByteBuffer.wrap(buffer);
+        int inicio = 0;
+        int fim = 0;
+        boolean fimDoArquivo = false;
+        boolean cabecalho = true;
+
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            while (true) {
+                int quebra = fimDoRegistro(buffer, inicio, fim);
+                if (quebra < 0) {
+                    if (fimDoArquivo) {
+                        if (inicio < fim && !cabecalho) {
+                            consumidor.accept(cursor.linha(buffer, inicio, semRetorno(buffer, inicio, fim)));
+                        }
+                        return;
+                    }
+                    // Registro incompleto: vai para o começo do buffer, que cresce se ele não couber
+                    if (inicio > 0) {
+                        System.arraycopy(buffer, inicio, buffer, 0, fim - inicio);
+                        fim -= inicio;
+                        inicio = 0;
+                    } else if (fim == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                        envoltorio = ByteBuffer.wrap(buffer);
+                    }
+                    envoltorio.limit(buffer.length).position(fim);
+                    int lidos = canal.read(envoltorio);
+                    if (lidos < 0) {
+                        fimDoArquivo = true;
+                    } else {
+                        fim += lidos;
+                    }
+                    continue;
+                }
+                if (cabecalho) {
+                    cabecalho = false;
+                } else {
+                    consumidor.accept(cursor.linha(buffer, inicio, semRetorno(buffer, inicio, quebra)));
+                }
+                inicio = quebra + 1;
+            }
+        }
+    }
+
+    /**
+     * Importa um arquivo CSV em paralelo, com blocos de {@link #TAMANHO_BLOCO}
+     * bytes no pool comum.
+     *
+     * @param filePath Caminho do arquivo CSV.
+     * @param consumidor Recebe as colunas de cada linha, na ordem do arquivo.
+     * @throws IOException Em caso de erro de leitura do arquivo.
+     * @see #importarParalelo(Path, int, ForkJoinPool, Consumer)
+     */
+    public static void importarParalelo(String filePath, Consumer<String[]> consumidor) throws IOException {
+        importarParalelo(Path.of(filePath), TAMANHO_BLOCO, ForkJoinPool.commonPool(), consumidor);
+    }
+
+    /**
+     * Importa um arquivo CSV mapeando-o em memória e dividindo-o em blocos
+     * alinhados ao fim de registros. Cada bloco é decodificado e dividido em
+     * colunas por uma tarefa do pool, mas o consumidor é chamado apenas pela
+     * thread que invocou o método, na ordem do arquivo, e por isso não precisa
+     * ser seguro para uso concorrente.
+     * <p>
+     * No máximo duas vezes o paralelismo do pool em blocos ficam em andamento
+     * ao mesmo tempo, de modo que a memória usada não depende do tamanho do
+     * arquivo. Para que nenhum corte caia dentro de um campo entre aspas, os
+     * limites dos blocos são encontrados por uma leitura sequencial que
+     * acompanha as aspas. A primeira linha (cabeçalho) é ignorada.
+     *
+     * @param caminho Caminho do arquivo CSV, codificado em UTF-8.
+     * @param tamanhoBloco Tamanho nominal de cada bloco, em bytes.
+     * @param pool Pool em que os blocos são processados.
+     * @param consumidor Recebe as colunas de cada linha, na ordem do arquivo.
+     * @throws IOException Em caso de erro de leitura do arquivo.
+     */
+    public static void importarParalelo(Path caminho, int tamanhoBloco, ForkJoinPool pool,
+                                        Consumer<String[]> consumidor) throws IOException {
+        if (tamanhoBloco <= 0) {
+            throw new IllegalArgumentException("O tamanho do bloco deve ser positivo.");
+        }
+        int janela = Math.max(2, pool.getParallelism() * 2);
+        ArrayDeque<ForkJoinTask<List<String[]>>> pendentes = new ArrayDeque<>();
+        ByteBuffer leitura = ByteBuffer.allocate(64 << 10);
+
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            long inicio = fimDoRegistro(canal, leitura, 0, 0, tamanho);
+
+            while (inicio < tamanho || !pendentes.isEmpty()) {
+                while (inicio < tamanho && pendentes.size() < janela) {
+                    long fim = (tamanho - inicio <= tamanhoBloco)
+                            ? tamanho
+                            : fimDoRegistro(canal, leitura, inicio, inicio + tamanhoBloco, tamanho);
+                    MappedByteBuffer bloco = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio);
+                    pendentes.add(pool.submit(() -> lerBloco(bloco)));
+                    inicio = fim;
+                }
+                for (String[] linha : pendentes.poll().join()) {
+                    consumidor.accept(linha);
+                }
+            }
+        } finally {
+            for (ForkJoinTask<?> pendente : pendentes) {
+                pendente.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Posição logo após a primeira quebra de linha fora de aspas em
+     * {@code minimo} ou depois, lendo desde {@code inicio}, que deve ser o
+     * início de um registro; ou o fim do arquivo se não houver outra.
+     */
+    private static long fimDoRegistro(FileChannel canal, ByteBuffer leitura, long inicio, long minimo,
+                                      long tamanho) throws IOException {
+        boolean entreAspas = false;
+        long posicao = inicio;
+        while (posicao < tamanho) {
+            leitura.clear();
+            int lidos = canal.read(leitura, posicao);
+            if (lidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < lidos; i++) {
+                byte b = leitura.get(i);
+                if (b == '"') {
+                    entreAspas = !entreAspas;
+                } else if (b == '\n' && !entreAspas && posicao + i >= minimo) {
+                    return posicao + i + 1;
+                }
+            }
+            posicao += lidos;
+        }
+        return tamanho;
+    }
+
+    /**
+     * Posição da quebra de linha que termina o registro iniciado em
+     * {@code inicio}, ignorando as que estão entre aspas, ou -1 se o registro
+     * não termina antes de {@code fim}.
+     */
+    private static int fimDoRegistro(byte[] bytes, int inicio, int fim) {
+        boolean entreAspas = false;
+        for (int i = inicio; i < fim; i++) {
+            byte b = bytes[i];
+            if (b == '"') {
+                entreAspas = !entreAspas;
+            } else if (b == '\n' && !entreAspas) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Fim do registro sem um {@code \r} final. */
+    private static int semRetorno(byte[] bytes, int inicio, int fim) {
+        return (fim > inicio && bytes[fim - 1] == '\r') ? fim - 1 : fim;
+    }
+
+    private static boolean aspasAbertas(CharSequence texto) {
+        boolean abertas = false;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '"') {
+                abertas = !abertas;
+            }
+        }
+        return abertas;
+    }
+
+    private static List<String[]> lerBloco(ByteBuffer bloco) {
+        List<String[]> linhas = new ArrayList<>();
+        CursorCSV cursor = new CursorCSV();
+        byte[] bytes = new byte[bloco.limit()];
+        bloco.get(0, bytes);
+        int inicio = 0;
+        while (inicio < bytes.length) {
+            int fim = fimDoRegistro(bytes, inicio, bytes.length);
+            if (fim < 0) {
+                fim = bytes.length;
+            }
+            linhas.add(cursor.linha(bytes, inicio, semRetorno(bytes, inicio, fim)).campos());
+            inicio = fim + 1;
+        }
+        return linhas;
     }
 }
-    
@@ -0,0 +1,160 @@
+package br.ufrn.bti.banco1000.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências em nanossegundos, com faixas log-lineares: os
+ * valores até {@value #FAIXAS_EXATAS} ficam em faixas exatas e, acima disso,
+ * cada potência de dois é dividida em {@value #SUBFAIXAS} faixas, de modo que
+ * os percentis têm erro relativo de no máximo 1/{@value #SUBFAIXAS} (menos de
+ * 1%). Valores acima de {@link #MAXIMO_RASTREAVEL} contam na última faixa.
+ * <p>
+ * O registro é seguro para chamadas concorrentes e não aloca; as leituras
+ * feitas durante registros são aproximadas. Quem registra de muitas threads
+ * sobre o mesmo valor pode usar um histograma por thread e somá-los no fim
+ * ({@link #somar}).
+ */
+public class HistogramaLatencia {
+    /** Subfaixas por potência de dois. */
+    public static final int SUBFAIXAS = 128;
+    /** Valores representados exatamente, cada um na sua faixa. */
+    public static final int FAIXAS_EXATAS = 2 * SUBFAIXAS;
+    /** Maior valor distinguido, cerca de 18 minutos em nanossegundos. */
+    public static final long MAXIMO_RASTREAVEL = (1L << 40) - 1;
+
+    private static final int BITS_SUBFAIXA = Integer.numberOfTrailingZeros(SUBFAIXAS);
+    private static final int QUANTIDADE_FAIXAS = indice(MAXIMO_RASTREAVEL) + 1;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(QUANTIDADE_FAIXAS);
+    private final LongAdder quantidade = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    private static int indice(long valor) {
+        if (valor < FAIXAS_EXATAS) {
+            return (int) valor;
+        }
+        int deslocamento = 63 - Long.numberOfLeadingZeros(valor) - BITS_SUBFAIXA;
+        return (deslocamento << BITS_SUBFAIXA) + (int) (valor >>> deslocamento);
+    }
+
+    /** Maior valor que cai na faixa indicada. */
+    private static long limiteSuperior(int indice) {
+        if (indice < FAIXAS_EXATAS) {
+            return indice;
+        }
+        int deslocamento = (indice >>> BITS_SUBFAIXA) - 1;
+        long subfaixa = indice - ((long) deslocamento << BITS_SUBFAIXA);
+        return ((subfaixa + 1) << deslocamento) - 1;
+    }
+
+    /**
+     * Registra uma latência.
+     *
+     * @param nanos Latência em nanossegundos; valores negativos contam como zero.
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        contagens.getAndIncrement(indice(Math.min(valor, MAXIMO_RASTREAVEL)));
+        quantidade.increment();
+        soma.add(valor);
+        long atual = maximo.get();
+        while (valor > atual && !maximo.compareAndSet(atual, valor)) {
+            atual = maximo.get();
+        }
+    }
+
+    /**
+     * Registra a mesma latência várias vezes, como a latência média de cada
+     * item de um lote.
+     *
+     * @param nanos Latência em nanossegundos; valores negativos contam como zero.
+     * @param vezes Quantidade de registros.
+     */
+    public void registrar(long nanos, long vezes) {
+        if (vezes <= 0) {
+            return;
+        }
+        long valor = Math.max(0, nanos);
+        contagens.getAndAdd(indice(Math.min(valor, MAXIMO_RASTREAVEL)), vezes);
+        quantidade.add(vezes);
+        soma.add(valor * vezes);
+        long atual = maximo.get();
+        while (valor > atual && !maximo.compareAndSet(atual, valor)) {
+            atual = maximo.get();
+        }
+    }
+
+    /**
+     * Acrescenta a este histograma todos os registros de outro.
+     *
+     * @param outro Histograma a somar.
+     */
+    public void somar(HistogramaLatencia outro) {
+        for (int i = 0; i < QUANTIDADE_FAIXAS; i++) {
+            long contagem = outro.contagens.get(i);
+            if (contagem != 0) {
+                contagens.getAndAdd(i, contagem);
+            }
+        }
+        quantidade.add(outro.quantidade.sum());
+        soma.add(outro.soma.sum());
+        maximo.accumulateAndGet(outro.maximo.get(), Math::max);
+    }
+
+    public void zerar() {
+        for (int i = 0; i < QUANTIDADE_FAIXAS; i++) {
+            contagens.set(i, 0);
+        }
+        quantidade.reset();
+        soma.reset();
+        maximo.set(0);
+    }
+
+    public long getQuantidade() {
+        return quantidade.sum();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * @return Média das latências registradas, ou zero se não houver registros.
+     */
+    public double getMedia() {
+        long total = quantidade.sum();
+        return total == 0 ? 0 : (double) soma.sum() / total;
+    }
+
+    /**
+     * Calcula um percentil das latências registradas.
+     *
+     * @param percentil Percentil entre 0 e 100 (como 99.9).
+     * @return Maior valor da faixa que contém o percentil, limitado ao máximo
+     *         registrado; zero se não houver registros.
+     */
+    public long percentil(double percentil) {
+        if (!(percentil >= 0 && percentil <= 100)) {
+            throw new IllegalArgumentException("O percentil deve estar entre 0 e 100.");
+        }
+        long total = 0;
+        for (int i = 0; i < QUANTIDADE_FAIXAS; i++) {
+            total += contagens.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(percentil / 100 * total));
+        long acumulado = 0;
+        for (int i = 0; i < QUANTIDADE_FAIXAS; i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+}
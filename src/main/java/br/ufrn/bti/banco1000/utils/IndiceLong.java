@@ -0,0 +1,237 @@
+package br.ufrn.bti.banco1000.utils;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Índice hash de endereçamento aberto com chaves primitivas {@code long}.
+ * Evita o boxing de {@code Long}/{@code Integer} a cada busca, usado como
+ * índice primário de contas e clientes.
+ * <p>
+ * Não é thread-safe: quem compartilha o índice entre threads deve sincronizar
+ * o acesso externamente.
+ *
+ * @param <V> Tipo dos valores indexados (nunca nulos).
+ */
+public class IndiceLong<V> {
+    private static final int CAPACIDADE_MINIMA = 16;
+    private static final float FATOR_CARGA = 0.6f;
+
+    private long[] chaves;
+    private Object[] valores;
+    private int tamanho;
+    private int limite;
+
+    public IndiceLong() {
+        this(CAPACIDADE_MINIMA);
+    }
+
+    /**
+     * Cria um índice dimensionado para a quantidade esperada de elementos.
+     *
+     * @param capacidadeEsperada Quantidade de elementos esperada.
+     */
+    public IndiceLong(int capacidadeEsperada) {
+        alocar(capacidadePara(capacidadeEsperada));
+    }
+
+    /**
+     * Redimensiona o índice de uma vez para a quantidade esperada de
+     * elementos, em vez de dobrá-lo várias vezes durante uma carga em lote.
+     *
+     * @param capacidadeEsperada Quantidade total de elementos esperada.
+     */
+    public void garantirCapacidade(int capacidadeEsperada) {
+        int capacidade = capacidadePara(capacidadeEsperada);
+        if (capacidade > chaves.length) {
+            redimensionar(capacidade);
+        }
+    }
+
+    private static int capacidadePara(int capacidadeEsperada) {
+        int capacidade = CAPACIDADE_MINIMA;
+        while (capacidade * FATOR_CARGA < capacidadeEsperada) {
+            capacidade <<= 1;
+        }
+        return capacidade;
+    }
+
+    /**
+     * Busca o valor associado à chave.
+     *
+     * @param chave Chave procurada.
+     * @return Valor encontrado, ou null se não existir.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long chave) {
+        int mascara = chaves.length - 1;
+        int i = espalhar(chave) & mascara;
+        Object valor;
+        while ((valor = valores[i]) != null) {
+            if (chaves[i] == chave) {
+                return (V) valor;
+            }
+            i = (i + 1) & mascara;
+        }
+        return null;
+    }
+
+    public boolean contem(long chave) {
+        return get(chave) != null;
+    }
+
+    /**
+     * Associa o valor à chave, substituindo um valor anterior.
+     *
+     * @param chave Chave.
+     * @param valor Valor (não pode ser nulo).
+     * @return Valor anterior, ou null se a chave não existia.
+     */
+    public V put(long chave, V valor) {
+        return inserir(chave, valor, true);
+    }
+
+    /**
+     * Associa o valor à chave apenas se ela ainda não existir.
+     *
+     * @param chave Chave.
+     * @param valor Valor (não pode ser nulo).
+     * @return Valor já existente, ou null se o valor foi inserido.
+     */
+    public V putIfAbsent(long chave, V valor) {
+        return inserir(chave, valor, false);
+    }
+
+    /**
+     * Remove a chave do índice.
+     *
+     * @param chave Chave a remover.
+     * @return Valor removido, ou null se a chave não existia.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long chave) {
+        int mascara = chaves.length - 1;
+        int i = espalhar(chave) & mascara;
+        while (valores[i] != null) {
+            if (chaves[i] == chave) {
+                V anterior = (V) valores[i];
+                deslocarParaTras(i);
+                tamanho--;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        return null;
+    }
+
+    public int size() {
+        return tamanho;
+    }
+
+    public boolean isEmpty() {
+        return tamanho == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(valores, null);
+        tamanho = 0;
+    }
+
+    /**
+     * Percorre todos os valores, em ordem indefinida.
+     *
+     * @param acao Ação aplicada a cada valor.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super V> acao) {
+        for (Object valor : valores) {
+            if (valor != null) {
+                acao.accept((V) valor);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V inserir(long chave, V valor, boolean substituir) {
+        if (valor == null) {
+            throw new IllegalArgumentException("O índice não aceita valores nulos.");
+        }
+        int mascara = chaves.length - 1;
+        int i = espalhar(chave) & mascara;
+        Object atual;
+        while ((atual = valores[i]) != null) {
+            if (chaves[i] == chave) {
+                if (substituir) {
+                    valores[i] = valor;
+                }
+                return (V) atual;
+            }
+            i = (i + 1) & mascara;
+        }
+        chaves[i] = chave;
+        valores[i] = valor;
+        if (++tamanho > limite) {
+            redimensionar(chaves.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Remoção sem lápides: desloca para trás os elementos seguintes do mesmo
+     * agrupamento, mantendo as sequências de sondagem linear contíguas.
+     */
+    private void deslocarParaTras(int livre) {
+        int mascara = chaves.length - 1;
+        int i = livre;
+        while (true) {
+            i = (i + 1) & mascara;
+            if (valores[i] == null) {
+                break;
+            }
+            int ideal = espalhar(chaves[i]) & mascara;
+            // Move o elemento se a posição livre estiver entre a ideal e a atual (circularmente)
+            if (((i - ideal) & mascara) >= ((i - livre) & mascara)) {
+                chaves[livre] = chaves[i];
+                valores[livre] = valores[i];
+                livre = i;
+            }
+        }
+        valores[livre] = null;
+    }
+
+    private void redimensionar(int capacidade) {
+        long[] chavesAntigas = chaves;
+        Object[] valoresAntigos = valores;
+        alocar(capacidade);
+        int mascara = chaves.length - 1;
+        for (int j = 0; j < valoresAntigos.length; j++) {
+            if (valoresAntigos[j] != null) {
+                int i = espalhar(chavesAntigas[j]) & mascara;
+                while (valores[i] != null) {
+                    i = (i + 1) & mascara;
+                }
+                chaves[i] = chavesAntigas[j];
+                valores[i] = valoresAntigos[j];
+            }
+        }
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new long[capacidade];
+        valores = new Object[capacidade];
+        limite = (int) (capacidade * FATOR_CARGA);
+    }
+
+    /**
+     * Finalizador do MurmurHash3: chaves compostas como (agência, conta)
+     * diferem apenas nos bits baixos e precisam ser bem espalhadas.
+     */
+    private static int espalhar(long chave) {
+        chave ^= chave >>> 33;
+        chave *= 0xff51afd7ed558ccdL;
+        chave ^= chave >>> 33;
+        chave *= 0xc4ceb9fe1a85ec53L;
+        chave ^= chave >>> 33;
+        return (int) chave;
+    }
+}
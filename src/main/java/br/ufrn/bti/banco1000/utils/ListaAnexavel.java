@@ -0,0 +1,120 @@
+package br.ufrn.bti.banco1000.utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Lista que só cresce pelo fim, com leituras sem trava e visões imutáveis
+ * obtidas em tempo constante.
+ * <p>
+ * Os elementos ficam em segmentos de tamanho fixo, como em
+ * {@code HistoricoMovimentacoes}: crescer copia apenas o diretório de
+ * segmentos, nunca os elementos já incluídos, e um elemento nunca muda de
+ * posição. O tamanho é publicado por último, de modo que uma
+ * {@linkplain #visao() visão} enxerga exatamente os elementos incluídos até o
+ * momento em que foi criada, mesmo que a lista continue crescendo.
+ * <p>
+ * As inclusões devem ser serializadas por quem chama (por exemplo, sob a
+ * trava de escrita do cadastro); as leituras podem ocorrer em qualquer thread.
+ *
+ * @param <E> Tipo dos elementos.
+ */
+public final class ListaAnexavel<E> {
+    private static final int BITS_SEGMENTO = 12;
+    private static final int TAMANHO_SEGMENTO = 1 << BITS_SEGMENTO;
+    private static final int MASCARA_SEGMENTO = TAMANHO_SEGMENTO - 1;
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    private volatile Object[][] segmentos = new Object[1][];
+    private volatile int tamanho;
+
+    /**
+     * Inclui um elemento no fim da lista. Não é seguro para inclusões concorrentes.
+     *
+     * @param elemento Elemento a incluir.
+     */
+    public void adicionar(E elemento) {
+        int posicao = tamanho;
+        int indiceSegmento = posicao >>> BITS_SEGMENTO;
+        Object[][] atuais = segmentos;
+        if (indiceSegmento == atuais.length) {
+            atuais = Arrays.copyOf(atuais, atuais.length * 2);
+        }
+        int i = posicao & MASCARA_SEGMENTO;
+        Object[] segmento = atuais[indiceSegmento];
+        if (segmento == null) {
+            segmento = new Object[indiceSegmento == 0 ? CAPACIDADE_INICIAL : TAMANHO_SEGMENTO];
+            atuais[indiceSegmento] = segmento;
+        } else if (i == segmento.length) {
+            // Primeiro segmento cheio: as visões já entregues continuam com o segmento antigo
+            segmento = Arrays.copyOf(segmento, Math.min(i * 2, TAMANHO_SEGMENTO));
+            if (atuais == segmentos) {
+                atuais = atuais.clone();
+            }
+            atuais[indiceSegmento] = segmento;
+        }
+        segmento[i] = elemento;
+        if (atuais != segmentos) {
+            segmentos = atuais;
+        }
+        // Publicação: quem enxerga o novo tamanho enxerga o elemento
+        tamanho = posicao + 1;
+    }
+
+    /**
+     * Dimensiona o diretório de segmentos para a quantidade total esperada,
+     * antes de uma carga em lote. Não é seguro para uso concorrente com
+     * {@link #adicionar}.
+     *
+     * @param capacidade Quantidade total de elementos esperada.
+     */
+    public void garantirCapacidade(int capacidade) {
+        int necessarios = (capacidade + TAMANHO_SEGMENTO - 1) >>> BITS_SEGMENTO;
+        Object[][] atuais = segmentos;
+        if (necessarios > atuais.length) {
+            segmentos = Arrays.copyOf(atuais, Integer.highestOneBit(necessarios - 1) << 1);
+        }
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Visão somente leitura dos elementos incluídos até o momento da chamada.
+     * Criá-la não copia nada nem adquire travas, e ela não muda com inclusões
+     * posteriores.
+     *
+     * @return Lista imutável.
+     */
+    public List<E> visao() {
+        int quantidade = tamanho;
+        return new Visao<>(segmentos, quantidade);
+    }
+
+    private static final class Visao<E> extends AbstractList<E> implements RandomAccess {
+        private final Object[][] origem;
+        private final int quantidade;
+
+        Visao(Object[][] origem, int quantidade) {
+            this.origem = origem;
+            this.quantidade = quantidade;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int indice) {
+            if (indice < 0 || indice >= quantidade) {
+                throw new IndexOutOfBoundsException("Índice " + indice + " fora da lista de tamanho " + quantidade);
+            }
+            return (E) origem[indice >>> BITS_SEGMENTO][indice & MASCARA_SEGMENTO];
+        }
+
+        @Override
+        public int size() {
+            return quantidade;
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package br.ufrn.bti.banco1000.utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro assíncrono de eventos, para as mensagens que as operações do
+ * modelo escreviam diretamente no console.
+ * <p>
+ * Cada evento é um tipo ({@link TipoEvento}) e três valores numéricos (conta,
+ * valor e um campo extra), gravados em um buffer circular pré-alocado: quem
+ * registra não monta texto, não aloca e não disputa a trava do
+ * {@link PrintStream}; apenas reserva uma posição com compare-and-set. Uma
+ * thread de fundo consome o buffer em ordem, formata as linhas e as escreve no
+ * {@link Destino}. Se o buffer estiver cheio, o evento é descartado e contado
+ * em {@link #getDescartados()}, em vez de bloquear a operação.
+ * <p>
+ * Eventos abaixo do {@linkplain #setNivelMinimo nível mínimo} são ignorados
+ * com uma única comparação. Eventos de nível inferior a {@link Nivel#AVISO}
+ * podem ainda ser amostrados ({@link #setAmostragem(int)}).
+ * <p>
+ * A thread de fundo só é iniciada no primeiro evento que passa do nível
+ * mínimo: um registro desligado não tem thread. Sem eventos, ela espera cada
+ * vez mais entre as verificações do buffer, até {@value #ESPERA_OCIOSA_MAXIMA_MILLIS} ms.
+ */
+public final class RegistroEventos implements Closeable {
+    /** Capacidade padrão do buffer, em eventos. */
+    public static final int CAPACIDADE_PADRAO = 8192;
+    /**
+     * Propriedade com o nível mínimo do registro padrão, um dos nomes de
+     * {@link Nivel}; por padrão, {@code INFO}.
+     */
+    public static final String PROPRIEDADE_NIVEL = "banco1000.eventos.nivel";
+    /**
+     * Propriedade com o destino do registro padrão: {@code console} (o
+     * padrão), {@code nulo} ou o caminho de um arquivo.
+     */
+    public static final String PROPRIEDADE_DESTINO = "banco1000.eventos.destino";
+    static final long ESPERA_OCIOSA_MAXIMA_MILLIS = 64;
+    private static final long ESPERA_OCIOSA_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long ESPERA_OCIOSA_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(ESPERA_OCIOSA_MAXIMA_MILLIS);
+
+    private static volatile RegistroEventos padrao;
+
+    public enum Nivel {
+        DEPURACAO, INFO, AVISO, ERRO, DESLIGADO
+    }
+
+    /**
+     * Tipo de evento: define o nível e como o evento é escrito. Implementado
+     * por enums, para que registrar um evento não crie objetos.
+     */
+    public interface TipoEvento {
+        Nivel getNivel();
+
+        /**
+         * Escreve a mensagem do evento. Chamado apenas pela thread de fundo.
+         *
+         * @param destino Onde a mensagem é acrescentada.
+         * @param conta Número da conta do evento.
+         * @param valor Valor do evento (normalmente em centavos).
+         * @param extra Informação adicional, conforme o tipo.
+         */
+        void formatar(StringBuilder destino, long conta, long valor, long extra);
+    }
+
+    /**
+     * Destino das linhas formatadas. As implementações devem aceitar
+     * {@link #descarregar()} vindo de outra thread durante uma escrita.
+     */
+    public interface Destino extends Closeable {
+        void escrever(CharSequence linha) throws IOException;
+
+        void descarregar() throws IOException;
+
+        @Override
+        default void close() throws IOException {
+            descarregar();
+        }
+
+        /**
+         * Destino que escreve em um fluxo de saída, como {@code System.out}.
+         *
+         * @param saida Fluxo de saída.
+         * @return Destino.
+         */
+        static Destino console(PrintStream saida) {
+            return new Destino() {
+                @Override
+                public void escrever(CharSequence linha) {
+                    saida.append(linha).append(System.lineSeparator());
+                }
+
+                @Override
+                public void descarregar() {
+                    saida.flush();
+                }
+            };
+        }
+
+        /**
+         * Destino que acrescenta as linhas ao fim de um arquivo, em UTF-8.
+         *
+         * @param arquivo Caminho do arquivo (criado se não existir).
+         * @return Destino.
+         * @throws IOException Se o arquivo não puder ser aberto.
+         */
+        static Destino arquivo(Path arquivo) throws IOException {
+            BufferedWriter escritor = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return new Destino() {
+                @Override
+                public void escrever(CharSequence linha) throws IOException {
+                    escritor.append(linha).append(System.lineSeparator());
+                }
+
+                @Override
+                public void descarregar() throws IOException {
+                    escritor.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    escritor.close();
+                }
+            };
+        }
+
+        /**
+         * Destino que descarta as linhas, para medir o custo do registro.
+         *
+         * @return Destino.
+         */
+        static Destino nulo() {
+            return new Destino() {
+                @Override
+                public void escrever(CharSequence linha) {
+                }
+
+                @Override
+                public void descarregar() {
+                }
+            };
+        }
+    }
+
+    private final Destino destino;
+    private final int mascara;
+    private final TipoEvento[] tipos;
+    private final long[] instantes;
+    private final long[] contas;
+    private final long[] valores;
+    private final long[] extras;
+    /** Por posição, a sequência seguinte à do último evento publicado nela. */
+    private final AtomicLongArray publicados;
+    private final AtomicLong proximo = new AtomicLong();
+    private final LongAdder descartados = new LongAdder();
+    /** Thread de fundo; nula até o primeiro evento registrado. */
+    private volatile Thread consumidor;
+
+    private volatile int nivelMinimo;
+    private volatile int amostragem = 1;
+    /** Sequência do próximo evento a ser consumido. */
+    private volatile long consumido;
+    private volatile boolean fechado;
+
+    /**
+     * Cria o registro. A thread de fundo é iniciada no primeiro evento.
+     *
+     * @param destino Destino das linhas.
+     * @param capacidade Eventos no buffer (arredondada para a próxima potência de dois).
+     * @param nivelMinimo Nível mínimo dos eventos registrados.
+     */
+    public RegistroEventos(Destino destino, int capacidade, Nivel nivelMinimo) {
+        if (destino == null || nivelMinimo == null) {
+            throw new IllegalArgumentException("Destino e nível não podem ser nulos.");
+        }
+        if (capacidade < 2) {
+            throw new IllegalArgumentException("A capacidade deve ser de pelo menos dois eventos.");
+        }
+        int tamanho = Integer.highestOneBit(capacidade);
+        if (tamanho < capacidade) {
+            tamanho <<= 1;
+        }
+        this.destino = destino;
+        this.mascara = tamanho - 1;
+        this.tipos = new TipoEvento[tamanho];
+        this.instantes = new long[tamanho];
+        this.contas = new long[tamanho];
+        this.valores = new long[tamanho];
+        this.extras = new long[tamanho];
+        this.publicados = new AtomicLongArray(tamanho);
+        this.nivelMinimo = nivelMinimo.ordinal();
+    }
+
+    /**
+     * Registro usado pelo modelo. Por padrão escreve no console, de forma
+     * assíncrona, os eventos a partir de {@link Nivel#INFO}; o nível e o
+     * destino podem ser trocados pelas propriedades {@value #PROPRIEDADE_NIVEL}
+     * e {@value #PROPRIEDADE_DESTINO}, lidas na primeira chamada.
+     *
+     * @return Registro padrão.
+     * @throws IllegalArgumentException Se o nível da propriedade não existir.
+     */
+    public static RegistroEventos padrao() {
+        RegistroEventos atual = padrao;
+        if (atual == null) {
+            synchronized (RegistroEventos.class) {
+                atual = padrao;
+                if (atual == null) {
+                    atual = new RegistroEventos(destinoConfigurado(), CAPACIDADE_PADRAO, nivelConfigurado());
+                    padrao = atual;
+                }
+            }
+        }
+        return atual;
+    }
+
+    private static Nivel nivelConfigurado() {
+        String nivel = System.getProperty(PROPRIEDADE_NIVEL, Nivel.INFO.name());
+        try {
+            return Nivel.valueOf(nivel.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nível de eventos inválido em " + PROPRIEDADE_NIVEL + ": " + nivel);
+        }
+    }
+
+    private static Destino destinoConfigurado() {
+        String destino = System.getProperty(PROPRIEDADE_DESTINO, "console");
+        if (destino.equals("console")) {
+            return Destino.console(System.out);
+        }
+        if (destino.equals("nulo")) {
+            return Destino.nulo();
+        }
+        try {
+            return Destino.arquivo(Path.of(destino));
+        } catch (IOException e) {
+            System.err.println("Erro ao abrir o arquivo de eventos, usando o console: " + e.getMessage());
+            return Destino.console(System.out);
+        }
+    }
+
+    /**
+     * Substitui o registro padrão, por exemplo por um que grave em arquivo.
+     * O registro anterior não é fechado.
+     *
+     * @param registro Novo registro padrão.
+     * @return Registro padrão anterior, ou null se ainda não existia.
+     */
+    public static RegistroEventos configurarPadrao(RegistroEventos registro) {
+        if (registro == null) {
+            throw new IllegalArgumentException("O registro não pode ser nulo.");
+        }
+        synchronized (RegistroEventos.class) {
+            RegistroEventos anterior = padrao;
+            padrao = registro;
+            return anterior;
+        }
+    }
+
+    public void setNivelMinimo(Nivel nivel) {
+        this.nivelMinimo = nivel.ordinal();
+    }
+
+    /**
+     * Registra, em média, um a cada {@code n} eventos de nível inferior a
+     * {@link Nivel#AVISO}. Avisos e erros são sempre registrados.
+     *
+     * @param n Fator de amostragem (1 registra todos).
+     */
+    public void setAmostragem(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("O fator de amostragem deve ser positivo.");
+        }
+        this.amostragem = n;
+    }
+
+    /**
+     * Verifica se eventos do nível seriam registrados. Útil para evitar
+     * calcular os valores de um evento que seria descartado.
+     *
+     * @param nivel Nível do evento.
+     * @return true se o nível está habilitado.
+     */
+    public boolean isAtivo(Nivel nivel) {
+        return nivel.ordinal() >= nivelMinimo;
+    }
+
+    /**
+     * Registra um evento sem bloquear: se o buffer estiver cheio, o evento é
+     * descartado.
+     *
+     * @param tipo Tipo do evento.
+     * @param conta Número da conta.
+     * @param valor Valor (normalmente em centavos).
+     * @param extra Informação adicional, conforme o tipo.
+     */
+    public void registrar(TipoEvento tipo, long conta, long valor, long extra) {
+        int nivel = tipo.getNivel().ordinal();
+        if (nivel < nivelMinimo) {
+            return;
+        }
+        int fator = amostragem;
+        if (fator > 1 && nivel < Nivel.AVISO.ordinal() && ThreadLocalRandom.current().nextInt(fator) != 0) {
+            return;
+        }
+        // Iniciada antes da reserva: quem vê a sequência reservada vê a thread
+        if (consumidor == null) {
+            iniciarConsumidor();
+        }
+        long sequencia;
+        do {
+            sequencia = proximo.get();
+            if (sequencia - consumido > mascara) {
+                descartados.increment();
+                return;
+            }
+        } while (!proximo.compareAndSet(sequencia, sequencia + 1));
+
+        int i = (int) sequencia & mascara;
+        tipos[i] = tipo;
+        instantes[i] = System.currentTimeMillis();
+        contas[i] = conta;
+        valores[i] = valor;
+        extras[i] = extra;
+        // Publicação: o consumidor só lê a posição depois de ver a sequência
+        publicados.set(i, sequencia + 1);
+    }
+
+    private synchronized void iniciarConsumidor() {
+        if (consumidor == null && !fechado) {
+            Thread thread = new Thread(this::consumir, "registro-eventos");
+            thread.setDaemon(true);
+            thread.start();
+            consumidor = thread;
+        }
+    }
+
+    /**
+     * Quantidade de eventos descartados por buffer cheio.
+     *
+     * @return Eventos descartados desde a criação.
+     */
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * Espera até que os eventos registrados antes da chamada tenham sido
+     * escritos e descarrega o destino.
+     */
+    public void descarregar() {
+        long alvo = proximo.get();
+        Thread thread = consumidor;
+        while (thread != null && consumido < alvo && thread.isAlive()) {
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(ESPERA_OCIOSA_NANOS);
+        }
+        try {
+            destino.descarregar();
+        } catch (IOException e) {
+            System.err.println("Erro ao gravar eventos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escreve os eventos pendentes, encerra a thread de fundo e fecha o destino.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread thread;
+        synchronized (this) {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            thread = consumidor;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        destino.close();
+    }
+
+    private void consumir() {
+        StringBuilder linha = new StringBuilder(160);
+        long sequencia = consumido;
+        boolean pendente = false;
+        long espera = ESPERA_OCIOSA_NANOS;
+        while (true) {
+            int i = (int) sequencia & mascara;
+            if (publicados.get(i) == sequencia + 1) {
+                linha.setLength(0);
+                TipoEvento tipo = tipos[i];
+                Datas.DATA_HORA.formatTo(Instant.ofEpochMilli(instantes[i]), linha);
+                linha.append(' ').append(tipo.getNivel().name()).append(' ');
+                tipo.formatar(linha, contas[i], valores[i], extras[i]);
+                tipos[i] = null;
+                // Libera a posição para os produtores só depois de lê-la
+                consumido = ++sequencia;
+                try {
+                    destino.escrever(linha);
+                    pendente = true;
+                } catch (IOException e) {
+                    System.err.println("Erro ao gravar eventos: " + e.getMessage());
+                }
+                espera = ESPERA_OCIOSA_NANOS;
+                continue;
+            }
+            if (pendente) {
+                try {
+                    destino.descarregar();
+                } catch (IOException e) {
+                    System.err.println("Erro ao gravar eventos: " + e.getMessage());
+                }
+                pendente = false;
+            }
+            if (fechado && sequencia == proximo.get()) {
+                return;
+            }
+            // Ociosa: espera o dobro da vez anterior; close e descarregar a acordam
+            LockSupport.parkNanos(espera);
+            espera = Math.min(espera << 1, ESPERA_OCIOSA_MAXIMA_NANOS);
+        }
+    }
+}
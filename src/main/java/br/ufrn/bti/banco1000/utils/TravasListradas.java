@@ -0,0 +1,151 @@
+package br.ufrn.bti.banco1000.utils;
+
+import br.ufrn.bti.banco1000.metricas.MetricasBanco;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conjunto de travas listradas (striped locks) indexadas por chave {@code long}.
+ * Cada chave é mapeada para uma das listras; chaves diferentes podem
+ * compartilhar a mesma trava, mas a mesma chave sempre usa a mesma.
+ * <p>
+ * Para operações que envolvem duas chaves, {@link #travarPar(long, long)}
+ * adquire as travas sempre em ordem crescente de listra, evitando deadlock
+ * entre operações em sentidos opostos.
+ * <p>
+ * O tempo de espera pelas travas ocupadas é somado em
+ * {@link MetricasBanco#esperaTrava}; aquisições sem disputa não leem o relógio.
+ */
+public class TravasListradas {
+    /** Quantidade padrão de listras, suficiente para manter a contenção baixa. */
+    public static final int LISTRAS_PADRAO = 1024;
+
+    private static final TravasListradas PADRAO = new TravasListradas(LISTRAS_PADRAO);
+
+    private final ReentrantLock[] travas;
+    private final int mascara;
+
+    /**
+     * Cria o conjunto de travas.
+     *
+     * @param listras Quantidade de listras (arredondada para a próxima potência de dois).
+     *                Com uma única listra, o conjunto equivale a uma trava global.
+     */
+    public TravasListradas(int listras) {
+        if (listras < 1) {
+            throw new IllegalArgumentException("A quantidade de listras deve ser positiva.");
+        }
+        int tamanho = Integer.highestOneBit(listras);
+        if (tamanho < listras) {
+            tamanho <<= 1;
+        }
+        this.travas = new ReentrantLock[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            travas[i] = new ReentrantLock();
+        }
+        this.mascara = tamanho - 1;
+    }
+
+    /**
+     * Conjunto compartilhado pelos componentes que não recebem um conjunto próprio,
+     * para que todos coordenem o acesso às mesmas contas.
+     *
+     * @return Conjunto padrão de travas.
+     */
+    public static TravasListradas padrao() {
+        return PADRAO;
+    }
+
+    public int getListras() {
+        return travas.length;
+    }
+
+    /**
+     * Índice da listra associada à chave.
+     *
+     * @param chave Chave protegida.
+     * @return Índice da listra.
+     */
+    public int listra(long chave) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    public void travar(long chave) {
+        adquirir(travas[listra(chave)]);
+    }
+
+    private static void adquirir(ReentrantLock trava) {
+        if (trava.tryLock()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        trava.lock();
+        MetricasBanco.padrao().esperaTrava(System.nanoTime() - inicio);
+    }
+
+    public void destravar(long chave) {
+        travas[listra(chave)].unlock();
+    }
+
+    /**
+     * Adquire as travas de duas chaves em ordem global de listra.
+     *
+     * @param chaveA Primeira chave.
+     * @param chaveB Segunda chave.
+     */
+    public void travarPar(long chaveA, long chaveB) {
+        int a = listra(chaveA);
+        int b = listra(chaveB);
+        if (a == b) {
+            adquirir(travas[a]);
+        } else {
+            adquirir(travas[Math.min(a, b)]);
+            adquirir(travas[Math.max(a, b)]);
+        }
+    }
+
+    /**
+     * Libera as travas adquiridas por {@link #travarPar(long, long)}.
+     *
+     * @param chaveA Primeira chave.
+     * @param chaveB Segunda chave.
+     */
+    public void destravarPar(long chaveA, long chaveB) {
+        int a = listra(chaveA);
+        int b = listra(chaveB);
+        if (a == b) {
+            travas[a].unlock();
+        } else {
+            travas[Math.max(a, b)].unlock();
+            travas[Math.min(a, b)].unlock();
+        }
+    }
+
+    /**
+     * Adquire várias listras de uma vez, para operações em lote. Os índices
+     * devem estar em ordem crescente e sem repetição, a mesma ordem global de
+     * {@link #travarPar(long, long)}, para não haver deadlock com as demais
+     * operações.
+     *
+     * @param listras Índices de listra, obtidos com {@link #listra(long)}.
+     * @param quantidade Quantidade de índices válidos no início do array.
+     */
+    public void travarListras(int[] listras, int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            adquirir(travas[listras[i]]);
+        }
+    }
+
+    /**
+     * Libera as listras adquiridas por {@link #travarListras(int[], int)}.
+     *
+     * @param listras Os mesmos índices passados ao travar.
+     * @param quantidade Quantidade de índices válidos no início do array.
+     */
+    public void destravarListras(int[] listras, int quantidade) {
+        for (int i = quantidade - 1; i >= 0; i--) {
+            travas[listras[i]].unlock();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.controller.BancoAgencias;
+import br.ufrn.bti.banco1000.exception.AgenciaNotFoundException;
+import br.ufrn.bti.banco1000.exception.ContaNotFoundException;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.ContaSalario;
+import br.ufrn.bti.banco1000.model.Movimentacao;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BancoAgenciasTest {
+
+    private final Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+
+    @Test
+    void testTransferenciasEntreAgenciasConservamOTotal() throws Exception {
+        int agencias = 4;
+        int contasPorAgencia = 8;
+        try (BancoAgencias banco = new BancoAgencias()) {
+            for (int a = 1; a <= agencias; a++) {
+                banco.criarAgencia(a, "Agência " + a);
+                for (int n = 1; n <= contasPorAgencia; n++) {
+                    banco.adicionarConta(new Conta("Conta", cliente, a, n, Conta.TipoConta.CORRENTE, 1, 100.00)).get();
+                }
+            }
+
+            Random aleatorio = new Random(42);
+            List<CompletableFuture<Void>> transferencias = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                int agenciaOrigem = 1 + aleatorio.nextInt(agencias);
+                int numeroOrigem = 1 + aleatorio.nextInt(contasPorAgencia);
+                int agenciaDestino = 1 + aleatorio.nextInt(agencias);
+                int numeroDestino = 1 + aleatorio.nextInt(contasPorAgencia);
+                if (agenciaOrigem == agenciaDestino && numeroOrigem == numeroDestino) {
+                    continue;
+                }
+                transferencias.add(banco.transferir(agenciaOrigem, numeroOrigem, agenciaDestino, numeroDestino,
+                        1 + aleatorio.nextInt(3_000) / 100.0));
+            }
+            int concluidas = 0;
+            for (CompletableFuture<Void> transferencia : transferencias) {
+                try {
+                    transferencia.get();
+                    concluidas++;
+                } catch (ExecutionException e) {
+                    assertEquals(IllegalStateException.class, e.getCause().getClass());
+                }
+            }
+
+            long total = 0;
+            int enviadas = 0;
+            int recebidas = 0;
+            for (int a = 1; a <= agencias; a++) {
+                for (Conta conta : banco.listarContas(a).get()) {
+                    assertTrue(conta.getSaldoCentavos() >= 0);
+                    total += conta.getSaldoCentavos();
+                    for (Movimentacao movimentacao : conta.getMovimentacoes()) {
+                        if (movimentacao.getTipo() == Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA) {
+                            enviadas++;
+                        } else if (movimentacao.getTipo() == Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA) {
+                            recebidas++;
+                        }
+                    }
+                }
+            }
+            assertEquals(agencias * contasPorAgencia * 10_000L, total);
+            assertEquals(concluidas, enviadas);
+            assertEquals(concluidas, recebidas);
+        }
+    }
+
+    @Test
+    void testEncerramentoDuranteTransferenciasNaoPerdeReservas() throws Exception {
+        BancoAgencias banco = new BancoAgencias();
+        banco.criarAgencia(1, "Centro");
+        banco.criarAgencia(2, "Zona Norte");
+        Conta[] contas = new Conta[8];
+        for (int i = 0; i < contas.length; i++) {
+            contas[i] = new Conta("Conta", cliente, 1 + i % 2, i, Conta.TipoConta.CORRENTE, 1, 100.00);
+            banco.adicionarConta(contas[i]).get();
+        }
+
+        Thread[] threads = new Thread[2];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                Random aleatorio = new Random();
+                for (int i = 0; i < 5_000; i++) {
+                    int origem = aleatorio.nextInt(contas.length);
+                    int destino = aleatorio.nextInt(contas.length);
+                    banco.transferir(1 + origem % 2, origem, 1 + destino % 2, destino, 1.00);
+                }
+            });
+            threads[t].start();
+        }
+        banco.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Transferências aceitas terminam antes do encerramento; as demais são recusadas sem reservar
+        long total = 0;
+        for (Conta conta : contas) {
+            total += conta.getSaldoCentavos();
+        }
+        assertEquals(contas.length * 10_000L, total);
+        ExecutionException erro = assertThrows(ExecutionException.class,
+                () -> banco.transferir(1, 0, 2, 1, 1.00).get());
+        assertInstanceOf(IllegalStateException.class, erro.getCause());
+    }
+
+    @Test
+    void testTransferenciaRecusadaDevolveAReserva() throws Exception {
+        try (BancoAgencias banco = new BancoAgencias()) {
+            banco.criarAgencia(1, "Centro");
+            banco.criarAgencia(2, "Zona Norte");
+            ContaSalario salario = new ContaSalario("Salário", cliente, 1, 10, 1, 50.00, 1);
+            banco.adicionarConta(salario).get();
+            banco.adicionarConta(new Conta("Destino", cliente, 2, 20, Conta.TipoConta.CORRENTE, 1, 0.00)).get();
+
+            ExecutionException erro = assertThrows(ExecutionException.class,
+                    () -> banco.transferir(1, 10, 2, 99, 30.00).get());
+            assertInstanceOf(ContaNotFoundException.class, erro.getCause());
+            assertEquals(5_000L, banco.consultarSaldoCentavos(1, 10).get());
+            assertEquals(0, salario.getSaquesRealizados());
+            assertTrue(salario.getMovimentacoes().isEmpty());
+
+            erro = assertThrows(ExecutionException.class, () -> banco.transferir(1, 10, 2, 20, 80.00).get());
+            assertInstanceOf(IllegalStateException.class, erro.getCause());
+            erro = assertThrows(ExecutionException.class, () -> banco.transferir(1, 10, 3, 20, 10.00).get());
+            assertInstanceOf(AgenciaNotFoundException.class, erro.getCause());
+
+            // O limite de um saque continua disponível depois das recusas
+            banco.transferir(1, 10, 2, 20, 30.00).get();
+            assertEquals(2_000L, banco.consultarSaldoCentavos(1, 10).get());
+            assertEquals(3_000L, banco.consultarSaldoCentavos(2, 20).get());
+            erro = assertThrows(ExecutionException.class, () -> banco.transferir(1, 10, 2, 20, 1.00).get());
+            assertEquals("Limite de saques mensais excedido.", erro.getCause().getMessage());
+        }
+    }
+
+    @Test
+    void testCreditoRecusadoNaMesmaAgenciaDevolveAReserva() throws Exception {
+        try (BancoAgencias banco = new BancoAgencias()) {
+            banco.criarAgencia(1, "Centro");
+            banco.adicionarConta(new Conta("Origem", cliente, 1, 1, Conta.TipoConta.CORRENTE, 1, 1.0e16)).get();
+            banco.adicionarConta(new Conta("Destino", cliente, 1, 2, Conta.TipoConta.CORRENTE, 1, 9.0e16)).get();
+
+            // O saldo do destino estouraria o maior valor representável
+            ExecutionException erro = assertThrows(ExecutionException.class,
+                    () -> banco.transferir(1, 1, 1, 2, 5.0e15).get());
+            assertInstanceOf(IllegalStateException.class, erro.getCause());
+            assertEquals(1_000_000_000_000_000_000L, banco.consultarSaldoCentavos(1, 1).get());
+            assertTrue(banco.buscarConta(1, 1).get().getMovimentacoes().isEmpty());
+
+            erro = assertThrows(ExecutionException.class, () -> banco.transferir(1, 1, 1, 1, 10.00).get());
+            assertInstanceOf(IllegalArgumentException.class, erro.getCause());
+        }
+    }
+}
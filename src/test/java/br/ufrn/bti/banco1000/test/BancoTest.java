@@ -2,10 +2,32 @@ package br.ufrn.bti.banco1000.test;
 
 import br.ufrn.bti.banco1000.controller.ClienteController;
 import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.exception.ContaNotFoundException;
+import br.ufrn.bti.banco1000.model.Agencia;
 import br.ufrn.bti.banco1000.model.Cliente;
 import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.ContaCorrente;
+import br.ufrn.bti.banco1000.model.ContaSalario;
+import br.ufrn.bti.banco1000.model.Movimentacao;
+import br.ufrn.bti.banco1000.model.OrdemTransferencia;
+import br.ufrn.bti.banco1000.model.ResultadoTransferencia;
+import br.ufrn.bti.banco1000.model.Transferencia;
+import br.ufrn.bti.banco1000.persistence.MigracaoHistorico;
+import br.ufrn.bti.banco1000.utils.RegistroEventos;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -52,6 +74,7 @@ class BancoTest {
 
         contaController.depositar(conta, 500.00);
         assertEquals(1500.00, conta.getSaldo());
+        assertEquals(1, conta.getMovimentacoes().size());
     }
 
     @Test
@@ -66,6 +89,23 @@ class BancoTest {
         assertEquals(800.00, conta.getSaldo());
     }
 
+    @Test
+    void testTransferenciaLidaDoCsvNaoMovimentaAsContas() {
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        Conta origem = new Conta("Origem", cliente, 1, 1, Conta.TipoConta.CORRENTE, 1234, 100.00);
+        Conta destino = new Conta("Destino", cliente, 1, 2, Conta.TipoConta.CORRENTE, 1234, 0.00);
+        Transferencia transferencia = new Transferencia(origem, destino, 60.00, "Aluguel, março");
+        assertThrows(IllegalStateException.class, () -> new Transferencia(origem, destino, 60.00, "Sem saldo"));
+
+        Transferencia lida = Transferencia.fromCsv(transferencia.toCsv(), origem, destino);
+        assertEquals(60.00, lida.getValor());
+        assertEquals("Aluguel, março", lida.getDescricao());
+        assertEquals(transferencia.getDataFormatada().substring(0, 10), lida.getDataFormatada().substring(0, 10));
+        assertEquals(40.00, origem.getSaldo());
+        assertEquals(60.00, destino.getSaldo());
+        assertEquals(1, destino.getMovimentacoes().size());
+    }
+
     @Test
     void testTransferencia() {
         Cliente clienteJoao = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
@@ -84,5 +124,436 @@ class BancoTest {
 
         assertEquals(1000.00, contaJoao.getSaldo());
         assertEquals(2500.00, contaAna.getSaldo());
+
+        // Exatamente uma entrada de débito e uma de crédito por transferência
+        Transferencia devolucao = contaController.realizarTransferencia(contaAna, contaJoao, 100.00, "Devolução");
+        assertEquals("Devolução", devolucao.getDescricao());
+        assertEquals(List.of(Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA,
+                        Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA),
+                contaJoao.getMovimentacoes().stream().map(Movimentacao::getTipo).toList());
+        assertEquals(List.of(Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA,
+                        Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA),
+                contaAna.getMovimentacoes().stream().map(Movimentacao::getTipo).toList());
+    }
+
+    @Test
+    void testMigracaoRemoveMovimentacoesDuplicadas(@TempDir Path pasta) throws IOException {
+        // Histórico gravado pela versão antiga: depósito pelo controller (duplicado),
+        // transferência pelo controller (saque + enviada duplicada) e dois saques legítimos iguais
+        Path antigo = pasta.resolve("movimentacoes.csv");
+        Files.write(antigo, List.of(
+                "DEPOSITO,1,Depósito realizado,50.0,2024-03-01",
+                "DEPOSITO,1,Depósito realizado,50.0,2024-03-01",
+                "SAQUE,1,Saque realizado,20.0,2024-03-01",
+                "DEPOSITO,2,Depósito realizado,20.0,2024-03-01",
+                "TRANSFERENCIA_ENVIADA,1,Transferência enviada para conta 2,20.0,2024-03-01",
+                "TRANSFERENCIA_RECEBIDA,2,Transferência recebida da conta 1,20.0,2024-03-01",
+                "TRANSFERENCIA_ENVIADA,1,Transferência enviada para conta 2,20.0,2024-03-01",
+                "TRANSFERENCIA_RECEBIDA,2,Transferência recebida da conta 1,20.0,2024-03-01",
+                "SAQUE,1,Saque realizado,5.0,2024-03-02",
+                "SAQUE,1,Saque realizado,5.0,2024-03-02",
+                "SAQUE,1,Saque realizado,5.0,2024-03-02",
+                "SAQUE,1,Saque realizado,5.0,2024-03-02"
+        ));
+        Path migrado = pasta.resolve("migrado.csv");
+
+        assertEquals(7, MigracaoHistorico.migrarCsv(antigo, migrado));
+        assertEquals(List.of(
+                "DEPOSITO,1,Depósito realizado,50.0,2024-03-01",
+                "TRANSFERENCIA_ENVIADA,1,Transferência enviada para conta 2,20.0,2024-03-01",
+                "TRANSFERENCIA_RECEBIDA,2,Transferência recebida da conta 1,20.0,2024-03-01",
+                "SAQUE,1,Saque realizado,5.0,2024-03-02",
+                "SAQUE,1,Saque realizado,5.0,2024-03-02"
+        ), Files.readAllLines(migrado));
+    }
+
+    @Test
+    void testEventosDaContaSalarioSaoRegistradosEmSegundoPlano() throws IOException {
+        List<String> linhas = new CopyOnWriteArrayList<>();
+        RegistroEventos registro = new RegistroEventos(new RegistroEventos.Destino() {
+            @Override
+            public void escrever(CharSequence linha) {
+                linhas.add(linha.toString());
+            }
+
+            @Override
+            public void descarregar() {
+            }
+        }, 16, RegistroEventos.Nivel.INFO);
+        RegistroEventos anterior = RegistroEventos.padrao();
+        RegistroEventos.configurarPadrao(registro);
+        try {
+            Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+            ContaSalario conta = new ContaSalario("Salário", cliente, 1, 777, 1234, 0.00, 2);
+            conta.depositar(100.00);
+            conta.sacar(30.00);
+            registro.descarregar();
+            assertEquals(2, linhas.size());
+            assertTrue(linhas.get(0).endsWith("INFO Depósito de 100.00 realizado na conta salário 777"));
+            assertTrue(linhas.get(1).endsWith("INFO Saque de 30.00 realizado na conta 777. Saques restantes este mês: 1"));
+
+            registro.setNivelMinimo(RegistroEventos.Nivel.DESLIGADO);
+            conta.depositar(10.00);
+            registro.descarregar();
+            assertEquals(2, linhas.size());
+            assertEquals(0, registro.getDescartados());
+        } finally {
+            RegistroEventos.configurarPadrao(anterior);
+            registro.close();
+        }
+    }
+
+    @Test
+    void testContaDuplicada() {
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        contaController.criarConta("Conta João", cliente, 1, 12345, Conta.TipoConta.CORRENTE, 1234, 100.00);
+        contaController.criarConta("Conta João 2", cliente, 2, 12345, Conta.TipoConta.CORRENTE, 1234, 100.00);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                contaController.criarConta("Outra", cliente, 1, 12345, Conta.TipoConta.POUPANCA, 1, 0.00));
+        assertEquals(2, contaController.listarContas().size());
+        assertNull(contaController.buscarConta(3, 12345));
+    }
+
+    @Test
+    void testBuscarContaNaAgencia() {
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        Agencia agencia = new Agencia(1, "Centro");
+        Conta conta = new Conta("Conta João", cliente, 1, 12345, Conta.TipoConta.CORRENTE, 1234, 100.00);
+
+        agencia.adicionarConta(conta);
+
+        assertSame(conta, agencia.buscarConta(12345));
+        assertThrows(IllegalArgumentException.class, () -> agencia.adicionarConta(conta));
+        assertThrows(ContaNotFoundException.class, () -> agencia.buscarConta(99999));
+    }
+
+    @Test
+    void testImportarClientesEContas(@TempDir Path pasta) {
+        clienteController.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        clienteController.cadastrarCliente("Ana Souza", "01234567890", "ana@email.com", "88888-8888");
+        contaController.criarConta("João Silva", clienteController.buscarClientePorCpf("12345678901"),
+                1, 12345, Conta.TipoConta.CORRENTE, 1234, 1500.00);
+        contaController.criarConta("Ana Souza", clienteController.buscarClientePorCpf("01234567890"),
+                2, 67890, Conta.TipoConta.POUPANCA, 5678, 2000.00);
+
+        String arquivoClientes = pasta.resolve("clientes.csv").toString();
+        String arquivoContas = pasta.resolve("contas.csv").toString();
+        clienteController.exportarClientesCsv(arquivoClientes);
+        contaController.exportarContasCsv(arquivoContas);
+
+        ClienteController novosClientes = new ClienteController();
+        ContaController novasContas = new ContaController();
+        novosClientes.importarClientesCsv(arquivoClientes);
+        novasContas.importarContasCsv(arquivoContas, novosClientes);
+
+        assertEquals(2, novosClientes.listarClientes().size());
+        assertEquals("Ana Souza", novosClientes.buscarClientePorCpf("01234567890").getNome());
+        assertNull(novosClientes.buscarClientePorCpf("1234567890"));
+        Conta conta = novasContas.buscarConta(2, 67890);
+        assertNotNull(conta);
+        assertSame(novosClientes.buscarClientePorNome("Ana Souza"), conta.getCliente());
+    }
+
+    @Test
+    @Timeout(30)
+    void testTransferenciasConcorrentesEmSentidosOpostos() throws InterruptedException {
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        contaController.criarConta("Conta A", cliente, 1, 1, Conta.TipoConta.CORRENTE, 1234, 10_000.00);
+        contaController.criarConta("Conta B", cliente, 2, 2, Conta.TipoConta.CORRENTE, 1234, 10_000.00);
+        Conta contaA = contaController.buscarConta(1, 1);
+        Conta contaB = contaController.buscarConta(2, 2);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Conta origem = (t % 2 == 0) ? contaA : contaB;
+            Conta destino = (t % 2 == 0) ? contaB : contaA;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    contaController.transferir(origem, destino, 1.00);
+                    contaController.depositar(origem, 1.00);
+                    contaController.sacar(origem, 1.00);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(20_000.00, contaA.getSaldo() + contaB.getSaldo(), 0.001);
+        assertEquals(10_000.00, contaA.getSaldo(), 0.001);
+    }
+
+    @Test
+    @Timeout(30)
+    void testTransferenciasConcorrentesEntreListrasConservamOSaldo() throws InterruptedException {
+        // Poucas listras para muitas contas: transferências compartilham e cruzam listras
+        ContaController controller = new ContaController(8);
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        Conta[] contas = new Conta[64];
+        for (int i = 0; i < contas.length; i++) {
+            controller.criarConta("Conta " + i, cliente, 1, i, Conta.TipoConta.CORRENTE, 1234, 5.00);
+            contas[i] = controller.buscarConta(1, i);
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long semente = t;
+            threads.add(new Thread(() -> {
+                Random aleatorio = new Random(semente);
+                for (int i = 0; i < 20_000; i++) {
+                    Conta origem = contas[aleatorio.nextInt(contas.length)];
+                    Conta destino = contas[aleatorio.nextInt(contas.length)];
+                    if (origem == destino) {
+                        continue;
+                    }
+                    try {
+                        controller.transferir(origem, destino, 1.00 + aleatorio.nextInt(3));
+                    } catch (IllegalStateException e) {
+                        // Saldo insuficiente: a transferência é recusada sem alterar as contas
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long total = 0;
+        for (Conta conta : contas) {
+            assertTrue(conta.getSaldoCentavos() >= 0);
+            total += conta.getSaldoCentavos();
+        }
+        assertEquals(64 * 500L, total);
+    }
+
+    @Test
+    @Timeout(30)
+    void testSaquesConcorrentesNaoDeixamSaldoNegativo() throws InterruptedException {
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        contaController.criarConta("Conta João", cliente, 1, 1, Conta.TipoConta.CORRENTE, 1234, 1_000.00);
+        Conta conta = contaController.buscarConta(1, 1);
+        AtomicInteger saquesNegados = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    contaController.depositar(conta, 0.10);
+                    try {
+                        contaController.sacar(conta, 0.30);
+                    } catch (IllegalStateException e) {
+                        saquesNegados.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long sacados = 40_000L - saquesNegados.get();
+        assertEquals(100_000L + 40_000L * 10 - sacados * 30, conta.getSaldoCentavos());
+        assertTrue(conta.getSaldoCentavos() >= 0);
+    }
+
+    @Test
+    void testLimiteContaSalarioETaxaManutencao() {
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        ContaSalario salario = new ContaSalario("Salário", cliente, 1, 1, 1234, 100.00, 2);
+        salario.sacar(10.00);
+        assertThrows(IllegalStateException.class, () -> salario.sacar(1_000.00));
+        salario.sacar(10.00);
+        assertThrows(IllegalStateException.class, () -> salario.sacar(10.00));
+        assertEquals(80.00, salario.getSaldo());
+
+        ContaCorrente corrente = new ContaCorrente("Corrente", cliente, 1, 2, 1234, 10.00, 7.50);
+        corrente.aplicarTaxaManutencao();
+        assertThrows(IllegalStateException.class, corrente::aplicarTaxaManutencao);
+        assertEquals(250, corrente.getSaldoCentavos());
+    }
+
+    @Test
+    void testCreditoNaoEstouraSaldo() {
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        contaController.criarConta("Conta A", cliente, 1, 1, Conta.TipoConta.CORRENTE, 1234, 100.00);
+        contaController.criarConta("Conta B", cliente, 1, 2, Conta.TipoConta.CORRENTE, 1234, 0.00);
+        Conta contaA = contaController.buscarConta(1, 1);
+        Conta contaB = contaController.buscarConta(1, 2);
+
+        // O valor satura em Long.MAX_VALUE centavos: o crédito estouraria o saldo
+        assertThrows(IllegalStateException.class, () -> contaController.depositar(contaA, 1e300));
+        assertEquals(10_000, contaA.getSaldoCentavos());
+        assertTrue(contaA.getMovimentacoes().isEmpty());
+
+        contaB.reaplicarMovimentacao(Movimentacao.TipoMovimentacao.DEPOSITO, Long.MAX_VALUE - 100, Movimentacao.SEM_CONTRAPARTE, 0);
+        assertThrows(IllegalStateException.class, () -> contaController.transferir(contaA, contaB, 2.00));
+        assertEquals(List.of(ResultadoTransferencia.RECUSADA),
+                contaController.transferirLote(List.of(new OrdemTransferencia(1, 1, 1, 2, 2.00))));
+        // O débito da origem é devolvido quando o crédito do destino falha
+        assertEquals(10_000, contaA.getSaldoCentavos());
+        assertEquals(Long.MAX_VALUE - 100, contaB.getSaldoCentavos());
+    }
+
+    @Test
+    void testTransferirLote() {
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        contaController.criarConta("Conta A", cliente, 1, 1, Conta.TipoConta.CORRENTE, 1234, 100.00);
+        contaController.criarConta("Conta B", cliente, 1, 2, Conta.TipoConta.CORRENTE, 1234, 0.00);
+        contaController.criarConta("Conta C", cliente, 2, 3, Conta.TipoConta.POUPANCA, 1234, 0.00);
+
+        List<ResultadoTransferencia> resultados = contaController.transferirLote(List.of(
+                new OrdemTransferencia(1, 1, 1, 2, 60.00),
+                // Usa o saldo recebido na ordem anterior
+                new OrdemTransferencia(1, 2, 2, 3, 50.00),
+                new OrdemTransferencia(1, 1, 2, 3, 40.01),
+                new OrdemTransferencia(1, 1, 9, 9, 1.00),
+                new OrdemTransferencia(9, 9, 1, 1, 1.00),
+                new OrdemTransferencia(1, 1, 1, 1, 1.00),
+                new OrdemTransferencia(1, 1, 1, 2, 0.00),
+                new OrdemTransferencia(1, 1, 2, 3, 40.00)
+        ));
+
+        assertEquals(List.of(
+                ResultadoTransferencia.EFETUADA,
+                ResultadoTransferencia.EFETUADA,
+                ResultadoTransferencia.SALDO_INSUFICIENTE,
+                ResultadoTransferencia.CONTA_DESTINO_NAO_ENCONTRADA,
+                ResultadoTransferencia.CONTA_ORIGEM_NAO_ENCONTRADA,
+                ResultadoTransferencia.MESMA_CONTA,
+                ResultadoTransferencia.VALOR_INVALIDO,
+                ResultadoTransferencia.EFETUADA
+        ), resultados);
+
+        Conta contaA = contaController.buscarConta(1, 1);
+        Conta contaB = contaController.buscarConta(1, 2);
+        Conta contaC = contaController.buscarConta(2, 3);
+        assertEquals(0, contaA.getSaldoCentavos());
+        assertEquals(1_000, contaB.getSaldoCentavos());
+        assertEquals(9_000, contaC.getSaldoCentavos());
+
+        List<Movimentacao> movimentacoesC = contaC.getMovimentacoes();
+        assertEquals(2, movimentacoesC.size());
+        assertEquals(Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA, movimentacoesC.get(0).getTipo());
+        assertEquals("Transferência recebida da conta 2", movimentacoesC.get(0).getDescricao());
+    }
+
+    @Test
+    void testTransferirLoteAgrupadoEquivaleAsOrdensEmSequencia() {
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        long[] saldos = new long[6];
+        for (int i = 0; i < saldos.length; i++) {
+            saldos[i] = 1_000L * i;
+            contaController.criarConta("Conta " + i, cliente, 1, i, Conta.TipoConta.CORRENTE, 1234, i * 10.00);
+        }
+
+        // Muitas ordens por conta, com recusas no meio: o resultado deve ser o da aplicação em sequência
+        Random aleatorio = new Random(7);
+        List<OrdemTransferencia> ordens = new ArrayList<>();
+        List<ResultadoTransferencia> esperados = new ArrayList<>();
+        for (int k = 0; k < 5_000; k++) {
+            int origem = aleatorio.nextInt(saldos.length);
+            int destino = (origem + 1 + aleatorio.nextInt(saldos.length - 1)) % saldos.length;
+            long centavos = 100 + aleatorio.nextInt(2_000);
+            ordens.add(new OrdemTransferencia(1, origem, 1, destino, centavos / 100.0));
+            if (saldos[origem] < centavos) {
+                esperados.add(ResultadoTransferencia.SALDO_INSUFICIENTE);
+            } else {
+                saldos[origem] -= centavos;
+                saldos[destino] += centavos;
+                esperados.add(ResultadoTransferencia.EFETUADA);
+            }
+        }
+
+        assertEquals(esperados, contaController.transferirLote(ordens));
+        for (int i = 0; i < saldos.length; i++) {
+            Conta conta = contaController.buscarConta(1, i);
+            assertEquals(saldos[i], conta.getSaldoCentavos());
+            long historico = 0;
+            for (Movimentacao movimentacao : conta.getMovimentacoes()) {
+                historico += movimentacao.getTipo() == Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA
+                        ? movimentacao.getCentavos() : -movimentacao.getCentavos();
+            }
+            assertEquals(saldos[i] - 1_000L * i, historico);
+        }
+
+        // A conta salário não soma os débitos: cada ordem consome um saque do limite
+        ContaSalario salario = new ContaSalario("Salário", cliente, 2, 1, 1234, 100.00, 2);
+        contaController.adicionarConta(salario);
+        assertEquals(List.of(ResultadoTransferencia.EFETUADA, ResultadoTransferencia.EFETUADA,
+                        ResultadoTransferencia.RECUSADA),
+                contaController.transferirLote(List.of(new OrdemTransferencia(2, 1, 1, 0, 1.00),
+                        new OrdemTransferencia(2, 1, 1, 0, 1.00), new OrdemTransferencia(2, 1, 1, 0, 1.00))));
+        assertEquals(98.00, salario.getSaldo());
+    }
+
+    @Test
+    void testChaveIdempotenciaNaoReaplicaOperacao() {
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        contaController.criarConta("Origem", cliente, 1, 1, Conta.TipoConta.CORRENTE, 1234, 100.00);
+        contaController.criarConta("Destino", cliente, 1, 2, Conta.TipoConta.CORRENTE, 1234, 0.00);
+        Conta origem = contaController.buscarConta(1, 1);
+        Conta destino = contaController.buscarConta(1, 2);
+
+        assertTrue(contaController.transferir(origem, destino, 30.00, "pagamento-1"));
+        assertFalse(contaController.transferir(origem, destino, 30.00, "pagamento-1"));
+        assertEquals(70.00, origem.getSaldo());
+        assertEquals(30.00, destino.getSaldo());
+
+        // A recusa original é repetida, mesmo que o saldo agora permita a operação
+        assertThrows(IllegalStateException.class, () -> contaController.sacar(destino, 50.00, "saque-1"));
+        contaController.depositar(destino, 100.00);
+        assertThrows(IllegalStateException.class, () -> contaController.sacar(destino, 50.00, "saque-1"));
+        assertEquals(130.00, destino.getSaldo());
+
+        assertThrows(IllegalArgumentException.class, () -> contaController.sacar(origem, 31.00, "pagamento-1"));
+        assertTrue(contaController.depositar(origem, 5.00, "deposito-1"));
+        assertEquals(75.00, origem.getSaldo());
+    }
+
+    @Test
+    @Timeout(10)
+    void testChaveEmAndamentoNaoEDescartadaComOCacheCheio() throws Exception {
+        CountDownLatch iniciado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        Conta conta = new Conta("Lenta", cliente, 1, 1, Conta.TipoConta.CORRENTE, 1234, 0.00) {
+            @Override
+            public void depositar(double valor, long instante) {
+                if (valor == 7.00 && iniciado.getCount() > 0) {
+                    iniciado.countDown();
+                    try {
+                        liberar.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.depositar(valor, instante);
+            }
+        };
+        ContaController contas;
+        System.setProperty("banco1000.idempotencia.capacidade", "1");
+        try {
+            contas = new ContaController();
+        } finally {
+            System.clearProperty("banco1000.idempotencia.capacidade");
+        }
+        contas.adicionarConta(conta);
+
+        Thread original = new Thread(() -> contas.depositar(conta, 7.00, "deposito-lento"));
+        original.start();
+        iniciado.await();
+        // Enche todos os segmentos enquanto o depósito original ainda está em andamento
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(contas.depositar(conta, 1.00, "deposito-" + i));
+        }
+        liberar.countDown();
+        original.join();
+
+        assertFalse(contas.depositar(conta, 7.00, "deposito-lento"));
+        assertEquals(1007.00, conta.getSaldo());
     }
-}
\ No newline at end of file
+}
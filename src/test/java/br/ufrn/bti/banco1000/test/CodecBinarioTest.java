@@ -0,0 +1,150 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.model.Agencia;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.ContaCorrente;
+import br.ufrn.bti.banco1000.model.ContaPoupanca;
+import br.ufrn.bti.banco1000.model.ContaSalario;
+import br.ufrn.bti.banco1000.model.Movimentacao;
+import br.ufrn.bti.banco1000.model.Transferencia;
+import br.ufrn.bti.banco1000.persistence.CodecBinario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodecBinarioTest {
+
+    @Test
+    void testRegistrosIdaEVolta() {
+        ClienteController clientes = new ClienteController();
+        clientes.cadastrarCliente("João Silva", "01234567890", "joao@email.com", "99999-9999");
+        Cliente joao = clientes.buscarClientePorCpf("01234567890");
+        ContaCorrente corrente = new ContaCorrente("Corrente", joao, 1, 100, 1234, 500.00, 12.50);
+        ContaSalario salario = new ContaSalario("Salário", joao, 1, 200, 4321, 80.00, 3);
+        salario.sacar(10.00);
+        corrente.marcarMesFechado(YearMonth.of(2024, 3));
+        Movimentacao comVirgula = new Movimentacao(Movimentacao.TipoMovimentacao.DEPOSITO, 100,
+                "Ajuste, manual\nsegunda linha", 1.25, new Date(1_700_000_000_000L));
+        Movimentacao padrao = new Movimentacao(Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA, 200,
+                "Transferência recebida da conta 100", 2.00, new Date(1_700_000_060_000L), 100);
+        Transferencia transferencia = new Transferencia(corrente, salario, 15.00, "Aluguel, março");
+
+        CodecBinario.Escritor escritor = new CodecBinario.Escritor();
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        escritor.cabecalho(buffer);
+        escritor.agencia(buffer, new Agencia(1, "Centro, Natal"));
+        escritor.conta(buffer, corrente);
+        escritor.conta(buffer, salario);
+        escritor.movimentacao(buffer, comVirgula);
+        escritor.movimentacao(buffer, padrao);
+        escritor.transferencia(buffer, transferencia);
+        buffer.flip();
+
+        ContaController contas = new ContaController();
+        CodecBinario.Leitor leitor = new CodecBinario.Leitor();
+        assertEquals(CodecBinario.VERSAO, leitor.cabecalho(buffer));
+        assertEquals(CodecBinario.REGISTRO_AGENCIA, leitor.proximoRegistro(buffer));
+        assertEquals("Centro, Natal", leitor.agencia(buffer).getNome());
+
+        assertEquals(CodecBinario.REGISTRO_CONTA, leitor.proximoRegistro(buffer));
+        ContaCorrente correnteLida = (ContaCorrente) leitor.conta(buffer, clientes::buscarClientePorCpf);
+        assertEquals(corrente.getSaldoCentavos(), correnteLida.getSaldoCentavos());
+        assertEquals(12.50, correnteLida.getTaxaManutencao());
+        assertEquals(YearMonth.of(2024, 3), correnteLida.getUltimoMesFechado());
+        assertSame(joao, correnteLida.getCliente());
+        contas.adicionarConta(correnteLida);
+
+        assertEquals(CodecBinario.REGISTRO_CONTA, leitor.proximoRegistro(buffer));
+        ContaSalario salarioLida = (ContaSalario) leitor.conta(buffer, clientes::buscarClientePorCpf);
+        assertEquals(3, salarioLida.getLimiteSaquesMensais());
+        assertEquals(1, salarioLida.getSaquesRealizados());
+        contas.adicionarConta(salarioLida);
+
+        assertEquals(CodecBinario.REGISTRO_MOVIMENTACAO, leitor.proximoRegistro(buffer));
+        Movimentacao lida = leitor.movimentacao(buffer);
+        assertEquals(comVirgula, lida);
+        assertEquals(CodecBinario.REGISTRO_MOVIMENTACAO, leitor.proximoRegistro(buffer));
+        lida = leitor.movimentacao(buffer);
+        assertEquals(padrao, lida);
+        assertEquals(100, lida.getContraparte());
+        assertNull(lida.descricaoPropria());
+
+        assertEquals(CodecBinario.REGISTRO_TRANSFERENCIA, leitor.proximoRegistro(buffer));
+        Transferencia transferenciaLida = leitor.transferencia(buffer, contas::buscarConta);
+        assertSame(correnteLida, transferenciaLida.getContaOrigem());
+        assertEquals(15.00, transferenciaLida.getValor());
+        assertEquals(transferencia.getInstante(), transferenciaLida.getInstante());
+        assertEquals("Aluguel, março", transferenciaLida.getDescricao());
+        // Reconstruir não movimenta as contas de novo
+        assertEquals(corrente.getSaldoCentavos(), correnteLida.getSaldoCentavos());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void testRegistroQueNaoCabeNoBufferPodeSerRepetido() {
+        Cliente cliente = new Cliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        Conta conta = new ContaPoupanca("Poupança de um nome bem comprido", cliente, 1, 1, 1, 10.00, 0.005);
+        CodecBinario.Escritor escritor = new CodecBinario.Escritor();
+        ByteBuffer pequeno = ByteBuffer.allocate(20);
+        escritor.cabecalho(pequeno);
+        assertThrows(BufferOverflowException.class, () -> escritor.conta(pequeno, conta));
+        assertEquals(5, pequeno.position());
+
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        pequeno.flip();
+        buffer.put(pequeno);
+        escritor.conta(buffer, conta);
+        escritor.conta(buffer, conta);
+        buffer.flip();
+
+        CodecBinario.Leitor leitor = new CodecBinario.Leitor();
+        leitor.cabecalho(buffer);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(CodecBinario.REGISTRO_CONTA, leitor.proximoRegistro(buffer));
+            Conta lida = leitor.conta(buffer, cpf -> cliente);
+            assertEquals(conta.getNome(), lida.getNome());
+            assertEquals(0.005, ((ContaPoupanca) lida).getTaxaRendimento());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new CodecBinario.Leitor().cabecalho(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 1})));
+    }
+
+    @Test
+    void testCsvDasContasGuardaOsCamposDasSubclasses(@TempDir Path pasta) throws Exception {
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+        clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        Cliente joao = clientes.buscarClientePorCpf("12345678901");
+        contas.adicionarConta(new ContaSalario("João Silva", joao, 1, 1, 1234, 50.00, 4));
+        contas.criarConta("João Silva", joao, 1, 2, Conta.TipoConta.CORRENTE, 1234, 10.00);
+        assertEquals("4", contas.buscarConta(1, 1).toCsvRow()[6]);
+        assertEquals("", contas.buscarConta(1, 2).toCsvRow()[6]);
+
+        String arquivo = pasta.resolve("contas.csv").toString();
+        contas.exportarContasCsv(arquivo);
+        // Todas as linhas têm as sete colunas do cabeçalho, inclusive a da conta comum
+        for (String linha : Files.readAllLines(Path.of(arquivo))) {
+            assertEquals(7, linha.split(",", -1).length, linha);
+        }
+        ContaController importadas = new ContaController();
+        importadas.importarContasCsv(arquivo, clientes);
+
+        assertEquals(4, ((ContaSalario) importadas.buscarConta(1, 1)).getLimiteSaquesMensais());
+        assertEquals(Conta.class, importadas.buscarConta(1, 2).getClass());
+        assertEquals(Conta.class, Conta.fromCsv(String.join(",", contas.buscarConta(1, 2).toCsvRow()), joao).getClass());
+        // Linhas de seis campos, gravadas antes da sétima coluna
+        assertEquals(Conta.class, Conta.fromCsv("2,João Silva,1,CORRENTE,10.00,1234", joao).getClass());
+        assertEquals(Conta.class, Conta.fromCsvRow(contas.buscarConta(1, 2).toCsvRow(), joao).getClass());
+    }
+}
@@ -0,0 +1,114 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.model.ControleVersoes;
+import br.ufrn.bti.banco1000.model.EstadosPreservados;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EstadosPreservadosTest {
+
+    /** Fonte alterada diretamente pelo teste. */
+    private static final class FonteTeste implements EstadosPreservados.Fonte {
+        int tamanho;
+        long saldo;
+
+        @Override
+        public int tamanho() {
+            return tamanho;
+        }
+
+        @Override
+        public long getSaldoComprometido() {
+            return saldo;
+        }
+
+        void alterar(int tamanho, long saldo) {
+            this.tamanho = tamanho;
+            this.saldo = saldo;
+        }
+    }
+
+    @Test
+    void testVersaoAbertaEnxergaOEstadoAnteriorAAlteracao() {
+        ControleVersoes versoes = new ControleVersoes();
+        EstadosPreservados estados = new EstadosPreservados();
+        FonteTeste fonte = new FonteTeste();
+        fonte.alterar(3, 300);
+
+        long versao = versoes.abrir();
+        estados.preservar(versoes, versao + 1, fonte);
+        fonte.alterar(4, 450);
+
+        assertEquals(3, estados.tamanhoEm(versao, fonte.tamanho()));
+        assertEquals(300, estados.saldoEm(versao, fonte.getSaldoComprometido()));
+        // A época da alteração ainda não foi lida por nenhuma versão: vale o estado atual
+        assertEquals(4, estados.tamanhoEm(versao + 1, fonte.tamanho()));
+        assertEquals(450, estados.saldoEm(versao + 1, fonte.getSaldoComprometido()));
+    }
+
+    @Test
+    void testSoAPrimeiraAlteracaoDaEpocaPreserva() {
+        ControleVersoes versoes = new ControleVersoes();
+        EstadosPreservados estados = new EstadosPreservados();
+        FonteTeste fonte = new FonteTeste();
+        fonte.alterar(1, 100);
+
+        long versao = versoes.abrir();
+        estados.preservar(versoes, versao + 1, fonte);
+        fonte.alterar(2, 200);
+        estados.preservar(versoes, versao + 1, fonte);
+        fonte.alterar(3, 300);
+
+        assertEquals(1, estados.tamanhoEm(versao, fonte.tamanho()));
+        assertEquals(100, estados.saldoEm(versao, fonte.getSaldoComprometido()));
+    }
+
+    @Test
+    void testSemVersaoAbertaNadaEPreservado() {
+        ControleVersoes versoes = new ControleVersoes();
+        EstadosPreservados estados = new EstadosPreservados();
+        FonteTeste fonte = new FonteTeste();
+        fonte.alterar(1, 100);
+
+        long versao = versoes.abrir();
+        versoes.fechar(versao);
+        estados.preservar(versoes, versao + 1, fonte);
+        fonte.alterar(2, 200);
+
+        // Nenhuma versão aberta dependia do estado anterior
+        assertEquals(2, estados.tamanhoEm(versao, fonte.tamanho()));
+        assertEquals(200, estados.saldoEm(versao, fonte.getSaldoComprometido()));
+    }
+
+    @Test
+    void testCadaVersaoEnxergaOSeuEstado() {
+        ControleVersoes versoes = new ControleVersoes();
+        EstadosPreservados estados = new EstadosPreservados();
+        FonteTeste fonte = new FonteTeste();
+        fonte.alterar(1, 100);
+
+        long primeira = versoes.abrir();
+        estados.preservar(versoes, primeira + 1, fonte);
+        fonte.alterar(2, 200);
+        long segunda = versoes.abrir();
+        estados.preservar(versoes, segunda + 1, fonte);
+        fonte.alterar(3, 300);
+
+        assertEquals(1, estados.tamanhoEm(primeira, fonte.tamanho()));
+        assertEquals(100, estados.saldoEm(primeira, fonte.getSaldoComprometido()));
+        assertEquals(2, estados.tamanhoEm(segunda, fonte.tamanho()));
+        assertEquals(200, estados.saldoEm(segunda, fonte.getSaldoComprometido()));
+
+        // Fechada a primeira, a preservação seguinte descarta o estado dela sem afetar a segunda
+        versoes.fechar(primeira);
+        long terceira = versoes.abrir();
+        versoes.fechar(terceira);
+        estados.preservar(versoes, terceira + 1, fonte);
+        fonte.alterar(4, 400);
+
+        assertEquals(2, estados.tamanhoEm(segunda, fonte.tamanho()));
+        assertEquals(200, estados.saldoEm(segunda, fonte.getSaldoComprometido()));
+        versoes.fechar(segunda);
+    }
+}
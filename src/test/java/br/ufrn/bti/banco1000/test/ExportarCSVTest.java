@@ -0,0 +1,157 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.utils.CursorCSV;
+import br.ufrn.bti.banco1000.utils.Datas;
+import br.ufrn.bti.banco1000.utils.Dinheiro;
+import br.ufrn.bti.banco1000.utils.EscritorCSV;
+import br.ufrn.bti.banco1000.utils.ExportarCSV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportarCSVTest {
+
+    @Test
+    void testImportacaoParalelaIgualASequencial(@TempDir Path dir) throws Exception {
+        StringBuilder csv = new StringBuilder("Número Conta,Nome Cliente\n");
+        for (int i = 0; i < 2000; i++) {
+            csv.append(i).append(",João Ção ").append(i);
+            csv.append(i % 7 == 0 ? ",,\r\n" : "\n");
+        }
+        csv.append("última,sem quebra");
+        Path arquivo = dir.resolve("contas.csv");
+        Files.writeString(arquivo, csv, StandardCharsets.UTF_8);
+
+        List<String[]> sequencial = ExportarCSV.importar(arquivo.toString());
+        List<String[]> paralelo = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Blocos pequenos para forçar cortes no meio de linhas e de caracteres acentuados
+            ExportarCSV.importarParalelo(arquivo, 37, pool, paralelo::add);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(2001, sequencial.size());
+        assertEquals(sequencial.size(), paralelo.size());
+        for (int i = 0; i < sequencial.size(); i++) {
+            assertArrayEquals(sequencial.get(i), paralelo.get(i), "linha " + i);
+        }
+        assertArrayEquals(new String[]{"7", "João Ção 7"}, paralelo.get(7));
+        assertArrayEquals(new String[]{"última", "sem quebra"}, paralelo.get(2000));
+    }
+
+    @Test
+    void testDivisaoEquivalenteAoSplit(@TempDir Path dir) throws Exception {
+        String[] linhas = {"a,b,c", "a,,c", "a,b,,", ",a", ",,", "", "sozinho"};
+        Path arquivo = dir.resolve("linhas.csv");
+        Files.writeString(arquivo, "cabecalho\n" + String.join("\n", linhas) + "\n", StandardCharsets.UTF_8);
+
+        List<String[]> lidas = new ArrayList<>();
+        ExportarCSV.importarParalelo(arquivo.toString(), lidas::add);
+
+        assertEquals(linhas.length, lidas.size());
+        for (int i = 0; i < linhas.length; i++) {
+            assertArrayEquals(linhas[i].split(","), lidas.get(i), "linha " + i);
+        }
+    }
+
+    @Test
+    void testEscritorComBufferPequeno(@TempDir Path dir) throws Exception {
+        Path arquivo = dir.resolve("saida.csv");
+        try (EscritorCSV escritor = new EscritorCSV(arquivo, 64)) {
+            escritor.linha("Nome", "Saldo");
+            escritor.campo("Um nome bem mais longo que o buffer inteiro de sessenta e quatro bytes").fimLinha();
+            escritor.campo("José da Conceição \uD83D\uDCB0").centavos(123456).campo(-42L).fimLinha();
+            escritor.campo((String) null).centavos(-5).campo(Long.MIN_VALUE).fimLinha();
+        }
+
+        assertEquals("Nome,Saldo\n"
+                        + "Um nome bem mais longo que o buffer inteiro de sessenta e quatro bytes\n"
+                        + "José da Conceição \uD83D\uDCB0,1234.56,-42\n"
+                        + "null,-0.05," + Long.MIN_VALUE + "\n",
+                Files.readString(arquivo, StandardCharsets.UTF_8));
+        assertEquals("0.00", Dinheiro.formatar(0));
+        assertEquals("10.05", Dinheiro.formatar(1005));
+        assertEquals("-3.10", Dinheiro.formatar(-310));
+    }
+
+    @Test
+    void testCamposEntreAspasNasTresLeituras(@TempDir Path dir) throws Exception {
+        Path arquivo = dir.resolve("aspas.csv");
+        String[][] linhas = new String[300][];
+        try (EscritorCSV escritor = new EscritorCSV(arquivo, 64)) {
+            escritor.linha("Número", "Descrição");
+            for (int i = 0; i < linhas.length; i++) {
+                linhas[i] = new String[]{String.valueOf(i), i % 3 == 0 ? "Aluguel, \"março\"\nparcela " + i : "Simples " + i};
+                escritor.linha(linhas[i]);
+            }
+        }
+        assertTrue(Files.readString(arquivo, StandardCharsets.UTF_8).contains("\"Aluguel, \"\"março\"\"\nparcela 0\""));
+
+        List<String[]> sequencial = new ArrayList<>();
+        ExportarCSV.importar(arquivo.toString(), sequencial::add);
+        List<String[]> paralelo = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ExportarCSV.importarParalelo(arquivo, 41, pool, paralelo::add);
+        } finally {
+            pool.shutdown();
+        }
+        List<String[]> percorridas = new ArrayList<>();
+        ExportarCSV.percorrer(arquivo, cursor -> percorridas.add(new String[]{String.valueOf(cursor.inteiro()), cursor.texto()}));
+
+        for (List<String[]> lidas : List.of(sequencial, paralelo, percorridas)) {
+            assertEquals(linhas.length, lidas.size());
+            for (int i = 0; i < linhas.length; i++) {
+                assertArrayEquals(linhas[i], lidas.get(i), "linha " + i);
+            }
+        }
+    }
+
+    @Test
+    void testCursorConverteCamposSemStrings() {
+        CursorCSV cursor = new CursorCSV();
+        byte[] bytes = "x,-42,1234.5,0.005,SALARIO,2024-03-15,\"Conceição, \"\"Zé\"\"\",Depósito 7,1.0E7,".getBytes(StandardCharsets.UTF_8);
+        for (int vez = 0; vez < 2; vez++) {
+            if (vez == 0) {
+                cursor.linha(bytes, 2, bytes.length);
+            } else {
+                cursor.linha(new String(bytes, StandardCharsets.UTF_8).substring(2));
+            }
+            assertEquals(-42, cursor.inteiro());
+            assertEquals(123450, cursor.centavos());
+            assertEquals(Double.parseDouble("0.005"), cursor.decimal());
+            assertEquals(Conta.TipoConta.SALARIO, cursor.enumeracao(Conta.TipoConta.values()));
+            assertEquals(Datas.lerDataCsv("2024-03-15"), cursor.data());
+            assertFalse(cursor.textoIgual("Conceição"));
+            assertEquals("Conceição, \"Zé\"", cursor.texto());
+            assertEquals(CursorCSV.AUSENTE, cursor.inteiroAposPrefixo("Depósito 07"));
+            assertEquals(7, cursor.inteiroAposPrefixo("Depósito "));
+            assertEquals(1_000_000_000L, cursor.centavos());
+            assertTrue(cursor.temCampo());
+            assertEquals("", cursor.texto());
+            assertFalse(cursor.temCampo());
+        }
+
+        assertThrows(NumberFormatException.class, () -> cursor.linha("12a").inteiro());
+        assertThrows(IllegalArgumentException.class, () -> cursor.linha("15/03/2024").data());
+        assertThrows(IllegalArgumentException.class, () -> cursor.linha("2024-02-30").data());
+        assertThrows(IllegalArgumentException.class, () -> cursor.linha("\"sem fim").texto());
+        assertThrows(IllegalArgumentException.class, () -> {
+            cursor.linha("a").pular();
+            cursor.texto();
+        });
+        assertArrayEquals(new String[]{"a", "b,c"}, cursor.linha("a,\"b,c\",,").campos());
+        assertArrayEquals("a,b,,".split(","), cursor.linha("a,b,,").campos());
+    }
+}
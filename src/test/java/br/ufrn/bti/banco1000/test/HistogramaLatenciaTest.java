@@ -0,0 +1,58 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.utils.HistogramaLatencia;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramaLatenciaTest {
+
+    @Test
+    void testPercentisDentroDoErroRelativo() {
+        HistogramaLatencia histograma = new HistogramaLatencia();
+        Random random = new Random(42);
+        long[] valores = new long[100_000];
+        for (int i = 0; i < valores.length; i++) {
+            // Cauda longa: a maioria em microssegundos, algumas em milissegundos
+            valores[i] = (long) (1_000 * Math.exp(random.nextGaussian() * 2));
+            histograma.registrar(valores[i]);
+        }
+        Arrays.sort(valores);
+
+        for (double percentil : new double[]{0, 50, 90, 99, 99.9, 100}) {
+            long exato = valores[Math.max(0, (int) Math.ceil(percentil / 100 * valores.length) - 1)];
+            long estimado = histograma.percentil(percentil);
+            assertTrue(estimado >= exato, "p" + percentil);
+            assertTrue(estimado <= exato + exato / HistogramaLatencia.SUBFAIXAS + 1, "p" + percentil);
+        }
+        assertEquals(valores[valores.length - 1], histograma.getMaximo());
+        assertEquals(valores.length, histograma.getQuantidade());
+        assertEquals(Arrays.stream(valores).average().orElseThrow(), histograma.getMedia(), 1e-6);
+    }
+
+    @Test
+    void testSomarEZerar() {
+        HistogramaLatencia a = new HistogramaLatencia();
+        HistogramaLatencia b = new HistogramaLatencia();
+        assertEquals(0, a.percentil(99));
+        for (int i = 1; i <= 100; i++) {
+            a.registrar(i);
+            b.registrar(i * 1_000_000L);
+        }
+        b.registrar(Long.MAX_VALUE);
+
+        a.somar(b);
+        assertEquals(201, a.getQuantidade());
+        assertEquals(81, a.percentil(40));
+        assertEquals(Long.MAX_VALUE, a.getMaximo());
+        assertTrue(a.percentil(100) >= HistogramaLatencia.MAXIMO_RASTREAVEL / 2);
+        assertThrows(IllegalArgumentException.class, () -> a.percentil(101));
+
+        a.zerar();
+        assertEquals(0, a.getQuantidade());
+        assertEquals(0, a.percentil(50));
+    }
+}
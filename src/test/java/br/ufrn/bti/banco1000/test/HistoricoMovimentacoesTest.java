@@ -0,0 +1,199 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.HistoricoMovimentacoes;
+import br.ufrn.bti.banco1000.model.Movimentacao;
+import br.ufrn.bti.banco1000.model.PaginaMovimentacoes;
+import br.ufrn.bti.banco1000.model.ResumoMensal;
+import br.ufrn.bti.banco1000.utils.Datas;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricoMovimentacoesTest {
+
+    @Test
+    void testDescricoesPadraoEPersonalizadas() {
+        HistoricoMovimentacoes historico = new HistoricoMovimentacoes(10);
+        historico.adicionar(1000L, Movimentacao.TipoMovimentacao.DEPOSITO, 12345, Movimentacao.SEM_CONTRAPARTE);
+        historico.adicionar(new Movimentacao(Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA, 10,
+                "Transferência enviada para conta 20", 5.5, new Date(2000L), 20));
+        historico.adicionar(new Movimentacao(Movimentacao.TipoMovimentacao.SAQUE, 10,
+                "Tarifa avulsa", 1.0, new Date(3000L)));
+
+        List<Movimentacao> lista = historico.visao();
+        assertEquals(3, lista.size());
+        assertEquals("Depósito realizado", lista.get(0).getDescricao());
+        assertEquals(123.45, lista.get(0).getValor(), 0.0001);
+        assertEquals(1000L, lista.get(0).getData().getTime());
+        assertEquals("Transferência enviada para conta 20", lista.get(1).getDescricao());
+        assertEquals(20, lista.get(1).getContraparte());
+        assertEquals("Tarifa avulsa", lista.get(2).getDescricao());
+    }
+
+    @Test
+    void testVisaoNaoEnxergaInclusoesPosteriores() {
+        HistoricoMovimentacoes historico = new HistoricoMovimentacoes(1);
+        for (int i = 0; i < 5; i++) {
+            historico.adicionar(i, Movimentacao.TipoMovimentacao.DEPOSITO, i + 1, Movimentacao.SEM_CONTRAPARTE);
+        }
+        List<Movimentacao> antes = historico.visao();
+        for (int i = 5; i < 3000; i++) {
+            historico.adicionar(i, Movimentacao.TipoMovimentacao.DEPOSITO, i + 1, Movimentacao.SEM_CONTRAPARTE);
+        }
+
+        assertEquals(5, antes.size());
+        assertEquals(0.05, antes.get(4).getValor(), 0.0001);
+        List<Movimentacao> depois = historico.visao();
+        assertEquals(3000, depois.size());
+        for (int i = 0; i < 3000; i += 97) {
+            assertEquals(i, depois.get(i).getData().getTime());
+        }
+        assertTrue(historico.bytesPorMovimentacao() < 30);
+    }
+
+    @Test
+    void testCsvDaMovimentacao() {
+        HistoricoMovimentacoes historico = new HistoricoMovimentacoes(10);
+        long instante = LocalDate.of(2024, 3, 15).atTime(14, 30).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        historico.adicionar(instante, Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA, 5050, 20);
+
+        Movimentacao movimentacao = historico.visao().get(0);
+        String linha = movimentacao.toCsv();
+        assertEquals("TRANSFERENCIA_RECEBIDA,10,Transferência recebida da conta 20,50.5,2024-03-15", linha);
+        assertEquals("15/03/2024 14:30:00", movimentacao.getDataFormatada());
+
+        Movimentacao lida = Movimentacao.fromCsv(linha);
+        assertEquals(movimentacao.getDescricao(), lida.getDescricao());
+        assertEquals(5050, lida.getCentavos());
+        assertEquals(LocalDate.of(2024, 3, 15).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                lida.getInstante());
+        assertThrows(IllegalArgumentException.class,
+                () -> Movimentacao.fromCsv("DEPOSITO,10,Depósito realizado,1.0,15/03/2024"));
+        // A descrição pode conter vírgulas
+        assertEquals("Ajuste, manual", Movimentacao.fromCsv("DEPOSITO,10,Ajuste, manual,1.0,2024-03-15").getDescricao());
+    }
+
+    @Test
+    void testConsultaPorPeriodoETipoPaginada() {
+        HistoricoMovimentacoes historico = new HistoricoMovimentacoes(10);
+        for (int i = 0; i < 100; i++) {
+            historico.adicionar(i * 10L, i % 2 == 0 ? Movimentacao.TipoMovimentacao.DEPOSITO
+                    : Movimentacao.TipoMovimentacao.SAQUE, i + 1, Movimentacao.SEM_CONTRAPARTE);
+        }
+
+        // Depósitos em [200, 500): instantes 200, 220, ..., 480
+        List<Long> instantes = new ArrayList<>();
+        long cursor = PaginaMovimentacoes.PRIMEIRA_PAGINA;
+        int paginas = 0;
+        do {
+            PaginaMovimentacoes pagina = historico.consultar(200, 500,
+                    EnumSet.of(Movimentacao.TipoMovimentacao.DEPOSITO), cursor, 4);
+            pagina.getMovimentacoes().forEach(m -> instantes.add(m.getInstante()));
+            cursor = pagina.getProximoCursor();
+            paginas++;
+            if (paginas == 1) {
+                // Inclusões entre as páginas não invalidam o cursor
+                historico.adicionar(305, Movimentacao.TipoMovimentacao.DEPOSITO, 1, Movimentacao.SEM_CONTRAPARTE);
+            }
+        } while (cursor != PaginaMovimentacoes.SEM_PROXIMA);
+
+        List<Long> esperados = new ArrayList<>();
+        for (long t = 200; t < 500; t += 20) {
+            esperados.add(t);
+            if (t == 300) {
+                esperados.add(305L);
+            }
+        }
+        assertEquals(esperados, instantes);
+        assertEquals(4, paginas);
+
+        PaginaMovimentacoes todas = historico.consultar(985, 2000, null, PaginaMovimentacoes.PRIMEIRA_PAGINA, 10);
+        assertEquals(1, todas.getMovimentacoes().size());
+        assertFalse(todas.temProxima());
+        assertThrows(IllegalArgumentException.class,
+                () -> historico.consultar(0, 10, null, 5_000, 10));
+    }
+
+    @Test
+    void testResumoMensalIncrementalEReconstruido() {
+        YearMonth marco = YearMonth.of(2024, 3);
+        YearMonth abril = marco.plusMonths(1);
+        long fimDeMarco = Datas.inicioDoMes(abril) - 1;
+        List<Movimentacao> movimentacoes = List.of(
+                new Movimentacao(Movimentacao.TipoMovimentacao.DEPOSITO, 10, "Depósito realizado", 100.0,
+                        new Date(Datas.inicioDoMes(marco))),
+                new Movimentacao(Movimentacao.TipoMovimentacao.DEPOSITO, 10, "Depósito realizado", 50.25,
+                        new Date(fimDeMarco)),
+                new Movimentacao(Movimentacao.TipoMovimentacao.TRANSFERENCIA_ENVIADA, 10,
+                        "Transferência enviada para conta 20", 30.0, new Date(fimDeMarco), 20),
+                new Movimentacao(Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA, 10,
+                        "Transferência recebida da conta 20", 5.0, new Date(fimDeMarco + 1), 20),
+                // Fora de ordem, de volta a março
+                new Movimentacao(Movimentacao.TipoMovimentacao.SAQUE, 10, "Saque realizado", 20.0,
+                        new Date(fimDeMarco - 1000)));
+
+        HistoricoMovimentacoes incremental = new HistoricoMovimentacoes(10);
+        movimentacoes.forEach(incremental::adicionar);
+        HistoricoMovimentacoes carregado = new HistoricoMovimentacoes(10);
+        carregado.carregar(movimentacoes);
+
+        for (HistoricoMovimentacoes historico : List.of(incremental, carregado)) {
+            ResumoMensal resumo = historico.resumoMensal(marco);
+            assertEquals(15_025, resumo.getTotalCentavos(Movimentacao.TipoMovimentacao.DEPOSITO));
+            assertEquals(2, resumo.getQuantidade(Movimentacao.TipoMovimentacao.DEPOSITO));
+            assertEquals(-3_000, resumo.getTransferenciasLiquidasCentavos());
+            assertEquals(15_025 - 2_000 - 3_000, resumo.getVariacaoSaldoCentavos());
+            assertEquals(500, historico.resumoMensal(abril).getTransferenciasLiquidasCentavos());
+            assertEquals(0, historico.resumoMensal(YearMonth.of(2023, 3)).getQuantidade(Movimentacao.TipoMovimentacao.SAQUE));
+        }
+    }
+
+    @Test
+    void testDepositosConcorrentesNaMesmaConta() throws Exception {
+        Conta conta = new Conta("Concorrente", new Cliente("Concorrente", "00000000006", "c@email.com", "84999990006"),
+                1, 10, Conta.TipoConta.CORRENTE, 1, 0);
+        long instante = Datas.inicioDoMes(YearMonth.of(2024, 3));
+        int porThread = 5_000;
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < porThread; i++) {
+                    conta.depositar(0.01, instante + i);
+                }
+            });
+            threads[t].start();
+        }
+        ResumoMensal parcial = conta.getResumoMensal(YearMonth.of(2024, 3));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int total = threads.length * porThread;
+        HistoricoMovimentacoes historico = conta.getHistorico();
+        assertEquals(total, historico.tamanho());
+        assertEquals(total, conta.getSaldoCentavos());
+        assertEquals(total, historico.getSaldoComprometido());
+        assertTrue(parcial.getQuantidade(Movimentacao.TipoMovimentacao.DEPOSITO) <= total);
+        ResumoMensal resumo = conta.getResumoMensal(YearMonth.of(2024, 3));
+        assertEquals(total, resumo.getQuantidade(Movimentacao.TipoMovimentacao.DEPOSITO));
+        assertEquals(total, resumo.getTotalCentavos(Movimentacao.TipoMovimentacao.DEPOSITO));
+        List<Movimentacao> lista = historico.visao();
+        for (int i = 0; i < total; i++) {
+            assertEquals(1, lista.get(i).getCentavos());
+        }
+        // Intercaladas entre as threads, as entradas ficam fora de ordem; a consulta usa o índice temporal
+        int encontradas = historico.consultar(instante, instante + porThread, null,
+                PaginaMovimentacoes.PRIMEIRA_PAGINA, total + 1).getMovimentacoes().size();
+        assertEquals(total, encontradas);
+    }
+}
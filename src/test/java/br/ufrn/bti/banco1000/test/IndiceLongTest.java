@@ -0,0 +1,49 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.utils.IndiceLong;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceLongTest {
+
+    @Test
+    void testInserirBuscarRemover() {
+        IndiceLong<String> indice = new IndiceLong<>();
+        assertNull(indice.put(Conta.chave(1, 10), "a"));
+        assertNull(indice.putIfAbsent(Conta.chave(1, 11), "b"));
+        assertEquals("a", indice.putIfAbsent(Conta.chave(1, 10), "c"));
+
+        assertEquals("a", indice.get(Conta.chave(1, 10)));
+        assertEquals("b", indice.get(Conta.chave(1, 11)));
+        assertNull(indice.get(Conta.chave(2, 10)));
+
+        assertEquals("a", indice.remove(Conta.chave(1, 10)));
+        assertNull(indice.get(Conta.chave(1, 10)));
+        assertEquals(1, indice.size());
+    }
+
+    @Test
+    void testConsistenciaComHashMap() {
+        IndiceLong<Long> indice = new IndiceLong<>();
+        Map<Long, Long> referencia = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long chave = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(referencia.remove(chave), indice.remove(chave));
+            } else {
+                assertEquals(referencia.put(chave, (long) i), indice.put(chave, (long) i));
+            }
+        }
+
+        assertEquals(referencia.size(), indice.size());
+        referencia.forEach((chave, valor) -> assertEquals(valor, indice.get(chave)));
+    }
+}
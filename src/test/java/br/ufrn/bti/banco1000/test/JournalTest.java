@@ -0,0 +1,421 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.controller.FechamentoMensal;
+import br.ufrn.bti.banco1000.exception.JournalFailureException;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.ContaCorrente;
+import br.ufrn.bti.banco1000.model.ContaPoupanca;
+import br.ufrn.bti.banco1000.model.ContaSalario;
+import br.ufrn.bti.banco1000.model.Movimentacao;
+import br.ufrn.bti.banco1000.model.RelatorioFechamentoMensal;
+import br.ufrn.bti.banco1000.model.Transferencia;
+import br.ufrn.bti.banco1000.persistence.JournalOperacoes;
+import br.ufrn.bti.banco1000.persistence.ModoDurabilidade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    @TempDir
+    Path pasta;
+
+    @ParameterizedTest
+    @EnumSource(ModoDurabilidade.class)
+    void testRecuperarEstado(ModoDurabilidade modo) throws IOException {
+        Path arquivo = pasta.resolve("journal.bin");
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, modo, clientes, contas)) {
+            clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+            clientes.cadastrarCliente("Ana Souza", "98765432100", "ana@email.com", "88888-8888");
+            contas.criarConta("Conta João", clientes.buscarClientePorCpf("12345678901"),
+                    1, 100, Conta.TipoConta.CORRENTE, 1234, 1_000.00);
+            contas.criarConta("Conta Ana", clientes.buscarClientePorCpf("98765432100"),
+                    2, 200, Conta.TipoConta.POUPANCA, 5678, 50.00);
+
+            Conta joao = contas.buscarConta(1, 100);
+            Conta ana = contas.buscarConta(2, 200);
+            contas.depositar(joao, 250.50);
+            contas.sacar(joao, 100.25);
+            contas.transferir(joao, ana, 300.00);
+        }
+
+        ClienteController clientesRecuperados = new ClienteController();
+        ContaController contasRecuperadas = new ContaController();
+        JournalOperacoes.recuperar(arquivo, modo, clientesRecuperados, contasRecuperadas).close();
+
+        assertEquals(2, clientesRecuperados.listarClientes().size());
+        Conta joao = contasRecuperadas.buscarConta(1, 100);
+        Conta ana = contasRecuperadas.buscarConta(2, 200);
+        assertEquals(850.25, joao.getSaldo());
+        assertEquals(350.00, ana.getSaldo());
+        assertEquals("Ana Souza", ana.getCliente().getNome());
+        assertEquals(Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA, ana.getMovimentacoes().get(0).getTipo());
+    }
+
+    @Test
+    void testRecuperaSubclassesDasContas() throws IOException {
+        Path arquivo = pasta.resolve("journal.bin");
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE, clientes, contas)) {
+            clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+            Cliente joao = clientes.buscarClientePorCpf("12345678901");
+            contas.adicionarConta(new ContaCorrente("Corrente", joao, 1, 1, 1234, 100.00, 7.50));
+            contas.adicionarConta(new ContaPoupanca("Poupança", joao, 1, 2, 1234, 200.00, 0.015));
+            contas.adicionarConta(new ContaSalario("Salário", joao, 1, 3, 1234, 300.00, 2));
+            contas.criarConta("Comum", joao, 1, 4, Conta.TipoConta.CORRENTE, 1234, 10.00);
+            contas.sacar(contas.buscarConta(1, 3), 10.00);
+        }
+
+        ContaController recuperadas = new ContaController();
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE,
+                new ClienteController(), recuperadas)) {
+            ContaCorrente corrente = assertInstanceOf(ContaCorrente.class, recuperadas.buscarConta(1, 1));
+            assertEquals(7.50, corrente.getTaxaManutencao());
+            ContaPoupanca poupanca = assertInstanceOf(ContaPoupanca.class, recuperadas.buscarConta(1, 2));
+            assertEquals(0.015, poupanca.getTaxaRendimento());
+            ContaSalario salario = assertInstanceOf(ContaSalario.class, recuperadas.buscarConta(1, 3));
+            assertEquals(2, salario.getLimiteSaquesMensais());
+            assertEquals(1, salario.getSaquesRealizados());
+            assertEquals(290.00, salario.getSaldo());
+            assertEquals(Conta.class, recuperadas.buscarConta(1, 4).getClass());
+
+            recuperadas.sacar(salario, 10.00);
+            assertThrows(IllegalStateException.class, () -> recuperadas.sacar(salario, 10.00));
+        }
+    }
+
+    @Test
+    void testTaxaDeManutencaoSobreviveARecuperacao() throws IOException {
+        Path arquivo = pasta.resolve("journal.bin");
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE, clientes, contas)) {
+            clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+            ContaCorrente corrente = new ContaCorrente("Corrente", clientes.buscarClientePorCpf("12345678901"),
+                    1, 1, 1234, 10.00, 7.50);
+            contas.adicionarConta(corrente);
+            // Sem o journal, a taxa não pode ser cobrada pelo modelo
+            assertThrows(IllegalStateException.class, corrente::aplicarTaxaManutencao);
+            contas.aplicarTaxaManutencao(corrente);
+            assertThrows(IllegalStateException.class, () -> contas.aplicarTaxaManutencao(corrente));
+            assertEquals(250, corrente.getSaldoCentavos());
+        }
+
+        ContaController recuperadas = new ContaController();
+        JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE, new ClienteController(), recuperadas).close();
+        Conta corrente = recuperadas.buscarConta(1, 1);
+        assertEquals(250, corrente.getSaldoCentavos());
+        assertEquals(List.of(Movimentacao.TipoMovimentacao.SAQUE),
+                corrente.getMovimentacoes().stream().map(Movimentacao::getTipo).toList());
+    }
+
+    @Test
+    void testRendimentoMensalSobreviveARecuperacao() throws IOException {
+        Path arquivo = pasta.resolve("journal.bin");
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE, clientes, contas)) {
+            clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+            ContaPoupanca poupanca = new ContaPoupanca("Poupança", clientes.buscarClientePorCpf("12345678901"),
+                    1, 1, 1234, 200.00, 0.015);
+            contas.adicionarConta(poupanca);
+            assertThrows(IllegalStateException.class, poupanca::aplicarRendimentoMensal);
+            contas.aplicarRendimentoMensal(poupanca);
+            assertEquals(20_300, poupanca.getSaldoCentavos());
+        }
+
+        ContaController recuperadas = new ContaController();
+        JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE, new ClienteController(), recuperadas).close();
+        Conta poupanca = recuperadas.buscarConta(1, 1);
+        assertEquals(20_300, poupanca.getSaldoCentavos());
+        assertEquals(List.of(Movimentacao.TipoMovimentacao.DEPOSITO),
+                poupanca.getMovimentacoes().stream().map(Movimentacao::getTipo).toList());
+    }
+
+    @Test
+    void testTransferenciaComDescricaoSobreviveARecuperacao() throws IOException {
+        Path arquivo = pasta.resolve("journal.bin");
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE, clientes, contas)) {
+            clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+            Cliente joao = clientes.buscarClientePorCpf("12345678901");
+            contas.criarConta("Origem", joao, 1, 1, Conta.TipoConta.CORRENTE, 1234, 100.00);
+            contas.criarConta("Destino", joao, 1, 2, Conta.TipoConta.CORRENTE, 1234, 0.00);
+            Conta origem = contas.buscarConta(1, 1);
+            Conta destino = contas.buscarConta(1, 2);
+            assertThrows(IllegalStateException.class, () -> new Transferencia(origem, destino, 40.00, "Aluguel"));
+            Transferencia transferencia = contas.realizarTransferencia(origem, destino, 40.00, "Aluguel");
+            assertEquals(4_000, destino.getSaldoCentavos());
+            assertEquals(transferencia.getInstante(), destino.getMovimentacoes().get(0).getData().getTime());
+        }
+
+        ContaController recuperadas = new ContaController();
+        JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE, new ClienteController(), recuperadas).close();
+        assertEquals(6_000, recuperadas.buscarConta(1, 1).getSaldoCentavos());
+        assertEquals(4_000, recuperadas.buscarConta(1, 2).getSaldoCentavos());
+        assertEquals(List.of(Movimentacao.TipoMovimentacao.TRANSFERENCIA_RECEBIDA),
+                recuperadas.buscarConta(1, 2).getMovimentacoes().stream().map(Movimentacao::getTipo).toList());
+    }
+
+    @Test
+    void testCorteEsperaAsOperacoesEmAndamento() throws Exception {
+        try (JournalOperacoes journal = JournalOperacoes.abrir(pasta.resolve("journal.bin"), ModoDurabilidade.EM_LOTE)) {
+            Lock travaOperacao = journal.getTravaOperacao();
+            CountDownLatch noCorte = new CountDownLatch(1);
+            CountDownLatch liberarCorte = new CountDownLatch(1);
+
+            travaOperacao.lock();
+            Thread corte = new Thread(() -> journal.cortar(() -> {
+                noCorte.countDown();
+                try {
+                    liberarCorte.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            corte.start();
+            // A operação em andamento segura o corte
+            assertFalse(noCorte.await(100, TimeUnit.MILLISECONDS));
+            travaOperacao.unlock();
+            assertTrue(noCorte.await(10, TimeUnit.SECONDS));
+
+            // Durante o corte, nenhuma operação entra
+            assertFalse(travaOperacao.tryLock());
+            Thread operacao = new Thread(() -> {
+                travaOperacao.lock();
+                travaOperacao.unlock();
+            });
+            operacao.start();
+            operacao.join(100);
+            assertTrue(operacao.isAlive());
+
+            liberarCorte.countDown();
+            corte.join(10_000);
+            operacao.join(10_000);
+            assertFalse(operacao.isAlive());
+            assertTrue(travaOperacao.tryLock());
+            travaOperacao.unlock();
+        }
+    }
+
+    @Test
+    void testClienteNaoFicaCadastradoSeOJournalFalhar() throws IOException {
+        ClienteController clientes = new ClienteController();
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(pasta.resolve("journal.bin"),
+                ModoDurabilidade.EM_LOTE, clientes, new ContaController())) {
+            clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        }
+
+        // O journal fechado recusa o registro: o cliente não pode ficar nos índices
+        assertThrows(IllegalStateException.class,
+                () -> clientes.cadastrarCliente("Ana Souza", "98765432100", "ana@email.com", "88888-8888"));
+        assertNull(clientes.buscarClientePorCpf("98765432100"));
+        assertEquals(1, clientes.listarClientes().size());
+    }
+
+    @Test
+    void testFechamentoMensalRetomadoSemCobrarDuasVezes() throws IOException {
+        Path arquivo = pasta.resolve("journal.bin");
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+        YearMonth mes = YearMonth.of(2024, 3);
+
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE, clientes, contas)) {
+            clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+            Cliente joao = clientes.buscarClientePorCpf("12345678901");
+            for (int i = 0; i < 10; i++) {
+                contas.adicionarConta(new ContaPoupanca("Poupança", joao, 1, i, 1234, 100.00, 0.01));
+                contas.adicionarConta(new ContaCorrente("Corrente", joao, 2, i, 1234, i < 5 ? 100.00 : 1.00, 7.50));
+            }
+            ContaSalario salario = new ContaSalario("Salário", joao, 3, 1, 1234, 100.00, 1);
+            contas.adicionarConta(salario);
+            contas.sacar(salario, 10.00);
+            // Execução interrompida por uma queda depois de fechar as primeiras poupanças
+            for (int i = 0; i < 3; i++) {
+                Conta poupanca = contas.buscarConta(1, i);
+                assertTrue(poupanca.marcarMesFechado(mes));
+                long centavos = poupanca.fecharMes(System.currentTimeMillis());
+                journal.aguardarDurabilidade(journal.anexarFechamentoMensal(poupanca, mes, centavos,
+                        System.currentTimeMillis()));
+            }
+        }
+
+        ContaController recuperadas = new ContaController();
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE,
+                new ClienteController(), recuperadas)) {
+            long[] saldosAntes = new long[10];
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i < 3, recuperadas.buscarConta(1, i).isMesFechado(mes));
+                saldosAntes[i] = recuperadas.buscarConta(2, i).getSaldoCentavos();
+            }
+            assertThrows(IllegalStateException.class, () -> recuperadas.sacar(recuperadas.buscarConta(3, 1), 10.00));
+
+            FechamentoMensal fechamento = new FechamentoMensal(recuperadas, ForkJoinPool.commonPool(), 4);
+            RelatorioFechamentoMensal relatorio = fechamento.executar(mes);
+            assertEquals(18, relatorio.getContasFechadas());
+            assertEquals(3, relatorio.getContasJaFechadas());
+            assertEquals(6, relatorio.getParticoes().size());
+            assertEquals(7 * 100, relatorio.getRendimentosCentavos());
+            assertEquals(5 * 750, relatorio.getTaxasCentavos());
+            assertEquals(5, relatorio.getTaxasRecusadas());
+            for (int i = 0; i < 10; i++) {
+                // Um único rendimento por poupança, inclusive nas fechadas antes da queda
+                assertEquals(10_100, recuperadas.buscarConta(1, i).getSaldoCentavos());
+                long taxa = (i < 5) ? 750 : 0;
+                assertEquals(saldosAntes[i] - taxa, recuperadas.buscarConta(2, i).getSaldoCentavos());
+            }
+            recuperadas.sacar(recuperadas.buscarConta(3, 1), 10.00);
+
+            RelatorioFechamentoMensal repetido = fechamento.executar(mes);
+            assertEquals(0, repetido.getContasFechadas());
+            assertEquals(21, repetido.getContasJaFechadas());
+        }
+
+        ContaController novamente = new ContaController();
+        JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE, new ClienteController(), novamente).close();
+        assertEquals(101.00, novamente.buscarConta(1, 9).getSaldo());
+        assertEquals(92.50, novamente.buscarConta(2, 0).getSaldo());
+        assertEquals(1.00, novamente.buscarConta(2, 9).getSaldo());
+        assertEquals(80.00, novamente.buscarConta(3, 1).getSaldo());
+        assertEquals(1, ((ContaSalario) novamente.buscarConta(3, 1)).getSaquesRealizados());
+        assertTrue(novamente.buscarConta(2, 9).isMesFechado(mes));
+        assertTrue(novamente.buscarConta(1, 9).isMesFechado(mes));
+        assertFalse(novamente.buscarConta(1, 9).isMesFechado(mes.plusMonths(1)));
+    }
+
+    @Test
+    void testDescartaRegistroIncompletoNoFim() throws IOException {
+        Path arquivo = pasta.resolve("journal.bin");
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.POR_OPERACAO, clientes, contas)) {
+            clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+            contas.criarConta("Conta João", clientes.buscarClientePorCpf("12345678901"),
+                    1, 100, Conta.TipoConta.CORRENTE, 1234, 10.00);
+            contas.depositar(contas.buscarConta(1, 100), 5.00);
+        }
+        long tamanhoValido = Files.size(arquivo);
+        // Simula uma escrita interrompida: registro com tamanho declarado mas sem o conteúdo
+        Files.write(arquivo, new byte[]{0, 0, 0, 40, 3, 0, 0}, StandardOpenOption.APPEND);
+
+        ContaController recuperadas = new ContaController();
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.POR_OPERACAO,
+                new ClienteController(), recuperadas)) {
+            assertEquals(tamanhoValido, Files.size(arquivo));
+            recuperadas.depositar(recuperadas.buscarConta(1, 100), 1.00);
+        }
+
+        ContaController novamente = new ContaController();
+        JournalOperacoes.recuperar(arquivo, ModoDurabilidade.POR_OPERACAO, new ClienteController(), novamente).close();
+        assertEquals(16.00, novamente.buscarConta(1, 100).getSaldo());
+    }
+
+    @Test
+    void testSincronizacaoEmGrupoConcorrente() throws Exception {
+        Path arquivo = pasta.resolve("journal.bin");
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.POR_OPERACAO, clientes, contas)) {
+            clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+            for (int i = 0; i < 8; i++) {
+                contas.criarConta("Conta " + i, clientes.buscarClientePorCpf("12345678901"),
+                        1, i, Conta.TipoConta.CORRENTE, 1234, 0.00);
+            }
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                Conta conta = contas.buscarConta(1, t);
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        contas.depositar(conta, 1.00);
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        ContaController recuperadas = new ContaController();
+        JournalOperacoes.recuperar(arquivo, ModoDurabilidade.ASSINCRONO, new ClienteController(), recuperadas).close();
+        for (int i = 0; i < 8; i++) {
+            assertEquals(200.00, recuperadas.buscarConta(1, i).getSaldo());
+        }
+    }
+
+    @Test
+    void testChaveIdempotenciaLembradaAposRecuperacao() throws IOException {
+        Path arquivo = pasta.resolve("journal.bin");
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE, clientes, contas)) {
+            clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+            Cliente joao = clientes.buscarClientePorCpf("12345678901");
+            contas.criarConta("Origem", joao, 1, 1, Conta.TipoConta.CORRENTE, 1234, 100.00);
+            contas.criarConta("Destino", joao, 1, 2, Conta.TipoConta.CORRENTE, 1234, 0.00);
+            contas.transferir(contas.buscarConta(1, 1), contas.buscarConta(1, 2), 40.00, "pagamento-1");
+            contas.depositar(contas.buscarConta(1, 2), 10.00, "deposito-1");
+            contas.sacar(contas.buscarConta(1, 1), 5.00);
+        }
+
+        ContaController recuperadas = new ContaController();
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivo, ModoDurabilidade.EM_LOTE,
+                new ClienteController(), recuperadas)) {
+            Conta origem = recuperadas.buscarConta(1, 1);
+            Conta destino = recuperadas.buscarConta(1, 2);
+            assertFalse(recuperadas.transferir(origem, destino, 40.00, "pagamento-1"));
+            assertFalse(recuperadas.depositar(destino, 10.00, "deposito-1"));
+            assertEquals(55.00, origem.getSaldo());
+            assertEquals(50.00, destino.getSaldo());
+        }
+    }
+
+    @Test
+    void testFalhaDoJournalAposAplicarNaoViraRecusa() throws IOException {
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+        JournalOperacoes journal = JournalOperacoes.recuperar(pasta.resolve("journal.bin"), ModoDurabilidade.EM_LOTE,
+                clientes, contas);
+        clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        contas.criarConta("Conta", clientes.buscarClientePorCpf("12345678901"), 1, 1, Conta.TipoConta.CORRENTE,
+                1234, 100.00);
+        Conta conta = contas.buscarConta(1, 1);
+        journal.close();
+
+        // O depósito é aplicado antes de o journal recusar o registro: a repetição não o aplica de novo
+        assertThrows(JournalFailureException.class, () -> contas.depositar(conta, 10.00, "deposito-1"));
+        assertEquals(110.00, conta.getSaldo());
+        assertFalse(contas.depositar(conta, 10.00, "deposito-1"));
+        assertEquals(110.00, conta.getSaldo());
+    }
+}
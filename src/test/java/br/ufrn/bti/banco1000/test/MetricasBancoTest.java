@@ -0,0 +1,50 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.metricas.MetricasBanco;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.ContaSalario;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricasBancoTest {
+
+    @Test
+    void operacoesERecusasAparecemNosMBeans() throws Exception {
+        MetricasBanco metricas = MetricasBanco.padrao();
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        ObjectName saques = new ObjectName("br.ufrn.bti.banco1000:type=Operacao,name=sacar");
+        ObjectName banco = new ObjectName(MetricasBanco.NOME_BANCO);
+
+        long saquesAntes = (Long) servidor.getAttribute(saques, "Quantidade");
+        long errosAntes = (Long) servidor.getAttribute(saques, "Erros");
+        long contasAntes = (Long) servidor.getAttribute(banco, "ContasCadastradas");
+        long saldoAntes = metricas.getRecusasSaldoInsuficiente();
+        long limiteAntes = metricas.getRecusasLimiteSaques();
+
+        ContaController contas = new ContaController();
+        Cliente cliente = new Cliente("Metricas", "00000000023", "metricas@email.com", "84999990023");
+        Conta corrente = new Conta("Corrente", cliente, 1, 1, Conta.TipoConta.CORRENTE, 1, 100.00);
+        ContaSalario salario = new ContaSalario("Salario", cliente, 1, 2, 1, 100.00, 1);
+        contas.adicionarConta(corrente);
+        contas.adicionarConta(salario);
+
+        contas.sacar(corrente, 10.00);
+        assertThrows(IllegalStateException.class, () -> contas.sacar(corrente, 1_000.00));
+        contas.sacar(salario, 10.00);
+        assertThrows(IllegalStateException.class, () -> contas.sacar(salario, 10.00));
+
+        assertEquals(saquesAntes + 4, (Long) servidor.getAttribute(saques, "Quantidade"));
+        assertEquals(errosAntes + 2, (Long) servidor.getAttribute(saques, "Erros"));
+        assertEquals(contasAntes + 2, (Long) servidor.getAttribute(banco, "ContasCadastradas"));
+        assertEquals(saldoAntes + 1, metricas.getRecusasSaldoInsuficiente());
+        assertEquals(limiteAntes + 1, metricas.getRecusasLimiteSaques());
+        assertTrue((Double) servidor.getAttribute(saques, "LatenciaMaximaMicros") > 0);
+    }
+}
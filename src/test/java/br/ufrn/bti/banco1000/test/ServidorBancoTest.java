@@ -0,0 +1,100 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.servidor.ServidorBanco;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServidorBancoTest {
+
+    private final ClienteController clientes = new ClienteController();
+    private final ContaController contas = new ContaController();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private ServidorBanco servidor;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        servidor = new ServidorBanco(clientes, contas);
+        servidor.iniciar(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @AfterEach
+    void encerrar() {
+        servidor.close();
+    }
+
+    private HttpRequest requisicao(String metodo, String caminho, String formulario) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + servidor.getPorta() + caminho))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .method(metodo, formulario == null
+                        ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(formulario))
+                .build();
+    }
+
+    private HttpResponse<String> enviar(String metodo, String caminho, String formulario) throws Exception {
+        return http.send(requisicao(metodo, caminho, formulario), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testOperacoesPorHttp() throws Exception {
+        assertEquals(201, enviar("POST", "/clientes",
+                "nome=Jo%C3%A3o+Silva&cpf=12345678901&email=joao%40email.com&telefone=99999-9999").statusCode());
+        assertEquals(409, enviar("POST", "/clientes",
+                "nome=Outro&cpf=12345678901&email=x&telefone=1").statusCode());
+        assertEquals("João Silva,12345678901,joao@email.com,99999-9999",
+                enviar("GET", "/clientes/12345678901", null).body());
+
+        assertEquals(201, enviar("POST", "/contas", "cpf=12345678901&agencia=1&numero=10&tipo=corrente&senha=1&saldo=100").statusCode());
+        assertEquals(201, enviar("POST", "/contas", "cpf=12345678901&agencia=1&numero=20&tipo=POUPANCA&senha=1&saldo=0").statusCode());
+        assertEquals(404, enviar("POST", "/contas", "cpf=98765432100&agencia=1&numero=30&tipo=CORRENTE&senha=1&saldo=0").statusCode());
+
+        assertEquals("150.00", enviar("POST", "/depositos", "agencia=1&numero=10&valor=50").body());
+        assertEquals("120.00", enviar("POST", "/saques?agencia=1&numero=10&valor=30", null).body());
+        assertEquals("100.00", enviar("POST", "/transferencias",
+                "agenciaOrigem=1&numeroOrigem=10&agenciaDestino=1&numeroDestino=20&valor=20").body());
+
+        HttpResponse<String> recusada = enviar("POST", "/saques", "agencia=1&numero=20&valor=500");
+        assertEquals(409, recusada.statusCode());
+        assertEquals(400, enviar("POST", "/depositos", "agencia=1&numero=10&valor=abc").statusCode());
+        assertEquals(400, enviar("POST", "/depositos", "agencia=1&numero=10").statusCode());
+        assertEquals(404, enviar("POST", "/depositos", "agencia=9&numero=10&valor=1").statusCode());
+        assertEquals(404, enviar("DELETE", "/contas", null).statusCode());
+
+        assertEquals("1,20,João Silva,12345678901,POUPANCA,20.00", enviar("GET", "/contas/1/20", null).body());
+        assertEquals(2, enviar("GET", "/contas", null).body().lines().count());
+        assertEquals("1,20,João Silva,12345678901,POUPANCA,20.00\n",
+                enviar("GET", "/contas?inicio=1&limite=5", null).body());
+    }
+
+    @Test
+    void testDepositosConcorrentes() throws Exception {
+        enviar("POST", "/clientes", "nome=Ana&cpf=12345678901&email=ana%40email.com&telefone=1");
+        enviar("POST", "/contas", "cpf=12345678901&agencia=1&numero=1&tipo=CORRENTE&senha=1&saldo=0");
+
+        List<CompletableFuture<HttpResponse<String>>> respostas = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            respostas.add(http.sendAsync(requisicao("POST", "/depositos", "agencia=1&numero=1&valor=1"),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> resposta : respostas) {
+            assertEquals(200, resposta.get().statusCode());
+        }
+        assertEquals(50_000L, contas.buscarConta(1, 1).getSaldoCentavos());
+        assertEquals(500, contas.buscarConta(1, 1).getMovimentacoes().size());
+    }
+}
@@ -0,0 +1,183 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.controller.ClienteController;
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import br.ufrn.bti.banco1000.model.ContaCorrente;
+import br.ufrn.bti.banco1000.model.ContaPoupanca;
+import br.ufrn.bti.banco1000.model.ContaSalario;
+import br.ufrn.bti.banco1000.model.Movimentacao;
+import br.ufrn.bti.banco1000.persistence.JournalOperacoes;
+import br.ufrn.bti.banco1000.persistence.ModoDurabilidade;
+import br.ufrn.bti.banco1000.persistence.SnapshotBanco;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotBancoTest {
+
+    @TempDir
+    Path pasta;
+
+    @Test
+    void testRestaurarContasComCamposDasSubclassesEHistorico() throws IOException, ExecutionException, InterruptedException {
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+        clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        Cliente joao = clientes.buscarClientePorCpf("12345678901");
+        Cliente avulso = new Cliente("Ana Souza", "98765432100", "ana@email.com", "88888-8888");
+
+        ContaCorrente corrente = new ContaCorrente("Corrente", joao, 1, 100, 1234, 500.00, 12.50);
+        ContaPoupanca poupanca = new ContaPoupanca("Poupança", joao, 1, 200, 1234, 1_000.00, 0.005);
+        ContaSalario salario = new ContaSalario("Salário", avulso, 2, 300, 4321, 0.00, 3);
+        contas.adicionarConta(corrente);
+        contas.adicionarConta(poupanca);
+        contas.adicionarConta(salario);
+        contas.criarConta("Comum", joao, 3, 400, Conta.TipoConta.POUPANCA, 1111, 10.00);
+
+        contas.transferir(corrente, salario, 100.00);
+        contas.sacar(salario, 40.00);
+        Movimentacao ajuste = new Movimentacao(Movimentacao.TipoMovimentacao.DEPOSITO, 200, "Ajuste manual", 1.00);
+        poupanca.adicionarMovimentacao(ajuste);
+        corrente.marcarMesFechado(YearMonth.of(2024, 3));
+
+        Path arquivo = pasta.resolve("banco.snapshot");
+        assertEquals(4, SnapshotBanco.gravarEmSegundoPlano(arquivo, clientes, contas).get());
+
+        ClienteController clientesRestaurados = new ClienteController();
+        ContaController contasRestauradas = new ContaController();
+        assertEquals(4, SnapshotBanco.restaurar(arquivo, clientesRestaurados, contasRestauradas));
+
+        // Só o cliente cadastrado volta ao cadastro; o avulso continua ligado à sua conta
+        assertEquals(1, clientesRestaurados.listarClientes().size());
+        assertNull(clientesRestaurados.buscarClientePorCpf("98765432100"));
+
+        ContaCorrente correnteRestaurada = (ContaCorrente) contasRestauradas.buscarConta(1, 100);
+        assertEquals(400.00, correnteRestaurada.getSaldo());
+        assertEquals(12.50, correnteRestaurada.getTaxaManutencao());
+        assertEquals(YearMonth.of(2024, 3), correnteRestaurada.getUltimoMesFechado());
+        assertSame(clientesRestaurados.buscarClientePorCpf("12345678901"), correnteRestaurada.getCliente());
+        assertEquals(3, correnteRestaurada.getCliente().getContas().size());
+
+        ContaPoupanca poupancaRestaurada = (ContaPoupanca) contasRestauradas.buscarConta(1, 200);
+        assertEquals(0.005, poupancaRestaurada.getTaxaRendimento());
+        assertEquals(List.of(ajuste), poupancaRestaurada.getMovimentacoes());
+        assertEquals("Ajuste manual", poupancaRestaurada.getMovimentacoes().get(0).getDescricao());
+
+        ContaSalario salarioRestaurada = (ContaSalario) contasRestauradas.buscarConta(2, 300);
+        assertEquals(60.00, salarioRestaurada.getSaldo());
+        assertEquals(3, salarioRestaurada.getLimiteSaquesMensais());
+        assertEquals(1, salarioRestaurada.getSaquesRealizados());
+        assertEquals("Ana Souza", salarioRestaurada.getCliente().getNome());
+        assertEquals(salario.getMovimentacoes(), salarioRestaurada.getMovimentacoes());
+        assertEquals(salario.getResumoMensal(YearMonth.now()).getVariacaoSaldoCentavos(),
+                salarioRestaurada.getResumoMensal(YearMonth.now()).getVariacaoSaldoCentavos());
+
+        Conta comum = contasRestauradas.buscarConta(3, 400);
+        assertEquals(Conta.class, comum.getClass());
+        assertEquals(Conta.TipoConta.POUPANCA, comum.getTipo());
+    }
+
+    @Test
+    void testSnapshotNoCorteDoJournalComOperacoesConcorrentes() throws Exception {
+        Path arquivoJournal = pasta.resolve("journal.bin");
+        Path arquivo = pasta.resolve("banco.snapshot");
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+        int quantidade = 16;
+        long posicaoCorte;
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivoJournal, ModoDurabilidade.ASSINCRONO,
+                clientes, contas)) {
+            clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+            Cliente joao = clientes.buscarClientePorCpf("12345678901");
+            for (int i = 0; i < quantidade; i++) {
+                contas.adicionarConta(new ContaSalario("Conta " + i, joao, 1, i, 1234, 100.00, 1_000_000));
+            }
+            contas.depositar(contas.buscarConta(1, 0), 1.00, "antes-do-corte");
+
+            AtomicBoolean parar = new AtomicBoolean();
+            Thread[] threads = new Thread[3];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    while (!parar.get()) {
+                        Conta origem = contas.buscarConta(1, aleatorio.nextInt(quantidade));
+                        Conta destino = contas.buscarConta(1, aleatorio.nextInt(quantidade));
+                        try {
+                            contas.transferir(origem, destino, 1 + aleatorio.nextInt(30));
+                        } catch (IllegalArgumentException | IllegalStateException e) {
+                            // Mesma conta ou saldo insuficiente: ignorada
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            try {
+                for (int i = 0; i < 20; i++) {
+                    SnapshotBanco.gravarEmSegundoPlano(arquivo, clientes, contas, journal).get();
+                }
+            } finally {
+                parar.set(true);
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+            posicaoCorte = SnapshotBanco.posicaoJournal(arquivo);
+            contas.depositar(contas.buscarConta(1, 1), 2.00, "depois-do-corte");
+        }
+        assertTrue(posicaoCorte > 0);
+
+        ClienteController clientesRestaurados = new ClienteController();
+        ContaController contasRestauradas = new ContaController();
+        SnapshotBanco.restaurar(arquivo, clientesRestaurados, contasRestauradas);
+        try (JournalOperacoes journal = JournalOperacoes.recuperar(arquivoJournal, ModoDurabilidade.ASSINCRONO,
+                clientesRestaurados, contasRestauradas, posicaoCorte)) {
+            // Nem perdida nem reaplicada duas vezes: cada conta volta exatamente como estava
+            for (int i = 0; i < quantidade; i++) {
+                ContaSalario original = (ContaSalario) contas.buscarConta(1, i);
+                ContaSalario restaurada = (ContaSalario) contasRestauradas.buscarConta(1, i);
+                assertEquals(original.getSaldoCentavos(), restaurada.getSaldoCentavos());
+                assertEquals(original.getMovimentacoes().size(), restaurada.getMovimentacoes().size());
+                assertEquals(original.getSaquesRealizados(), restaurada.getSaquesRealizados());
+            }
+            // As chaves de antes e de depois do corte continuam lembradas
+            assertFalse(contasRestauradas.depositar(contasRestauradas.buscarConta(1, 0), 1.00, "antes-do-corte"));
+            assertFalse(contasRestauradas.depositar(contasRestauradas.buscarConta(1, 1), 2.00, "depois-do-corte"));
+        }
+
+        // Um journal mais curto que o corte não é aceito
+        Files.delete(arquivoJournal);
+        assertThrows(IOException.class, () -> JournalOperacoes.recuperar(arquivoJournal, ModoDurabilidade.ASSINCRONO,
+                new ClienteController(), new ContaController(), posicaoCorte));
+    }
+
+    @Test
+    void testSnapshotIncompletoERecusado() throws IOException {
+        ClienteController clientes = new ClienteController();
+        ContaController contas = new ContaController();
+        clientes.cadastrarCliente("João Silva", "12345678901", "joao@email.com", "99999-9999");
+        contas.criarConta("Conta", clientes.buscarClientePorCpf("12345678901"), 1, 1, Conta.TipoConta.CORRENTE, 1, 5.00);
+
+        Path arquivo = pasta.resolve("banco.snapshot");
+        SnapshotBanco.gravar(arquivo, clientes, contas);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - 3);
+        }
+
+        assertThrows(IOException.class,
+                () -> SnapshotBanco.restaurar(arquivo, new ClienteController(), new ContaController()));
+    }
+}
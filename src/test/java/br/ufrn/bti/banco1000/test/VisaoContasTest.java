@@ -0,0 +1,123 @@
+package br.ufrn.bti.banco1000.test;
+
+import br.ufrn.bti.banco1000.controller.ContaController;
+import br.ufrn.bti.banco1000.controller.VisaoContas;
+import br.ufrn.bti.banco1000.model.Cliente;
+import br.ufrn.bti.banco1000.model.Conta;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VisaoContasTest {
+
+    private static Cliente cliente() {
+        return new Cliente("Visao", "00000000025", "visao@email.com", "84999990025");
+    }
+
+    @Test
+    void versaoAbertaNaoEnxergaOperacoesPosteriores() {
+        ContaController contas = new ContaController();
+        Cliente cliente = cliente();
+        Conta origem = new Conta("Origem", cliente, 1, 1, Conta.TipoConta.CORRENTE, 1, 100.00);
+        Conta destino = new Conta("Destino", cliente, 1, 2, Conta.TipoConta.CORRENTE, 1, 0);
+        contas.adicionarConta(origem);
+        contas.adicionarConta(destino);
+        contas.depositar(origem, 20.00);
+        List<Conta> listadas = contas.listarContas();
+
+        try (VisaoContas visao = contas.abrirVisao()) {
+            contas.depositar(origem, 5.00);
+            contas.transferir(origem, destino, 50.00);
+            contas.adicionarConta(new Conta("Nova", cliente, 1, 3, Conta.TipoConta.CORRENTE, 1, 0));
+
+            assertEquals(12_000, visao.getSaldoCentavos(origem));
+            assertEquals(0, visao.getSaldoCentavos(destino));
+            assertEquals(1, visao.getMovimentacoes(origem).size());
+            assertEquals(0, visao.getMovimentacoes(destino).size());
+            assertEquals(2, visao.getContas().size());
+            assertEquals(7_500, origem.getSaldoCentavos());
+            assertEquals(3, origem.getMovimentacoes().size());
+        }
+        assertEquals(2, listadas.size());
+        assertEquals(3, contas.listarContas().size());
+        try (VisaoContas visao = contas.abrirVisao()) {
+            assertEquals(7_500, visao.getSaldoCentavos(origem));
+            assertEquals(5_000, visao.getSaldoCentavos(destino));
+        }
+    }
+
+    @Test
+    void somaDosSaldosNaVersaoNaoMudaComTransferenciasConcorrentes() throws Exception {
+        ContaController contas = new ContaController();
+        Cliente cliente = cliente();
+        int quantidade = 64;
+        for (int i = 0; i < quantidade; i++) {
+            contas.criarConta("Conta " + i, cliente, 1, i, Conta.TipoConta.CORRENTE, 1, 100.00);
+        }
+        List<Conta> todas = contas.listarContas();
+        long total = quantidade * 10_000L;
+
+        AtomicBoolean parar = new AtomicBoolean();
+        Thread[] threads = new Thread[3];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                while (!parar.get()) {
+                    Conta origem = todas.get(aleatorio.nextInt(quantidade));
+                    Conta destino = todas.get(aleatorio.nextInt(quantidade));
+                    try {
+                        contas.transferir(origem, destino, 1 + aleatorio.nextInt(30));
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        // Mesma conta ou saldo insuficiente: ignorada
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        try {
+            for (int v = 0; v < 200; v++) {
+                try (VisaoContas visao = contas.abrirVisao()) {
+                    long soma = 0;
+                    long movimentacoes = 0;
+                    for (Conta conta : visao.getContas()) {
+                        soma += visao.getSaldoCentavos(conta);
+                        movimentacoes += visao.getMovimentacoes(conta).size();
+                    }
+                    assertEquals(total, soma);
+                    assertEquals(0, movimentacoes % 2);
+                }
+            }
+        } finally {
+            parar.set(true);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+    }
+
+    @Test
+    void versoesDeControllersDiferentesSaoIndependentes() {
+        ContaController primeiro = new ContaController();
+        ContaController segundo = new ContaController();
+        Cliente cliente = cliente();
+        Conta conta = new Conta("Primeiro", cliente, 1, 1, Conta.TipoConta.CORRENTE, 1, 10.00);
+        primeiro.adicionarConta(conta);
+        segundo.criarConta("Segundo", cliente, 1, 2, Conta.TipoConta.CORRENTE, 1, 10.00);
+        Conta outra = segundo.buscarConta(1, 2);
+
+        try (VisaoContas visao = primeiro.abrirVisao(); VisaoContas outraVisao = segundo.abrirVisao()) {
+            assertEquals(visao.getVersao(), outraVisao.getVersao());
+            segundo.depositar(outra, 5.00);
+            primeiro.depositar(conta, 5.00);
+            assertEquals(1_000, visao.getSaldoCentavos(conta));
+            assertEquals(1_000, outraVisao.getSaldoCentavos(outra));
+        }
+        // A conta pertence às versões de um único controller
+        assertThrows(IllegalStateException.class, () -> segundo.adicionarConta(conta));
+        assertNull(segundo.buscarConta(1, 1));
+    }
+}